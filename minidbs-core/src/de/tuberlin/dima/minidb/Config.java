@@ -13,6 +13,8 @@ import java.util.InvalidPropertiesFormatException;
 import java.util.Properties;
 
 import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.cache.ReplacementPolicyType;
+import de.tuberlin.dima.minidb.io.manager.DurabilityMode;
 
 
 /**
@@ -35,8 +37,44 @@ public final class Config
 	
 	private static final String CACHE_SIZE_KEY_PREFIX = "CACHE_SIZE_FOR_PAGE_";
 	
+	private static final String CACHE_PARTITIONS_KEY = "CACHE_PARTITIONS";
+	
+	private static final String CACHE_TUNING_INTERVAL_KEY = "CACHE_TUNING_INTERVAL_MSECS";
+	
+	private static final String CACHE_REPLACEMENT_POLICY_KEY = "CACHE_REPLACEMENT_POLICY";
+	
+	private static final String CACHE_TRACE_FILE_KEY = "CACHE_TRACE_FILE";
+	
+	private static final String CACHE_IMAGE_FILE_KEY = "CACHE_IMAGE_FILE";
+	
+	private static final String CACHE_IMAGE_INTERVAL_KEY = "CACHE_IMAGE_INTERVAL_MSECS";
+	
 	private static final String NUM_IO_BUFFERS_KEY = "NUM_IO_BUFFERS";
 	
+	private static final String NUM_READ_THREADS_KEY = "NUM_READ_THREADS";
+	
+	private static final String WRITE_BATCH_WINDOW_KEY = "WRITE_BATCH_WINDOW_MSECS";
+	
+	private static final String CLEANER_INTERVAL_KEY = "CLEANER_INTERVAL_MSECS";
+	
+	private static final String CLEANER_HIGH_WATERMARK_KEY = "CLEANER_HIGH_WATERMARK_PERCENT";
+	
+	private static final String CLEANER_LOW_WATERMARK_KEY = "CLEANER_LOW_WATERMARK_PERCENT";
+	
+	private static final String DURABILITY_MODE_KEY = "DURABILITY_MODE";
+	
+	private static final String CHECKPOINT_INTERVAL_KEY = "CHECKPOINT_INTERVAL_MSECS";
+	
+	private static final String MAPPED_READS_KEY = "MAPPED_READS";
+	
+	private static final String DIRECT_IO_KEY = "DIRECT_IO";
+	
+	private static final String EXTENT_PAGES_KEY = "EXTENT_PAGES";
+	
+	private static final String MAX_READ_AHEAD_PAGES_KEY = "MAX_READ_AHEAD_PAGES";
+	
+	private static final String BUFFER_POOL_METRICS_KEY = "BUFFER_POOL_METRICS";
+	
 	private static final String NUM_CONCURRENT_QUERIES_KEY = "NUM_CONCURRENT_QUERIES";
 	
 	private static final String BLOCK_READ_COST = "BLOCK_READ_TRANSFER_NSECS";
@@ -188,6 +226,156 @@ public final class Config
 		return Integer.parseInt(val);
 	}
 	
+	/**
+	 * Sets the capacity of the cache that serves pages of the given size.
+	 * 
+	 * @param pageSize The page size of the cache to set the capacity for.
+	 * @param numPages The cache capacity, in pages.
+	 */
+	public void setCacheSize(PageSize pageSize, int numPages)
+	{
+		if (numPages < 1) {
+			throw new IllegalArgumentException("The cache must hold at least one page.");
+		}
+		this.props.setProperty(CACHE_SIZE_KEY_PREFIX + pageSize.name(), String.valueOf(numPages));
+	}
+	
+	/**
+	 * Gets the number of independently locked partitions into which each page cache
+	 * is split. A value of one means that every cache is guarded by a single lock.
+	 * 
+	 * @return The number of cache partitions.
+	 */
+	public int getCachePartitions()
+	{
+		String val = this.props.getProperty(CACHE_PARTITIONS_KEY);
+		return Integer.parseInt(val);
+	}
+	
+	/**
+	 * Gets the time (in milliseconds) between two decisions of the buffer pool to move
+	 * memory between the caches of different page sizes, toward the cache that would gain
+	 * the most hits from it. A value of zero keeps the caches at the size they were
+	 * created with.
+	 * 
+	 * @return The cache tuning interval in milliseconds.
+	 */
+	public long getCacheTuningInterval()
+	{
+		String val = this.props.getProperty(CACHE_TUNING_INTERVAL_KEY);
+		return Long.parseLong(val);
+	}
+	
+	/**
+	 * Sets the time (in milliseconds) between two decisions of the buffer pool to move
+	 * memory between the caches of different page sizes. A value of zero disables the tuning.
+	 * 
+	 * @param millis The cache tuning interval in milliseconds.
+	 */
+	public void setCacheTuningInterval(long millis)
+	{
+		if (millis < 0) {
+			throw new IllegalArgumentException("The cache tuning interval must not be negative.");
+		}
+		this.props.setProperty(CACHE_TUNING_INTERVAL_KEY, String.valueOf(millis));
+	}
+	
+	/**
+	 * Gets the policy by which the page caches choose the pages to evict.
+	 * 
+	 * @return The replacement policy of the page caches.
+	 */
+	public ReplacementPolicyType getCacheReplacementPolicy()
+	{
+		String val = this.props.getProperty(CACHE_REPLACEMENT_POLICY_KEY);
+		return ReplacementPolicyType.valueOf(val);
+	}
+	
+	/**
+	 * Sets the policy by which the page caches choose the pages to evict.
+	 * 
+	 * @param policy The replacement policy of the page caches.
+	 */
+	public void setCacheReplacementPolicy(ReplacementPolicyType policy)
+	{
+		if (policy == null) {
+			throw new IllegalArgumentException("The replacement policy must not be null.");
+		}
+		this.props.setProperty(CACHE_REPLACEMENT_POLICY_KEY, policy.name());
+	}
+	
+	/**
+	 * Gets the file to which the buffer pool records the pages that are requested from it, as
+	 * a trace that the cache simulator can replay.
+	 * 
+	 * @return The name of the trace file, or null, if no trace is recorded.
+	 */
+	public String getCacheTraceFile()
+	{
+		String val = this.props.getProperty(CACHE_TRACE_FILE_KEY);
+		return val == null || val.isEmpty() ? null : val;
+	}
+	
+	/**
+	 * Sets the file to which the buffer pool records the pages that are requested from it.
+	 * 
+	 * @param fileName The name of the trace file, or null to record no trace.
+	 */
+	public void setCacheTraceFile(String fileName)
+	{
+		this.props.setProperty(CACHE_TRACE_FILE_KEY, fileName == null ? "" : fileName);
+	}
+	
+	/**
+	 * Gets the file to which the instance saves the list of the cached pages when it shuts
+	 * down, and from which it warms the caches up when it starts. A relative name is resolved
+	 * against the data directory.
+	 * 
+	 * @return The name of the cache image file, or null, if no image is kept.
+	 */
+	public String getCacheImageFile()
+	{
+		String val = this.props.getProperty(CACHE_IMAGE_FILE_KEY);
+		return val == null || val.isEmpty() ? null : val;
+	}
+	
+	/**
+	 * Sets the file to which the instance saves the list of the cached pages, and from which
+	 * it warms the caches up.
+	 * 
+	 * @param fileName The name of the cache image file, or null to keep no image.
+	 */
+	public void setCacheImageFile(String fileName)
+	{
+		this.props.setProperty(CACHE_IMAGE_FILE_KEY, fileName == null ? "" : fileName);
+	}
+	
+	/**
+	 * Gets the time (in milliseconds) between two saves of the cache image while the instance
+	 * runs. A value of zero saves the image only when the instance shuts down.
+	 * 
+	 * @return The cache image interval in milliseconds.
+	 */
+	public long getCacheImageInterval()
+	{
+		String val = this.props.getProperty(CACHE_IMAGE_INTERVAL_KEY);
+		return Long.parseLong(val);
+	}
+	
+	/**
+	 * Sets the time (in milliseconds) between two saves of the cache image while the instance
+	 * runs. A value of zero saves the image only when the instance shuts down.
+	 * 
+	 * @param millis The cache image interval in milliseconds.
+	 */
+	public void setCacheImageInterval(long millis)
+	{
+		if (millis < 0) {
+			throw new IllegalArgumentException("The cache image interval must not be negative.");
+		}
+		this.props.setProperty(CACHE_IMAGE_INTERVAL_KEY, String.valueOf(millis));
+	}
+	
 	/**
 	 * Gets the number of I/O buffers to be used by the buffer pool.
 	 * 
@@ -199,6 +387,333 @@ public final class Config
 		return Integer.parseInt(val);
 	}
 	
+	/**
+	 * Gets the number of threads that the buffer pool uses to read pages from
+	 * secondary storage.
+	 * 
+	 * @return The number of read threads.
+	 */
+	public int getNumReadThreads()
+	{
+		String val = this.props.getProperty(NUM_READ_THREADS_KEY);
+		return Integer.parseInt(val);
+	}
+	
+	/**
+	 * Sets the number of threads that the buffer pool uses to read pages from
+	 * secondary storage.
+	 * 
+	 * @param numThreads The number of read threads.
+	 */
+	public void setNumReadThreads(int numThreads)
+	{
+		if (numThreads < 1) {
+			throw new IllegalArgumentException("At least one read thread is needed.");
+		}
+		this.props.setProperty(NUM_READ_THREADS_KEY, String.valueOf(numThreads));
+	}
+	
+	/**
+	 * Gets the time (in milliseconds) for which the buffer pool collects modified pages
+	 * before writing them, so that consecutive pages can be written together.
+	 * 
+	 * @return The batching window for writes in milliseconds.
+	 */
+	public long getWriteBatchWindow()
+	{
+		String val = this.props.getProperty(WRITE_BATCH_WINDOW_KEY);
+		return Long.parseLong(val);
+	}
+	
+	/**
+	 * Sets the time (in milliseconds) for which the buffer pool collects modified pages
+	 * before writing them. A value of zero writes whatever is queued right away.
+	 * 
+	 * @param millis The batching window for writes in milliseconds.
+	 */
+	public void setWriteBatchWindow(long millis)
+	{
+		if (millis < 0) {
+			throw new IllegalArgumentException("The batching window must not be negative.");
+		}
+		this.props.setProperty(WRITE_BATCH_WINDOW_KEY, String.valueOf(millis));
+	}
+	
+	/**
+	 * Gets the time (in milliseconds) between two checks of the background cleaner, which
+	 * writes modified pages before they are evicted. A value of zero disables the cleaner.
+	 * 
+	 * @return The cleaner interval in milliseconds.
+	 */
+	public long getCleanerInterval()
+	{
+		String val = this.props.getProperty(CLEANER_INTERVAL_KEY);
+		return Long.parseLong(val);
+	}
+	
+	/**
+	 * Sets the time (in milliseconds) between two checks of the background cleaner. A value
+	 * of zero disables the cleaner.
+	 * 
+	 * @param millis The cleaner interval in milliseconds.
+	 */
+	public void setCleanerInterval(long millis)
+	{
+		if (millis < 0) {
+			throw new IllegalArgumentException("The cleaner interval must not be negative.");
+		}
+		this.props.setProperty(CLEANER_INTERVAL_KEY, String.valueOf(millis));
+	}
+	
+	/**
+	 * Gets the share of a cache (in percent) that modified unpinned pages may take before the
+	 * background cleaner starts writing them.
+	 * 
+	 * @return The high watermark in percent of the cache capacity.
+	 */
+	public int getCleanerHighWatermark()
+	{
+		String val = this.props.getProperty(CLEANER_HIGH_WATERMARK_KEY);
+		return Integer.parseInt(val);
+	}
+	
+	/**
+	 * Sets the share of a cache (in percent) that modified unpinned pages may take before the
+	 * background cleaner starts writing them.
+	 * 
+	 * @param percent The high watermark in percent of the cache capacity.
+	 */
+	public void setCleanerHighWatermark(int percent)
+	{
+		if (percent < 0 || percent > 100) {
+			throw new IllegalArgumentException("The watermark must be between 0 and 100 percent.");
+		}
+		this.props.setProperty(CLEANER_HIGH_WATERMARK_KEY, String.valueOf(percent));
+	}
+	
+	/**
+	 * Gets the share of a cache (in percent) down to which the background cleaner writes
+	 * modified pages, once it started.
+	 * 
+	 * @return The low watermark in percent of the cache capacity.
+	 */
+	public int getCleanerLowWatermark()
+	{
+		String val = this.props.getProperty(CLEANER_LOW_WATERMARK_KEY);
+		return Integer.parseInt(val);
+	}
+	
+	/**
+	 * Sets the share of a cache (in percent) down to which the background cleaner writes
+	 * modified pages, once it started. It must not be above the high watermark.
+	 * 
+	 * @param percent The low watermark in percent of the cache capacity.
+	 */
+	public void setCleanerLowWatermark(int percent)
+	{
+		if (percent < 0 || percent > 100) {
+			throw new IllegalArgumentException("The watermark must be between 0 and 100 percent.");
+		}
+		this.props.setProperty(CLEANER_LOW_WATERMARK_KEY, String.valueOf(percent));
+	}
+	
+	/**
+	 * Gets the durability mode with which the table files are opened.
+	 * 
+	 * @return The durability mode of the table files.
+	 */
+	public DurabilityMode getDurabilityMode()
+	{
+		String val = this.props.getProperty(DURABILITY_MODE_KEY);
+		return DurabilityMode.valueOf(val);
+	}
+	
+	/**
+	 * Sets the durability mode with which the table files are opened. In deferred
+	 * mode, written pages become durable at checkpoints.
+	 * 
+	 * @param mode The durability mode of the table files.
+	 */
+	public void setDurabilityMode(DurabilityMode mode)
+	{
+		if (mode == null) {
+			throw new IllegalArgumentException("The durability mode must not be null.");
+		}
+		this.props.setProperty(DURABILITY_MODE_KEY, mode.name());
+	}
+	
+	/**
+	 * Gets the time (in milliseconds) between two checkpoints when the table files are
+	 * opened in deferred durability mode. A value of zero disables periodic checkpoints.
+	 * 
+	 * @return The checkpoint interval in milliseconds.
+	 */
+	public long getCheckpointInterval()
+	{
+		String val = this.props.getProperty(CHECKPOINT_INTERVAL_KEY);
+		return Long.parseLong(val);
+	}
+	
+	/**
+	 * Sets the time (in milliseconds) between two checkpoints when the table files are
+	 * opened in deferred durability mode. A value of zero disables periodic checkpoints.
+	 * 
+	 * @param millis The checkpoint interval in milliseconds.
+	 */
+	public void setCheckpointInterval(long millis)
+	{
+		if (millis < 0) {
+			throw new IllegalArgumentException("The checkpoint interval must not be negative.");
+		}
+		this.props.setProperty(CHECKPOINT_INTERVAL_KEY, String.valueOf(millis));
+	}
+	
+	/**
+	 * Checks whether tables and indexes serve page reads from a memory mapping of
+	 * their files, rather than reading through the file channel.
+	 * 
+	 * @return True, if reads are served from a mapping, false otherwise.
+	 */
+	public boolean isMappedReadsEnabled()
+	{
+		String val = this.props.getProperty(MAPPED_READS_KEY);
+		if ("true".equalsIgnoreCase(val)) {
+			return true;
+		}
+		else if ("false".equalsIgnoreCase(val)) {
+			return false;
+		}
+		else {
+			throw new IllegalStateException("Invalid value for " + MAPPED_READS_KEY + ": " + val);
+		}
+	}
+	
+	/**
+	 * Sets whether tables and indexes serve page reads from a memory mapping of
+	 * their files, rather than reading through the file channel.
+	 * 
+	 * @param enabled True, to serve reads from a mapping.
+	 */
+	public void setMappedReadsEnabled(boolean enabled)
+	{
+		this.props.setProperty(MAPPED_READS_KEY, String.valueOf(enabled));
+	}
+	
+	/**
+	 * Checks whether tables and indexes read and write their pages with direct I/O,
+	 * bypassing the operating system's page cache. Direct I/O takes precedence over
+	 * mapped reads.
+	 * 
+	 * @return True, if pages are transferred with direct I/O, false otherwise.
+	 */
+	public boolean isDirectIOEnabled()
+	{
+		String val = this.props.getProperty(DIRECT_IO_KEY);
+		if ("true".equalsIgnoreCase(val)) {
+			return true;
+		}
+		else if ("false".equalsIgnoreCase(val)) {
+			return false;
+		}
+		else {
+			throw new IllegalStateException("Invalid value for " + DIRECT_IO_KEY + ": " + val);
+		}
+	}
+	
+	/**
+	 * Sets whether tables and indexes read and write their pages with direct I/O,
+	 * bypassing the operating system's page cache.
+	 * 
+	 * @param enabled True, to transfer pages with direct I/O.
+	 */
+	public void setDirectIOEnabled(boolean enabled)
+	{
+		this.props.setProperty(DIRECT_IO_KEY, String.valueOf(enabled));
+	}
+	
+	/**
+	 * Gets the number of pages by which tables and indexes extend their files at once.
+	 * One page means that the files grow page by page.
+	 * 
+	 * @return The size of an extent, in pages.
+	 */
+	public int getExtentPages()
+	{
+		String val = this.props.getProperty(EXTENT_PAGES_KEY);
+		return Integer.parseInt(val);
+	}
+	
+	/**
+	 * Sets the number of pages by which tables and indexes extend their files at once.
+	 * 
+	 * @param numPages The size of an extent, in pages, at least one.
+	 */
+	public void setExtentPages(int numPages)
+	{
+		if (numPages < 1) {
+			throw new IllegalArgumentException("An extent must hold at least one page.");
+		}
+		this.props.setProperty(EXTENT_PAGES_KEY, String.valueOf(numPages));
+	}
+	
+	/**
+	 * Gets the maximal number of pages that the buffer pool reads ahead when it detects
+	 * a sequential scan of a resource.
+	 * 
+	 * @return The maximal read-ahead window in pages. Zero means no read-ahead.
+	 */
+	public int getMaxReadAheadPages()
+	{
+		String val = this.props.getProperty(MAX_READ_AHEAD_PAGES_KEY);
+		return Integer.parseInt(val);
+	}
+	
+	/**
+	 * Sets the maximal number of pages that the buffer pool reads ahead when it detects
+	 * a sequential scan of a resource.
+	 * 
+	 * @param numPages The maximal read-ahead window in pages, or zero to disable read-ahead.
+	 */
+	public void setMaxReadAheadPages(int numPages)
+	{
+		if (numPages < 0) {
+			throw new IllegalArgumentException("The read-ahead window must not be negative.");
+		}
+		this.props.setProperty(MAX_READ_AHEAD_PAGES_KEY, String.valueOf(numPages));
+	}
+	
+	/**
+	 * Checks whether the buffer pool records metrics about its caches and resources
+	 * and publishes them as MBeans.
+	 * 
+	 * @return True, if metrics are recorded, false otherwise.
+	 */
+	public boolean isBufferPoolMetricsEnabled()
+	{
+		String val = this.props.getProperty(BUFFER_POOL_METRICS_KEY);
+		if ("true".equalsIgnoreCase(val)) {
+			return true;
+		}
+		else if ("false".equalsIgnoreCase(val)) {
+			return false;
+		}
+		else {
+			throw new IllegalStateException("Invalid value for " + BUFFER_POOL_METRICS_KEY + ": " + val);
+		}
+	}
+	
+	/**
+	 * Sets whether the buffer pool records metrics about its caches and resources
+	 * and publishes them as MBeans. Without metrics, the buffer pool does no bookkeeping
+	 * for them at all.
+	 * 
+	 * @param enabled True, to record metrics.
+	 */
+	public void setBufferPoolMetricsEnabled(boolean enabled)
+	{
+		this.props.setProperty(BUFFER_POOL_METRICS_KEY, String.valueOf(enabled));
+	}
+	
 	/**
 	 * Gets the maximal number of concurrent queries.
 	 * 
@@ -288,9 +803,53 @@ public final class Config
 					String.valueOf(Constants.DEFAULT_INITIAL_CACHE_SIZE));
 		}
 		
+		// set the cache partitions default
+		p.setProperty(CACHE_PARTITIONS_KEY, String.valueOf(Constants.DEFAULT_CACHE_PARTITIONS));
+		
+		// set the cache tuning default
+		p.setProperty(CACHE_TUNING_INTERVAL_KEY, String.valueOf(Constants.DEFAULT_CACHE_TUNING_INTERVAL));
+		
+		// set the replacement policy and cache trace defaults
+		p.setProperty(CACHE_REPLACEMENT_POLICY_KEY, Constants.DEFAULT_CACHE_REPLACEMENT_POLICY.name());
+		p.setProperty(CACHE_TRACE_FILE_KEY, Constants.DEFAULT_CACHE_TRACE_FILE);
+		
+		// set the cache image defaults
+		p.setProperty(CACHE_IMAGE_FILE_KEY, Constants.DEFAULT_CACHE_IMAGE_FILE);
+		p.setProperty(CACHE_IMAGE_INTERVAL_KEY, String.valueOf(Constants.DEFAULT_CACHE_IMAGE_INTERVAL));
+		
 		// set the I/O buffer default
 		p.setProperty(NUM_IO_BUFFERS_KEY, String.valueOf(Constants.DEFAULT_NUM_IO_BUFFERS));
 		
+		// set the read threads default
+		p.setProperty(NUM_READ_THREADS_KEY, String.valueOf(Constants.DEFAULT_NUM_READ_THREADS));
+		
+		// set the write batching default
+		p.setProperty(WRITE_BATCH_WINDOW_KEY, String.valueOf(Constants.DEFAULT_WRITE_BATCH_WINDOW));
+		
+		// set the background cleaner defaults
+		p.setProperty(CLEANER_INTERVAL_KEY, String.valueOf(Constants.DEFAULT_CLEANER_INTERVAL));
+		p.setProperty(CLEANER_HIGH_WATERMARK_KEY, String.valueOf(Constants.DEFAULT_CLEANER_HIGH_WATERMARK));
+		p.setProperty(CLEANER_LOW_WATERMARK_KEY, String.valueOf(Constants.DEFAULT_CLEANER_LOW_WATERMARK));
+		
+		// set the durability and checkpoint defaults
+		p.setProperty(DURABILITY_MODE_KEY, Constants.DEFAULT_DURABILITY_MODE.name());
+		p.setProperty(CHECKPOINT_INTERVAL_KEY, String.valueOf(Constants.DEFAULT_CHECKPOINT_INTERVAL));
+		
+		// set the mapped reads default
+		p.setProperty(MAPPED_READS_KEY, String.valueOf(Constants.DEFAULT_MAPPED_READS));
+		
+		// set the direct I/O default
+		p.setProperty(DIRECT_IO_KEY, String.valueOf(Constants.DEFAULT_DIRECT_IO));
+		
+		// set the extent size default
+		p.setProperty(EXTENT_PAGES_KEY, String.valueOf(Constants.DEFAULT_EXTENT_PAGES));
+		
+		// set the read-ahead default
+		p.setProperty(MAX_READ_AHEAD_PAGES_KEY, String.valueOf(Constants.DEFAULT_MAX_READ_AHEAD_PAGES));
+		
+		// set the buffer pool metrics default
+		p.setProperty(BUFFER_POOL_METRICS_KEY, String.valueOf(Constants.DEFAULT_BUFFER_POOL_METRICS));
+		
 		// set the concurrent queries default
 		p.setProperty(NUM_CONCURRENT_QUERIES_KEY,
 				String.valueOf(Constants.MAX_CONCURRENT_QUERIES));
@@ -335,6 +894,40 @@ public final class Config
 			}
 		}
 		
+		try {
+			if (getCachePartitions() < 1) {
+				return CACHE_PARTITIONS_KEY;
+			}
+		}
+		catch (Throwable t) {
+			return CACHE_PARTITIONS_KEY;
+		}
+		
+		try {
+			if (getCacheTuningInterval() < 0) {
+				return CACHE_TUNING_INTERVAL_KEY;
+			}
+		}
+		catch (Throwable t) {
+			return CACHE_TUNING_INTERVAL_KEY;
+		}
+		
+		try {
+			getCacheReplacementPolicy();
+		}
+		catch (Throwable t) {
+			return CACHE_REPLACEMENT_POLICY_KEY;
+		}
+		
+		try {
+			if (getCacheImageInterval() < 0) {
+				return CACHE_IMAGE_INTERVAL_KEY;
+			}
+		}
+		catch (Throwable t) {
+			return CACHE_IMAGE_INTERVAL_KEY;
+		}
+		
 		try {
 			getNumIOBuffers();
 		}
@@ -342,6 +935,108 @@ public final class Config
 			return NUM_IO_BUFFERS_KEY;
 		}
 		
+		try {
+			if (getNumReadThreads() < 1) {
+				return NUM_READ_THREADS_KEY;
+			}
+		}
+		catch (Throwable t) {
+			return NUM_READ_THREADS_KEY;
+		}
+		
+		try {
+			if (getWriteBatchWindow() < 0) {
+				return WRITE_BATCH_WINDOW_KEY;
+			}
+		}
+		catch (Throwable t) {
+			return WRITE_BATCH_WINDOW_KEY;
+		}
+		
+		try {
+			if (getCleanerInterval() < 0) {
+				return CLEANER_INTERVAL_KEY;
+			}
+		}
+		catch (Throwable t) {
+			return CLEANER_INTERVAL_KEY;
+		}
+		
+		try {
+			int high = getCleanerHighWatermark();
+			if (high < 0 || high > 100) {
+				return CLEANER_HIGH_WATERMARK_KEY;
+			}
+		}
+		catch (Throwable t) {
+			return CLEANER_HIGH_WATERMARK_KEY;
+		}
+		
+		try {
+			int low = getCleanerLowWatermark();
+			if (low < 0 || low > getCleanerHighWatermark()) {
+				return CLEANER_LOW_WATERMARK_KEY;
+			}
+		}
+		catch (Throwable t) {
+			return CLEANER_LOW_WATERMARK_KEY;
+		}
+		
+		try {
+			getDurabilityMode();
+		}
+		catch (Throwable t) {
+			return DURABILITY_MODE_KEY;
+		}
+		
+		try {
+			if (getCheckpointInterval() < 0) {
+				return CHECKPOINT_INTERVAL_KEY;
+			}
+		}
+		catch (Throwable t) {
+			return CHECKPOINT_INTERVAL_KEY;
+		}
+		
+		try {
+			isMappedReadsEnabled();
+		}
+		catch (Throwable t) {
+			return MAPPED_READS_KEY;
+		}
+		
+		try {
+			isDirectIOEnabled();
+		}
+		catch (Throwable t) {
+			return DIRECT_IO_KEY;
+		}
+		
+		try {
+			if (getExtentPages() < 1) {
+				return EXTENT_PAGES_KEY;
+			}
+		}
+		catch (Throwable t) {
+			return EXTENT_PAGES_KEY;
+		}
+		
+		try {
+			if (getMaxReadAheadPages() < 0) {
+				return MAX_READ_AHEAD_PAGES_KEY;
+			}
+		}
+		catch (Throwable t) {
+			return MAX_READ_AHEAD_PAGES_KEY;
+		}
+		
+		try {
+			isBufferPoolMetricsEnabled();
+		}
+		catch (Throwable t) {
+			return BUFFER_POOL_METRICS_KEY;
+		}
+		
 		try {
 			getMaxConcurrentQueries();
 		}
@@ -3,6 +3,9 @@ package de.tuberlin.dima.minidb;
 
 import java.util.Locale;
 
+import de.tuberlin.dima.minidb.io.cache.ReplacementPolicyType;
+import de.tuberlin.dima.minidb.io.manager.DurabilityMode;
+
 
 /**
  * A collection of global constants that are directly relevant for the external
@@ -33,6 +36,11 @@ public abstract class Constants
 	 */
 	public static final String CATALOGUE_FILE_PATH = "catalogue.xml";
 	
+	/**
+	 * The domain of the names under which the system publishes its MBeans.
+	 */
+	public static final String MBEAN_DOMAIN = "de.tuberlin.dima.minidb";
+	
 	/**
 	 * The prefix of the name for temp files created by the query heap.
 	 */
@@ -90,12 +98,125 @@ public abstract class Constants
 	 */
 	static final int DEFAULT_INITIAL_CACHE_SIZE = 1000;
 	
+	/**
+	 * The default number of partitions of a page cache. Each partition has its own lock,
+	 * so more partitions let concurrent queries hit the cache in parallel, at the price
+	 * of making replacement decisions per partition rather than for the whole cache.
+	 */
+	static final int DEFAULT_CACHE_PARTITIONS = 1;
+	
+	/**
+	 * The default time (milliseconds) between two decisions of the buffer pool to move memory
+	 * from the cache of one page size to the cache of another. Zero means that the caches
+	 * keep the size they were created with.
+	 */
+	static final long DEFAULT_CACHE_TUNING_INTERVAL = 0;
+	
+	/**
+	 * The default policy by which the page caches choose the pages to evict.
+	 */
+	static final ReplacementPolicyType DEFAULT_CACHE_REPLACEMENT_POLICY = ReplacementPolicyType.ARC;
+	
+	/**
+	 * The default file to which the buffer pool records the pages that are requested. The empty
+	 * name means that no trace is recorded.
+	 */
+	static final String DEFAULT_CACHE_TRACE_FILE = "";
+	
+	/**
+	 * The default file in the data directory to which the list of the cached pages is saved at
+	 * shutdown, to warm the caches up at the next start. The empty name means that no image is kept.
+	 */
+	static final String DEFAULT_CACHE_IMAGE_FILE = "buffer-pool.image";
+	
+	/**
+	 * The default time (milliseconds) between two saves of the cache image while the instance
+	 * runs. Zero means that the image is saved only at shutdown.
+	 */
+	static final long DEFAULT_CACHE_IMAGE_INTERVAL = 0;
+	
 	/**
 	 * The number of I/O buffers used by the buffer pool. The I/O buffers are needed to
 	 * sequentialize reads and writes.
 	 */
 	static final int DEFAULT_NUM_IO_BUFFERS = 128;
 	
+	/**
+	 * The default number of threads that read pages for the buffer pool. Reads for
+	 * different resources are served in parallel by different threads.
+	 */
+	static final int DEFAULT_NUM_READ_THREADS = 4;
+	
+	/**
+	 * The default time (milliseconds) for which modified pages are collected before they
+	 * are written, so that runs of consecutive pages go out in one write. With no window,
+	 * the pages that queued up while the previous write was running are written together.
+	 */
+	static final long DEFAULT_WRITE_BATCH_WINDOW = 0;
+	
+	/**
+	 * The default time (milliseconds) between two checks of the background cleaner. Zero
+	 * means that modified pages are written when they are evicted. A running cleaner is
+	 * also woken when an eviction has to write the page it evicts.
+	 */
+	static final long DEFAULT_CLEANER_INTERVAL = 0;
+	
+	/**
+	 * The default share of a cache (percent) that modified unpinned pages may take before the
+	 * background cleaner writes them.
+	 */
+	static final int DEFAULT_CLEANER_HIGH_WATERMARK = 20;
+	
+	/**
+	 * The default share of a cache (percent) down to which the background cleaner writes
+	 * modified pages.
+	 */
+	static final int DEFAULT_CLEANER_LOW_WATERMARK = 10;
+	
+	/**
+	 * The default durability of the table files. In strict mode, every page write is
+	 * synchronous and no checkpoints are needed.
+	 */
+	static final DurabilityMode DEFAULT_DURABILITY_MODE = DurabilityMode.STRICT;
+	
+	/**
+	 * The default time (milliseconds) between two checkpoints in deferred durability mode.
+	 * Pages written since the last checkpoint may be lost when the machine fails.
+	 */
+	static final long DEFAULT_CHECKPOINT_INTERVAL = 60000;
+	
+	/**
+	 * Whether tables and indexes serve page reads from a memory mapping of their files
+	 * by default, rather than reading through the file channel.
+	 */
+	static final boolean DEFAULT_MAPPED_READS = false;
+	
+	/**
+	 * Whether tables and indexes read and write their pages with direct I/O by default,
+	 * bypassing the operating system's page cache. Off, since not every file system
+	 * supports it, and the buffer pool must then be sized to take the memory of the page cache.
+	 */
+	static final boolean DEFAULT_DIRECT_IO = false;
+	
+	/**
+	 * The default number of pages by which tables and indexes extend their files at once,
+	 * so that appended pages go to space that is allocated already, in one piece.
+	 */
+	static final int DEFAULT_EXTENT_PAGES = 32;
+	
+	/**
+	 * The default maximal number of pages that the buffer pool reads ahead of a sequential
+	 * scan. The read-ahead window starts small and doubles up to this size while the scan
+	 * stays sequential.
+	 */
+	static final int DEFAULT_MAX_READ_AHEAD_PAGES = 32;
+	
+	/**
+	 * Whether the buffer pool records metrics about its caches and resources by default
+	 * and publishes them as MBeans.
+	 */
+	static final boolean DEFAULT_BUFFER_POOL_METRICS = true;
+	
 	/**
 	 * The default number of concurrent queries.
 	 */
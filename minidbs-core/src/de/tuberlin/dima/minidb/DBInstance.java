@@ -16,7 +16,9 @@ import de.tuberlin.dima.minidb.catalogue.IndexDescriptor;
 import de.tuberlin.dima.minidb.catalogue.TableDescriptor;
 import de.tuberlin.dima.minidb.core.InternalOperationFailure;
 import de.tuberlin.dima.minidb.io.index.IndexResourceManager;
+import de.tuberlin.dima.minidb.io.manager.BufferPoolException;
 import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.io.manager.DurabilityMode;
 import de.tuberlin.dima.minidb.io.manager.ResourceManager;
 import de.tuberlin.dima.minidb.io.tables.TableResourceManager;
 import de.tuberlin.dima.minidb.qexec.heap.QueryHeap;
@@ -125,6 +127,16 @@ public class DBInstance
 	 * Flag to indicate that the instance is running.
 	 */
 	private boolean running;
+	
+	/**
+	 * The thread taking the periodic checkpoints, if the tables are opened in deferred durability mode.
+	 */
+	private PeriodicThread checkpointThread;
+	
+	/**
+	 * The thread saving the cache image periodically, if an image is kept and an interval is set.
+	 */
+	private PeriodicThread cacheImageThread;
 
 	
 	/**
@@ -376,6 +388,31 @@ public class DBInstance
 //		    	return RETURN_CODE_INTERNAL_PROBLEM;
 //		    }
 
+			// warm the caches up in the background, queries are admitted meanwhile
+			File cacheImage = getCacheImageFile();
+			if (cacheImage != null && cacheImage.exists()) {
+				try {
+					this.BUFFER_POOL.loadCacheImage(cacheImage);
+				}
+				catch (Exception ex) {
+					this.LOGGER.log(Level.WARNING, "The cache image '" + cacheImage + "' could not be loaded, the caches start cold: " + ex.getMessage(), ex);
+				}
+			}
+
+			// start the periodic checkpoints
+			if (this.CONFIG.getDurabilityMode() == DurabilityMode.DEFERRED && this.CONFIG.getCheckpointInterval() > 0) {
+				this.checkpointThread = new PeriodicThread("Checkpoint Thread", this.CONFIG.getCheckpointInterval(),
+						this::checkpoint, "Periodic checkpoint failed: ");
+				this.checkpointThread.start();
+			}
+			
+			// start saving the cache image periodically
+			if (cacheImage != null && this.CONFIG.getCacheImageInterval() > 0) {
+				this.cacheImageThread = new PeriodicThread("Cache Image Thread", this.CONFIG.getCacheImageInterval(),
+						this::saveCacheImage, "Periodic save of the cache image failed: ");
+				this.cacheImageThread.start();
+			}
+
 			this.LOGGER.info("System has started.");
 
 			this.running = true;
@@ -427,6 +464,16 @@ public class DBInstance
 
 		// now close all the resources in the catalogue as best effort
 		boolean allSmooth = true;
+		
+		// stop the periodic checkpoints and cache images
+		if (this.checkpointThread != null) {
+			this.checkpointThread.shutdown();
+			this.checkpointThread = null;
+		}
+		if (this.cacheImageThread != null) {
+			this.cacheImageThread.shutdown();
+			this.cacheImageThread = null;
+		}
 
 	    // close the query heap
 	    try {
@@ -438,6 +485,27 @@ public class DBInstance
 		}
 	    this.QUERY_HEAP = null;
 	    
+		// make the modified pages durable, closing the buffer pool only writes them
+		if (this.CONFIG.getDurabilityMode() == DurabilityMode.DEFERRED) {
+			try {
+				this.BUFFER_POOL.checkpoint();
+			}
+			catch (Exception ex) {
+				allSmooth = false;
+				this.LOGGER.log(Level.WARNING, "Final checkpoint failed. Data inconsistencies may occur." + ex.getMessage(), ex);
+			}
+		}
+
+		// save the list of the cached pages for the next start, a failure only costs the warm-up
+		if (getCacheImageFile() != null) {
+			try {
+				saveCacheImage();
+			}
+			catch (Exception ex) {
+				this.LOGGER.log(Level.WARNING, "The cache image could not be saved, the caches will start cold: " + ex.getMessage(), ex);
+			}
+		}
+
 		// close the buffer pool
 		try {
 			this.BUFFER_POOL.closeBufferPool();
@@ -513,7 +581,16 @@ public class DBInstance
 			// open the table
 			TableResourceManager manager = null;
 			try {
-				manager = TableResourceManager.openTable(tableFile);
+				manager = TableResourceManager.openTable(tableFile, config.getDurabilityMode());
+				manager.enableExtentAllocation(config.getExtentPages());
+				manager.enableFreeSpaceMap(tableFile);
+				manager.enableZoneMap(tableFile);
+				if (config.isDirectIOEnabled()) {
+					manager.enableDirectIO(tableFile, config.getDurabilityMode());
+				}
+				else if (config.isMappedReadsEnabled()) {
+					manager.enableMappedReads();
+				}
 				int id = catalogue.reserveNextId();
 				buffer.registerResource(id, manager);
 				td.setResourceProperties(manager, id);
@@ -550,6 +627,13 @@ public class DBInstance
 			IndexResourceManager manager = null;
 			try {
 				manager = IndexResourceManager.openIndex(indexFile, table.getSchema());
+				manager.enableExtentAllocation(config.getExtentPages());
+				if (config.isDirectIOEnabled()) {
+					manager.enableDirectIO(indexFile);
+				}
+				else if (config.isMappedReadsEnabled()) {
+					manager.enableMappedReads();
+				}
 				int resourceId = catalogue.reserveNextId();
 				buffer.registerResource(resourceId, manager);
 				id.setResourceProperties(manager, table, resourceId);
@@ -571,7 +655,8 @@ public class DBInstance
 
 	/**
 	 * Closes all resources that are known by the catalogue. This method does not fail when an error occurs, but logs
-	 * the error and continues.
+	 * the error and continues. Each resource is synced before it is closed, so that the pages the buffer pool wrote
+	 * when it was closed are durable, also if the buffer pool keeps no checkpoints.
 	 * 
 	 * @param catalogue The catalogue whose resources are to be closed.
 	 */
@@ -586,6 +671,7 @@ public class DBInstance
 			try {
 				ResourceManager manager = id.getResourceManager();
 				if (manager != null) {
+					manager.sync();
 					manager.closeResource();
 				}
 			}
@@ -603,6 +689,7 @@ public class DBInstance
 			try {
 				ResourceManager manager = td.getResourceManager();
 				if (manager != null) {
+					manager.sync();
 					manager.closeResource();
 				}
 			}
@@ -616,6 +703,164 @@ public class DBInstance
 		return allSmooth;
 	}
 	
+	// --------------------------------------------------------------------------------------------
+	//                                       Checkpoints
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Makes all modifications done so far durable. The buffer pool writes all modified pages and syncs
+	 * the resources. With tables in strict durability mode, only the pages that are still in the cache
+	 * need to be written.
+	 * 
+	 * @throws BufferPoolException Thrown, if the buffer pool has been closed.
+	 * @throws IOException Thrown, if the pages could not be written or the resources not be synced.
+	 * @throws InstanceNotStartedException Thrown, if the instance is not running.
+	 */
+	public void checkpoint() throws BufferPoolException, IOException
+	{
+		BufferPoolManager buffer = this.BUFFER_POOL;
+		if (buffer == null) {
+			throw new InstanceNotStartedException();
+		}
+		
+		buffer.checkpoint();
+	}
+	
+	/**
+	 * Saves the list of the pages in the caches of the buffer pool to the cache image file, from
+	 * which the next start of the instance warms the caches up. Does nothing if no image is kept.
+	 * 
+	 * @throws BufferPoolException Thrown, if the buffer pool has been closed.
+	 * @throws IOException Thrown, if the image could not be written.
+	 * @throws InstanceNotStartedException Thrown, if the instance is not running.
+	 */
+	public void saveCacheImage() throws BufferPoolException, IOException
+	{
+		BufferPoolManager buffer = this.BUFFER_POOL;
+		if (buffer == null) {
+			throw new InstanceNotStartedException();
+		}
+		
+		File file = getCacheImageFile();
+		if (file != null) {
+			buffer.saveCacheImage(file);
+		}
+	}
+	
+	/**
+	 * Gets the cache image file, with a relative name resolved against the data directory.
+	 * 
+	 * @return The cache image file, or null, if no image is kept.
+	 */
+	private File getCacheImageFile()
+	{
+		String name = this.CONFIG.getCacheImageFile();
+		if (name == null) {
+			return null;
+		}
+		
+		File file = new File(name);
+		return file.isAbsolute() ? file : new File(this.CONFIG.getDataDirectory(), name);
+	}
+	
+	/**
+	 * A task of the instance that runs in fixed intervals.
+	 */
+	private interface PeriodicTask
+	{
+		void run() throws Exception;
+	}
+	
+	/**
+	 * Thread that runs a task of the instance in fixed intervals, such as a checkpoint. The thread
+	 * is stopped through a flag rather than an interrupt, because interrupting a thread that is
+	 * blocked in channel I/O closes the channel.
+	 */
+	private final class PeriodicThread extends Thread
+	{
+		/**
+		 * The time between two runs of the task in milliseconds.
+		 */
+		private final long interval;
+		
+		/**
+		 * The task to run.
+		 */
+		private final PeriodicTask task;
+		
+		/**
+		 * The start of the message logged when the task fails.
+		 */
+		private final String failureMessage;
+		
+		/**
+		 * The monitor on which the thread waits for the next run.
+		 */
+		private final Object lock = new Object();
+		
+		/**
+		 * Flag indicating that the thread should continue running the task.
+		 */
+		private boolean alive = true;
+		
+		PeriodicThread(String name, long interval, PeriodicTask task, String failureMessage)
+		{
+			super(name);
+			setDaemon(true);
+			this.interval = interval;
+			this.task = task;
+			this.failureMessage = failureMessage;
+		}
+		
+		@Override
+		public void run()
+		{
+			while (true) {
+				synchronized (this.lock) {
+					long deadline = System.currentTimeMillis() + this.interval;
+					long remaining = this.interval;
+					
+					while (this.alive && remaining > 0) {
+						try {
+							this.lock.wait(remaining);
+						}
+						catch (InterruptedException iex) {}
+						remaining = deadline - System.currentTimeMillis();
+					}
+					
+					if (!this.alive) {
+						return;
+					}
+				}
+				
+				try {
+					this.task.run();
+				}
+				catch (Exception ex) {
+					DBInstance.this.LOGGER.log(Level.WARNING, this.failureMessage + ex.getMessage(), ex);
+				}
+			}
+		}
+		
+		/**
+		 * Stops the thread and waits until a run of the task that is in progress has finished.
+		 */
+		void shutdown()
+		{
+			synchronized (this.lock) {
+				this.alive = false;
+				this.lock.notifyAll();
+			}
+			
+			while (isAlive()) {
+				try {
+					join();
+				}
+				catch (InterruptedException iex) {}
+			}
+		}
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	//                                    Query processing
 	// --------------------------------------------------------------------------------------------
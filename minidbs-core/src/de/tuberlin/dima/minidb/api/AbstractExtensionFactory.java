@@ -15,6 +15,7 @@ import de.tuberlin.dima.minidb.io.cache.PageFormatException;
 import de.tuberlin.dima.minidb.io.cache.PageSize;
 import de.tuberlin.dima.minidb.io.index.BTreeIndex;
 import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.io.tables.PageLayout;
 import de.tuberlin.dima.minidb.io.tables.TablePage;
 import de.tuberlin.dima.minidb.io.tables.TableResourceManager;
 import de.tuberlin.dima.minidb.mapred.TableInputFormat;
@@ -144,6 +145,19 @@ public abstract class AbstractExtensionFactory
 	abstract public TablePage initTablePage(TableSchema schema, byte[] binaryPage, int newPageNumber)
 	throws PageFormatException;
 	
+	/**
+	 * Checks whether the table pages this factory creates can lay out their records in the
+	 * given way. Factories whose pages store rows only need not override this method; the
+	 * default supports {@link PageLayout#ROW} only.
+	 * 
+	 * @param layout The page layout of a table schema.
+	 * @return true, if the pages of this factory support the layout, false otherwise.
+	 */
+	public boolean supportsPageLayout(PageLayout layout)
+	{
+		return layout == PageLayout.ROW;
+	}
+	
 	/**
 	 * Creates a new PageCache with the given number of entries that caches pages of
 	 * the given size. During its lifetime, the cache holds a fix number of pages.
@@ -312,6 +326,29 @@ public abstract class AbstractExtensionFactory
 			PhysicalPlanOperator child
 			);
 
+	/**
+	 * Creates a new physical query plan operator performing a delete, like
+	 * {@link #createDeleteOperator(BufferPoolManager, int, PhysicalPlanOperator)}, which in
+	 * addition records the slots it frees in the free-space map of the given table manager, if
+	 * the table keeps one. Factories whose delete operators do not keep the map need not
+	 * override this method; the default ignores the table manager.
+	 * 
+	 * @param bufferPool The buffer pool used to get the pages that are scanned.
+	 * @param tableManager The table manager of the table resource.
+	 * @param resourceId The resource id of the table resource.
+	 * @param child The child operator generating the tuples to be deleted.
+	 * @return A new physical plan operator representing a DeleteOperator.
+	 */
+	public DeleteOperator createDeleteOperator(
+			BufferPoolManager bufferPool,
+			TableResourceManager tableManager,
+			int resourceId,
+			PhysicalPlanOperator child
+			)
+	{
+		return createDeleteOperator(bufferPool, resourceId, child);
+	}
+
 	/**
 	 * Creates a new Nested-Loop-Join operator, drawing tuples from the outer side in the outer
 	 * loop and from the inner side in the inner loop. The inner side is opened and closed for
@@ -16,6 +16,7 @@ import de.tuberlin.dima.minidb.io.cache.PageFormatException;
 import de.tuberlin.dima.minidb.io.cache.PageSize;
 import de.tuberlin.dima.minidb.io.index.BTreeIndex;
 import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.io.tables.PageLayout;
 import de.tuberlin.dima.minidb.io.tables.TablePage;
 import de.tuberlin.dima.minidb.io.tables.TableResourceManager;
 import de.tuberlin.dima.minidb.mapred.TableInputFormat;
@@ -113,6 +114,10 @@ public final class LayeredExtensionFactory extends AbstractExtensionFactory {
 	@Override
 	public TablePage createTablePage(TableSchema schema, byte[] binaryPage) throws PageFormatException {
 		for (AbstractExtensionFactory factory: this.factories) {
+			// a factory whose pages do not know the layout would read the page as rows
+			if (!factory.supportsPageLayout(schema.getPageLayout())) {
+				continue;
+			}
 			try {
 				return factory.createTablePage(schema, binaryPage);
 			} catch (UnsupportedOperationException e) {
@@ -125,6 +130,9 @@ public final class LayeredExtensionFactory extends AbstractExtensionFactory {
 	@Override
 	public TablePage initTablePage(TableSchema schema, byte[] binaryPage, int newPageNumber) throws PageFormatException {
 		for (AbstractExtensionFactory factory: this.factories) {
+			if (!factory.supportsPageLayout(schema.getPageLayout())) {
+				continue;
+			}
 			try {
 				return factory.initTablePage(schema, binaryPage, newPageNumber);
 			} catch (UnsupportedOperationException e) {
@@ -134,6 +142,16 @@ public final class LayeredExtensionFactory extends AbstractExtensionFactory {
 		throw new UnsupportedOperationException("Method not yet supported");
 	}
 
+	@Override
+	public boolean supportsPageLayout(PageLayout layout) {
+		for (AbstractExtensionFactory factory: this.factories) {
+			if (factory.supportsPageLayout(layout)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public PageCache createPageCache(PageSize pageSize, int numPages) {
 		for (AbstractExtensionFactory factory: this.factories) {
@@ -220,6 +238,19 @@ public final class LayeredExtensionFactory extends AbstractExtensionFactory {
 		throw new UnsupportedOperationException("Method not yet supported");
 	}
 
+	@Override
+	public DeleteOperator createDeleteOperator(BufferPoolManager bufferPool, TableResourceManager tableManager, int resourceId,
+			PhysicalPlanOperator child) {
+		for (AbstractExtensionFactory factory: this.factories) {
+			try {
+				return factory.createDeleteOperator(bufferPool, tableManager, resourceId, child);
+			} catch (UnsupportedOperationException e) {
+				// ignore exception
+			}
+		}
+		throw new UnsupportedOperationException("Method not yet supported");
+	}
+
 	@Override
 	public NestedLoopJoinOperator createNestedLoopJoinOperator(PhysicalPlanOperator outerChild, PhysicalPlanOperator innerChild, JoinPredicate joinPredicate,
 			int[] columnMapOuterTuple, int[] columnMapInnerTuple) {
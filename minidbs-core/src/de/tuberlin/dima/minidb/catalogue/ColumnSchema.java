@@ -31,6 +31,11 @@ public class ColumnSchema
 	 * A flag indicating that the column has unique entries.
 	 */
 	private boolean unique;
+	
+	/**
+	 * A flag indicating that the values of the column are stored through a page-local dictionary.
+	 */
+	private boolean dictionaryEncoded;
 
 	
 	
@@ -122,6 +127,33 @@ public class ColumnSchema
 		return this.unique;
 	}
 	
+	/**
+	 * Checks, if the values of the column are stored through a page-local dictionary.
+	 * 
+	 * @return true, if the column is dictionary encoded, false otherwise.
+	 */
+	public boolean isDictionaryEncoded()
+	{
+		return this.dictionaryEncoded;
+	}
+	
+	/**
+	 * Sets whether the values of the column are stored through a page-local dictionary. Pages
+	 * in the PAX layout then keep each distinct value of the column once, and their records
+	 * hold one byte codes instead of the values. This pays off for CHAR and VARCHAR columns with
+	 * few distinct values. Row pages store the values as they are.
+	 * 
+	 * @param dictionaryEncoded Whether the column is dictionary encoded.
+	 * @throws IllegalArgumentException Thrown, if the column is not of type CHAR or VARCHAR.
+	 */
+	public void setDictionaryEncoded(boolean dictionaryEncoded)
+	{
+		if (dictionaryEncoded && !this.dataType.isArrayType()) {
+			throw new IllegalArgumentException("Only CHAR and VARCHAR columns can be dictionary encoded.");
+		}
+		this.dictionaryEncoded = dictionaryEncoded;
+	}
+	
 	/* (non-Javadoc)
 	 * @see java.lang.Object#toString()
 	 */
@@ -139,6 +171,10 @@ public class ColumnSchema
 			bld.append(" NOT NULL");
 		}
 		
+		if (this.dictionaryEncoded) {
+			bld.append(" DICTIONARY");
+		}
+		
 		return bld.toString();
 	}
 	
@@ -9,6 +9,7 @@ import java.util.Map;
 import de.tuberlin.dima.minidb.Constants;
 import de.tuberlin.dima.minidb.io.cache.PageSize;
 import de.tuberlin.dima.minidb.io.cache.UnsupportedPageSizeException;
+import de.tuberlin.dima.minidb.io.tables.PageLayout;
 import de.tuberlin.dima.minidb.util.Pair;
 
 
@@ -33,6 +34,11 @@ public class TableSchema
 	 * The map from column names to column-position pairs.
 	 */
 	private final Map<String, Pair<ColumnSchema, Integer>> columnsByName;
+	
+	/**
+	 * The way in which the pages of this table lay out their records.
+	 */
+	private PageLayout pageLayout = PageLayout.ROW;
 
 	
 	/**
@@ -86,6 +92,30 @@ public class TableSchema
 		return this.pageSize;
 	}
 	
+	/**
+	 * Gets the way in which the pages of this table lay out their records.
+	 * 
+	 * @return The table's page layout.
+	 */
+	public PageLayout getPageLayout()
+	{
+		return this.pageLayout;
+	}
+	
+	/**
+	 * Sets the way in which the pages of this table lay out their records. The layout is fixed
+	 * once the table is created. Tables use row pages, unless set otherwise.
+	 * 
+	 * @param pageLayout The page layout for the table.
+	 */
+	public void setPageLayout(PageLayout pageLayout)
+	{
+		if (pageLayout == null) {
+			throw new NullPointerException("The page layout must not be null.");
+		}
+		this.pageLayout = pageLayout;
+	}
+	
 	/**
 	 * Gets the number of columns in this table schema.
 	 * 
@@ -152,6 +182,9 @@ public class TableSchema
 		}
 		
 		bld.append(") PAGE_SIZE ").append(this.pageSize.getNumberOfBytes());
+		if (this.pageLayout != PageLayout.ROW) {
+			bld.append(" LAYOUT ").append(this.pageLayout);
+		}
 		
 		return bld.toString();
 	}
@@ -172,6 +172,17 @@ public final class BigIntField extends DataField implements ArithmeticType<BigIn
 		return BigIntField.getFieldFromBinary(binaryEncoded, offs);
     }
 
+	/* (non-Javadoc)
+	 * @see de.tuberlin.dima.minidb.core.DataField#readFromBinary(byte[], int, int)
+	 */
+	@Override
+	boolean readFromBinary(byte[] binaryEncoded, int offs, int len)
+	{
+		this.value = (IntField.getIntFromBinary(binaryEncoded, offs) & 0xffffffffL) |
+		             ((long) IntField.getIntFromBinary(binaryEncoded, offs + 4) << 32);
+		return true;
+	}
+
 
 	/* (non-Javadoc)
 	 * @see de.tuberlin.dima.minidb.core.DataField#getFromString(java.lang.String)
@@ -102,7 +102,7 @@ public final class CharField extends DataField
 	@Override
 	public boolean equals(Object o)
 	{
-		return (o != null && o instanceof CharField && 
+		return o == this || (o != null && o instanceof CharField && 
 				( (((CharField) o).charData == null && this.charData == null) ||
 				  (((CharField) o).charData != null && ((CharField) o).charData.equals(this.charData)) ) );
 	}
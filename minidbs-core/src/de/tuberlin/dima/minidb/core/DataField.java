@@ -88,6 +88,25 @@ public abstract class DataField implements Comparable<DataField>, Cloneable
 	 */
 	abstract DataField getFromBinary(byte[] binaryEncoded, int offs, int len);
 	
+	/**
+	 * Overwrites the value of this field with the value deserialized from the binary array,
+	 * in the same way as {@link #getFromBinary(byte[], int, int)} creates a new field. Only
+	 * fields that are not shared may be overwritten, see
+	 * {@link DataType#getFromBinary(byte[], int, int, DataField)}.
+	 * <p>
+	 * The default implementation does not support overwriting and returns false. Types with a
+	 * fixed-length primitive value override it.
+	 * 
+	 * @param binaryEncoded The binary array with the serialized value.
+	 * @param offs The position to start in the binary array.
+	 * @param len The number of bytes to be deserialized.
+	 * @return True, if the field took the value, false, if fields of its type cannot be overwritten.
+	 */
+	boolean readFromBinary(byte[] binaryEncoded, int offs, int len)
+	{
+		return false;
+	}
+	
 	/**
 	 * Serializes the value of this field as a binary sequence, using little endian
 	 * encoding. The serialization starts at the given offset and uses as many bytes
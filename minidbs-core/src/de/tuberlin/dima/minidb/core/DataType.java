@@ -260,6 +260,31 @@ public final class DataType
 		return this.nullInstance.getFromBinary(binaryEncoded, offset, len);
 	}
 	
+	/**
+	 * Deserializes a value of this data type like {@link #getFromBinary(byte[], int, int)},
+	 * but overwrites the given holder with it instead of creating a new field, if the type
+	 * allows it. This way, values can be decoded repeatedly without creating a field for each.
+	 * <p>
+	 * The holder must be a field that the caller obtained from this method before and that is
+	 * not referenced elsewhere, since its value changes. Fields of types that cannot be
+	 * overwritten, such as CHAR and VARCHAR, are created anew.
+	 * 
+	 * @param binaryEncoded The binary array with the serialized value.
+	 * @param offset The position to start in the binary array.
+	 * @param len The number of bytes to be deserialized. Only relevant for array types 
+	 *            like CHAR and VARCHAR
+	 * @param holder The field to overwrite, or null, to create a new field.
+	 * @return The holder with the new value, or a new field, if the holder could not take it.
+	 */
+	public DataField getFromBinary(byte[] binaryEncoded, int offset, int len, DataField holder)
+	{
+		if (holder != null && holder != this.nullInstance && holder.getBasicType() == this.basicType &&
+				holder.readFromBinary(binaryEncoded, offset, len)) {
+			return holder;
+		}
+		return this.nullInstance.getFromBinary(binaryEncoded, offset, len);
+	}
+	
 	
 	/* (non-Javadoc)
 	 * @see java.lang.Object#toString()
@@ -174,6 +174,16 @@ public final class FloatField extends DataField implements ArithmeticType<FloatF
 		return FloatField.getFieldFromBinary(binaryEncoded, offs);
     }
 
+	/* (non-Javadoc)
+	 * @see de.tuberlin.dima.minidb.core.DataField#readFromBinary(byte[], int, int)
+	 */
+	@Override
+	boolean readFromBinary(byte[] binaryEncoded, int offs, int len)
+	{
+		this.value = Float.intBitsToFloat(IntField.getIntFromBinary(binaryEncoded, offs));
+		return true;
+	}
+
 
 	/* (non-Javadoc)
 	 * @see de.tuberlin.dima.minidb.core.DataField#getFromString(java.lang.String)
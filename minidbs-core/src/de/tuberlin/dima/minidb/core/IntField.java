@@ -204,6 +204,16 @@ public final class IntField extends DataField implements ArithmeticType<IntField
 		return IntField.getFieldFromBinary(binaryEncoded, offs);
     }
 
+	/* (non-Javadoc)
+	 * @see de.tuberlin.dima.minidb.core.DataField#readFromBinary(byte[], int, int)
+	 */
+	@Override
+	boolean readFromBinary(byte[] binaryEncoded, int offs, int len)
+	{
+		this.value = getIntFromBinary(binaryEncoded, offs);
+		return true;
+	}
+
 
 	/* (non-Javadoc)
 	 * @see de.tuberlin.dima.minidb.core.DataField#getFromString(java.lang.String)
@@ -154,6 +154,16 @@ public final class SmallIntField extends DataField implements ArithmeticType<Sma
 		return SmallIntField.getFieldFromBinary(binaryEncoded, offs);
     }
 
+	/* (non-Javadoc)
+	 * @see de.tuberlin.dima.minidb.core.DataField#readFromBinary(byte[], int, int)
+	 */
+	@Override
+	boolean readFromBinary(byte[] binaryEncoded, int offs, int len)
+	{
+		this.value = (short) ((binaryEncoded[offs] & 0x00ff) | ((binaryEncoded[offs + 1] << 8) & 0xff00));
+		return true;
+	}
+
 
 	/* (non-Javadoc)
 	 * @see de.tuberlin.dima.minidb.core.DataField#getFromString(java.lang.String)
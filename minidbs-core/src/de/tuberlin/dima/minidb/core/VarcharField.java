@@ -85,7 +85,7 @@ public final class VarcharField extends DataField
 	@Override
 	public boolean equals(Object o)
 	{
-		return (o != null && o instanceof VarcharField && 
+		return o == this || (o != null && o instanceof VarcharField && 
 				( (((VarcharField) o).charData == null && this.charData == null) ||
 				  (((VarcharField) o).charData != null && ((VarcharField) o).charData.equals(this.charData)) ) );
 	}
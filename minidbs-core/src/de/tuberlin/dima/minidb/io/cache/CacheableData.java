@@ -22,6 +22,18 @@ public interface CacheableData
 	 */
 	public boolean hasBeenModified() throws PageExpiredException;
 	
+	/**
+	 * Resets the modification flag of this object. The buffer pool calls this method when it has
+	 * taken a copy of the contents to write them back while the object stays in the cache, for example
+	 * during a checkpoint. Modifications made after this call flag the object as modified again.
+	 * <p>
+	 * Objects that are never written while they stay cached need not override this method; the
+	 * default does nothing, so that the object stays flagged as modified.
+	 */
+	public default void markClean()
+	{
+	}
+	
 	/**
 	 * Gets the number of the page that is represented by this object.
 	 * 
@@ -0,0 +1,54 @@
+package de.tuberlin.dima.minidb.io.cache;
+
+
+/**
+ * The entry that {@link PageCache} hands out by default, for caches that cannot hand out their
+ * own entries. It unpins its page by looking it up in the cache again, and does so only once.
+ */
+final class LookupPinnedCacheEntry implements PinnedCacheEntry
+{
+	private final PageCache cache;
+
+	private final int resourceId;
+
+	private final CacheableData page;
+
+	/**
+	 * Whether the page is pinned through this entry.
+	 */
+	private boolean pinned;
+
+
+	LookupPinnedCacheEntry(PageCache cache, int resourceId, CacheableData page)
+	{
+		this.cache = cache;
+		this.resourceId = resourceId;
+		this.page = page;
+		this.pinned = true;
+	}
+
+
+	@Override
+	public CacheableData getPage()
+	{
+		return this.page;
+	}
+
+	/**
+	 * Checks whether the page is pinned through this entry. Pins taken by others are not seen.
+	 */
+	@Override
+	public boolean isPinned()
+	{
+		return this.pinned;
+	}
+
+	@Override
+	public void unpin()
+	{
+		if (this.pinned) {
+			this.pinned = false;
+			this.cache.unpinPage(this.resourceId, this.page.getPageNumber());
+		}
+	}
+}
@@ -39,6 +39,86 @@ public interface PageCache
 	 */
 	CacheableData getPageAndPin(int resourceId, int pageNumber);
 	
+	/**
+	 * Checks, if a page is in the cache. Unlike {@link #getPage(int, int)}, the check does not
+	 * count as a hit and leaves the replacement strategy untouched.
+	 * <p>
+	 * The default looks the page up with {@link #getPage(int, int)}, so that the check counts as
+	 * a hit. Caches that can tell without a hit should override it.
+	 * 
+	 * @param resourceId The id of the resource of the page.
+	 * @param pageNumber The physical page number of the page.
+	 * @return True, if the page is contained in the cache, false otherwise.
+	 */
+	default boolean containsPage(int resourceId, int pageNumber)
+	{
+		return getPage(resourceId, pageNumber) != null;
+	}
+	
+	/**
+	 * Checks, if a page is in the cache and pins it, like {@link #getPageAndPin(int, int)}, but
+	 * without the request counting as a hit. Used for pages that are read in bulk, which must
+	 * not become frequent through such a read. The default pins the page with a hit.
+	 * 
+	 * @param resourceId The id of the resource for which we seek to get a page.
+	 * @param pageNumber The physical page number of the page we seek to retrieve.
+	 * @return The cache entry containing the page data, or null, if the page is not
+	 *         contained in the cache.
+	 */
+	default CacheableData getPageAndPinWithoutHit(int resourceId, int pageNumber)
+	{
+		return getPageAndPin(resourceId, pageNumber);
+	}
+	
+	/**
+	 * Works like {@link #getPageAndPin(int, int)}, but returns the entry of the page, through
+	 * which the page can be unpinned without looking it up again.
+	 * <p>
+	 * The default pins the page with {@link #getPageAndPin(int, int)} and returns an entry that
+	 * unpins it with {@link #unpinPage(int, int)}, which looks the page up again.
+	 * 
+	 * @param resourceId The id of the resource for which we seek to get a page.
+	 * @param pageNumber The physical page number of the page we seek to retrieve.
+	 * @return The pinned entry, or null, if the page is not contained in the cache.
+	 */
+	default PinnedCacheEntry getEntryAndPin(int resourceId, int pageNumber)
+	{
+		CacheableData page = getPageAndPin(resourceId, pageNumber);
+		return page == null ? null : new LookupPinnedCacheEntry(this, resourceId, page);
+	}
+	
+	/**
+	 * Works like {@link #getPageAndPinWithoutHit(int, int)}, but returns the entry of the page,
+	 * through which the page can be unpinned without looking it up again. The default entry works
+	 * like the one of {@link #getEntryAndPin(int, int)}.
+	 * 
+	 * @param resourceId The id of the resource for which we seek to get a page.
+	 * @param pageNumber The physical page number of the page we seek to retrieve.
+	 * @return The pinned entry, or null, if the page is not contained in the cache.
+	 */
+	default PinnedCacheEntry getEntryAndPinWithoutHit(int resourceId, int pageNumber)
+	{
+		CacheableData page = getPageAndPinWithoutHit(resourceId, pageNumber);
+		return page == null ? null : new LookupPinnedCacheEntry(this, resourceId, page);
+	}
+	
+	/**
+	 * Gets the entry of a page that the caller has pinned already, for example by adding it
+	 * pinned. Neither pins the page again nor counts as a hit.
+	 * <p>
+	 * The default finds the page with {@link #getPage(int, int)}, so that the lookup counts as a
+	 * hit, and returns an entry that unpins it with {@link #unpinPage(int, int)}.
+	 * 
+	 * @param resourceId The id of the resource of the page.
+	 * @param pageNumber The physical page number of the page.
+	 * @return The entry, or null, if the page is not contained in the cache.
+	 */
+	default PinnedCacheEntry getPinnedEntry(int resourceId, int pageNumber)
+	{
+		CacheableData page = getPage(resourceId, pageNumber);
+		return page == null ? null : new LookupPinnedCacheEntry(this, resourceId, page);
+	}
+	
 	/**
 	 * This method adds a page to the cache by adding a cache entry for it. The entry must not be
 	 * already contained in the cache. In order to add the new entry, one entry will always be
@@ -95,6 +175,48 @@ public interface PageCache
 	EvictedCacheEntry addPageAndPin(CacheableData newPage, int resourceId)
 		throws CachePinnedException, DuplicateCacheEntryException;
 	
+	/**
+	 * Adds a page that is read in bulk, for example by a scan over a large table. Such pages are
+	 * kept apart from the other pages in a ring that takes a small, fixed share of the cache. Once
+	 * the ring is full, a new bulk page replaces the oldest unpinned bulk page instead of a page
+	 * of the working set. A regular request for a bulk page (<code>getPage()</code> or
+	 * <code>getPageAndPin()</code>) moves it among the other pages, as its first hit.
+	 * <p>
+	 * Caches that keep no separate ring need not override this method; the default adds the
+	 * page like any other.
+	 * 
+	 * @param newPage The new page to be put into the cache.
+	 * @param resourceId The id of the resource the page belongs to.
+	 * 
+	 * @return The entry for the page that needed to be evicted.
+	 * @throws CachePinnedException Thrown, if no page could be evicted, because all pages
+	 *                              are pinned.
+	 * @throws DuplicateCacheEntryException Thrown, if an entry for that page is already contained.
+	 */
+	default EvictedCacheEntry addBulkPage(CacheableData newPage, int resourceId)
+		throws CachePinnedException, DuplicateCacheEntryException
+	{
+		return addPage(newPage, resourceId);
+	}
+	
+	/**
+	 * Adds a page that is read in bulk, like <code>addBulkPage()</code>, and pins it. The
+	 * default adds and pins the page like any other.
+	 * 
+	 * @param newPage The new page to be put into the cache.
+	 * @param resourceId The id of the resource the page belongs to.
+	 * 
+	 * @return The entry for the page that needed to be evicted.
+	 * @throws CachePinnedException Thrown, if no page could be evicted, because all pages
+	 *                              are pinned.
+	 * @throws DuplicateCacheEntryException Thrown, if an entry for that page is already contained.
+	 */
+	default EvictedCacheEntry addBulkPageAndPin(CacheableData newPage, int resourceId)
+		throws CachePinnedException, DuplicateCacheEntryException
+	{
+		return addPageAndPin(newPage, resourceId);
+	}
+	
 	/**
 	 * Decreases the pinning counter of the entry for the page described by this resource-id and
 	 * page number. If there is no entry for this page, this method does nothing. If
@@ -143,11 +265,99 @@ public interface PageCache
 	 */
 	public int getCapacity();
 	
+	/**
+	 * Checks whether this cache can change its capacity through {@link #resize(int)}.
+	 * <p>
+	 * The default returns false, for caches of a fixed capacity.
+	 * 
+	 * @return True, if the cache can be resized, false otherwise.
+	 */
+	public default boolean supportsResize()
+	{
+		return false;
+	}
+	
+	/**
+	 * Changes the capacity of this cache. When the cache grows, it hands out new empty entries
+	 * as pages are added, until it is full. When it shrinks, unpinned pages are evicted the way
+	 * they would be evicted to make room for new pages. If too many pages are pinned, the cache
+	 * shrinks only as far as it can; {@link #getCapacity()} tells the capacity it reached.
+	 * <p>
+	 * The default keeps the capacity and evicts nothing, for caches of a fixed capacity, see
+	 * {@link #supportsResize()}.
+	 * 
+	 * @param numPages The new capacity in pages.
+	 * @return The entries evicted to shrink the cache. Their binary pages are no longer part of
+	 *         the cache.
+	 */
+	public default EvictedCacheEntry[] resize(int numPages)
+	{
+		return new EvictedCacheEntry[0];
+	}
+	
+	/**
+	 * Gets how many pages were added to the cache shortly after they had been evicted, such that
+	 * a larger cache would have kept them. The count is cumulative. It tells how much the cache
+	 * would gain from more capacity.
+	 * <p>
+	 * The default returns 0, for caches that do not remember evicted pages, so that they are
+	 * never chosen to grow.
+	 * 
+	 * @return The number of added pages that had been evicted recently.
+	 */
+	public default long getGhostHits()
+	{
+		return 0;
+	}
+	
+	/**
+	 * Lists the pages in the cache, in the order the cache would evict them, the next victim
+	 * first. Expelled pages and pages that were read in bulk and not requested since are left
+	 * out. The list is a snapshot, meant to bring a new cache into the same state later.
+	 * <p>
+	 * The default returns an empty list, for caches that do not expose their order.
+	 * 
+	 * @return The pages held by the cache.
+	 */
+	public default ResidentPage[] getResidentPages()
+	{
+		return new ResidentPage[0];
+	}
+	
+	/**
+	 * Gets the pages that have been modified and are not pinned, roughly in the order the cache
+	 * would evict them, the next victims first. Writing these pages before they are evicted lets
+	 * the eviction find a clean frame. This method goes through all entries and is meant for
+	 * background work, not for the request path.
+	 * <p>
+	 * The default returns an empty list, so that modified pages are written only when they are
+	 * evicted.
+	 * 
+	 * @return The modified pages that are not pinned.
+	 */
+	public default ResidentPage[] getModifiedPages()
+	{
+		return new ResidentPage[0];
+	}
+	
 	/**
 	 * Unpins all entries, such that they can now be evicted from the cache (pinning counter = 0). 
 	 * This operation has no impact on the position of the entry in the structure that
 	 * decides which entry to evict next.
 	 */
 	public void unpinAllPages();
+	
+	/**
+	 * Gets the number of entries that are currently pinned. This method goes through all
+	 * entries and is meant for monitoring, not for the request path.
+	 * <p>
+	 * The default returns -1, for caches that do not count their pinned entries.
+	 * 
+	 * @return The number of pinned pages (cache entries), or -1, if the cache does not count them.
+	 */
+	public default int getNumberOfPinnedPages()
+	{
+		return -1;
+	}
 
 }
@@ -0,0 +1,33 @@
+package de.tuberlin.dima.minidb.io.cache;
+
+
+/**
+ * The entry of a cache for a page that is pinned. Holding on to the entry lets the page be
+ * unpinned without looking it up again. A pinned entry is never evicted, so the entry stays
+ * the one of the page until it is unpinned.
+ * <p>
+ * Like the cache, the entry is not thread-safe. It is unpinned under the same monitor as the
+ * cache it came from.
+ */
+public interface PinnedCacheEntry
+{
+	/**
+	 * Gets the page of the entry.
+	 * 
+	 * @return The page.
+	 */
+	CacheableData getPage();
+
+	/**
+	 * Checks whether the page is pinned by anyone.
+	 * 
+	 * @return True, if the pinning counter of the entry is above zero.
+	 */
+	boolean isPinned();
+
+	/**
+	 * Decreases the pinning counter of the entry. Does nothing if the entry is not pinned,
+	 * for example because all pages of the cache were unpinned.
+	 */
+	void unpin();
+}
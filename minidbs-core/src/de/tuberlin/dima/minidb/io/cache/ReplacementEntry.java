@@ -0,0 +1,108 @@
+package de.tuberlin.dima.minidb.io.cache;
+
+
+/**
+ * A page held by a cache that leaves its replacement decisions to a {@link ReplacementPolicy}.
+ * The cache keeps the pinning counter and the expelled flag, the policies extend the entry by
+ * the fields they need to order their pages.
+ */
+public class ReplacementEntry implements PinnedCacheEntry
+{
+	private final int resourceId;
+
+	private final int pageNumber;
+
+	private final CacheableData page;
+
+	private int pinned;
+
+	private boolean expelled;
+
+
+	/**
+	 * Creates an entry for a page.
+	 *
+	 * @param resourceId The id of the resource of the page.
+	 * @param pageNumber The page number of the page.
+	 * @param page The page, or <code>null</code>, if the entry only remembers a page that has
+	 *             been evicted.
+	 */
+	public ReplacementEntry(int resourceId, int pageNumber, CacheableData page)
+	{
+		this.resourceId = resourceId;
+		this.pageNumber = pageNumber;
+		this.page = page;
+	}
+
+
+	public int getResourceId()
+	{
+		return this.resourceId;
+	}
+
+	public int getPageNumber()
+	{
+		return this.pageNumber;
+	}
+
+	@Override
+	public CacheableData getPage()
+	{
+		return this.page;
+	}
+
+	/**
+	 * Gets the key of the entry, see {@link #key(int, int)}.
+	 */
+	public long getKey()
+	{
+		return key(this.resourceId, this.pageNumber);
+	}
+
+	@Override
+	public boolean isPinned()
+	{
+		return this.pinned > 0;
+	}
+
+	public void pin()
+	{
+		this.pinned++;
+	}
+
+	@Override
+	public void unpin()
+	{
+		if (this.pinned > 0) {
+			this.pinned--;
+		}
+	}
+
+	public void unpinAll()
+	{
+		this.pinned = 0;
+	}
+
+	public boolean isExpelled()
+	{
+		return this.expelled;
+	}
+
+	public void expell()
+	{
+		this.expelled = true;
+	}
+
+
+	/**
+	 * Combines the resource id and the page number into one key that identifies a page.
+	 *
+	 * @param resourceId The id of the resource of the page.
+	 * @param pageNumber The page number of the page.
+	 * @return The key of the page.
+	 */
+	public static long key(int resourceId, int pageNumber)
+	{
+		return (((long) resourceId) << 32) | (pageNumber & 0xffffffffL);
+	}
+}
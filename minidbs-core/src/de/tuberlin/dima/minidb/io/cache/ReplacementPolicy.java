@@ -0,0 +1,81 @@
+package de.tuberlin.dima.minidb.io.cache;
+
+
+/**
+ * The specification of a policy that decides which page a cache evicts. The cache holds the
+ * pages, hands out the frames and keeps track of pinning; the policy only orders the pages it
+ * was given and picks the victims among them.
+ * <p>
+ * The policy creates the entries for the pages, so that it can attach its own bookkeeping to
+ * them. An entry is tracked from {@link #admit(ReplacementEntry)} until the policy returns it
+ * from {@link #evict()} or the cache drops it through {@link #remove(ReplacementEntry)}.
+ * <p>
+ * Policies are not thread-safe, the cache calls them under its own lock.
+ */
+public interface ReplacementPolicy
+{
+	/**
+	 * Creates an entry for a page, without tracking it yet.
+	 *
+	 * @param resourceId The id of the resource of the page.
+	 * @param pageNumber The page number of the page.
+	 * @param page The page.
+	 * @return The entry for the page.
+	 */
+	ReplacementEntry createEntry(int resourceId, int pageNumber, CacheableData page);
+
+	/**
+	 * Starts tracking an entry that entered the cache. Entering the cache does not count as a hit.
+	 * The cache has made room for the page before.
+	 *
+	 * @param entry An entry created by this policy.
+	 */
+	void admit(ReplacementEntry entry);
+
+	/**
+	 * Records a hit on a tracked entry.
+	 *
+	 * @param entry The entry that was hit.
+	 */
+	void hit(ReplacementEntry entry);
+
+	/**
+	 * Chooses an unpinned entry to evict and stops tracking it. The policy may keep remembering
+	 * the page, to detect that it comes back.
+	 *
+	 * @return The evicted entry, or <code>null</code>, if all tracked entries are pinned.
+	 */
+	ReplacementEntry evict();
+
+	/**
+	 * Stops tracking an entry without remembering it, for example because its page was expelled.
+	 *
+	 * @param entry The entry to drop.
+	 */
+	void remove(ReplacementEntry entry);
+
+	/**
+	 * Tells the policy the number of pages the cache holds. Policies that split the cache into
+	 * parts, or that remember evicted pages, size them after it.
+	 *
+	 * @param numPages The capacity of the cache in pages.
+	 */
+	void setCapacity(int numPages);
+
+	/**
+	 * Gets how many admitted pages the policy remembered as recently evicted,
+	 * see {@link PageCache#getGhostHits()}.
+	 *
+	 * @return The number of admitted pages that had been evicted recently.
+	 */
+	long getGhostHits();
+
+	/**
+	 * Checks whether the policy keeps a tracked entry for its repeated use rather than as a page
+	 * seen once, see {@link ResidentPage#isFrequent()}.
+	 *
+	 * @param entry A tracked entry.
+	 * @return True, if the entry counts as frequently used.
+	 */
+	boolean isFrequent(ReplacementEntry entry);
+}
@@ -0,0 +1,34 @@
+package de.tuberlin.dima.minidb.io.cache;
+
+
+/**
+ * An enumeration of the replacement policies that decide which page a page cache evicts.
+ */
+public enum ReplacementPolicyType
+{
+	/**
+	 * Adaptive Replacement Cache: a recency and a frequency list whose sizes adapt to the hits
+	 * on the pages recently evicted from either. Every hit moves the page within its list.
+	 */
+	ARC,
+
+	/**
+	 * CLOCK: a hand sweeps over the pages and evicts the first page that was not hit since the
+	 * hand passed it last. A hit only sets a flag, the pages are never reordered.
+	 */
+	CLOCK,
+
+	/**
+	 * CLOCK-Pro: CLOCK with hot and cold pages, where a cold page becomes hot if it is hit again
+	 * within a test period. Pages evicted during their test period are remembered, and the share
+	 * of cold pages adapts to how often they come back.
+	 */
+	CLOCK_PRO,
+
+	/**
+	 * Low Inter-reference Recency Set: pages with a short distance between their last two
+	 * references stay in the cache, while pages seen only once pass through a small share
+	 * of it. Resists scans and loops larger than the cache.
+	 */
+	LIRS;
+}
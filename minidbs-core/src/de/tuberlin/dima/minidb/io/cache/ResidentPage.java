@@ -0,0 +1,44 @@
+package de.tuberlin.dima.minidb.io.cache;
+
+
+/**
+ * Describes a page held by a cache: which page it is, and whether the replacement policy counts
+ * it among the pages it keeps for their repeated use. For ARC, these are the pages in the
+ * frequency list.
+ */
+public class ResidentPage
+{
+	private final int resourceId;
+
+	private final int pageNumber;
+
+	private final boolean frequent;
+
+
+	public ResidentPage(int resourceId, int pageNumber, boolean frequent)
+	{
+		this.resourceId = resourceId;
+		this.pageNumber = pageNumber;
+		this.frequent = frequent;
+	}
+
+
+	public int getResourceId()
+	{
+		return this.resourceId;
+	}
+
+	public int getPageNumber()
+	{
+		return this.pageNumber;
+	}
+
+	/**
+	 * Checks whether the page was hit since it entered the cache, such that the policy keeps it
+	 * apart from the pages used once.
+	 */
+	public boolean isFrequent()
+	{
+		return this.frequent;
+	}
+}
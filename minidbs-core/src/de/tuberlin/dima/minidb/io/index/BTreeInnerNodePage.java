@@ -174,6 +174,16 @@ public class BTreeInnerNodePage implements BTreeIndexPage
 		return this.modified;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see de.tuberlin.dima.minidb.io.cache.CacheableData#markClean()
+	 */
+	@Override
+	public void markClean()
+	{
+		this.modified = false;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see de.tuberlin.dima.minidb.io.cache.CacheableData#markExpired()
@@ -196,6 +196,16 @@ public class BTreeLeafPage implements BTreeIndexPage
 		return this.modified;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see de.tuberlin.dima.minidb.io.cache.CacheableData#markClean()
+	 */
+	@Override
+	public void markClean()
+	{
+		this.modified = false;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
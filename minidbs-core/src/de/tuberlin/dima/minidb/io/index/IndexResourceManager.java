@@ -18,6 +18,10 @@ import de.tuberlin.dima.minidb.io.cache.CacheableData;
 import de.tuberlin.dima.minidb.io.cache.PageFormatException;
 import de.tuberlin.dima.minidb.io.cache.PageSize;
 import de.tuberlin.dima.minidb.io.cache.UnsupportedPageSizeException;
+import de.tuberlin.dima.minidb.io.manager.DirectPageIO;
+import de.tuberlin.dima.minidb.io.manager.DurabilityMode;
+import de.tuberlin.dima.minidb.io.manager.ExtentAllocator;
+import de.tuberlin.dima.minidb.io.manager.MappedPageReader;
 import de.tuberlin.dima.minidb.io.manager.ResourceManager;
 
 /**
@@ -88,6 +92,21 @@ public class IndexResourceManager extends ResourceManager {
 	 */
 	private int lastPageNumber;
 
+	/**
+	 * The reader serving pages from a mapping of the file, if mapped reads are enabled.
+	 */
+	private volatile MappedPageReader mappedReader;
+
+	/**
+	 * The direct I/O channel for the index pages, if direct I/O is enabled.
+	 */
+	private volatile DirectPageIO directIO;
+
+	/**
+	 * The allocator extending the file by extents, if extent allocation is enabled.
+	 */
+	private volatile ExtentAllocator allocator;
+
 	// ------------------------------------------------------------------------
 	//                        Constructor & Life-Cycle
 	// ------------------------------------------------------------------------
@@ -140,7 +159,8 @@ public class IndexResourceManager extends ResourceManager {
 		this.schema = readIndexHeader(this.ioChannel, indexedTable);
 		this.schema.setResourceManagerForPersistence(this);
 		this.pageSize = this.schema.getPageSize().getNumberOfBytes();
-		this.lastPageNumber = (int) (this.ioChannel.size() / this.pageSize) - 1;
+		// pages allocated at the end of the file, but not written yet, do not count
+		this.lastPageNumber = ExtentAllocator.findLastWrittenPage(this.ioChannel, this.pageSize, FIRST_DATA_PAGE);
 	}
 
 	/**
@@ -209,7 +229,12 @@ public class IndexResourceManager extends ResourceManager {
 	 */
 	@Override
 	public synchronized void closeResource() throws IOException {
+		this.mappedReader = null;
 		try {
+			if (this.directIO != null) {
+				this.directIO.close();
+				this.directIO = null;
+			}
 			this.theLock.release();
 			this.ioChannel.close();
 		} catch (Throwable t) {
@@ -225,6 +250,60 @@ public class IndexResourceManager extends ResourceManager {
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see de.tuberlin.dima.minidb.io.manager.ResourceManager#sync()
+	 */
+	@Override
+	public void sync() throws IOException {
+		this.ioChannel.force(true);
+	}
+
+	/**
+	 * Makes this index serve page reads from a memory mapping of its file, rather than reading
+	 * them through the file channel. Suited for indexes that are mostly read, since the mapping
+	 * saves a copy and a system call per page.
+	 * 
+	 * @see de.tuberlin.dima.minidb.io.manager.MappedPageReader
+	 */
+	public synchronized void enableMappedReads() {
+		if (this.mappedReader == null && this.directIO == null) {
+			this.mappedReader = new MappedPageReader(this.ioChannel, this.pageSize);
+		}
+	}
+
+	/**
+	 * Makes this index read and write its pages with direct I/O, bypassing the operating
+	 * system's page cache, so that the buffer pool is the only cache of the pages. Replaces
+	 * mapped reads, which go through the page cache. Like the regular channel of the index,
+	 * the direct channel does not write synchronously.
+	 * 
+	 * @param indexFile The file of this index, opened a second time for direct I/O.
+	 * @throws IOException Thrown, if the file system does not support direct I/O for the pages
+	 *                     of this index.
+	 * @see de.tuberlin.dima.minidb.io.manager.DirectPageIO
+	 */
+	public synchronized void enableDirectIO(File indexFile) throws IOException {
+		if (this.directIO == null) {
+			this.directIO = new DirectPageIO(indexFile, this.pageSize, DurabilityMode.DEFERRED);
+			this.mappedReader = null;
+		}
+	}
+
+	/**
+	 * Makes this index allocate the space of its file in extents of the given number of pages,
+	 * rather than growing the file by one page with every page written beyond its end.
+	 * 
+	 * @param extentPages The number of pages in an extent. With one page, nothing changes.
+	 * @throws IOException Thrown, if the length of the file could not be determined.
+	 * @see de.tuberlin.dima.minidb.io.manager.ExtentAllocator
+	 */
+	public synchronized void enableExtentAllocation(int extentPages) throws IOException {
+		if (this.allocator == null && extentPages > 1) {
+			this.allocator = new ExtentAllocator(this.ioChannel, this.pageSize, extentPages);
+		}
+	}
+
 	/**
 	 * Tries to release all resources from this table, but does not
 	 * complain if anything fails.
@@ -271,6 +350,15 @@ public class IndexResourceManager extends ResourceManager {
 		return this.schema.getPageSize();
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see de.tuberlin.dima.minidb.io.manager.ResourceManager#getLastPageNumber()
+	 */
+	@Override
+	public int getLastPageNumber() {
+		return this.lastPageNumber;
+	}
+
 	// ------------------------------------------------------------------------
 
 	/**
@@ -339,7 +427,15 @@ public class IndexResourceManager extends ResourceManager {
 
 		// set the I/O channel to the right size.
 		this.lastPageNumber = FIRST_DATA_PAGE;
+		MappedPageReader reader = this.mappedReader;
+		if (reader != null) {
+			reader.invalidate();
+		}
 		this.ioChannel.truncate((this.lastPageNumber + 1) * this.pageSize);
+		ExtentAllocator allocator = this.allocator;
+		if (allocator != null) {
+			allocator.truncated(this.lastPageNumber + 1);
+		}
 
 		this.schema.setFirstLeafNumber(FIRST_DATA_PAGE);
 		this.schema.setRootPageNumber(FIRST_DATA_PAGE);
@@ -409,7 +505,13 @@ public class IndexResourceManager extends ResourceManager {
 		ByteBuffer b = ByteBuffer.wrap(buffer, 0, this.pageSize);
 		long position = ((long) this.pageSize) * ((long) pageNumber);
 		try {
-			readIntoBuffer(this.ioChannel, b, position, this.pageSize);
+			DirectPageIO direct = this.directIO;
+			MappedPageReader reader = this.mappedReader;
+			if (direct != null) {
+				direct.read(buffer, position);
+			} else if (reader == null || !reader.read(buffer, position, this.pageSize)) {
+				readIntoBuffer(this.ioChannel, b, position, this.pageSize);
+			}
 		} catch (IOException ioex) {
 			throw new IOException("Page " + pageNumber + " could not be read from index file.", ioex);
 		}
@@ -446,24 +548,35 @@ public class IndexResourceManager extends ResourceManager {
 			}
 		}
 
-		// seek and read the buffer
-		ByteBuffer[] b = new ByteBuffer[buffers.length];
-		for (int i = 0; i < buffers.length; i++) {
-			b[i] = ByteBuffer.wrap(buffers[i], 0, this.pageSize);
-		}
+		// read directly, copy from the mapping, or seek and read the buffers
+		DirectPageIO direct = this.directIO;
+		MappedPageReader reader = this.mappedReader;
+		if (direct != null) {
+			try {
+				direct.read(buffers, this.pageSize * (long) firstPageNumber);
+			} catch (IOException ioex) {
+				throw new IOException("Page sequence [" + firstPageNumber + ", " + (firstPageNumber + buffers.length - 1) + "] could not be read from index file.",
+					ioex);
+			}
+		} else if (reader == null || !reader.read(buffers, this.pageSize * (long) firstPageNumber, this.pageSize)) {
+			ByteBuffer[] b = new ByteBuffer[buffers.length];
+			for (int i = 0; i < buffers.length; i++) {
+				b[i] = ByteBuffer.wrap(buffers[i], 0, this.pageSize);
+			}
 
-		try {
-			this.ioChannel.position(this.pageSize * (long) firstPageNumber);
-			long totalSize = buffers.length * this.pageSize;
-			long bytesRemaining = buffers.length * this.pageSize;
-			int currFirstBuffer = 0;
-			do {
-				bytesRemaining -= this.ioChannel.read(b, currFirstBuffer, buffers.length - currFirstBuffer);
-				currFirstBuffer = (int) ((totalSize - bytesRemaining) / this.pageSize);
-			} while (bytesRemaining > 0);
-		} catch (IOException ioex) {
-			throw new IOException("Page sequence [" + firstPageNumber + ", " + (firstPageNumber + buffers.length - 1) + "] could not be read from index file.",
-				ioex);
+			try {
+				this.ioChannel.position(this.pageSize * (long) firstPageNumber);
+				long totalSize = buffers.length * this.pageSize;
+				long bytesRemaining = buffers.length * this.pageSize;
+				int currFirstBuffer = 0;
+				do {
+					bytesRemaining -= this.ioChannel.read(b, currFirstBuffer, buffers.length - currFirstBuffer);
+					currFirstBuffer = (int) ((totalSize - bytesRemaining) / this.pageSize);
+				} while (bytesRemaining > 0);
+			} catch (IOException ioex) {
+				throw new IOException("Page sequence [" + firstPageNumber + ", " + (firstPageNumber + buffers.length - 1) + "] could not be read from index file.",
+					ioex);
+			}
 		}
 
 		// wrap the loaded buffers in CacheableData objects 
@@ -546,6 +659,25 @@ public class IndexResourceManager extends ResourceManager {
 			}
 		}
 
+		ExtentAllocator allocator = this.allocator;
+		if (allocator != null) {
+			try {
+				allocator.allocate(pageNumber + buffers.length - 1);
+			} catch (IOException ioex) {
+				throw new IOException("Space for page sequence [" + pageNumber + ", " + (pageNumber + buffers.length - 1) + "] could not be allocated in the index file.", ioex);
+			}
+		}
+
+		DirectPageIO direct = this.directIO;
+		if (direct != null) {
+			try {
+				direct.write(buffers, this.pageSize * (long) pageNumber);
+			} catch (IOException ioex) {
+				throw new IOException("Page sequence [" + pageNumber + ", " + (pageNumber + buffers.length - 1) + "] could not be written to the index file.", ioex);
+			}
+			return;
+		}
+
 		ByteBuffer[] b = new ByteBuffer[buffers.length];
 		for (int i = 0; i < buffers.length; i++) {
 			b[i] = ByteBuffer.wrap(buffers[i], 0, this.pageSize);
@@ -932,12 +1064,24 @@ public class IndexResourceManager extends ResourceManager {
 	 *         Thrown, if an I/O problem occurred during the write operation.
 	 */
 	private final void writePage(byte[] buffer, int pageNumber, int pageSize) throws IOException {
+		long position = ((long) pageSize) * ((long) pageNumber);
+
+		ExtentAllocator allocator = this.allocator;
+		if (allocator != null) {
+			allocator.allocate(pageNumber);
+		}
+
+		DirectPageIO direct = this.directIO;
+		if (direct != null) {
+			direct.write(buffer, position);
+			return;
+		}
+
 		// create a buffer around the array
 		ByteBuffer b = ByteBuffer.wrap(buffer, 0, pageSize);
 
 		// seek and write the buffer. If the position is beyond the file size,
 		// the channel will automatically increase the file length
-		long position = ((long) pageSize) * ((long) pageNumber);
 		writeBuffer(this.ioChannel, b, position);
 	}
 }
@@ -0,0 +1,23 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+
+/**
+ * An enumeration of the ways in which a caller can ask the buffer pool to treat the pages
+ * it requests.
+ */
+public enum BufferAccessStrategy
+{
+	/**
+	 * Pages are cached according to the replacement strategy of the cache. Requests count as
+	 * hits, so pages that are requested again become frequent.
+	 */
+	NORMAL,
+
+	/**
+	 * Pages are read once, in bulk, as by a scan over a large table. They are kept in a ring of
+	 * limited size apart from the working set of the cache and are the first to be evicted.
+	 * Their requests do not count as hits, so a scan neither pushes frequently used pages out of
+	 * the cache nor makes its own pages frequent.
+	 */
+	BULK_READ;
+}
@@ -1,9 +1,14 @@
 package de.tuberlin.dima.minidb.io.manager;
 
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import de.tuberlin.dima.minidb.io.cache.CacheableData;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
 
 
 /**
@@ -58,6 +63,24 @@ public interface BufferPoolManager
 	 */
 	public void closeBufferPool();
 
+	/**
+	 * Makes all modifications done so far durable. All pages that have been modified in the cache
+	 * are written to their resources, and the resources are then synced, so that the data is on the
+	 * storage device when this method returns. The pages stay in the cache.
+	 * <p>
+	 * Pages that are modified while the checkpoint runs may or may not be part of it.
+	 * <p>
+	 * Buffer pools that cannot write their modified pages while keeping them cached need not
+	 * override this method; the default does nothing. Their pages become durable when the buffer
+	 * pool and the resources are closed.
+	 * 
+	 * @throws BufferPoolException Thrown, if the buffer pool is closed.
+	 * @throws IOException Thrown, if a resource could not be synced.
+	 */
+	public default void checkpoint() throws BufferPoolException, IOException
+	{
+	}
+
 	/**
 	 * Registers a resource with this buffer pool. All requests for this resource are then served through this buffer pool.
 	 * <p>
@@ -76,6 +99,78 @@ public interface BufferPoolManager
 	 */
 	public void registerResource(int id, ResourceManager manager)
 			throws BufferPoolException;
+	
+	/**
+	 * Checks whether this buffer pool can change the size of its caches through
+	 * {@link #resizeCache(PageSize, int)}.
+	 * <p>
+	 * The default returns false, for buffer pools with caches of a fixed size.
+	 * 
+	 * @return True, if the caches can be resized, false otherwise.
+	 */
+	public default boolean supportsResize()
+	{
+		return false;
+	}
+	
+	/**
+	 * Changes the number of pages that the cache for the given page size holds. Growing takes
+	 * effect as pages are added to the cache. Shrinking evicts unpinned pages right away, writes
+	 * the modified ones and gives their memory up. If too many pages are pinned, the cache shrinks
+	 * only as far as it can.
+	 * <p>
+	 * Buffer pools with caches of a fixed size need not override this method; the default keeps
+	 * the caches as they are and returns -1, see {@link #supportsResize()}.
+	 * 
+	 * @param pageSize The page size of the cache.
+	 * @param numPages The new number of pages.
+	 * @return The number of pages the cache holds after the call, or -1, if the buffer pool
+	 *         cannot resize its caches.
+	 * 
+	 * @throws BufferPoolException Thrown, if the buffer pool is closed or no resource with that
+	 *                             page size is registered.
+	 */
+	public default int resizeCache(PageSize pageSize, int numPages)
+			throws BufferPoolException
+	{
+		return -1;
+	}
+	
+	/**
+	 * Writes the list of the pages in the caches to a file, with the position each page has in
+	 * the replacement order of its cache. The pages themselves are not written. The file is
+	 * replaced as a whole, a reader never sees half of it.
+	 * <p>
+	 * Buffer pools that do not warm their caches need not override this method; the default
+	 * writes nothing.
+	 * 
+	 * @param file The file to write the image to.
+	 * 
+	 * @throws BufferPoolException Thrown, if the buffer pool is closed.
+	 * @throws IOException Thrown, if the file cannot be written.
+	 */
+	public default void saveCacheImage(File file)
+			throws BufferPoolException, IOException
+	{
+	}
+	
+	/**
+	 * Reads a file written by {@link #saveCacheImage(File)} and starts to load the pages it lists
+	 * in the background, with low priority, sorted and in batches. Requests are served while the
+	 * pages load. Pages of resources that are not registered, or that no longer exist, are skipped.
+	 * <p>
+	 * The default loads nothing, the caches start cold.
+	 * 
+	 * @param file The file to read the image from.
+	 * 
+	 * @throws BufferPoolException Thrown, if the buffer pool is closed or its I/O threads are not
+	 *                             started.
+	 * @throws IOException Thrown, if the file cannot be read or is corrupt.
+	 */
+	public default void loadCacheImage(File file)
+			throws BufferPoolException, IOException
+	{
+	}
 
 
 	// ------------------------------------------------------------------------
@@ -103,6 +198,28 @@ public interface BufferPoolManager
 	public CacheableData getPageAndPin(int resourceId, int pageNumber)
 			throws BufferPoolException, IOException;
 	
+	/**
+	 * Fetches and pins a page like {@link #getPageAndPin(int, int)}, treating it according to the
+	 * given access strategy. A scan over a large resource uses {@link BufferAccessStrategy#BULK_READ},
+	 * so that its pages do not displace the working set of the cache. Buffer pools that treat all
+	 * pages alike need not override this method; the default ignores the strategy.
+	 * 
+	 * @param resourceId The id of the resource.
+	 * @param pageNumber The page number of the page to fetch.
+	 * @param strategy The strategy with which the page is cached.
+	 * @return The requested page, wrapped by a structure to make it accessible.
+	 * 
+	 * @throws BufferPoolException Thrown, if the given resource it not registered at the buffer pool,
+	 *                             the buffer pool is closed, or an internal problem occurred.
+	 * @throws IOException Thrown, if the page had to be loaded from secondary storage and the loading
+	 *                     failed due to an I/O problem.
+	 */
+	public default CacheableData getPageAndPin(int resourceId, int pageNumber, BufferAccessStrategy strategy)
+			throws BufferPoolException, IOException
+	{
+		return getPageAndPin(resourceId, pageNumber);
+	}
+	
 	/**
 	 * Unpins a given page and in addition fetches another page from the same resource. This method works exactly
 	 * like the method {@link de.tuberlin.dima.minidb.io.BufferPoolManager#getPageAndPin(int, int)}, only that it
@@ -126,6 +243,128 @@ public interface BufferPoolManager
 	 */
 	public CacheableData unpinAndGetPageAndPin(int resourceId, int unpinPageNumber, int getPageNumber)
 			throws BufferPoolException, IOException;
+	
+	/**
+	 * Unpins a page and fetches another one like {@link #unpinAndGetPageAndPin(int, int, int)}, treating
+	 * the fetched page according to the given access strategy. The default ignores the strategy.
+	 * 
+	 * @param resourceId The id of the resource.
+	 * @param unpinPageNumber The page number of the page to be unpinned.
+	 * @param getPageNumber The page number of the page to get and pin.
+	 * @param strategy The strategy with which the fetched page is cached.
+	 * @return The requested page, wrapped by a structure to make it accessible.
+	 * 
+	 * @throws BufferPoolException Thrown, if the given resource it not registered at the buffer pool,
+	 *                             the buffer pool is closed, or an internal problem occurred.
+	 * @throws IOException Thrown, if the page had to be loaded from secondary storage and the loading
+	 *                     failed due to an I/O problem.
+	 */
+	public default CacheableData unpinAndGetPageAndPin(int resourceId, int unpinPageNumber, int getPageNumber,
+			BufferAccessStrategy strategy) throws BufferPoolException, IOException
+	{
+		return unpinAndGetPageAndPin(resourceId, unpinPageNumber, getPageNumber);
+	}
+	
+	/**
+	 * Fetches and pins a page like {@link #getPageAndPin(int, int)}, and returns a handle that
+	 * unpins the page when it is closed. Unpinning through the handle needs no lookup of the page.
+	 * <p>
+	 * The default handle pins and unpins its pages through {@link #getPageAndPin(int, int)} and
+	 * {@link #unpinPage(int, int)}, so that it still looks the page up to unpin it.
+	 * 
+	 * @param resourceId The id of the resource.
+	 * @param pageNumber The page number of the page to fetch.
+	 * @return The handle of the pinned page.
+	 * 
+	 * @throws BufferPoolException Thrown, if the given resource it not registered at the buffer pool,
+	 *                             the buffer pool is closed, or an internal problem occurred.
+	 * @throws IOException Thrown, if the page had to be loaded from secondary storage and the loading
+	 *                     failed due to an I/O problem.
+	 */
+	public default PinnedPage pinPage(int resourceId, int pageNumber)
+			throws BufferPoolException, IOException
+	{
+		return pinPage(resourceId, pageNumber, BufferAccessStrategy.NORMAL);
+	}
+	
+	/**
+	 * Fetches and pins a page like {@link #pinPage(int, int)}, treating it and the pages the handle
+	 * moves to according to the given access strategy. The default handle works like the one of
+	 * {@link #pinPage(int, int)}.
+	 * 
+	 * @param resourceId The id of the resource.
+	 * @param pageNumber The page number of the page to fetch.
+	 * @param strategy The strategy with which the pages are cached.
+	 * @return The handle of the pinned page.
+	 * 
+	 * @throws BufferPoolException Thrown, if the given resource it not registered at the buffer pool,
+	 *                             the buffer pool is closed, or an internal problem occurred.
+	 * @throws IOException Thrown, if the page had to be loaded from secondary storage and the loading
+	 *                     failed due to an I/O problem.
+	 */
+	public default PinnedPage pinPage(int resourceId, int pageNumber, BufferAccessStrategy strategy)
+			throws BufferPoolException, IOException
+	{
+		PinnedPage pinned = new LookupPinnedPage(this, resourceId, strategy);
+		pinned.moveTo(pageNumber);
+		return pinned;
+	}
+	
+	/**
+	 * Fetches and pins a page without blocking the caller. If the page is in the cache, the returned
+	 * future is already complete. Otherwise, the page is requested from secondary storage and the future
+	 * completes once the page has been read and added to the cache. In both cases the page is pinned,
+	 * exactly as by {@link #getPageAndPin(int, int)}, and must be unpinned by the caller.
+	 * <p>
+	 * The future completes exceptionally with an <code>IOException</code>, if the page could not be read,
+	 * or with a <code>BufferPoolException</code>, if the buffer pool is closed before the page is read.
+	 * <p>
+	 * Buffer pools without asynchronous requests need not override this method; the default fetches
+	 * the page with {@link #getPageAndPin(int, int)} and returns a completed future.
+	 * 
+	 * @param resourceId The id of the resource.
+	 * @param pageNumber The page number of the page to fetch.
+	 * @return A future for the requested page.
+	 * 
+	 * @throws BufferPoolException Thrown, if the given resource it not registered at the buffer pool,
+	 *                             or the buffer pool is closed.
+	 */
+	public default CompletableFuture<CacheableData> getPageAndPinAsync(int resourceId, int pageNumber)
+			throws BufferPoolException
+	{
+		CompletableFuture<CacheableData> future = new CompletableFuture<CacheableData>();
+		try {
+			future.complete(getPageAndPin(resourceId, pageNumber));
+		}
+		catch (IOException ioex) {
+			future.completeExceptionally(ioex);
+		}
+		return future;
+	}
+	
+	/**
+	 * Fetches and pins several pages of a resource without blocking the caller. Works like
+	 * {@link #getPageAndPinAsync(int, int)} for each of the pages. The pages are requested in the
+	 * order of their page numbers, so that consecutive pages may be read together. The default
+	 * requests them one after the other, in the given order.
+	 * 
+	 * @param resourceId The id of the resource.
+	 * @param pageNumbers The page numbers of the pages to fetch. A page that is listed several times
+	 *                    is pinned several times.
+	 * @return The futures for the requested pages, in the order of the given page numbers.
+	 * 
+	 * @throws BufferPoolException Thrown, if the given resource it not registered at the buffer pool,
+	 *                             or the buffer pool is closed.
+	 */
+	public default List<CompletableFuture<CacheableData>> getPagesAndPinAsync(int resourceId, int[] pageNumbers)
+			throws BufferPoolException
+	{
+		List<CompletableFuture<CacheableData>> futures = new ArrayList<CompletableFuture<CacheableData>>(pageNumbers.length);
+		for (int pageNumber : pageNumbers) {
+			futures.add(getPageAndPinAsync(resourceId, pageNumber));
+		}
+		return futures;
+	}
 
 	/**
 	 * Unpins a page so that it can again be evicted from the cache. This method works after the principle of 
@@ -169,6 +408,38 @@ public interface BufferPoolManager
 	 */
 	public void prefetchPages(int resourceId, int startPageNumber, int endPageNumber)
 			throws BufferPoolException;
+	
+	/**
+	 * Prefetches a sequence of pages like {@link #prefetchPages(int, int, int)}, caching them according
+	 * to the given access strategy. With {@link BufferAccessStrategy#BULK_READ}, pages that are
+	 * already cached are not hit. The default ignores the strategy.
+	 * 
+	 * @param resourceId The id of the resource.
+	 * @param startPageNumber The page number of the first page to prefetch.
+	 * @param endPageNumber The page number of the last page to prefetch.
+	 * @param strategy The strategy with which the pages are cached.
+	 * @throws BufferPoolException If the buffer pool is closed, or the resource is not registered.
+	 */
+	public default void prefetchPages(int resourceId, int startPageNumber, int endPageNumber, BufferAccessStrategy strategy)
+			throws BufferPoolException
+	{
+		prefetchPages(resourceId, startPageNumber, endPageNumber);
+	}
+	
+	/**
+	 * Gets the number of pages the cache for the given page size holds, so that callers can tell
+	 * whether a resource fits into it, for example to choose the access strategy of a scan.
+	 * <p>
+	 * The default returns -1, for buffer pools that do not tell the size of their caches.
+	 * 
+	 * @param pageSize The page size of the cache.
+	 * @return The capacity of the cache in pages, or -1, if it is not known or there is no cache
+	 *         for that page size.
+	 */
+	public default int getCacheCapacity(PageSize pageSize)
+	{
+		return -1;
+	}
 
 	
 	/**
@@ -0,0 +1,214 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+import com.sun.nio.file.ExtendedOpenOption;
+
+
+/**
+ * Reads and writes the pages of a resource file with direct I/O, bypassing the operating
+ * system's page cache. The pages then sit in memory only once, in the buffer pool, which can
+ * be given the memory the page cache would otherwise take.
+ * <p>
+ * Direct I/O transfers whole blocks of the file system between the device and memory that is
+ * aligned to the block size. The reader therefore copies the pages through an aligned direct
+ * buffer of its own, one per thread, that grows to the largest sequence of pages transferred.
+ * Pages must be a multiple of the block size, which holds for all page sizes on common file
+ * systems.
+ * <p>
+ * The file is opened a second time for direct I/O. The metadata at the start of the file is
+ * still read and written through the resource's regular channel, and the file is synced and
+ * truncated through it, which covers both channels.
+ */
+public class DirectPageIO
+{
+	/**
+	 * The channel of the file, opened for direct I/O.
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * The size of the pages in the file, in bytes.
+	 */
+	private final int pageSize;
+
+	/**
+	 * The alignment of buffers and transfers, the block size of the file system.
+	 */
+	private final int alignment;
+
+	/**
+	 * The aligned buffer of each thread.
+	 */
+	private final ThreadLocal<ByteBuffer> buffers;
+
+
+	/**
+	 * Opens the given file for direct I/O.
+	 *
+	 * @param file The file of the resource.
+	 * @param pageSize The size of the pages in the file, in bytes.
+	 * @param durability Whether writes go synchronously to the device.
+	 * @throws IOException Thrown, if the file could not be opened, or its file system does not
+	 *                     support direct I/O for pages of the given size.
+	 */
+	public DirectPageIO(File file, int pageSize, DurabilityMode durability) throws IOException
+	{
+		Path path = file.toPath();
+
+		long blockSize = Files.getFileStore(path).getBlockSize();
+		if (blockSize <= 0 || blockSize > pageSize || pageSize % blockSize != 0) {
+			throw new IOException("Direct I/O needs pages that are a multiple of the block size (" + blockSize +
+					" bytes), but the pages have " + pageSize + " bytes.");
+		}
+
+		ArrayList<OpenOption> options = new ArrayList<OpenOption>();
+		options.add(StandardOpenOption.READ);
+		options.add(StandardOpenOption.WRITE);
+		options.add(ExtendedOpenOption.DIRECT);
+		if (durability == DurabilityMode.STRICT) {
+			options.add(StandardOpenOption.DSYNC);
+		}
+
+		try {
+			this.channel = FileChannel.open(path, options.toArray(new OpenOption[options.size()]));
+		}
+		catch (UnsupportedOperationException uoex) {
+			throw new IOException("Direct I/O is not supported for file '" + file + "'.", uoex);
+		}
+
+		this.pageSize = pageSize;
+		this.alignment = (int) blockSize;
+		this.buffers = new ThreadLocal<ByteBuffer>();
+	}
+
+
+	/**
+	 * Reads the page at the given position of the file into the buffer.
+	 *
+	 * @param buffer The buffer to read the page into.
+	 * @param position The position of the page in the file.
+	 * @throws IOException Thrown, if the page could not be read, or lies beyond the end of the file.
+	 */
+	public void read(byte[] buffer, long position) throws IOException
+	{
+		ByteBuffer direct = getBuffer(1);
+		readFully(direct, position);
+		direct.get(buffer, 0, this.pageSize);
+	}
+
+	/**
+	 * Reads consecutive pages, starting at the given position of the file, into the buffers
+	 * with a single transfer.
+	 *
+	 * @param buffers The buffers to read the pages into, one page per buffer.
+	 * @param position The position of the first page in the file.
+	 * @throws IOException Thrown, if the pages could not be read, or lie beyond the end of the file.
+	 */
+	public void read(byte[][] buffers, long position) throws IOException
+	{
+		ByteBuffer direct = getBuffer(buffers.length);
+		readFully(direct, position);
+		for (int i = 0; i < buffers.length; i++) {
+			direct.get(buffers[i], 0, this.pageSize);
+		}
+	}
+
+	/**
+	 * Writes the page in the buffer to the given position of the file.
+	 *
+	 * @param buffer The buffer holding the page.
+	 * @param position The position of the page in the file.
+	 * @throws IOException Thrown, if the page could not be written.
+	 */
+	public void write(byte[] buffer, long position) throws IOException
+	{
+		ByteBuffer direct = getBuffer(1);
+		direct.put(buffer, 0, this.pageSize);
+		direct.flip();
+		writeFully(direct, position);
+	}
+
+	/**
+	 * Writes consecutive pages, starting at the given position of the file, with a single transfer.
+	 *
+	 * @param buffers The buffers holding the pages, one page per buffer.
+	 * @param position The position of the first page in the file.
+	 * @throws IOException Thrown, if the pages could not be written.
+	 */
+	public void write(byte[][] buffers, long position) throws IOException
+	{
+		ByteBuffer direct = getBuffer(buffers.length);
+		for (int i = 0; i < buffers.length; i++) {
+			direct.put(buffers[i], 0, this.pageSize);
+		}
+		direct.flip();
+		writeFully(direct, position);
+	}
+
+	/**
+	 * Closes the direct channel. The file stays open through the resource's regular channel.
+	 *
+	 * @throws IOException Thrown, if the channel could not be closed.
+	 */
+	public void close() throws IOException
+	{
+		this.channel.close();
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Gets the aligned buffer of the calling thread, cleared and limited to the given number
+	 * of pages. The buffer is replaced by a larger one if it is too small.
+	 */
+	private ByteBuffer getBuffer(int numPages)
+	{
+		int length = numPages * this.pageSize;
+		ByteBuffer buffer = this.buffers.get();
+
+		if (buffer == null || buffer.capacity() < length) {
+			buffer = ByteBuffer.allocateDirect(length + this.alignment).alignedSlice(this.alignment);
+			this.buffers.set(buffer);
+		}
+
+		buffer.clear();
+		buffer.limit(length);
+		return buffer;
+	}
+
+	/**
+	 * Fills the buffer from the given position of the file and flips it.
+	 */
+	private void readFully(ByteBuffer buffer, long position) throws IOException
+	{
+		while (buffer.hasRemaining()) {
+			int count = this.channel.read(buffer, position);
+			if (count <= 0) {
+				throw new EOFException("The file ends before position " + (position + buffer.remaining()) + ".");
+			}
+			position += count;
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * Writes the buffer to the given position of the file.
+	 */
+	private void writeFully(ByteBuffer buffer, long position) throws IOException
+	{
+		while (buffer.hasRemaining()) {
+			position += this.channel.write(buffer, position);
+		}
+	}
+}
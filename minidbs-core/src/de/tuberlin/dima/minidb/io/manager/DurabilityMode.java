@@ -0,0 +1,48 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+
+/**
+ * An enumeration of the ways in which resources bring written pages onto the storage device.
+ */
+public enum DurabilityMode
+{
+	/**
+	 * Every page write goes synchronously to the device before it returns. Pages that were
+	 * written are durable, but every write pays the full device latency.
+	 */
+	STRICT("rwd"),
+
+	/**
+	 * Page writes return as soon as the operating system has accepted the data. Written pages
+	 * become durable when the resource is synced, which happens at checkpoints.
+	 */
+	DEFERRED("rw");
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The mode string for <code>java.io.RandomAccessFile</code>.
+	 */
+	private final String fileMode;
+
+	/**
+	 * Private constructor to instantiate enum elements.
+	 *
+	 * @param fileMode The mode in which the files of a resource are opened.
+	 */
+	private DurabilityMode(String fileMode)
+	{
+		this.fileMode = fileMode;
+	}
+
+	/**
+	 * Gets the mode string with which a <code>java.io.RandomAccessFile</code> has to be opened
+	 * to provide this durability.
+	 *
+	 * @return The mode string for the random access file.
+	 */
+	public String getFileMode()
+	{
+		return this.fileMode;
+	}
+}
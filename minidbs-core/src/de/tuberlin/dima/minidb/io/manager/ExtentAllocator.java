@@ -0,0 +1,180 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+
+/**
+ * Allocates the space of a resource file in extents of several pages, rather than letting the
+ * file grow by one page with every append. When a page beyond the allocated space is written,
+ * the file is extended up to the end of the extent that holds the page, with a single write of
+ * zeros. The file system then places the extent in one piece, and the pages written after it
+ * go to space that is allocated already. Extents start at multiples of the extent size, counted
+ * from the start of the file.
+ * <p>
+ * The physical length of the file is therefore ahead of the last page that holds data, the
+ * high-water mark, which the resource keeps itself. Pages that were allocated but not written
+ * yet are all zeros, which no valid page is, so a resource finds its high-water mark after a
+ * restart through {@link #findLastWrittenPage(FileChannel, int, int)}.
+ */
+public class ExtentAllocator
+{
+	/**
+	 * The largest number of zeros written with one call, in bytes.
+	 */
+	private static final int MAX_ZEROS_PER_WRITE = 1024 * 1024;
+
+	/**
+	 * The channel of the file.
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * The size of the pages in the file, in bytes.
+	 */
+	private final int pageSize;
+
+	/**
+	 * The number of pages in an extent.
+	 */
+	private final int extentPages;
+
+	/**
+	 * The number of pages the file holds space for.
+	 */
+	private volatile long allocatedPages;
+
+	/**
+	 * The zeros the file is extended with, created with the first extent.
+	 */
+	private ByteBuffer zeros;
+
+
+	/**
+	 * Creates an allocator for the given file, whose current length counts as allocated.
+	 *
+	 * @param channel The channel of the file.
+	 * @param pageSize The size of the pages in the file, in bytes.
+	 * @param extentPages The number of pages in an extent.
+	 * @throws IOException Thrown, if the length of the file could not be determined.
+	 */
+	public ExtentAllocator(FileChannel channel, int pageSize, int extentPages) throws IOException
+	{
+		if (extentPages < 1) {
+			throw new IllegalArgumentException("An extent must hold at least one page.");
+		}
+
+		this.channel = channel;
+		this.pageSize = pageSize;
+		this.extentPages = extentPages;
+		this.allocatedPages = (channel.size() + pageSize - 1) / pageSize;
+	}
+
+
+	/**
+	 * Makes sure the file holds space for all pages up to the given one, allocating the extents
+	 * that are missing. Cheap if the page lies in allocated space.
+	 *
+	 * @param pageNumber The number of the last page that is about to be written.
+	 * @throws IOException Thrown, if the file could not be extended.
+	 */
+	public void allocate(int pageNumber) throws IOException
+	{
+		if (pageNumber < this.allocatedPages) {
+			return;
+		}
+
+		synchronized (this) {
+			long start = this.allocatedPages;
+			if (pageNumber < start) {
+				return;
+			}
+
+			long end = (pageNumber / this.extentPages + 1) * (long) this.extentPages;
+			if (this.zeros == null) {
+				this.zeros = ByteBuffer.allocateDirect((int) Math.min(MAX_ZEROS_PER_WRITE, this.extentPages * (long) this.pageSize));
+			}
+
+			long position = start * this.pageSize;
+			long limit = end * this.pageSize;
+			while (position < limit) {
+				ByteBuffer b = this.zeros.duplicate();
+				b.limit((int) Math.min(b.capacity(), limit - position));
+				while (b.hasRemaining()) {
+					position += this.channel.write(b, position);
+				}
+			}
+
+			this.allocatedPages = end;
+		}
+	}
+
+	/**
+	 * Tells the allocator that the file was truncated.
+	 *
+	 * @param numPages The number of pages the file holds after the truncation.
+	 */
+	public synchronized void truncated(int numPages)
+	{
+		this.allocatedPages = numPages;
+	}
+
+	/**
+	 * Gets the number of pages the file holds space for.
+	 *
+	 * @return The number of allocated pages.
+	 */
+	public long getAllocatedPages()
+	{
+		return this.allocatedPages;
+	}
+
+	/**
+	 * Gets the number of pages in an extent.
+	 *
+	 * @return The extent size, in pages.
+	 */
+	public int getExtentPages()
+	{
+		return this.extentPages;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Finds the last page of the file that was written, skipping the pages at the end of the
+	 * file that were allocated but are still all zeros.
+	 *
+	 * @param channel The channel of the file.
+	 * @param pageSize The size of the pages in the file, in bytes.
+	 * @param firstPageNumber The number of the first page that holds data.
+	 * @return The number of the last written page, or <code>firstPageNumber - 1</code>, if
+	 *         no page was written yet.
+	 * @throws IOException Thrown, if the pages could not be read.
+	 */
+	public static int findLastWrittenPage(FileChannel channel, int pageSize, int firstPageNumber) throws IOException
+	{
+		int last = (int) ((channel.size() - 1) / pageSize);
+		ByteBuffer buffer = ByteBuffer.allocate(pageSize);
+
+		for (; last >= firstPageNumber; last--) {
+			buffer.clear();
+			long position = last * (long) pageSize;
+			int count = 0;
+			while (buffer.hasRemaining() && (count = channel.read(buffer, position)) > 0) {
+				position += count;
+			}
+
+			byte[] page = buffer.array();
+			for (int i = 0; i < buffer.position(); i++) {
+				if (page[i] != 0) {
+					return last;
+				}
+			}
+		}
+
+		return Math.max(last, firstPageNumber - 1);
+	}
+}
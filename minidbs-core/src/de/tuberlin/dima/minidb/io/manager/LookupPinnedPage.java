@@ -0,0 +1,83 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+
+import java.io.IOException;
+
+import de.tuberlin.dima.minidb.io.cache.CacheableData;
+
+
+/**
+ * The handle that {@link BufferPoolManager} hands out by default, for buffer pools that cannot
+ * hand out their own handles. It pins and unpins its pages through the methods of the buffer
+ * pool, so unpinning looks the page up again.
+ */
+final class LookupPinnedPage implements PinnedPage
+{
+	private final BufferPoolManager pool;
+
+	private final int resourceId;
+
+	private final BufferAccessStrategy strategy;
+
+	private int pageNumber;
+
+	/**
+	 * The pinned page, <code>null</code>, if the handle is closed.
+	 */
+	private CacheableData page;
+
+
+	LookupPinnedPage(BufferPoolManager pool, int resourceId, BufferAccessStrategy strategy)
+	{
+		this.pool = pool;
+		this.resourceId = resourceId;
+		this.strategy = strategy;
+	}
+
+
+	@Override
+	public CacheableData getPage()
+	{
+		return this.page;
+	}
+
+	@Override
+	public int getResourceId()
+	{
+		return this.resourceId;
+	}
+
+	@Override
+	public int getPageNumber()
+	{
+		return this.pageNumber;
+	}
+
+	/**
+	 * Unpins the current page and pins the new one in one call to the buffer pool, or only pins
+	 * the new page, if the handle is closed.
+	 */
+	@Override
+	public CacheableData moveTo(int pageNumber) throws BufferPoolException, IOException
+	{
+		CacheableData previous = this.page;
+		this.page = null;
+
+		CacheableData next = previous == null ?
+				this.pool.getPageAndPin(this.resourceId, pageNumber, this.strategy) :
+				this.pool.unpinAndGetPageAndPin(this.resourceId, this.pageNumber, pageNumber, this.strategy);
+
+		this.pageNumber = pageNumber;
+		this.page = next;
+		return next;
+	}
+
+	@Override
+	public void close()
+	{
+		if (this.page != null) {
+			this.page = null;
+			this.pool.unpinPage(this.resourceId, this.pageNumber);
+		}
+	}
+}
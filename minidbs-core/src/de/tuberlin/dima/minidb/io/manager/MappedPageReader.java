@@ -0,0 +1,176 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+
+/**
+ * Serves page reads from a read-only memory mapping of a resource file. The file is mapped in
+ * segments of a fixed size, so that files larger than two gigabytes can be mapped and growing
+ * files only need their last segment to be mapped again. A page is copied once, from the mapping
+ * into the caller's buffer, without a system call.
+ * <p>
+ * Pages are written through the file channel. The mapping shares the operating system's page
+ * cache with the channel, so written pages are visible through it. When a read reaches beyond
+ * the mapped part of the file, because the file has grown through pages reserved and written
+ * since the last mapping, the tail of the file is mapped again.
+ */
+public class MappedPageReader
+{
+	/**
+	 * The default size of the mapped segments, 64 megabytes.
+	 */
+	public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+	/**
+	 * The channel of the file that is mapped.
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * The size of each segment. A multiple of the page size, so that no page spans two segments.
+	 */
+	private final long segmentSize;
+
+	/**
+	 * The mapped segments. All but the last one cover a full segment.
+	 */
+	private MappedByteBuffer[] segments;
+
+	/**
+	 * The number of bytes of the file that are currently mapped.
+	 */
+	private long mappedSize;
+
+
+	/**
+	 * Creates a reader for the given channel that maps segments of the default size.
+	 *
+	 * @param channel The channel of the file to map.
+	 * @param pageSize The size of the pages in the file, in bytes.
+	 */
+	public MappedPageReader(FileChannel channel, int pageSize)
+	{
+		this(channel, pageSize, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Creates a reader for the given channel that maps segments of the given size.
+	 *
+	 * @param channel The channel of the file to map.
+	 * @param pageSize The size of the pages in the file, in bytes.
+	 * @param segmentSize The size of a mapped segment. Must be a positive multiple of the page size
+	 *                    and not exceed <code>Integer.MAX_VALUE</code>.
+	 */
+	public MappedPageReader(FileChannel channel, int pageSize, long segmentSize)
+	{
+		if (segmentSize <= 0 || segmentSize > Integer.MAX_VALUE || segmentSize % pageSize != 0) {
+			throw new IllegalArgumentException("The segment size must be a positive multiple of the page size.");
+		}
+
+		this.channel = channel;
+		this.segmentSize = segmentSize;
+		this.segments = new MappedByteBuffer[0];
+		this.mappedSize = 0;
+	}
+
+
+	/**
+	 * Copies the bytes at the given position of the file into the buffer.
+	 *
+	 * @param buffer The buffer to copy the bytes into.
+	 * @param position The position of the first byte in the file.
+	 * @param length The number of bytes to copy. The bytes must not span two segments,
+	 *               which holds for whole pages.
+	 * @return True, if the bytes were copied, false if they lie beyond the end of the file.
+	 * @throws IOException Thrown, if the file could not be mapped.
+	 */
+	public synchronized boolean read(byte[] buffer, long position, int length) throws IOException
+	{
+		if (!ensureMapped(position + length)) {
+			return false;
+		}
+
+		copy(buffer, position, length);
+		return true;
+	}
+
+	/**
+	 * Copies consecutive pages, starting at the given position of the file, into the buffers.
+	 * Either all pages are copied or none.
+	 *
+	 * @param buffers The buffers to copy the pages into, one page per buffer.
+	 * @param position The position of the first page in the file.
+	 * @param pageSize The size of a page, in bytes.
+	 * @return True, if the pages were copied, false if some of them lie beyond the end of the file.
+	 * @throws IOException Thrown, if the file could not be mapped.
+	 */
+	public synchronized boolean read(byte[][] buffers, long position, int pageSize) throws IOException
+	{
+		if (!ensureMapped(position + buffers.length * (long) pageSize)) {
+			return false;
+		}
+
+		for (int i = 0; i < buffers.length; i++) {
+			copy(buffers[i], position + i * (long) pageSize, pageSize);
+		}
+		return true;
+	}
+
+	/**
+	 * Drops the mapping. Must be called before the file is truncated, because accessing a mapping
+	 * beyond the end of its file fails. The next read maps the file again.
+	 */
+	public synchronized void invalidate()
+	{
+		this.segments = new MappedByteBuffer[0];
+		this.mappedSize = 0;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Makes sure that the file is mapped up to the given position, mapping the tail of the file
+	 * again if it has grown.
+	 */
+	private boolean ensureMapped(long end) throws IOException
+	{
+		if (end <= this.mappedSize) {
+			return true;
+		}
+
+		long fileSize = this.channel.size();
+		if (end > fileSize) {
+			return false;
+		}
+
+		// keep the full segments, map the partial last one and everything behind it
+		int numSegments = (int) ((fileSize + this.segmentSize - 1) / this.segmentSize);
+		int firstToMap = (int) (this.mappedSize / this.segmentSize);
+
+		MappedByteBuffer[] newSegments = Arrays.copyOf(this.segments, numSegments);
+		for (int i = firstToMap; i < numSegments; i++) {
+			long start = i * this.segmentSize;
+			long size = Math.min(this.segmentSize, fileSize - start);
+			newSegments[i] = this.channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+		}
+
+		this.segments = newSegments;
+		this.mappedSize = fileSize;
+		return true;
+	}
+
+	/**
+	 * Copies bytes from the mapping into the buffer. The caller holds the monitor, so the
+	 * segment's position can be used.
+	 */
+	private void copy(byte[] buffer, long position, int length)
+	{
+		MappedByteBuffer segment = this.segments[(int) (position / this.segmentSize)];
+		segment.position((int) (position % this.segmentSize));
+		segment.get(buffer, 0, length);
+	}
+}
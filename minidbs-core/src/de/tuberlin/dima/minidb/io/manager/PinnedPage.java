@@ -0,0 +1,66 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+
+import java.io.IOException;
+
+import de.tuberlin.dima.minidb.io.cache.CacheableData;
+
+
+/**
+ * A page pinned in the buffer pool, which stays pinned until the handle is closed. The handle
+ * keeps the cache entry of the page, so that closing it unpins the page without looking it up
+ * again. Meant for try-with-resources, so that the page is unpinned on every path:
+ * <pre>
+ * try (PinnedPage pinned = bufferPool.pinPage(resourceId, pageNumber)) {
+ *     TablePage page = (TablePage) pinned.getPage();
+ *     ...
+ * }
+ * </pre>
+ * A scan moves one handle from page to page with {@link #moveTo(int)}, and closes it at its end.
+ * <p>
+ * A handle belongs to one thread, like the page it holds.
+ */
+public interface PinnedPage extends AutoCloseable
+{
+	/**
+	 * Gets the pinned page.
+	 * 
+	 * @return The page, or <code>null</code>, if the handle is closed.
+	 */
+	public CacheableData getPage();
+	
+	/**
+	 * Gets the id of the resource of the page.
+	 * 
+	 * @return The resource id.
+	 */
+	public int getResourceId();
+	
+	/**
+	 * Gets the page number of the pinned page, or of the last page pinned, if the handle is closed.
+	 * 
+	 * @return The page number.
+	 */
+	public int getPageNumber();
+	
+	/**
+	 * Unpins the page and pins another page of the same resource in its place, like
+	 * {@link BufferPoolManager#unpinAndGetPageAndPin(int, int, int, BufferAccessStrategy)}, with
+	 * the access strategy the handle was created with. If the new page cannot be fetched, the
+	 * handle is closed.
+	 * 
+	 * @param pageNumber The page number of the page to pin.
+	 * @return The newly pinned page.
+	 * 
+	 * @throws BufferPoolException Thrown, if the buffer pool is closed, or an internal problem occurred.
+	 * @throws IOException Thrown, if the page had to be loaded from secondary storage and the loading
+	 *                     failed due to an I/O problem.
+	 */
+	public CacheableData moveTo(int pageNumber) throws BufferPoolException, IOException;
+	
+	/**
+	 * Unpins the page. Closing a closed handle does nothing.
+	 */
+	@Override
+	public void close();
+}
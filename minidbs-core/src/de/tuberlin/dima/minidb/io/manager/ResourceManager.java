@@ -40,6 +40,31 @@ public abstract class ResourceManager
 	 */
 	public abstract void closeResource() throws IOException;
 	
+	/**
+	 * Forces all data written to the resource so far onto the storage device. Resources that
+	 * do not write every page synchronously must override this method; the default does nothing.
+	 * 
+	 * This method directly initiates an I/O operation and should only be called by the I/O threads
+	 * or during a checkpoint.
+	 * 
+	 * @throws IOException Thrown, if the data could not be forced to the device.
+	 */
+	public void sync() throws IOException
+	{
+	}
+	
+	/**
+	 * Gets the number of the last page of the resource. The buffer pool uses it to keep its
+	 * read-ahead within the resource. Resources that do not track their size need not override
+	 * this method; the default sets no bound.
+	 * 
+	 * @return The number of the last page, or <code>Integer.MAX_VALUE</code>, if it is not known.
+	 */
+	public int getLastPageNumber()
+	{
+		return Integer.MAX_VALUE;
+	}
+	
 	/**
 	 * Reads the page with the given number into the given buffer.
 	 * 
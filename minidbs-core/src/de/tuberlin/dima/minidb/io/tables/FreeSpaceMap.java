@@ -0,0 +1,226 @@
+package de.tuberlin.dima.minidb.io.tables;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Keeps track of the free record slots of the pages of a table, so that inserts can fill the
+ * slots of deleted records rather than appending to the table. For every page, the map holds
+ * approximately how many records still fit, capped at 255. The counts are updated whenever the
+ * table writes a page, and by inserts that find a page to be full, so they lag behind the pages
+ * in the buffer pool. A page with a count that is too high costs an insert a failed attempt, a
+ * page with a count that is too low is skipped until it is written again.
+ * <p>
+ * The pages with free slots sit on a stack, so that finding one takes constant time. A page
+ * that fills up stays on the stack until it is found there, and is dropped then.
+ * <p>
+ * The map is kept in a file next to the table file. It is only a hint, so a missing or
+ * damaged file gives an empty map rather than an error.
+ */
+public class FreeSpaceMap {
+	/**
+	 * The magic number that identifies a file as a free-space map.
+	 */
+	private static final int MAGIC_NUMBER = 0xF5EEF5EE;
+
+	/**
+	 * The largest count of free slots the map holds for a page.
+	 */
+	private static final int MAX_FREE_SLOTS = 255;
+
+	/**
+	 * The number of the first data page of the table.
+	 */
+	private final int firstPageNumber;
+
+	/**
+	 * The counts of free slots, indexed by page number minus the first page number.
+	 */
+	private byte[] freeSlots;
+
+	/**
+	 * The pages with free slots, possibly also pages that filled up since they were pushed.
+	 */
+	private int[] stack;
+
+	/**
+	 * The number of pages on the stack.
+	 */
+	private int stackSize;
+
+	/**
+	 * The pages that are on the stack, indexed like the counts.
+	 */
+	private final BitSet onStack;
+
+	/**
+	 * Whether the map changed since it was read or written.
+	 */
+	private boolean modified;
+
+	/**
+	 * Creates an empty map for a table whose data starts at the given page.
+	 *
+	 * @param firstPageNumber The number of the first data page of the table.
+	 */
+	public FreeSpaceMap(int firstPageNumber) {
+		this.firstPageNumber = firstPageNumber;
+		this.freeSlots = new byte[64];
+		this.stack = new int[16];
+		this.onStack = new BitSet();
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Sets the number of records that still fit on the given page.
+	 *
+	 * @param pageNumber The number of the page.
+	 * @param numFreeSlots The number of free record slots on the page.
+	 */
+	public synchronized void update(int pageNumber, int numFreeSlots) {
+		int index = pageNumber - this.firstPageNumber;
+		if (index < 0) {
+			return;
+		}
+
+		int count = Math.min(Math.max(numFreeSlots, 0), MAX_FREE_SLOTS);
+		if (index >= this.freeSlots.length) {
+			if (count == 0) {
+				return;
+			}
+			this.freeSlots = Arrays.copyOf(this.freeSlots, Math.max(index + 1, 2 * this.freeSlots.length));
+		}
+
+		if ((this.freeSlots[index] & 0xff) != count) {
+			this.freeSlots[index] = (byte) count;
+			this.modified = true;
+		}
+
+		if (count > 0 && !this.onStack.get(index)) {
+			if (this.stackSize == this.stack.length) {
+				this.stack = Arrays.copyOf(this.stack, 2 * this.stack.length);
+			}
+			this.stack[this.stackSize++] = index;
+			this.onStack.set(index);
+		}
+	}
+
+	/**
+	 * Finds a page that has free record slots. A caller that finds the page to be full sets
+	 * its count to zero, so that the next call finds another page.
+	 *
+	 * @return The number of a page with free slots, or -1, if the map knows of none.
+	 */
+	public synchronized int findPageWithFreeSlots() {
+		while (this.stackSize > 0) {
+			int index = this.stack[this.stackSize - 1];
+			if (this.freeSlots[index] != 0) {
+				return index + this.firstPageNumber;
+			}
+
+			// the page filled up since it was pushed
+			this.stackSize--;
+			this.onStack.clear(index);
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the number of records that still fit on the given page, as far as the map knows.
+	 *
+	 * @param pageNumber The number of the page.
+	 * @return The number of free record slots, at most 255.
+	 */
+	public synchronized int getFreeSlots(int pageNumber) {
+		int index = pageNumber - this.firstPageNumber;
+		return index >= 0 && index < this.freeSlots.length ? this.freeSlots[index] & 0xff : 0;
+	}
+
+	/**
+	 * Forgets all pages, after the table was truncated.
+	 */
+	public synchronized void clear() {
+		Arrays.fill(this.freeSlots, (byte) 0);
+		this.stackSize = 0;
+		this.onStack.clear();
+		this.modified = true;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Writes the map to the given file, if it changed since it was read or written.
+	 *
+	 * @param file The file to write the map to.
+	 * @throws IOException Thrown, if the file could not be written.
+	 */
+	public synchronized void write(File file) throws IOException {
+		if (!this.modified) {
+			return;
+		}
+
+		int numPages = this.freeSlots.length;
+		while (numPages > 0 && this.freeSlots[numPages - 1] == 0) {
+			numPages--;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(12 + numPages);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC_NUMBER);
+		buffer.putInt(this.firstPageNumber);
+		buffer.putInt(numPages);
+		buffer.put(this.freeSlots, 0, numPages);
+
+		Files.write(file.toPath(), buffer.array());
+		this.modified = false;
+	}
+
+	/**
+	 * Reads the map of a table from the given file. Gives an empty map, if the file does not
+	 * exist, is damaged, or belongs to a table whose data starts at another page.
+	 *
+	 * @param file The file to read the map from.
+	 * @param firstPageNumber The number of the first data page of the table.
+	 * @return The map read from the file.
+	 * @throws IOException Thrown, if the file exists, but could not be read.
+	 */
+	public static FreeSpaceMap read(File file, int firstPageNumber) throws IOException {
+		FreeSpaceMap map = new FreeSpaceMap(firstPageNumber);
+		if (!file.exists()) {
+			return map;
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		if (buffer.remaining() < 12 || buffer.getInt() != MAGIC_NUMBER || buffer.getInt() != firstPageNumber) {
+			return map;
+		}
+		int numPages = buffer.getInt();
+		if (numPages < 0 || numPages != buffer.remaining()) {
+			return map;
+		}
+
+		for (int i = 0; i < numPages; i++) {
+			map.update(firstPageNumber + i, buffer.get() & 0xff);
+		}
+		map.modified = false;
+		return map;
+	}
+
+	/**
+	 * Gets the file that holds the free-space map of the given table file.
+	 *
+	 * @param tableFile The file of the table.
+	 * @return The file of the table's free-space map.
+	 */
+	public static File getMapFile(File tableFile) {
+		return new File(tableFile.getPath() + ".fsm");
+	}
+}
@@ -0,0 +1,21 @@
+package de.tuberlin.dima.minidb.io.tables;
+
+
+/**
+ * An enumeration of the ways in which the pages of a table lay out the records they hold.
+ */
+public enum PageLayout
+{
+	/**
+	 * Every record is stored in one piece, with the values of all its columns next to each
+	 * other. Inserting and fetching whole tuples touches a single range of the page.
+	 */
+	ROW,
+
+	/**
+	 * Partition attributes across (PAX). The page is split into one mini-page per column, which
+	 * holds the values of that column for all records of the page. Fetching a few columns
+	 * touches only their mini-pages, rather than every byte of every record.
+	 */
+	PAX;
+}
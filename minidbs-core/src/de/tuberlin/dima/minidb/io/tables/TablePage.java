@@ -100,6 +100,46 @@ public interface TablePage extends CacheableData
 	public boolean insertTuple(DataTuple tuple) throws PageFormatException, PageExpiredException;
 	
 	
+	/**
+	 * Inserts a tuple into the page like {@link #insertTuple(DataTuple)}, but puts the record
+	 * into the slot of a record that is marked as deleted, if there is one, rather than
+	 * appending it to the record sequence. The tuple then takes over the position of the
+	 * deleted record, so this must only be used for tables where no index refers to deleted
+	 * records any more.
+	 * <p>
+	 * Pages that cannot reuse slots need not override this method; the default appends the
+	 * record with {@link #insertTuple(DataTuple)}.
+	 * 
+	 * @param tuple The tuple to be inserted.
+	 * @return The position of the tuple's record, or -1, if the tuple was not inserted.
+	 * @throws PageFormatException Thrown, if the format of the page is invalid.
+	 * @throws PageExpiredException Thrown, if the operation is performed 
+	 * 								on a page that is identified to be expired. 
+	 */
+	public default int insertTupleReusingSlot(DataTuple tuple) throws PageFormatException, PageExpiredException
+	{
+		return insertTuple(tuple) ? getNumRecordsOnPage() - 1 : -1;
+	}
+	
+	
+	/**
+	 * Gets approximately how many more records fit on this page: the records marked as deleted,
+	 * whose slots can be reused, and the records that fit between the record sequence and the
+	 * variable-length-chunk, not counting their variable-length fields.
+	 * <p>
+	 * The default returns 0, for pages that do not count their free slots, so that the
+	 * free-space map never points inserts to them.
+	 * 
+	 * @return The number of free record slots on this page.
+	 * @throws PageExpiredException Thrown, if the operation is performed 
+	 * 								on a page that is identified to be expired. 
+	 */
+	public default int getNumFreeSlots() throws PageExpiredException
+	{
+		return 0;
+	}
+	
+	
 	/**
 	 * Deletes a tuple by setting the tombstone flag to 1.
 	 * 
@@ -206,6 +246,37 @@ public interface TablePage extends CacheableData
 	public TupleIterator getIterator(LowLevelPredicate[] preds, int numCols, long columnBitmap)
 	throws PageTupleAccessException, PageExpiredException;
 	
+	/**
+	 * Creates an iterator like {@link #getIterator(LowLevelPredicate[], int, long)}, that returns
+	 * the given tuple for every record instead of a new one. The iterator refills the tuple in
+	 * place, and where the data type allows it, also the fields in it, such that a scan over
+	 * the page creates almost no objects.
+	 * <p>
+	 * The tuple and its fields are only valid until the next call to the iterator. Callers that
+	 * keep tuples or fields beyond that must copy them.
+	 * <p>
+	 * Pages that cannot refill tuples need not override this method; the default ignores the
+	 * given tuple and returns a new one for every record, which is always safe.
+	 * 
+	 * @param preds An array of predicates that the tuple must pass. The predicates are conjunctively
+	 *              connected, so if any of the predicates evaluates to false, the tuple is discarded.
+	 * @param numCols The number of columns that should be fetched.
+	 * @param columnBitmap The bitmap describing which columns to fetch. See description of the class
+	 *                     for details on how the bitmaps describe which columns to fetch.
+	 * @param reuse The tuple to refill, with numCols fields.
+	 * 
+	 * @return An iterator over the tuples represented by the records in this page.
+	 * @throws PageTupleAccessException Thrown, if the iterator could not be created due to
+	 *                                  invalid format.
+	 * @throws PageExpiredException Thrown, if the operation is performed 
+	 * 								on a page that is identified to be expired. 
+	 */
+	public default TupleIterator getIterator(LowLevelPredicate[] preds, int numCols, long columnBitmap, DataTuple reuse)
+	throws PageTupleAccessException, PageExpiredException
+	{
+		return getIterator(preds, numCols, columnBitmap);
+	}
+	
 	/**
 	 * Creates an iterator as the function <code>getIterator()</code> does. In addition to the tuples,
 	 * this iterator the RID that referenced the tuple's record.
@@ -17,8 +17,13 @@ import de.tuberlin.dima.minidb.catalogue.TableSchema;
 import de.tuberlin.dima.minidb.core.BasicType;
 import de.tuberlin.dima.minidb.core.DataType;
 import de.tuberlin.dima.minidb.io.cache.CacheableData;
+import de.tuberlin.dima.minidb.io.cache.PageExpiredException;
 import de.tuberlin.dima.minidb.io.cache.PageFormatException;
 import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.DirectPageIO;
+import de.tuberlin.dima.minidb.io.manager.DurabilityMode;
+import de.tuberlin.dima.minidb.io.manager.ExtentAllocator;
+import de.tuberlin.dima.minidb.io.manager.MappedPageReader;
 import de.tuberlin.dima.minidb.io.manager.ResourceManager;
 
 /**
@@ -35,6 +40,12 @@ public class TableResourceManager extends ResourceManager {
 	 */
 	private static final int TABLE_HEADER_MAGIC_NUMBER = 0xDEAFD00D;
 
+	/**
+	 * The version of the table header format. Version 1 adds the page layout after the
+	 * number of columns, tables of version 0 have row pages.
+	 */
+	private static final int TABLE_HEADER_VERSION = 1;
+
 	/**
 	 * The mask to access the 'nullable' bit in the column attributes.
 	 */
@@ -45,6 +56,11 @@ public class TableResourceManager extends ResourceManager {
 	 */
 	private static final int TABLE_HEADER_COLUMN_ATTRIBUTE_UNIQUE_MASK = 0x2;
 
+	/**
+	 * The mask to access the 'dictionary encoded' bit in the column attributes.
+	 */
+	private static final int TABLE_HEADER_COLUMN_ATTRIBUTE_DICTIONARY_MASK = 0x4;
+
 	/**
 	 * The factory used to create new pages.
 	 */
@@ -80,6 +96,35 @@ public class TableResourceManager extends ResourceManager {
 	 */
 	private int lastDataPageNumber;
 
+	/**
+	 * The reader serving pages from a mapping of the file, if mapped reads are enabled.
+	 */
+	private volatile MappedPageReader mappedReader;
+
+	/**
+	 * The direct I/O channel for the data pages, if direct I/O is enabled.
+	 */
+	private volatile DirectPageIO directIO;
+
+	/**
+	 * The allocator extending the file by extents, if extent allocation is enabled.
+	 */
+	private volatile ExtentAllocator allocator;
+
+	/**
+	 * The free-space map of the table and the file it is kept in, if the map is enabled.
+	 */
+	private volatile FreeSpaceMap freeSpaceMap;
+
+	private File freeSpaceMapFile;
+
+	/**
+	 * The zone map of the table and the file it is kept in, if the map is enabled.
+	 */
+	private volatile ZoneMap zoneMap;
+
+	private File zoneMapFile;
+
 	// ------------------------------------------------------------------------
 	//                        Constructor & Life-Cycle
 	// ------------------------------------------------------------------------
@@ -129,7 +174,8 @@ public class TableResourceManager extends ResourceManager {
 
 		// find page numbers
 		this.firstDataPageNumber = (int) (this.ioChannel.position() / this.schema.getPageSize().getNumberOfBytes()) + 1;
-		this.lastDataPageNumber = (int) ((this.ioChannel.size() - 1) / this.schema.getPageSize().getNumberOfBytes());
+		// pages allocated at the end of the file, but not written yet, do not count
+		this.lastDataPageNumber = ExtentAllocator.findLastWrittenPage(this.ioChannel, this.pageSize, this.firstDataPageNumber);
 	}
 
 	/**
@@ -189,7 +235,20 @@ public class TableResourceManager extends ResourceManager {
 	 */
 	@Override
 	public synchronized void closeResource() throws IOException {
+		this.mappedReader = null;
 		try {
+			if (this.freeSpaceMap != null) {
+				this.freeSpaceMap.write(this.freeSpaceMapFile);
+				this.freeSpaceMap = null;
+			}
+			if (this.zoneMap != null) {
+				this.zoneMap.write(this.zoneMapFile);
+				this.zoneMap = null;
+			}
+			if (this.directIO != null) {
+				this.directIO.close();
+				this.directIO = null;
+			}
 			this.theLock.release();
 			this.ioChannel.close();
 		} catch (Throwable t) {
@@ -205,6 +264,123 @@ public class TableResourceManager extends ResourceManager {
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see de.tuberlin.dima.minidb.io.manager.ResourceManager#sync()
+	 */
+	@Override
+	public void sync() throws IOException {
+		this.ioChannel.force(true);
+
+		FreeSpaceMap map = this.freeSpaceMap;
+		if (map != null) {
+			map.write(this.freeSpaceMapFile);
+		}
+		ZoneMap zones = this.zoneMap;
+		if (zones != null) {
+			zones.write(this.zoneMapFile);
+		}
+	}
+
+	/**
+	 * Makes this table serve page reads from a memory mapping of its file, rather than reading
+	 * them through the file channel. Suited for tables that are mostly read, since the mapping
+	 * saves a copy and a system call per page.
+	 * 
+	 * @see de.tuberlin.dima.minidb.io.manager.MappedPageReader
+	 */
+	public synchronized void enableMappedReads() {
+		if (this.mappedReader == null && this.directIO == null) {
+			this.mappedReader = new MappedPageReader(this.ioChannel, this.pageSize);
+		}
+	}
+
+	/**
+	 * Makes this table read and write its data pages with direct I/O, bypassing the operating
+	 * system's page cache, so that the buffer pool is the only cache of the pages. Replaces
+	 * mapped reads, which go through the page cache.
+	 * 
+	 * @param tableFile The file of this table, opened a second time for direct I/O.
+	 * @param durability Whether the writes go synchronously to the device.
+	 * @throws IOException Thrown, if the file system does not support direct I/O for the pages
+	 *                     of this table.
+	 * @see de.tuberlin.dima.minidb.io.manager.DirectPageIO
+	 */
+	public synchronized void enableDirectIO(File tableFile, DurabilityMode durability) throws IOException {
+		if (this.directIO == null) {
+			this.directIO = new DirectPageIO(tableFile, this.pageSize, durability);
+			this.mappedReader = null;
+		}
+	}
+
+	/**
+	 * Makes this table allocate the space of its file in extents of the given number of pages,
+	 * rather than growing the file by one page with every page written beyond its end.
+	 * 
+	 * @param extentPages The number of pages in an extent. With one page, nothing changes.
+	 * @throws IOException Thrown, if the length of the file could not be determined.
+	 * @see de.tuberlin.dima.minidb.io.manager.ExtentAllocator
+	 */
+	public synchronized void enableExtentAllocation(int extentPages) throws IOException {
+		if (this.allocator == null && extentPages > 1) {
+			this.allocator = new ExtentAllocator(this.ioChannel, this.pageSize, extentPages);
+		}
+	}
+
+	/**
+	 * Makes this table keep track of the free record slots of its pages, in a free-space map
+	 * that is kept in a file next to the table file. The map is updated with every page the
+	 * table writes.
+	 * 
+	 * @param tableFile The file of this table.
+	 * @return The free-space map of this table.
+	 * @throws IOException Thrown, if the file of the map exists, but could not be read.
+	 * @see de.tuberlin.dima.minidb.io.tables.FreeSpaceMap
+	 */
+	public synchronized FreeSpaceMap enableFreeSpaceMap(File tableFile) throws IOException {
+		if (this.freeSpaceMap == null) {
+			this.freeSpaceMapFile = FreeSpaceMap.getMapFile(tableFile);
+			this.freeSpaceMap = FreeSpaceMap.read(this.freeSpaceMapFile, this.firstDataPageNumber);
+		}
+		return this.freeSpaceMap;
+	}
+
+	/**
+	 * Gets the free-space map of this table.
+	 * 
+	 * @return The free-space map, or null, if the table does not keep one.
+	 */
+	public FreeSpaceMap getFreeSpaceMap() {
+		return this.freeSpaceMap;
+	}
+
+	/**
+	 * Makes this table keep the zones of its pages, the ranges of their columns, in a zone map
+	 * that is kept in a file next to the table file. The zone of a page is computed when the
+	 * table writes it.
+	 * 
+	 * @param tableFile The file of this table.
+	 * @return The zone map of this table.
+	 * @throws IOException Thrown, if the file of the map exists, but could not be read.
+	 * @see de.tuberlin.dima.minidb.io.tables.ZoneMap
+	 */
+	public synchronized ZoneMap enableZoneMap(File tableFile) throws IOException {
+		if (this.zoneMap == null) {
+			this.zoneMapFile = ZoneMap.getMapFile(tableFile);
+			this.zoneMap = ZoneMap.read(this.zoneMapFile, this.schema, this.firstDataPageNumber);
+		}
+		return this.zoneMap;
+	}
+
+	/**
+	 * Gets the zone map of this table.
+	 * 
+	 * @return The zone map, or null, if the table does not keep one.
+	 */
+	public ZoneMap getZoneMap() {
+		return this.zoneMap;
+	}
+
 	/**
 	 * Tries to release all resources from this table, but does not
 	 * complain if anything fails.
@@ -274,6 +450,15 @@ public class TableResourceManager extends ResourceManager {
 		return this.lastDataPageNumber;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see de.tuberlin.dima.minidb.io.manager.ResourceManager#getLastPageNumber()
+	 */
+	@Override
+	public int getLastPageNumber() {
+		return this.lastDataPageNumber;
+	}
+
 	// ------------------------------------------------------------------------
 	//                          I/O Methods
 	// ------------------------------------------------------------------------
@@ -284,8 +469,24 @@ public class TableResourceManager extends ResourceManager {
 	 */
 	@Override
 	public synchronized void truncate() throws IOException {
+		MappedPageReader reader = this.mappedReader;
+		if (reader != null) {
+			reader.invalidate();
+		}
 		this.ioChannel.truncate(this.firstDataPageNumber * this.schema.getPageSize().getNumberOfBytes());
 		this.lastDataPageNumber = this.firstDataPageNumber - 1;
+		ExtentAllocator allocator = this.allocator;
+		if (allocator != null) {
+			allocator.truncated(this.firstDataPageNumber);
+		}
+		FreeSpaceMap map = this.freeSpaceMap;
+		if (map != null) {
+			map.clear();
+		}
+		ZoneMap zones = this.zoneMap;
+		if (zones != null) {
+			zones.clear();
+		}
 	}
 
 	/*
@@ -304,6 +505,12 @@ public class TableResourceManager extends ResourceManager {
 
 		TablePage newPage = pageFactory.initTablePage(this.schema, buffer, nextEmptyPageNumber);
 
+		// the page is filled from now on, without the zone map being told
+		ZoneMap zones = this.zoneMap;
+		if (zones != null) {
+			zones.invalidate(nextEmptyPageNumber);
+		}
+
 		// increment the counter
 		this.lastDataPageNumber = nextEmptyPageNumber;
 
@@ -345,11 +552,23 @@ public class TableResourceManager extends ResourceManager {
 		// seek and write the buffer. If the position is beyond the file size,
 		// the channel will automatically increase the file length
 		try {
+			ExtentAllocator allocator = this.allocator;
+			if (allocator != null) {
+				allocator.allocate(pageNumber);
+			}
+
 			long position = (this.pageSize * (long) pageNumber);
-			writeBuffer(this.ioChannel, b, position);
+			DirectPageIO direct = this.directIO;
+			if (direct != null) {
+				direct.write(buffer, position);
+			} else {
+				writeBuffer(this.ioChannel, b, position);
+			}
 		} catch (IOException ioex) {
 			throw new IOException("Page " + pageNumber + " could not be written to the table file.", ioex);
 		}
+
+		updatePageMaps(pageNumber, buffer);
 	}
 
 	/*
@@ -393,6 +612,26 @@ public class TableResourceManager extends ResourceManager {
 			}
 		}
 
+		ExtentAllocator allocator = this.allocator;
+		if (allocator != null) {
+			try {
+				allocator.allocate(pageNumber + buffers.length - 1);
+			} catch (IOException ioex) {
+				throw new IOException("Space for page sequence [" + pageNumber + ", " + (pageNumber + buffers.length - 1) + "] could not be allocated in the table file.", ioex);
+			}
+		}
+
+		DirectPageIO direct = this.directIO;
+		if (direct != null) {
+			try {
+				direct.write(buffers, this.pageSize * (long) pageNumber);
+			} catch (IOException ioex) {
+				throw new IOException("Page sequence [" + pageNumber + ", " + (pageNumber + buffers.length - 1) + "] could not be written to the table file.", ioex);
+			}
+			updatePageMaps(pageNumber, buffers);
+			return;
+		}
+
 		ByteBuffer[] b = new ByteBuffer[buffers.length];
 		for (int i = 0; i < buffers.length; i++) {
 			b[i] = ByteBuffer.wrap(buffers[i], 0, this.pageSize);
@@ -415,6 +654,42 @@ public class TableResourceManager extends ResourceManager {
 		} catch (IOException ioex) {
 			throw new IOException("Page sequence [" + pageNumber + ", " + (pageNumber + buffers.length - 1) + "] could not be written to the table file.", ioex);
 		}
+
+		updatePageMaps(pageNumber, buffers);
+	}
+
+	/**
+	 * Records the free slots of the written pages in the free-space map and their zones in the
+	 * zone map, if the table keeps them. Both are taken from the written bytes, not from the
+	 * cached pages, which may have changed since they were copied for the write. The pages are
+	 * written already, so a page whose bytes cannot be read only makes its zone unknown, and the
+	 * free-space map keeps what it knew of the page.
+	 * 
+	 * @param pageNumber The number of the first written page.
+	 * @param buffers The written bytes of the consecutive pages.
+	 */
+	private void updatePageMaps(int pageNumber, byte[]... buffers) {
+		FreeSpaceMap map = this.freeSpaceMap;
+		ZoneMap zones = this.zoneMap;
+		if (map == null && zones == null) {
+			return;
+		}
+
+		for (int i = 0; i < buffers.length; i++) {
+			try {
+				TablePage written = pageFactory.createTablePage(this.schema, buffers[i]);
+				if (zones != null) {
+					zones.update(written);
+				}
+				if (map != null) {
+					map.update(pageNumber + i, written.getNumFreeSlots());
+				}
+			} catch (PageFormatException | RuntimeException ex) {
+				if (zones != null) {
+					zones.forget(pageNumber + i);
+				}
+			}
+		}
 	}
 
 	/*
@@ -440,7 +715,13 @@ public class TableResourceManager extends ResourceManager {
 
 		try {
 			long position = (this.pageSize * (long) pageNumber);
-			readIntoBuffer(this.ioChannel, b, position, this.pageSize);
+			DirectPageIO direct = this.directIO;
+			MappedPageReader reader = this.mappedReader;
+			if (direct != null) {
+				direct.read(buffer, position);
+			} else if (reader == null || !reader.read(buffer, position, this.pageSize)) {
+				readIntoBuffer(this.ioChannel, b, position, this.pageSize);
+			}
 		} catch (IOException ioex) {
 			throw new IOException("Page " + pageNumber + " could not be read from table file.", ioex);
 		}
@@ -478,28 +759,39 @@ public class TableResourceManager extends ResourceManager {
 			}
 		}
 
-		// seek and read the buffer
-		ByteBuffer[] b = new ByteBuffer[buffers.length];
-		for (int i = 0; i < buffers.length; i++) {
-			b[i] = ByteBuffer.wrap(buffers[i], 0, this.pageSize);
-		}
-		int currFirstBuffer = 0;
-		try {
-			this.ioChannel.position(this.pageSize * (long) firstPageNumber);
-			long totalSize = buffers.length * this.pageSize;
-			long bytesRemaining = buffers.length * this.pageSize;
-			
-			do {
-				
-				//	System.out.println("Buffer : " + b.length + ", Offset : " + currFirstBuffer + ", remaining : " + bytesRemaining);
-				
+		// read directly, copy from the mapping, or seek and read the buffers
+		DirectPageIO direct = this.directIO;
+		MappedPageReader reader = this.mappedReader;
+		if (direct != null) {
+			try {
+				direct.read(buffers, this.pageSize * (long) firstPageNumber);
+			} catch (IOException ioex) {
+				throw new IOException("Page sequence [" + firstPageNumber + ", " + (firstPageNumber + buffers.length - 1) + "] could not be read from table file.",
+					ioex);
+			}
+		} else if (reader == null || !reader.read(buffers, this.pageSize * (long) firstPageNumber, this.pageSize)) {
+			ByteBuffer[] b = new ByteBuffer[buffers.length];
+			for (int i = 0; i < buffers.length; i++) {
+				b[i] = ByteBuffer.wrap(buffers[i], 0, this.pageSize);
+			}
+			int currFirstBuffer = 0;
+			try {
+				this.ioChannel.position(this.pageSize * (long) firstPageNumber);
+				long totalSize = buffers.length * this.pageSize;
+				long bytesRemaining = buffers.length * this.pageSize;
 				
-				bytesRemaining -= this.ioChannel.read(b, currFirstBuffer, buffers.length - currFirstBuffer);
-				currFirstBuffer = (int) ((totalSize - bytesRemaining) / this.pageSize);
-			} while (bytesRemaining > 0);
-		} catch (IOException ioex) {
-			throw new IOException("Page sequence [" + firstPageNumber + ", " + (firstPageNumber + buffers.length - 1) + "] could not be read from table file.",
-				ioex);
+				do {
+					
+					//	System.out.println("Buffer : " + b.length + ", Offset : " + currFirstBuffer + ", remaining : " + bytesRemaining);
+					
+					
+					bytesRemaining -= this.ioChannel.read(b, currFirstBuffer, buffers.length - currFirstBuffer);
+					currFirstBuffer = (int) ((totalSize - bytesRemaining) / this.pageSize);
+				} while (bytesRemaining > 0);
+			} catch (IOException ioex) {
+				throw new IOException("Page sequence [" + firstPageNumber + ", " + (firstPageNumber + buffers.length - 1) + "] could not be read from table file.",
+					ioex);
+			}
 		}
 
 		// wrap the loaded buffers in CacheableData objects 
@@ -546,7 +838,7 @@ public class TableResourceManager extends ResourceManager {
 
 	/**
 	 * Opens the table contained in the given file and returns a table manager to
-	 * modify that table in blocks.
+	 * modify that table in blocks. Every page write is synchronous.
 	 * 
 	 * @param tableFile
 	 *        The file containing the table to be opened.
@@ -557,9 +849,31 @@ public class TableResourceManager extends ResourceManager {
 	 *         Thrown, if the header of the table contained invalid data.
 	 */
 	public static TableResourceManager openTable(File tableFile) throws IOException, PageFormatException {
+		return openTable(tableFile, DurabilityMode.STRICT);
+	}
+
+	/**
+	 * Opens the table contained in the given file and returns a table manager to
+	 * modify that table in blocks.
+	 * 
+	 * @param tableFile
+	 *        The file containing the table to be opened.
+	 * @param durability
+	 *        Whether page writes go synchronously to the device or are made durable by
+	 *        {@link #sync()}.
+	 * @return The TableManager to operate on the table file.
+	 * @throws IOException
+	 *         Thrown, if an I/O error occurred.
+	 * @throws PageFormatException
+	 *         Thrown, if the header of the table contained invalid data.
+	 */
+	public static TableResourceManager openTable(File tableFile, DurabilityMode durability) throws IOException, PageFormatException {
 		if (tableFile == null) {
 			throw new NullPointerException("Table file must not be null.");
 		}
+		if (durability == null) {
+			throw new NullPointerException("Durability mode must not be null.");
+		}
 
 		try {
 			// check if the file exists
@@ -567,7 +881,7 @@ public class TableResourceManager extends ResourceManager {
 				throw new IOException("Table file '" + tableFile.getCanonicalPath() + "' does not exist.");
 			}
 
-			RandomAccessFile raf = new RandomAccessFile(tableFile, "rwd");
+			RandomAccessFile raf = new RandomAccessFile(tableFile, durability.getFileMode());
 			return new TableResourceManager(raf);
 		} catch (SecurityException sex) {
 			throw new IOException("The user running the system has insufficient privileges for file manipulation.");
@@ -577,7 +891,7 @@ public class TableResourceManager extends ResourceManager {
 	/**
 	 * Creates a new table with the given schema. The tables data will be stored in the given file.
 	 * The new table will initially hold a description of the schema in the header and will
-	 * otherwise be empty.
+	 * otherwise be empty. Every page write is synchronous.
 	 * 
 	 * @param tableFile
 	 *        The file to store the new table in.
@@ -585,12 +899,32 @@ public class TableResourceManager extends ResourceManager {
 	 *         If an I/O problem occurred.
 	 */
 	public static TableResourceManager createTable(File tableFile, TableSchema schema) throws IOException {
+		return createTable(tableFile, schema, DurabilityMode.STRICT);
+	}
+
+	/**
+	 * Creates a new table with the given schema. The tables data will be stored in the given file.
+	 * The new table will initially hold a description of the schema in the header and will
+	 * otherwise be empty.
+	 * 
+	 * @param tableFile
+	 *        The file to store the new table in.
+	 * @param durability
+	 *        Whether page writes go synchronously to the device or are made durable by
+	 *        {@link #sync()}.
+	 * @throws IOException
+	 *         If an I/O problem occurred.
+	 */
+	public static TableResourceManager createTable(File tableFile, TableSchema schema, DurabilityMode durability) throws IOException {
 		if (tableFile == null) {
 			throw new NullPointerException("Table file must not be null.");
 		}
 		if (schema == null) {
 			throw new NullPointerException("Table schema must not be null.");
 		}
+		if (durability == null) {
+			throw new NullPointerException("Durability mode must not be null.");
+		}
 
 		try {
 			// check if the file exists
@@ -600,7 +934,7 @@ public class TableResourceManager extends ResourceManager {
 			}
 
 			// create the random access file and the table manager
-			RandomAccessFile raf = new RandomAccessFile(tableFile, "rwd");
+			RandomAccessFile raf = new RandomAccessFile(tableFile, durability.getFileMode());
 			return new TableResourceManager(raf, schema);
 		} catch (SecurityException sex) {
 			throw new IOException("The user running the system has insufficient privileges for file manipulation.");
@@ -623,8 +957,10 @@ public class TableResourceManager extends ResourceManager {
 				throw new IOException("Table file '" + tableFile.getCanonicalPath() + "' does not exist exist.");
 			}
 
-			// delete the file
+			// delete the file, and the maps kept next to it
 			tableFile.delete();
+			FreeSpaceMap.getMapFile(tableFile).delete();
+			ZoneMap.getMapFile(tableFile).delete();
 		} catch (SecurityException sex) {
 			throw new IOException("The user running the system has insufficient privileges for file manipulation.");
 		}
@@ -659,7 +995,8 @@ public class TableResourceManager extends ResourceManager {
 			throw new PageFormatException("Table header invalid. Magic number not found.");
 		}
 		// check the version number
-		if (buffer.getInt() != 0) {
+		int version = buffer.getInt();
+		if (version < 0 || version > TABLE_HEADER_VERSION) {
 			throw new PageFormatException("Unknown table format version.");
 		}
 
@@ -678,6 +1015,16 @@ public class TableResourceManager extends ResourceManager {
 			throw new PageFormatException("Number of columns out of range: " + numCols);
 		}
 
+		// get the page layout
+		if (version > 0) {
+			readIntoBuffer(channel, buffer, 4);
+			int layout = buffer.getInt();
+			if (layout < 0 || layout >= PageLayout.values().length) {
+				throw new PageFormatException("Invalid page layout given: " + layout);
+			}
+			schema.setPageLayout(PageLayout.values()[layout]);
+		}
+
 		// read all columns
 		for (int i = 0; i < numCols; i++) {
 			// get the column fix length part: type, array length, attributes (nullable)
@@ -715,7 +1062,14 @@ public class TableResourceManager extends ResourceManager {
 				bld.append(buffer.getChar());
 			}
 
-			schema.addColumn(ColumnSchema.createColumnSchema(bld.toString(), type, nullable, unique));
+			ColumnSchema column = ColumnSchema.createColumnSchema(bld.toString(), type, nullable, unique);
+			if ((attributes & TABLE_HEADER_COLUMN_ATTRIBUTE_DICTIONARY_MASK) != 0) {
+				if (!type.isArrayType()) {
+					throw new PageFormatException("Column " + i + " is dictionary encoded, but not of a character type.");
+				}
+				column.setDictionaryEncoded(true);
+			}
+			schema.addColumn(column);
 		}
 
 		// done
@@ -739,13 +1093,14 @@ public class TableResourceManager extends ResourceManager {
 
 		// first write magic number
 		buffer.putInt(TABLE_HEADER_MAGIC_NUMBER);
-		// second field write table format version. set to zero, because there is
-		// nothing to decide, yet
-		buffer.putInt(0);
+		// second field write table format version
+		buffer.putInt(TABLE_HEADER_VERSION);
 		// write the page size
 		buffer.putInt(schema.getPageSize().getNumberOfBytes());
 		// write the number of columns
 		buffer.putInt(schema.getNumberOfColumns());
+		// write the page layout
+		buffer.putInt(schema.getPageLayout().ordinal());
 
 		// write the buffer
 		buffer.flip();
@@ -768,6 +1123,9 @@ public class TableResourceManager extends ResourceManager {
 			if (cs.isUnique()) {
 				attribs |= TABLE_HEADER_COLUMN_ATTRIBUTE_UNIQUE_MASK;
 			}
+			if (cs.isDictionaryEncoded()) {
+				attribs |= TABLE_HEADER_COLUMN_ATTRIBUTE_DICTIONARY_MASK;
+			}
 			buffer.putInt(attribs);
 
 			// get the name and check it
@@ -0,0 +1,476 @@
+package de.tuberlin.dima.minidb.io.tables;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataField;
+import de.tuberlin.dima.minidb.core.DataTuple;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.io.cache.PageExpiredException;
+import de.tuberlin.dima.minidb.qexec.LowLevelPredicate;
+
+/**
+ * Keeps the zone of every page of a table: the smallest and the largest value of each column
+ * on the page, and whether the column holds NULLs there. A scan skips the pages whose zones
+ * cannot satisfy its predicates, without reading them.
+ * <p>
+ * The zone of a page is computed from the bytes the table writes for it, and widened by every
+ * tuple that is inserted into the page. Writers that insert into cached pages therefore must
+ * report the tuples through {@link #include(int, DataTuple)}, as the insert operator does. The
+ * written bytes may be older than the cached page, so a known zone is only ever widened by them,
+ * and a zone that becomes known also covers the tuples reported since the page was created.
+ * Deletes leave the zone as it is, which is wider than needed, but still safe. A page whose zone
+ * is unknown, because it was not written yet, is never skipped.
+ * <p>
+ * The map is kept in a file next to the table file, which is written when the table is synced
+ * or closed. Unlike the free-space map, a stale zone map gives wrong results, because scans
+ * would skip pages that hold matching tuples. The file is therefore deleted as soon as the map
+ * changes after it was read or written, so that a table that was not closed cleanly starts with
+ * a map that knows no zones, as it does with a missing or damaged file.
+ */
+public class ZoneMap {
+	/**
+	 * The magic number that identifies a file as a zone map.
+	 */
+	private static final int MAGIC_NUMBER = 0x20AE3A95;
+
+	/**
+	 * The schema of the table.
+	 */
+	private final TableSchema schema;
+
+	/**
+	 * The number of the first data page of the table.
+	 */
+	private final int firstPageNumber;
+
+	/**
+	 * The zones, indexed by page number minus the first page number, null where unknown.
+	 */
+	private Zone[] zones;
+
+	/**
+	 * The ranges of the tuples included into pages whose zone is unknown, indexed like the zones.
+	 */
+	private Zone[] included;
+
+	/**
+	 * Counts how often the zone of each page was forgotten, to detect that while it is computed.
+	 */
+	private int[] stamps;
+
+	/**
+	 * Whether the map changed since it was read or written.
+	 */
+	private boolean modified;
+
+	/**
+	 * The file the map was read from or written to last, null if there is none.
+	 */
+	private File file;
+
+	/**
+	 * Creates a map that knows no zones for a table whose data starts at the given page.
+	 *
+	 * @param schema The schema of the table.
+	 * @param firstPageNumber The number of the first data page of the table.
+	 */
+	public ZoneMap(TableSchema schema, int firstPageNumber) {
+		this.schema = schema;
+		this.firstPageNumber = firstPageNumber;
+		this.zones = new Zone[64];
+		this.included = new Zone[64];
+		this.stamps = new int[64];
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Computes the zone of the page from the tuples on it, and widens the known zone of the page
+	 * by it, or makes it known together with the tuples included so far.
+	 *
+	 * @param page The page as it was written, created on the written bytes rather than the cached
+	 *             page, which may change meanwhile.
+	 */
+	public void update(TablePage page) {
+		int index;
+		int stamp;
+		try {
+			index = page.getPageNumber() - this.firstPageNumber;
+		} catch (PageExpiredException peex) {
+			return;
+		}
+		if (index < 0) {
+			return;
+		}
+
+		synchronized (this) {
+			ensureCapacity(index);
+			stamp = this.stamps[index];
+		}
+
+		Zone zone = new Zone(this.schema.getNumberOfColumns());
+		try {
+			int numCols = this.schema.getNumberOfColumns();
+			TupleIterator iter = page.getIterator(new LowLevelPredicate[0], numCols, numCols == 64 ? -1L : (1L << numCols) - 1);
+			while (iter.hasNext()) {
+				zone.include(iter.next());
+			}
+		} catch (PageTupleAccessException | RuntimeException ex) {
+			// a page that cannot be read is never skipped
+			forget(index + this.firstPageNumber);
+			return;
+		}
+
+		synchronized (this) {
+			if (this.stamps[index] != stamp) {
+				// forgotten meanwhile, the page was created anew
+				return;
+			}
+			if (this.zones[index] != null) {
+				this.zones[index].include(zone);
+			} else {
+				if (this.included[index] != null) {
+					zone.include(this.included[index]);
+					this.included[index] = null;
+				}
+				this.zones[index] = zone;
+			}
+			changed();
+		}
+	}
+
+	/**
+	 * Widens the zone of the page by a tuple that was inserted into it.
+	 *
+	 * @param pageNumber The number of the page.
+	 * @param tuple The inserted tuple.
+	 */
+	public synchronized void include(int pageNumber, DataTuple tuple) {
+		int index = pageNumber - this.firstPageNumber;
+		if (index < 0) {
+			return;
+		}
+		ensureCapacity(index);
+
+		Zone zone = this.zones[index];
+		if (zone == null) {
+			zone = this.included[index];
+			if (zone == null) {
+				zone = this.included[index] = new Zone(this.schema.getNumberOfColumns());
+			}
+		}
+		zone.include(tuple);
+		changed();
+	}
+
+	/**
+	 * Forgets the zone of the page, for example because it was created anew.
+	 *
+	 * @param pageNumber The number of the page.
+	 */
+	public synchronized void invalidate(int pageNumber) {
+		int index = pageNumber - this.firstPageNumber;
+		if (index >= 0 && index < this.zones.length) {
+			this.stamps[index]++;
+			this.included[index] = null;
+			if (this.zones[index] != null) {
+				this.zones[index] = null;
+				changed();
+			}
+		}
+	}
+
+	/**
+	 * Makes the zone of the page unknown, because the written page could not be read. The range
+	 * of the zone is kept with the included tuples, for when the zone becomes known again.
+	 *
+	 * @param pageNumber The number of the page.
+	 */
+	synchronized void forget(int pageNumber) {
+		int index = pageNumber - this.firstPageNumber;
+		if (index >= 0 && index < this.zones.length && this.zones[index] != null) {
+			if (this.included[index] == null) {
+				this.included[index] = this.zones[index];
+			} else {
+				this.included[index].include(this.zones[index]);
+			}
+			this.zones[index] = null;
+			changed();
+		}
+	}
+
+	/**
+	 * Checks whether a tuple on the page could satisfy all the predicates.
+	 *
+	 * @param pageNumber The number of the page.
+	 * @param preds The predicates, which must all be satisfied.
+	 * @return False, if the zone of the page rules out a match, true otherwise.
+	 */
+	public synchronized boolean mayMatch(int pageNumber, LowLevelPredicate[] preds) {
+		int index = pageNumber - this.firstPageNumber;
+		Zone zone = index >= 0 && index < this.zones.length ? this.zones[index] : null;
+		if (zone == null) {
+			return true;
+		}
+
+		for (LowLevelPredicate pred : preds) {
+			int column = pred.getColumnIndex();
+			// NULLs satisfy no predicate, a column of only NULLs has no range
+			if (zone.min[column] == null || !pred.mayMatchRange(zone.min[column], zone.max[column])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether the column holds NULLs on the page.
+	 *
+	 * @param pageNumber The number of the page.
+	 * @param column The index of the column.
+	 * @return True, if the column may hold NULLs on the page, false if it holds none.
+	 */
+	public synchronized boolean mayHaveNulls(int pageNumber, int column) {
+		int index = pageNumber - this.firstPageNumber;
+		Zone zone = index >= 0 && index < this.zones.length ? this.zones[index] : null;
+		return zone == null || zone.hasNull[column];
+	}
+
+	/**
+	 * Forgets all zones, after the table was truncated.
+	 */
+	public synchronized void clear() {
+		Arrays.fill(this.zones, null);
+		Arrays.fill(this.included, null);
+		for (int i = 0; i < this.stamps.length; i++) {
+			this.stamps[i]++;
+		}
+		changed();
+	}
+
+	/**
+	 * Marks the map as modified. The first change after the map was read or written deletes
+	 * its file, which no longer describes the table.
+	 */
+	private void changed() {
+		if (!this.modified) {
+			this.modified = true;
+			if (this.file != null) {
+				this.file.delete();
+			}
+		}
+	}
+
+	private void ensureCapacity(int index) {
+		if (index >= this.zones.length) {
+			int length = Math.max(index + 1, 2 * this.zones.length);
+			this.zones = Arrays.copyOf(this.zones, length);
+			this.included = Arrays.copyOf(this.included, length);
+			this.stamps = Arrays.copyOf(this.stamps, length);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Writes the map to the given file, if it changed since it was read or written.
+	 *
+	 * @param file The file to write the map to.
+	 * @throws IOException Thrown, if the file could not be written.
+	 */
+	public synchronized void write(File file) throws IOException {
+		if (!this.modified) {
+			return;
+		}
+
+		int numCols = this.schema.getNumberOfColumns();
+		int numPages = this.zones.length;
+		while (numPages > 0 && this.zones[numPages - 1] == null) {
+			numPages--;
+		}
+
+		// a known page takes a flag, and per column a flag and the lengths and bytes of its range
+		int size = 16 + numPages;
+		for (int i = 0; i < numPages; i++) {
+			if (this.zones[i] != null) {
+				for (int c = 0; c < numCols; c++) {
+					size += 9;
+					if (this.zones[i].min[c] != null) {
+						size += this.zones[i].min[c].getNumberOfBytes() + this.zones[i].max[c].getNumberOfBytes();
+					}
+				}
+			}
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC_NUMBER);
+		buffer.putInt(this.firstPageNumber);
+		buffer.putInt(numCols);
+		buffer.putInt(numPages);
+
+		byte[] array = buffer.array();
+		for (int i = 0; i < numPages; i++) {
+			Zone zone = this.zones[i];
+			buffer.put((byte) (zone == null ? 0 : 1));
+			if (zone == null) {
+				continue;
+			}
+			for (int c = 0; c < numCols; c++) {
+				buffer.put((byte) ((zone.hasNull[c] ? 1 : 0) | (zone.min[c] != null ? 2 : 0)));
+				if (zone.min[c] == null) {
+					buffer.putInt(0);
+					buffer.putInt(0);
+					continue;
+				}
+				buffer.putInt(zone.min[c].getNumberOfBytes());
+				buffer.putInt(zone.max[c].getNumberOfBytes());
+				zone.min[c].encodeBinary(array, buffer.position());
+				buffer.position(buffer.position() + zone.min[c].getNumberOfBytes());
+				zone.max[c].encodeBinary(array, buffer.position());
+				buffer.position(buffer.position() + zone.max[c].getNumberOfBytes());
+			}
+		}
+
+		Files.write(file.toPath(), array);
+		this.file = file;
+		this.modified = false;
+	}
+
+	/**
+	 * Reads the map of a table from the given file. Gives a map that knows no zones, if the
+	 * file does not exist, is damaged, or belongs to a table of another shape.
+	 *
+	 * @param file The file to read the map from.
+	 * @param schema The schema of the table.
+	 * @param firstPageNumber The number of the first data page of the table.
+	 * @return The map read from the file.
+	 * @throws IOException Thrown, if the file exists, but could not be read.
+	 */
+	public static ZoneMap read(File file, TableSchema schema, int firstPageNumber) throws IOException {
+		ZoneMap map = new ZoneMap(schema, firstPageNumber);
+		map.file = file;
+		if (!file.exists()) {
+			return map;
+		}
+
+		byte[] array = Files.readAllBytes(file.toPath());
+		ByteBuffer buffer = ByteBuffer.wrap(array);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		int numCols = schema.getNumberOfColumns();
+		if (buffer.remaining() < 16 || buffer.getInt() != MAGIC_NUMBER || buffer.getInt() != firstPageNumber ||
+				buffer.getInt() != numCols) {
+			return map;
+		}
+
+		try {
+			int numPages = buffer.getInt();
+			Zone[] zones = new Zone[Math.max(numPages, 64)];
+
+			for (int i = 0; i < numPages; i++) {
+				if (buffer.get() == 0) {
+					continue;
+				}
+				Zone zone = new Zone(numCols);
+				for (int c = 0; c < numCols; c++) {
+					int flags = buffer.get();
+					int minLength = buffer.getInt();
+					int maxLength = buffer.getInt();
+					zone.hasNull[c] = (flags & 1) != 0;
+					if ((flags & 2) != 0) {
+						DataType type = schema.getColumn(c).getDataType();
+						zone.min[c] = decode(type, array, buffer.position(), minLength);
+						zone.max[c] = decode(type, array, buffer.position() + minLength, maxLength);
+						buffer.position(buffer.position() + minLength + maxLength);
+					}
+				}
+				zones[i] = zone;
+			}
+
+			map.zones = zones;
+			map.included = new Zone[zones.length];
+			map.stamps = new int[zones.length];
+		} catch (RuntimeException rex) {
+			// damaged, start without zones
+			ZoneMap empty = new ZoneMap(schema, firstPageNumber);
+			empty.file = file;
+			return empty;
+		}
+		return map;
+	}
+
+	private static DataField decode(DataType type, byte[] array, int offset, int length) {
+		if (offset + length > array.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		return type.isFixLength() ? type.getFromBinary(array, offset) : type.getFromBinary(array, offset, length);
+	}
+
+	/**
+	 * Gets the file that holds the zone map of the given table file.
+	 *
+	 * @param tableFile The file of the table.
+	 * @return The file of the table's zone map.
+	 */
+	public static File getMapFile(File tableFile) {
+		return new File(tableFile.getPath() + ".zmp");
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The range and the NULL presence of each column on one page.
+	 */
+	private static final class Zone {
+		private final DataField[] min;
+		private final DataField[] max;
+		private final boolean[] hasNull;
+
+		private Zone(int numCols) {
+			this.min = new DataField[numCols];
+			this.max = new DataField[numCols];
+			this.hasNull = new boolean[numCols];
+		}
+
+		private void include(DataTuple tuple) {
+			for (int c = 0; c < this.min.length; c++) {
+				DataField field = tuple.getField(c);
+				if (field.isNULL()) {
+					this.hasNull[c] = true;
+				} else {
+					include(c, field, field);
+				}
+			}
+		}
+
+		private void include(Zone other) {
+			for (int c = 0; c < this.min.length; c++) {
+				this.hasNull[c] |= other.hasNull[c];
+				if (other.min[c] != null) {
+					include(c, other.min[c], other.max[c]);
+				}
+			}
+		}
+
+		private void include(int c, DataField low, DataField high) {
+			if (this.min[c] == null) {
+				this.min[c] = low;
+				this.max[c] = high;
+				return;
+			}
+			if (low.compareTo(this.min[c]) < 0) {
+				this.min[c] = low;
+			}
+			if (high.compareTo(this.max[c]) > 0) {
+				this.max[c] = high;
+			}
+		}
+	}
+}
@@ -157,6 +157,8 @@ public class TableOutputFormat extends OutputFormat<Writable, DataTuple> {
 						@Override
 						public void markExpired() {}
 						@Override
+						public void markClean() {}
+						@Override
 						public boolean isExpired() {
 							return false;
 						}
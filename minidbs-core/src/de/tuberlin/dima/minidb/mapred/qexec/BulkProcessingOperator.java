@@ -88,6 +88,8 @@ public abstract class BulkProcessingOperator {
 		// Now, allocate a new TableResourceManager.
 		TableResourceManager res = TableResourceManager.createTable(
 				result_table_file, schema);
+		// The result is appended in bulk, let it go to preallocated extents.
+		res.enableExtentAllocation(instance.getConfig().getExtentPages());
 		// And register the table.
 		TableDescriptor desc = new TableDescriptor(
 				result_table_name, result_table_file.getAbsolutePath());
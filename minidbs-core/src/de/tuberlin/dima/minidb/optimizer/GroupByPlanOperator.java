@@ -230,6 +230,16 @@ public class GroupByPlanOperator extends OptimizerPlanOperator
 	@Override
 	public PhysicalPlanOperator createPhysicalPlan(BufferPoolManager buffer, QueryHeap heap)
 	{
+		// the group by copies the values it keeps, so a scan below it, with at most filters
+		// in between, may refill its tuples in place
+		OptimizerPlanOperator input = this.child;
+		while (input instanceof FilterPlanOperator) {
+			input = ((FilterPlanOperator) input).getChild();
+		}
+		if (input instanceof TableScanPlanOperator) {
+			((TableScanPlanOperator) input).setReuseTuples(true);
+		}
+		
 		// translate the child first
 		PhysicalPlanOperator childPlan = this.child.createPhysicalPlan(buffer, heap);
 		
@@ -9,6 +9,7 @@ import de.tuberlin.dima.minidb.semantics.predicate.LocalPredicate;
 import de.tuberlin.dima.minidb.qexec.LowLevelPredicate;
 import de.tuberlin.dima.minidb.qexec.OperatorFactory;
 import de.tuberlin.dima.minidb.qexec.PhysicalPlanOperator;
+import de.tuberlin.dima.minidb.qexec.TableScanOperator;
 import de.tuberlin.dima.minidb.qexec.heap.QueryHeap;
 import de.tuberlin.dima.minidb.qexec.predicate.LocalPredicateConjunction;
 
@@ -40,6 +41,12 @@ public class TableScanPlanOperator extends BaseTableAccess
 	 */
 	private int prefetchingLength = Constants.DEFAULT_PREFETCHING_LENGTH;
 	
+	/**
+	 * Whether the scan may refill the tuple it returns in place, because its consumers do not
+	 * keep tuples.
+	 */
+	private boolean reuseTuples;
+	
 	
 	// ------------------------------------------------------------------------
 	
@@ -126,6 +133,28 @@ public class TableScanPlanOperator extends BaseTableAccess
 		this.prefetchingLength = prefetchingLength;
 	}
 	
+	/**
+	 * Checks whether the scan may refill the tuple it returns in place.
+	 * 
+	 * @return True, if the scan reuses its tuple, false otherwise.
+	 */
+	public boolean isReuseTuples()
+	{
+		return this.reuseTuples;
+	}
+	
+	/**
+	 * Sets whether the scan may refill the tuple it returns in place. Only allowed, if the
+	 * consumers of the scan do not keep tuples or fields beyond the next tuple.
+	 * 
+	 * @param reuseTuples Whether the scan reuses its tuple.
+	 * @see de.tuberlin.dima.minidb.qexec.TableScanOperator#setReuseTuples(boolean)
+	 */
+	public void setReuseTuples(boolean reuseTuples)
+	{
+		this.reuseTuples = reuseTuples;
+	}
+	
 	/**
 	 * Assigns this operator the columns it should produce.
 	 * 
@@ -198,8 +227,10 @@ public class TableScanPlanOperator extends BaseTableAccess
 			colIndices[i] = this.producedColumns[i].getColumnIndex();
 		}
 		
-		return OperatorFactory.createTableScanOperator(buffer, getTable().getResourceManager(),
+		TableScanOperator scan = OperatorFactory.createTableScanOperator(buffer, getTable().getResourceManager(),
 				getTable().getResourceId(), colIndices, execPred, this.prefetchingLength);
+		scan.setReuseTuples(this.reuseTuples);
+		return scan;
 	}
 
 
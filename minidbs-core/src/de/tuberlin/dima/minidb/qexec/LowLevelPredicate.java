@@ -112,7 +112,7 @@ public final class LowLevelPredicate implements LocalPredicate
 	 */
 	public boolean evaluate(DataField field)
 	{
-		int c = field.compareTo(this.literal);
+		int c = Integer.signum(field.compareTo(this.literal));
 		return (c == this.c1 | c == this.c2);
 	}
 	
@@ -129,11 +129,59 @@ public final class LowLevelPredicate implements LocalPredicate
 	 */
 	public boolean evaluateWithNull(DataField field)
 	{
-		int c = field.compareTo(this.literal);
+		int c = Integer.signum(field.compareTo(this.literal));
 		boolean b = !field.isNULL();
 		return (c == this.c1 | c == this.c2) & b;
 	}
 	
+	/**
+	 * Checks whether a value that compares to the literal as given passes the predicate. This
+	 * applies the operator of the predicate for callers that compare values themselves, for
+	 * example on their binary encoding. NULLs must be handled by the caller.
+	 * 
+	 * @param comparison The result of comparing the value to the literal, negative, if the value
+	 *                   is smaller, zero, if it is equal, and positive, if it is larger.
+	 * 
+	 * @return True, if the value passes the predicate, false otherwise.
+	 */
+	public boolean acceptsComparison(int comparison)
+	{
+		int c = Integer.signum(comparison);
+		return (c == this.c1 | c == this.c2);
+	}
+	
+	/**
+	 * Gets the literal that the predicate compares the column to.
+	 * 
+	 * @return The literal of the predicate.
+	 */
+	public DataField getLiteral()
+	{
+		return this.literal;
+	}
+	
+	/**
+	 * Checks whether any value in the given range could pass the predicate. The range is
+	 * given by the smallest and the largest value of a set of values, such as the values of
+	 * a column on a page, which contains no NULLs.
+	 * 
+	 * @param min The smallest value of the range.
+	 * @param max The largest value of the range.
+	 * 
+	 * @return False, if no value of the range passes the predicate, true otherwise.
+	 */
+	public boolean mayMatchRange(DataField min, DataField max)
+	{
+		int cMin = Integer.signum(min.compareTo(this.literal));
+		int cMax = Integer.signum(max.compareTo(this.literal));
+		
+		boolean equal = this.c1 == 0 | this.c2 == 0;
+		boolean greater = this.c1 == 1 | this.c2 == 1;
+		boolean smaller = this.c1 == -1 | this.c2 == -1;
+		
+		return (equal & cMin <= 0 & cMax >= 0) | (greater & cMax > 0) | (smaller & cMin < 0);
+	}
+	
 	/**
 	 * Evaluates the predicate against the given fields. The fields are compared to the literal
 	 * with the logic of the operator that the predicate was instantiated with. The results
@@ -155,7 +203,7 @@ public final class LowLevelPredicate implements LocalPredicate
 		for (int i = 0; i < fields.length; i++) {
 			@SuppressWarnings("unchecked")
 			T ft = (T) fields[i];
-			int c = ft.compareTo(lt);
+			int c = Integer.signum(ft.compareTo(lt));
 			result[i] = (c == c1 | c == c2);
 		}
 	}
@@ -181,7 +229,7 @@ public final class LowLevelPredicate implements LocalPredicate
 		for (int i = 0; i < fields.length; i++) {
 			@SuppressWarnings("unchecked")
 			T ft = (T) fields[i];
-			int c = ft.compareTo(lt);
+			int c = Integer.signum(ft.compareTo(lt));
 			boolean b = !ft.isNULL();
 			result[i] = (c == c1 | c == c2) & b;
 		}
@@ -8,5 +8,18 @@ package de.tuberlin.dima.minidb.qexec;
  */
 public interface TableScanOperator extends PhysicalPlanOperator
 {
-
+	/**
+	 * Sets whether the scan returns the same tuple for every row, refilled in place, instead
+	 * of a new tuple per row. This spares creating objects for every row, but is only allowed
+	 * if the consumers of the scan do not keep tuples or fields beyond the next call to
+	 * {@link #next()}. The setting must be made before the scan is opened.
+	 * <p>
+	 * Scans that always return new tuples need not override this method; the default ignores
+	 * the setting, which is always safe.
+	 * 
+	 * @param reuseTuples Whether to reuse the returned tuple.
+	 */
+	public default void setReuseTuples(boolean reuseTuples)
+	{
+	}
 }
@@ -22,6 +22,7 @@ import de.tuberlin.dima.minidb.core.DataType;
 import de.tuberlin.dima.minidb.core.InternalOperationFailure;
 import de.tuberlin.dima.minidb.io.cache.PageFormatException;
 import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.DurabilityMode;
 import de.tuberlin.dima.minidb.io.tables.PageTupleAccessException;
 import de.tuberlin.dima.minidb.io.tables.TupleIterator;
 import de.tuberlin.dima.minidb.io.tables.TablePage;
@@ -521,7 +522,8 @@ public class QueryHeap
 			// create a new temp file
 			File tempFile = new File(this.tempFileDirectory, 
 					Constants.QUERY_HEAP_TEMP_FILE_PREFIX + space.getHeapId());
-			tempFileHandle = TableResourceManager.createTable(tempFile, schema);
+			// temp files are dropped after the query, they never need to be durable
+			tempFileHandle = TableResourceManager.createTable(tempFile, schema, DurabilityMode.DEFERRED);
 			space.setTempFile(tempFile, tempFileHandle);
 		}
 		
@@ -4,12 +4,19 @@ package de.tuberlin.dima.minidb.standalone;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.TreeSet;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.FileHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import de.tuberlin.dima.minidb.Constants;
 import de.tuberlin.dima.minidb.DBInstance;
 import de.tuberlin.dima.minidb.ResultHandler;
@@ -192,7 +199,8 @@ public class StandaloneConsoleDriver
 		
 		// system is started, now listen for statements
 		logger.info("MiniDBS standalone system up and running.");
-		System.out.println("System running. Enter SQL query, or enter 'exit' to quit...");
+		System.out.println("System running. Enter SQL query, 'metrics' to show the system's metrics, " +
+				"or enter 'exit' to quit...");
 		
 		// read from standard in until the 'exit' keyword comes.
 		BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
@@ -210,6 +218,14 @@ public class StandaloneConsoleDriver
 	        		break;
 	        	}
 	        	
+	        	// check for metrics keyword
+	        	if (line.equalsIgnoreCase("metrics")) {
+	        		System.out.println();
+	        		dumpMetrics(System.out);
+	        		System.out.println();
+	        		continue;
+	        	}
+	        	
 	        	System.out.println();
 	        	
 	        	// create a result set that prints to the console and invoke the instance
@@ -245,4 +261,37 @@ public class StandaloneConsoleDriver
 		
 		System.exit(exitCode);
 	}
+	
+	
+	/**
+	 * Prints all attributes of the MBeans that the system publishes, sorted by the names of
+	 * the MBeans.
+	 * 
+	 * @param out The stream to print to.
+	 */
+	private static void dumpMetrics(PrintStream out)
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		
+		try {
+			TreeSet<ObjectName> names = new TreeSet<ObjectName>(
+					server.queryNames(new ObjectName(Constants.MBEAN_DOMAIN + ":*"), null));
+			
+			if (names.isEmpty()) {
+				out.println("No metrics are published.");
+				return;
+			}
+			
+			for (ObjectName name : names) {
+				out.println(name.getKeyPropertyListString());
+				
+				for (MBeanAttributeInfo attribute : server.getMBeanInfo(name).getAttributes()) {
+					out.println("  " + attribute.getName() + " = " + server.getAttribute(name, attribute.getName()));
+				}
+			}
+		}
+		catch (Exception e) {
+			out.println("The metrics could not be read: " + e.getMessage());
+		}
+	}
 }
@@ -20,7 +20,9 @@ import de.tuberlin.dima.minidb.io.index.G5BTreeIndex;
 import de.tuberlin.dima.minidb.io.manager.BufferPoolException;
 import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
 import de.tuberlin.dima.minidb.io.manager.G5BufferPoolManager;
+import de.tuberlin.dima.minidb.io.tables.G5PaxTablePage;
 import de.tuberlin.dima.minidb.io.tables.G5TablePage;
+import de.tuberlin.dima.minidb.io.tables.PageLayout;
 import de.tuberlin.dima.minidb.io.tables.PageTupleAccessException;
 import de.tuberlin.dima.minidb.io.tables.TablePage;
 import de.tuberlin.dima.minidb.io.tables.TableResourceManager;
@@ -84,16 +86,27 @@ public class ExtensionFactory extends AbstractExtensionFactory {
 	@Override
 	public TablePage createTablePage(TableSchema schema, byte[] binaryPage) throws PageFormatException {
 		
+		if (schema.getPageLayout() == PageLayout.PAX)
+			return new G5PaxTablePage(schema, binaryPage);
+		
 		return new G5TablePage(schema, binaryPage);		
 	}
 
 	@Override
 	public TablePage initTablePage(TableSchema schema, byte[] binaryPage, int newPageNumber) throws PageFormatException {
 
+		if (schema.getPageLayout() == PageLayout.PAX)
+			return new G5PaxTablePage(schema, binaryPage, newPageNumber);
 
 		return new G5TablePage(schema, binaryPage, newPageNumber);
 	}
 
+	@Override
+	public boolean supportsPageLayout(PageLayout layout) {
+		
+		return true;
+	}
+
 	@Override
 	public PageCache createPageCache(PageSize pageSize, int numPages) {
 
@@ -136,7 +149,14 @@ public class ExtensionFactory extends AbstractExtensionFactory {
 	@Override
 	public DeleteOperator createDeleteOperator(BufferPoolManager bufferPool, int resourceId, PhysicalPlanOperator child) {
 		
-		return new G5DeleteOperator(bufferPool, resourceId, child); 
+		return new G5DeleteOperator(bufferPool, null, resourceId, child); 
+	}
+
+	@Override
+	public DeleteOperator createDeleteOperator(BufferPoolManager bufferPool, TableResourceManager tableManager, int resourceId,
+			PhysicalPlanOperator child) {
+		
+		return new G5DeleteOperator(bufferPool, tableManager, resourceId, child);
 	}
 
 	@Override
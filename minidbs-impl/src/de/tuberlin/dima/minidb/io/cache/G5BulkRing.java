@@ -0,0 +1,144 @@
+package de.tuberlin.dima.minidb.io.cache;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Predicate;
+
+
+/**
+ * The pages a cache holds for bulk reads, kept apart from its working set. The ring may take a
+ * sixteenth of the cache's capacity and holds its pages in the order they were added or last
+ * used. Once it is full, a new bulk page takes the frame of the oldest unpinned one, so that
+ * bulk reads do not evict the pages of the working set.
+ * <p>
+ * The ring is not thread-safe, it is guarded by the cache that owns it.
+ *
+ * @param <K> The type of the keys under which the cache finds its pages.
+ * @param <E> The type of the cache's entries.
+ */
+final class G5BulkRing<K, E> {
+
+	/**
+	 * The share of the capacity that pages read in bulk may take, as a divisor.
+	 */
+	private static final int CAPACITY_DIVISOR = 16;
+
+
+	private final LinkedHashMap<K, E> entries;
+
+	private int capacity;
+
+
+	/**
+	 * Creates an empty ring for a cache of the given capacity.
+	 *
+	 * @param cachePages The capacity of the cache in pages.
+	 */
+	G5BulkRing(int cachePages) {
+
+		this.entries = new LinkedHashMap<K, E>();
+		resize(cachePages);
+	}
+
+
+	/**
+	 * Adapts the size of the ring to a new capacity of the cache. A ring that holds more pages
+	 * than it may now shrinks as new bulk pages come in.
+	 *
+	 * @param cachePages The new capacity of the cache in pages.
+	 */
+	void resize(int cachePages) {
+		this.capacity = Math.max(1, cachePages / CAPACITY_DIVISOR);
+	}
+
+	/**
+	 * Checks whether a new bulk page has to take the frame of one in the ring.
+	 */
+	boolean isFull() {
+		return this.entries.size() >= this.capacity;
+	}
+
+	int size() {
+		return this.entries.size();
+	}
+
+	boolean contains(K key) {
+		return this.entries.containsKey(key);
+	}
+
+	E get(K key) {
+		return this.entries.get(key);
+	}
+
+	/**
+	 * Adds a page as the newest one of the ring.
+	 */
+	void add(K key, E entry) {
+		this.entries.put(key, entry);
+	}
+
+	/**
+	 * Takes a page out of the ring, for example because it is requested regularly and joins the
+	 * working set.
+	 *
+	 * @return The entry of the page, or null, if the page is not in the ring.
+	 */
+	E remove(K key) {
+		return this.entries.remove(key);
+	}
+
+	/**
+	 * Moves a page to the end of the ring, it was just used.
+	 *
+	 * @return The entry of the page, or null, if the page is not in the ring.
+	 */
+	E touch(K key) {
+
+		E entry = this.entries.remove(key);
+
+		if (entry != null)
+			this.entries.put(key, entry);
+
+		return entry;
+	}
+
+	/**
+	 * Takes the oldest unpinned page out of the ring.
+	 *
+	 * @param pinned Tells whether the page of an entry is pinned.
+	 * @return The key and entry of the page, or null, if all pages in the ring are pinned.
+	 */
+	Entry<K, E> removeOldestUnpinned(Predicate<? super E> pinned) {
+
+		Iterator<Entry<K, E>> it = this.entries.entrySet().iterator();
+
+		while (it.hasNext()) {
+
+			Entry<K, E> entry = it.next();
+
+			if (!pinned.test(entry.getValue())) {
+				it.remove();
+				return new SimpleImmutableEntry<K, E>(entry);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the pages of the ring, oldest first.
+	 */
+	Set<Entry<K, E>> entrySet() {
+		return this.entries.entrySet();
+	}
+
+	/**
+	 * Gets the entries of the ring, oldest first.
+	 */
+	Collection<E> values() {
+		return this.entries.values();
+	}
+}
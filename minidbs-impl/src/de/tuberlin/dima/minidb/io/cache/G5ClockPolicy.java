@@ -0,0 +1,124 @@
+package de.tuberlin.dima.minidb.io.cache;
+
+
+/**
+ * The CLOCK replacement policy. The pages form a ring, and a hand sweeps over it: a page that
+ * was hit since the hand passed it last loses its reference flag and stays, the first page
+ * without the flag is evicted. New pages enter right behind the hand.
+ * <p>
+ * A hit only sets the flag of the page, so that hits on the working set cost no reordering.
+ * The policy keeps no history, it reports no ghost hits.
+ */
+public class G5ClockPolicy implements ReplacementPolicy {
+
+
+	private Entry hand;
+
+	private int size;
+
+
+	@Override
+	public ReplacementEntry createEntry(int resourceId, int pageNumber, CacheableData page) {
+		return new Entry(resourceId, pageNumber, page);
+	}
+
+	@Override
+	public void admit(ReplacementEntry entry) {
+
+		Entry e = (Entry) entry;
+		e.referenced = false;
+
+		if (this.hand == null) {
+			e.prev = e;
+			e.next = e;
+			this.hand = e;
+		} else {
+			// behind the hand, the new page gets a full turn before it is looked at
+			e.prev = this.hand.prev;
+			e.next = this.hand;
+			this.hand.prev.next = e;
+			this.hand.prev = e;
+		}
+
+		this.size++;
+	}
+
+	@Override
+	public void hit(ReplacementEntry entry) {
+		((Entry) entry).referenced = true;
+	}
+
+	@Override
+	public ReplacementEntry evict() {
+
+		// the first turn clears the flags, the second finds a victim unless all pages are pinned
+		for (int steps = 2 * this.size; steps >= 0 && this.hand != null; steps--) {
+
+			Entry e = this.hand;
+			this.hand = e.next;
+
+			if (e.isPinned())
+				continue;
+
+			if (e.referenced) {
+				e.referenced = false;
+				continue;
+			}
+
+			unlink(e);
+			return e;
+		}
+
+		return null;
+	}
+
+	@Override
+	public void remove(ReplacementEntry entry) {
+		unlink((Entry) entry);
+	}
+
+	@Override
+	public void setCapacity(int numPages) {
+		// the ring is as large as the cache, there is nothing to size
+	}
+
+	@Override
+	public long getGhostHits() {
+		return 0;
+	}
+
+	@Override
+	public boolean isFrequent(ReplacementEntry entry) {
+		return ((Entry) entry).referenced;
+	}
+
+
+	private void unlink(Entry e) {
+
+		if (e.next == e) {
+			this.hand = null;
+		} else {
+			e.prev.next = e.next;
+			e.next.prev = e.prev;
+
+			if (this.hand == e)
+				this.hand = e.next;
+		}
+
+		e.prev = null;
+		e.next = null;
+		this.size--;
+	}
+
+
+	private static final class Entry extends ReplacementEntry {
+
+		private boolean referenced;
+
+		private Entry prev, next;
+
+		Entry(int resourceId, int pageNumber, CacheableData page) {
+			super(resourceId, pageNumber, page);
+		}
+	}
+}
@@ -0,0 +1,381 @@
+package de.tuberlin.dima.minidb.io.cache;
+
+import java.util.HashMap;
+
+
+/**
+ * The CLOCK-Pro replacement policy (Jiang, Chen and Zhang, USENIX 2005). The pages form one ring
+ * with hot pages, cold pages, and cold pages that were evicted during their test period, which
+ * the ring still remembers. Three hands move over the ring:
+ * <ul>
+ *   <li>The cold hand looks for victims among the cold pages. A cold page that was hit during
+ *       its test period becomes hot, any other cold page that was hit starts a new test period.</li>
+ *   <li>The hot hand turns unreferenced hot pages cold while there are more hot pages than the
+ *       cache leaves them, and ends the test periods it passes.</li>
+ *   <li>The test hand ends test periods and forgets evicted pages, so that the ring remembers
+ *       at most as many evicted pages as the cache holds.</li>
+ * </ul>
+ * A page that comes back while it is remembered enters as a hot page and counts as a ghost hit.
+ * Such hits let the cold pages take more of the cache, test periods that end without a hit
+ * let them take less.
+ * <p>
+ * Like CLOCK, a hit only sets the reference flag of the page.
+ */
+public class G5ClockProPolicy implements ReplacementPolicy {
+
+
+	private int capacity;
+
+	/**
+	 * The number of resident cold pages the policy aims for, between one and the capacity minus one.
+	 */
+	private int coldTarget;
+
+	private int hotCount, coldCount, ghostCount;
+
+	private Entry handHot, handCold, handTest;
+
+	/**
+	 * The evicted pages that the ring still remembers.
+	 */
+	private final HashMap<Long, Entry> ghosts = new HashMap<Long, Entry>();
+
+	private long ghostHits;
+
+
+	@Override
+	public ReplacementEntry createEntry(int resourceId, int pageNumber, CacheableData page) {
+		return new Entry(resourceId, pageNumber, page);
+	}
+
+	@Override
+	public void admit(ReplacementEntry entry) {
+
+		Entry e = (Entry) entry;
+		Entry ghost = this.ghosts.remove(e.getKey());
+
+		e.referenced = false;
+
+		if (ghost != null) {
+
+			// the page came back within its test period: it is hot, and cold pages deserve more room
+			this.ghostHits++;
+			this.coldTarget = Math.min(this.coldTarget + 1, maxColdTarget());
+
+			unlink(ghost);
+			this.ghostCount--;
+
+			e.hot = true;
+			e.test = false;
+			this.hotCount++;
+			insertAtHead(e);
+
+			balanceHot();
+		} else {
+			e.hot = false;
+			e.test = true;
+			this.coldCount++;
+			insertAtHead(e);
+		}
+	}
+
+	@Override
+	public void hit(ReplacementEntry entry) {
+		((Entry) entry).referenced = true;
+	}
+
+	@Override
+	public ReplacementEntry evict() {
+
+		Entry victim = runColdHand();
+
+		// only hot or pinned cold pages are left: turn a hot page cold and try again
+		if (victim == null && runHotHand())
+			victim = runColdHand();
+
+		return victim;
+	}
+
+	@Override
+	public void remove(ReplacementEntry entry) {
+
+		Entry e = (Entry) entry;
+
+		if (e.hot)
+			this.hotCount--;
+		else
+			this.coldCount--;
+
+		unlink(e);
+	}
+
+	@Override
+	public void setCapacity(int numPages) {
+
+		this.capacity = numPages;
+		this.coldTarget = Math.max(1, Math.min(this.coldTarget, maxColdTarget()));
+
+		trimGhosts();
+		balanceHot();
+	}
+
+	@Override
+	public long getGhostHits() {
+		return this.ghostHits;
+	}
+
+	@Override
+	public boolean isFrequent(ReplacementEntry entry) {
+		return ((Entry) entry).hot;
+	}
+
+
+	/**
+	 * Moves the cold hand to the next unpinned cold page without reference and evicts it.
+	 *
+	 * @return The evicted entry, or null, if there is none within two turns.
+	 */
+	private Entry runColdHand() {
+
+		for (int steps = 2 * ringSize(); steps >= 0 && this.handCold != null; steps--) {
+
+			Entry e = this.handCold;
+			this.handCold = e.next;
+
+			if (e.hot || e.getPage() == null || e.isPinned())
+				continue;
+
+			if (e.referenced) {
+
+				e.referenced = false;
+
+				if (e.test) {
+					// hit within its test period: the page is hot now
+					e.hot = true;
+					e.test = false;
+					this.coldCount--;
+					this.hotCount++;
+					moveToHead(e);
+					balanceHot();
+				} else {
+					e.test = true;
+					moveToHead(e);
+				}
+				continue;
+			}
+
+			this.coldCount--;
+
+			if (e.test) {
+				// remember the page until its test period ends
+				Entry ghost = new Entry(e.getResourceId(), e.getPageNumber(), null);
+				replace(e, ghost);
+				this.ghosts.put(ghost.getKey(), ghost);
+				this.ghostCount++;
+				trimGhosts();
+			} else {
+				unlink(e);
+			}
+
+			return e;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Moves the hot hand until it turned one hot page cold, ending the test periods it passes.
+	 *
+	 * @return True, if a page was turned cold, false, if there is none within two turns.
+	 */
+	private boolean runHotHand() {
+
+		for (int steps = 2 * ringSize(); steps >= 0 && this.handHot != null; steps--) {
+
+			Entry e = this.handHot;
+			this.handHot = e.next;
+
+			if (e.getPage() == null) {
+				forget(e);
+				continue;
+			}
+
+			if (!e.hot) {
+				endTest(e);
+				continue;
+			}
+
+			if (e.isPinned())
+				continue;
+
+			if (e.referenced) {
+				e.referenced = false;
+				continue;
+			}
+
+			e.hot = false;
+			this.hotCount--;
+			this.coldCount++;
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Moves the test hand until it forgot one evicted page, ending the test periods it passes.
+	 */
+	private void runTestHand() {
+
+		for (int steps = ringSize(); steps >= 0 && this.handTest != null; steps--) {
+
+			Entry e = this.handTest;
+			this.handTest = e.next;
+
+			if (e.getPage() == null) {
+				forget(e);
+				return;
+			}
+
+			if (!e.hot)
+				endTest(e);
+		}
+	}
+
+	private void balanceHot() {
+
+		while (this.hotCount > this.capacity - this.coldTarget && runHotHand())
+			;
+	}
+
+	private void trimGhosts() {
+
+		while (this.ghostCount > this.capacity)
+			runTestHand();
+	}
+
+	/**
+	 * Forgets an evicted page whose test period ended without it coming back.
+	 */
+	private void forget(Entry ghost) {
+
+		this.ghosts.remove(ghost.getKey());
+		unlink(ghost);
+		this.ghostCount--;
+		this.coldTarget = Math.max(1, this.coldTarget - 1);
+	}
+
+	private void endTest(Entry e) {
+
+		if (e.test) {
+			e.test = false;
+			this.coldTarget = Math.max(1, this.coldTarget - 1);
+		}
+	}
+
+	private int maxColdTarget() {
+		return Math.max(1, this.capacity - 1);
+	}
+
+	private int ringSize() {
+		return this.hotCount + this.coldCount + this.ghostCount;
+	}
+
+
+	// ------------------------------------------------------------------------
+	//                               The ring
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Inserts the entry at the head of the ring, right behind the hot hand, which the hot hand
+	 * therefore reaches last.
+	 */
+	private void insertAtHead(Entry e) {
+
+		if (this.handHot == null) {
+			e.prev = e;
+			e.next = e;
+			this.handHot = e;
+			this.handCold = e;
+			this.handTest = e;
+		} else {
+			e.prev = this.handHot.prev;
+			e.next = this.handHot;
+			this.handHot.prev.next = e;
+			this.handHot.prev = e;
+		}
+	}
+
+	private void moveToHead(Entry e) {
+
+		unlink(e);
+		insertAtHead(e);
+	}
+
+	private void unlink(Entry e) {
+
+		if (e.next == e) {
+			this.handHot = null;
+			this.handCold = null;
+			this.handTest = null;
+		} else {
+			e.prev.next = e.next;
+			e.next.prev = e.prev;
+
+			if (this.handHot == e)
+				this.handHot = e.next;
+			if (this.handCold == e)
+				this.handCold = e.next;
+			if (this.handTest == e)
+				this.handTest = e.next;
+		}
+
+		e.prev = null;
+		e.next = null;
+	}
+
+	/**
+	 * Puts the replacement at the position of the entry in the ring.
+	 */
+	private void replace(Entry e, Entry replacement) {
+
+		if (e.next == e) {
+			replacement.prev = replacement;
+			replacement.next = replacement;
+		} else {
+			replacement.prev = e.prev;
+			replacement.next = e.next;
+			e.prev.next = replacement;
+			e.next.prev = replacement;
+		}
+
+		if (this.handHot == e)
+			this.handHot = replacement;
+		if (this.handCold == e)
+			this.handCold = replacement;
+		if (this.handTest == e)
+			this.handTest = replacement;
+
+		e.prev = null;
+		e.next = null;
+	}
+
+
+	/**
+	 * A page in the ring. Entries without a page stand for evicted pages in their test period.
+	 */
+	private static final class Entry extends ReplacementEntry {
+
+		private boolean hot;
+
+		private boolean test;
+
+		private boolean referenced;
+
+		private Entry prev, next;
+
+		Entry(int resourceId, int pageNumber, CacheableData page) {
+			super(resourceId, pageNumber, page);
+		}
+	}
+}
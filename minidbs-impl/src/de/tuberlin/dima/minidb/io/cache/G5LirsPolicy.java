@@ -0,0 +1,256 @@
+package de.tuberlin.dima.minidb.io.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+
+/**
+ * The LIRS replacement policy (Jiang and Zhang, SIGMETRICS 2002). Pages with a low inter-reference
+ * recency (LIR) keep most of the cache; pages with a high one (HIR) share a small part of it,
+ * which a page seen only once passes through without displacing the LIR pages.
+ * <p>
+ * The stack holds the LIR pages and the HIR pages referenced more recently than the oldest LIR
+ * page, in the order of their last reference, including HIR pages that were evicted already.
+ * The queue holds the resident HIR pages in the order they are evicted. A HIR page that is
+ * referenced while it is in the stack has a shorter reuse distance than the oldest LIR page:
+ * it becomes LIR, and the oldest LIR page becomes HIR. An evicted page that comes back while
+ * it is in the stack counts as a ghost hit.
+ */
+public class G5LirsPolicy implements ReplacementPolicy {
+
+	/**
+	 * The share of the capacity for resident HIR pages, as a divisor.
+	 */
+	private static final int HIR_DIVISOR = 100;
+
+
+	private int capacity;
+
+	private int lirTarget;
+
+	private int lirCount;
+
+	/**
+	 * The stack, the oldest reference first.
+	 */
+	private final LinkedHashMap<Long, Entry> stack = new LinkedHashMap<Long, Entry>();
+
+	/**
+	 * The resident HIR pages, the next victim first.
+	 */
+	private final LinkedHashMap<Long, Entry> queue = new LinkedHashMap<Long, Entry>();
+
+	/**
+	 * The evicted HIR pages that are still in the stack, the oldest first.
+	 */
+	private final LinkedHashMap<Long, Entry> ghosts = new LinkedHashMap<Long, Entry>();
+
+	private long ghostHits;
+
+
+	@Override
+	public ReplacementEntry createEntry(int resourceId, int pageNumber, CacheableData page) {
+		return new Entry(resourceId, pageNumber, page);
+	}
+
+	@Override
+	public void admit(ReplacementEntry entry) {
+
+		Entry e = (Entry) entry;
+		long key = e.getKey();
+		boolean inStack = false;
+
+		if (this.ghosts.remove(key) != null) {
+			this.stack.remove(key);
+			this.ghostHits++;
+			inStack = true;
+		}
+
+		if (this.lirCount < this.lirTarget || inStack) {
+			// the LIR pages do not fill their part yet, or the page came back with a short reuse distance
+			e.lir = true;
+			this.lirCount++;
+			this.stack.put(key, e);
+			demoteLir();
+		} else {
+			e.lir = false;
+			this.stack.put(key, e);
+			this.queue.put(key, e);
+		}
+	}
+
+	@Override
+	public void hit(ReplacementEntry entry) {
+
+		Entry e = (Entry) entry;
+		long key = e.getKey();
+
+		if (e.lir) {
+			this.stack.remove(key);
+			this.stack.put(key, e);
+			prune();
+		} else if (this.stack.remove(key) != null) {
+			// referenced again within the reach of the stack: the page is LIR now
+			e.lir = true;
+			this.lirCount++;
+			this.queue.remove(key);
+			this.stack.put(key, e);
+			demoteLir();
+		} else {
+			this.stack.put(key, e);
+			this.queue.remove(key);
+			this.queue.put(key, e);
+		}
+	}
+
+	@Override
+	public ReplacementEntry evict() {
+
+		Iterator<Entry> it = this.queue.values().iterator();
+
+		while (it.hasNext()) {
+
+			Entry e = it.next();
+
+			if (e.isPinned())
+				continue;
+
+			it.remove();
+
+			// a page in the stack stays there as a ghost, to recognize it when it comes back
+			if (this.stack.get(e.getKey()) == e) {
+				Entry ghost = new Entry(e.getResourceId(), e.getPageNumber(), null);
+				this.stack.put(ghost.getKey(), ghost);
+				this.ghosts.put(ghost.getKey(), ghost);
+				trimGhosts();
+			}
+
+			return e;
+		}
+
+		// all resident HIR pages are pinned, evict the oldest unpinned LIR page
+		it = this.stack.values().iterator();
+
+		while (it.hasNext()) {
+
+			Entry e = it.next();
+
+			if (e.lir && !e.isPinned()) {
+				it.remove();
+				this.lirCount--;
+				prune();
+				return e;
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public void remove(ReplacementEntry entry) {
+
+		Entry e = (Entry) entry;
+		long key = e.getKey();
+
+		if (e.lir)
+			this.lirCount--;
+
+		if (this.stack.get(key) == e)
+			this.stack.remove(key);
+
+		this.queue.remove(key);
+		prune();
+	}
+
+	@Override
+	public void setCapacity(int numPages) {
+
+		this.capacity = numPages;
+		this.lirTarget = Math.max(1, numPages - Math.max(1, numPages / HIR_DIVISOR));
+
+		demoteLir();
+		trimGhosts();
+	}
+
+	@Override
+	public long getGhostHits() {
+		return this.ghostHits;
+	}
+
+	@Override
+	public boolean isFrequent(ReplacementEntry entry) {
+		return ((Entry) entry).lir;
+	}
+
+
+	/**
+	 * Turns the oldest LIR pages into HIR pages while there are more LIR pages than their target.
+	 */
+	private void demoteLir() {
+
+		prune();
+
+		while (this.lirCount > this.lirTarget) {
+
+			Iterator<Entry> it = this.stack.values().iterator();
+			Entry bottom = it.next();
+			it.remove();
+
+			bottom.lir = false;
+			this.lirCount--;
+			this.queue.put(bottom.getKey(), bottom);
+
+			prune();
+		}
+	}
+
+	/**
+	 * Removes the HIR pages from the bottom of the stack, so that it ends with a LIR page.
+	 */
+	private void prune() {
+
+		Iterator<Entry> it = this.stack.values().iterator();
+
+		while (it.hasNext()) {
+
+			Entry e = it.next();
+
+			if (e.lir)
+				return;
+
+			it.remove();
+
+			if (e.getPage() == null)
+				this.ghosts.remove(e.getKey());
+		}
+	}
+
+	/**
+	 * Forgets the oldest ghosts, so that the stack remembers at most as many evicted pages as
+	 * the cache holds.
+	 */
+	private void trimGhosts() {
+
+		Iterator<Entry> it = this.ghosts.values().iterator();
+
+		while (this.ghosts.size() > this.capacity && it.hasNext()) {
+
+			Entry ghost = it.next();
+			it.remove();
+			this.stack.remove(ghost.getKey());
+		}
+	}
+
+
+	/**
+	 * A page in the stack or the queue. Entries without a page stand for evicted HIR pages.
+	 */
+	private static final class Entry extends ReplacementEntry {
+
+		private boolean lir;
+
+		Entry(int resourceId, int pageNumber, CacheableData page) {
+			super(resourceId, pageNumber, page);
+		}
+	}
+}
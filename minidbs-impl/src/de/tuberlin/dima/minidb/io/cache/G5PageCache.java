@@ -1,15 +1,14 @@
 package de.tuberlin.dima.minidb.io.cache;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map.Entry;
 import java.util.Set;
 
 public class G5PageCache implements PageCache {
 	
-	
 	private PageSize pageSize;
 	
 	private int numPages;
@@ -21,9 +20,23 @@ public class G5PageCache implements PageCache {
 	LinkedHashMap<EntryId, CacheEntry> recent;
 	LinkedHashMap<EntryId, CacheEntry> frequent;
 	
+	/**
+	 * Pages read in bulk, kept apart from recent and frequent.
+	 */
+	G5BulkRing<EntryId, CacheEntry> bulk;
+	
+	/**
+	 * The ghost lists: ids of pages recently evicted from recent and frequent, oldest first.
+	 * Each holds at most as many ids as the cache holds pages.
+	 */
 	Set<EntryId> bottomRecent;
 	Set<EntryId> bottomFrequent;
 	
+	/**
+	 * The number of added pages that were found in a ghost list.
+	 */
+	private long ghostHits;
+	
 	
 	public G5PageCache(PageSize pageSize, int numPages) {
 		
@@ -37,9 +50,10 @@ public class G5PageCache implements PageCache {
 		
 		recent = new LinkedHashMap<EntryId, CacheEntry>();
 		frequent = new LinkedHashMap<EntryId, CacheEntry>();
+		bulk = new G5BulkRing<EntryId, CacheEntry>(numPages);
 			
-		bottomRecent = new HashSet<EntryId>();
-		bottomFrequent = new HashSet<EntryId>();
+		bottomRecent = new LinkedHashSet<EntryId>();
+		bottomFrequent = new LinkedHashSet<EntryId>();
 		
 	}
 	
@@ -51,6 +65,8 @@ public class G5PageCache implements PageCache {
 
 		EntryId id = new EntryId(resourceId, pageNumber);
 		
+		promoteBulkPage(id);
+		
 		CacheEntry page = recent.remove(id);
 		
 		// Page found in the recent list 
@@ -85,12 +101,55 @@ public class G5PageCache implements PageCache {
 		return null;
 	}
 
+	@Override
+	public boolean containsPage(int resourceId, int pageNumber) {
+		
+		CacheEntry page = getEntry(new EntryId(resourceId, pageNumber));
+		
+		return page != null && !page.isExpelled();
+	}
+
+	@Override
+	public CacheableData getPageAndPinWithoutHit(int resourceId, int pageNumber) {
+		
+		PinnedCacheEntry page = getEntryAndPinWithoutHit(resourceId, pageNumber);
+		
+		return page == null ? null : page.getPage();
+	}
+	
+	@Override
+	public PinnedCacheEntry getEntryAndPinWithoutHit(int resourceId, int pageNumber) {
+		
+		EntryId id = new EntryId(resourceId, pageNumber);
+		
+		CacheEntry page = getEntry(id);
+		
+		if (page == null || page.isExpelled())
+			return null;
+		
+		page.pin();
+		
+		bulk.touch(id);
+		
+		return page;
+	}
+
 	@Override
 	public CacheableData getPageAndPin(int resourceId, int pageNumber) {
+		
+		PinnedCacheEntry page = getEntryAndPin(resourceId, pageNumber);
+		
+		return page == null ? null : page.getPage();
+	}
+	
+	@Override
+	public PinnedCacheEntry getEntryAndPin(int resourceId, int pageNumber) {
 
 		
 		EntryId id = new EntryId(resourceId, pageNumber);
 		
+		promoteBulkPage(id);
+		
 		CacheEntry page = recent.remove(id);
 		
 		// Page found in the recent list 
@@ -106,7 +165,7 @@ public class G5PageCache implements PageCache {
 				// Or put on top (MRU side) if not
 				recent.put(id, page);
 			}
-			return page.getPage();
+			return page;
 		}	
 			
 		page = frequent.remove(id);	
@@ -119,10 +178,16 @@ public class G5PageCache implements PageCache {
 			
 			// Put on top (MRU side)
 			frequent.put(id, page);
-			return page.getPage();
+			return page;
 		}
 		return null;
 	}
+	
+	@Override
+	public PinnedCacheEntry getPinnedEntry(int resourceId, int pageNumber) {
+		
+		return getEntry(new EntryId(resourceId, pageNumber));
+	}
 
 	
 	@Override
@@ -142,6 +207,44 @@ public class G5PageCache implements PageCache {
 	
 	
 	
+	@Override
+	public EvictedCacheEntry addBulkPage(CacheableData newPage, int resourceId)
+			throws CachePinnedException, DuplicateCacheEntryException {
+		
+		return addBulkPage(newPage, resourceId, false);
+	}
+
+	@Override
+	public EvictedCacheEntry addBulkPageAndPin(CacheableData newPage, int resourceId)
+			throws CachePinnedException, DuplicateCacheEntryException {
+		
+		return addBulkPage(newPage, resourceId, true);
+	}
+	
+	/**
+	 * Adds a page read in bulk, see {@link G5BulkRing}. Bulk pages leave no ghost entries behind.
+	 */
+	private EvictedCacheEntry addBulkPage(CacheableData newPage, int resourceId, boolean pinned)
+			throws CachePinnedException, DuplicateCacheEntryException {
+		
+		EntryId id = new EntryId(resourceId, newPage.getPageNumber());
+		
+		if (getEntry(id) != null)
+			throw new DuplicateCacheEntryException(resourceId, newPage.getPageNumber());
+		
+		EvictedCacheEntry evicted = null;
+		
+		if (bulk.isFull())
+			evicted = evictBulkPage();
+		
+		if (evicted == null)
+			evicted = evictPage();
+		
+		bulk.add(id, new CacheEntry(newPage, 0, pinned));
+		
+		return evicted;
+	}
+	
 	private EvictedCacheEntry addPage(CacheableData newPage, int resourceId, boolean pinned)
 			throws CachePinnedException, DuplicateCacheEntryException {
 		
@@ -153,7 +256,7 @@ public class G5PageCache implements PageCache {
 
 		
 		// Page shouldn't already be in the cache
-		if (recent.containsKey(id) || frequent.containsKey(id)) 
+		if (getEntry(id) != null) 
 			throw new DuplicateCacheEntryException(resourceId, newPage.getPageNumber());
 		
 		
@@ -164,6 +267,7 @@ public class G5PageCache implements PageCache {
 		// Case 1 : page is in recent bottom list : add it directly to frequent list
 		if (bottomRecent.remove(id)) {
 		
+		  ghostHits++;
 
 
 		  int b1 = bottomRecent.size();
@@ -188,6 +292,7 @@ public class G5PageCache implements PageCache {
 		// Case 2 : page is in frequent bottom list : add it directly to frequent list
 		} else if (bottomFrequent.remove(id)) {
 			
+		 ghostHits++;
 		  
 		 int b1 = bottomRecent.size();
 		  int b2 = bottomFrequent.size();
@@ -195,7 +300,7 @@ public class G5PageCache implements PageCache {
 		  int delta = ( b2 >= b1 || b2 == 0 ? 1 : b1/b2);
 		 
 		 	
-		  targetSize  = Math.min(targetSize - delta, 0);
+		  targetSize  = Math.max(targetSize - delta, 0);
 		 
 
 
@@ -220,18 +325,11 @@ public class G5PageCache implements PageCache {
 			
 		EntryId id = new EntryId(resourceId, pageNumber);
 		
-		CacheEntry page = recent.get(id);
+		CacheEntry page = getEntry(id);
 		
 		if (page != null) {			
 			page.unpin();
-		} else {
-			
-			page = frequent.get(id);	
-			
-			if (page != null){				
-				page.unpin();
-			}
-		}	
+		}
 	}
 
 	@Override
@@ -261,6 +359,13 @@ public class G5PageCache implements PageCache {
 			}
 		}
 		
+		for (Entry<EntryId, CacheEntry> entry : bulk.entrySet()) {
+			
+			if (entry.getKey().getResourceId() == resourceId) {
+				results.add(entry.getValue().getPage());
+			}
+		}
+		
 		CacheableData[] result = new CacheableData[results.size()];
 		results.toArray(result);
 
@@ -293,12 +398,113 @@ public class G5PageCache implements PageCache {
 			  entry.getValue().expell();
 			}
 		}
+		
+		for (Entry<EntryId, CacheEntry> entry : bulk.entrySet()) {
+			
+			if (entry.getKey().getResourceId() == resourceId) {
+				entry.getValue().expell();
+			}
+		}
 	}
 
 	@Override
 	public int getCapacity() {
 		return numPages;
 	}
+	
+	@Override
+	public boolean supportsResize() {
+		return true;
+	}
+	
+	/**
+	 * Changes the capacity. Shrinking evicts unpinned pages in the order the cache would evict
+	 * them anyway, and stops early if only pinned pages are left. Growing takes effect as new
+	 * pages are added, the cache hands out new frames until it is full.
+	 */
+	@Override
+	public EvictedCacheEntry[] resize(int numPages) {
+		
+		if (numPages < 1)
+			throw new IllegalArgumentException("A cache must hold at least one page.");
+		
+		ArrayList<EvictedCacheEntry> evicted = new ArrayList<EvictedCacheEntry>();
+		
+		// with the new capacity, the cache evicts instead of handing out new frames
+		this.numPages = numPages;
+		
+		while (size() > numPages) {
+			try {
+				evicted.add(evictPage());
+			} catch (CachePinnedException cpe) {
+				break;
+			}
+		}
+		
+		this.numPages = Math.max(numPages, size());
+		this.targetSize = Math.min(this.targetSize, this.numPages / 2);
+		this.bulk.resize(this.numPages);
+		
+		// the ghost lists are bounded by the capacity as well
+		while (bottomFrequent.size() > this.numPages)
+			removeOldest(bottomFrequent);
+		
+		while (bottomRecent.size() > this.numPages)
+			removeOldest(bottomRecent);
+		
+		return evicted.toArray(new EvictedCacheEntry[evicted.size()]);
+	}
+	
+	@Override
+	public long getGhostHits() {
+		return ghostHits;
+	}
+	
+	/**
+	 * Lists the recent pages before the frequent ones, each list the oldest first.
+	 */
+	@Override
+	public ResidentPage[] getResidentPages() {
+		
+		ArrayList<ResidentPage> pages = new ArrayList<ResidentPage>(recent.size() + frequent.size());
+		
+		for (Entry<EntryId, CacheEntry> entry : recent.entrySet()) {
+			if (!entry.getValue().isExpelled())
+				pages.add(new ResidentPage(entry.getKey().getResourceId(), entry.getKey().getPageNumber(), false));
+		}
+		
+		for (Entry<EntryId, CacheEntry> entry : frequent.entrySet()) {
+			if (!entry.getValue().isExpelled())
+				pages.add(new ResidentPage(entry.getKey().getResourceId(), entry.getKey().getPageNumber(), true));
+		}
+		
+		return pages.toArray(new ResidentPage[pages.size()]);
+	}
+	
+	@Override
+	public ResidentPage[] getModifiedPages() {
+		
+		ArrayList<ResidentPage> pages = new ArrayList<ResidentPage>();
+		
+		// bulk pages leave first, then ARC takes from the cold ends of its lists
+		addModifiedPages(bulk.entrySet(), false, pages);
+		addModifiedPages(recent.entrySet(), false, pages);
+		addModifiedPages(frequent.entrySet(), true, pages);
+		
+		return pages.toArray(new ResidentPage[pages.size()]);
+	}
+	
+	private static void addModifiedPages(Set<Entry<EntryId, CacheEntry>> entries, boolean frequent,
+			ArrayList<ResidentPage> pages) {
+		
+		for (Entry<EntryId, CacheEntry> entry : entries) {
+			
+			CacheEntry cached = entry.getValue();
+			
+			if (!cached.isPinned() && !cached.isExpelled() && cached.getPage().hasBeenModified())
+				pages.add(new ResidentPage(entry.getKey().getResourceId(), entry.getKey().getPageNumber(), frequent));
+		}
+	}
 
 	@Override
 	public void unpinAllPages() {
@@ -322,6 +528,92 @@ public class G5PageCache implements PageCache {
 			CacheEntry entry = it.next();
 			entry.unpinAll();	
 		}		
+		
+		for (CacheEntry entry : bulk.values()) {
+			entry.unpinAll();
+		}
+	}
+	
+	@Override
+	public int getNumberOfPinnedPages() {
+		
+		int pinned = 0;
+		
+		for (CacheEntry entry : recent.values()) {
+			if (entry.isPinned())
+				pinned++;
+		}
+		
+		for (CacheEntry entry : frequent.values()) {
+			if (entry.isPinned())
+				pinned++;
+		}
+		
+		for (CacheEntry entry : bulk.values()) {
+			if (entry.isPinned())
+				pinned++;
+		}
+		
+		return pinned;
+	}
+	
+	
+	private int size() {
+		return recent.size() + frequent.size() + bulk.size();
+	}
+	
+	private static void removeOldest(Set<?> ghosts) {
+		
+		Iterator<?> it = ghosts.iterator();
+		
+		if (it.hasNext()) {
+			it.next();
+			it.remove();
+		}
+	}
+	
+	/**
+	 * Gets the entry for the page from any of the lists, without touching the lists.
+	 */
+	private CacheEntry getEntry(EntryId id) {
+		
+		CacheEntry page = recent.get(id);
+		
+		if (page == null)
+			page = frequent.get(id);
+		
+		if (page == null)
+			page = bulk.get(id);
+		
+		return page;
+	}
+	
+	/**
+	 * Moves a bulk page that is requested regularly to the recent list, as if it had been
+	 * added there, so that the request counts as its first hit.
+	 */
+	private void promoteBulkPage(EntryId id) {
+		
+		CacheEntry page = bulk.remove(id);
+		
+		if (page != null)
+			recent.put(id, page);
+	}
+	
+	/**
+	 * Evicts the oldest unpinned bulk page.
+	 * 
+	 * @return The evicted entry, or null, if all bulk pages are pinned.
+	 */
+	private EvictedCacheEntry evictBulkPage() {
+		
+		Entry<EntryId, CacheEntry> entry = bulk.removeOldestUnpinned(CacheEntry::isPinned);
+		
+		if (entry == null)
+			return null;
+		
+		CacheableData page = entry.getValue().getPage();
+		return new EvictedCacheEntry(page.getBuffer(), page, entry.getKey().getResourceId());
 	}
 	
 	
@@ -333,7 +625,7 @@ public class G5PageCache implements PageCache {
 		
 		
 		
-		if ((frequent.size() + recent.size()) < numPages)  
+		if ((frequent.size() + recent.size() + bulk.size()) < numPages)  
 			return new EvictedCacheEntry(new byte[pageSize.getNumberOfBytes()]);
 		
 		
@@ -400,14 +692,14 @@ public class G5PageCache implements PageCache {
 				
 				if (fromFrequent) {
 				  
-					if (bottomFrequent.size() >= targetSize)
-						bottomFrequent.remove(0);
+					if (bottomFrequent.size() >= numPages)
+						removeOldest(bottomFrequent);
 					
 					bottomFrequent.add(entry.getKey());
 				  
 				} else {
-					if (bottomRecent.size() >= numPages - targetSize)
-					  	bottomRecent.remove(0);
+					if (bottomRecent.size() >= numPages)
+					  	removeOldest(bottomRecent);
 					
 					bottomRecent.add(entry.getKey());
 				}
@@ -440,14 +732,14 @@ public class G5PageCache implements PageCache {
 				CacheableData page = entry.getValue().getPage();
 			  
 			  	if (fromFrequent) {
-			  		if (bottomFrequent.size() >= targetSize)
-			  			bottomFrequent.remove(0);
+			  		if (bottomFrequent.size() >= numPages)
+			  			removeOldest(bottomFrequent);
 			  		
 				  bottomFrequent.add(entry.getKey());
 				  
 			  	} else {
-			  		if (bottomRecent.size() >= numPages - targetSize)
-			  			bottomRecent.remove(0);
+			  		if (bottomRecent.size() >= numPages)
+			  			removeOldest(bottomRecent);
 			  		
 			  		bottomRecent.add(entry.getKey());
 			  	}
@@ -457,12 +749,18 @@ public class G5PageCache implements PageCache {
 		  	}
 		}
 		
+		// Recent and frequent are entirely pinned, only bulk pages are left
+		EvictedCacheEntry evicted = evictBulkPage();
+		
+		if (evicted != null)
+			return evicted;
+		
 		throw new CachePinnedException();	
 
 	}
 	
 	
-	private class CacheEntry {
+	private class CacheEntry implements PinnedCacheEntry {
 		
 		private CacheableData page;
 		private int hit;
@@ -483,6 +781,7 @@ public class G5PageCache implements PageCache {
 		 * 
 		 * @return The page number.
 		 */
+		@Override
 		public CacheableData getPage() 
 		{
 			return this.page;
@@ -498,6 +797,7 @@ public class G5PageCache implements PageCache {
 			this.hit++;		
 		}
 		
+		@Override
 		public boolean isPinned() {
 			return this.pinned > 0;
 		}
@@ -506,8 +806,10 @@ public class G5PageCache implements PageCache {
 			this.pinned++;
 		}
 		
+		@Override
 		public void unpin() {
-			this.pinned--;
+			if (this.pinned > 0)
+				this.pinned--;
 		}
 		
 		public void unpinAll() {
@@ -0,0 +1,494 @@
+package de.tuberlin.dima.minidb.io.cache;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+
+/**
+ * A page cache that leaves the choice of the page to evict to a {@link ReplacementPolicy}.
+ * The cache itself finds the pages, keeps track of pinning, hands out frames while it is not
+ * full, and keeps the pages read in bulk in a ring of their own, as {@link G5PageCache} does.
+ * <p>
+ * Expelled pages leave the policy right away and wait in a list of their own, their frames
+ * are the first to be evicted.
+ */
+public class G5PolicyPageCache implements PageCache {
+
+	private final PageSize pageSize;
+
+	private final ReplacementPolicy policy;
+
+	private int numPages;
+
+	/**
+	 * The pages that the policy tracks.
+	 */
+	private final HashMap<Long, ReplacementEntry> entries;
+
+	/**
+	 * Pages read in bulk, kept apart from the pages the policy tracks.
+	 */
+	private final G5BulkRing<Long, ReplacementEntry> bulk;
+
+	/**
+	 * Expelled pages whose frames have not been evicted yet.
+	 */
+	private final ArrayDeque<ReplacementEntry> expelled;
+
+
+	public G5PolicyPageCache(PageSize pageSize, int numPages, ReplacementPolicy policy) {
+
+		this.pageSize = pageSize;
+		this.numPages = numPages;
+		this.policy = policy;
+		this.policy.setCapacity(numPages);
+
+		this.entries = new HashMap<Long, ReplacementEntry>();
+		this.bulk = new G5BulkRing<Long, ReplacementEntry>(numPages);
+		this.expelled = new ArrayDeque<ReplacementEntry>();
+	}
+
+
+	/**
+	 * Creates the policy of the given type.
+	 *
+	 * @throws IllegalArgumentException Thrown for ARC, which is not a policy but a cache of its
+	 *                                  own, {@link G5PageCache}.
+	 */
+	public static ReplacementPolicy createPolicy(ReplacementPolicyType type) {
+
+		switch (type) {
+		case CLOCK:
+			return new G5ClockPolicy();
+		case CLOCK_PRO:
+			return new G5ClockProPolicy();
+		case LIRS:
+			return new G5LirsPolicy();
+		default:
+			throw new IllegalArgumentException("There is no replacement policy for " + type + ".");
+		}
+	}
+
+
+	@Override
+	public CacheableData getPage(int resourceId, int pageNumber) {
+
+		ReplacementEntry entry = lookUp(resourceId, pageNumber);
+
+		if (entry == null)
+			return null;
+
+		this.policy.hit(entry);
+		return entry.getPage();
+	}
+
+	@Override
+	public CacheableData getPageAndPin(int resourceId, int pageNumber) {
+
+		PinnedCacheEntry entry = getEntryAndPin(resourceId, pageNumber);
+
+		return entry == null ? null : entry.getPage();
+	}
+
+	@Override
+	public PinnedCacheEntry getEntryAndPin(int resourceId, int pageNumber) {
+
+		ReplacementEntry entry = lookUp(resourceId, pageNumber);
+
+		if (entry == null)
+			return null;
+
+		this.policy.hit(entry);
+		entry.pin();
+		return entry;
+	}
+
+	@Override
+	public boolean containsPage(int resourceId, int pageNumber) {
+
+		long key = ReplacementEntry.key(resourceId, pageNumber);
+
+		return this.entries.containsKey(key) || this.bulk.contains(key);
+	}
+
+	@Override
+	public CacheableData getPageAndPinWithoutHit(int resourceId, int pageNumber) {
+
+		PinnedCacheEntry entry = getEntryAndPinWithoutHit(resourceId, pageNumber);
+
+		return entry == null ? null : entry.getPage();
+	}
+
+	@Override
+	public PinnedCacheEntry getEntryAndPinWithoutHit(int resourceId, int pageNumber) {
+
+		long key = ReplacementEntry.key(resourceId, pageNumber);
+		ReplacementEntry entry = this.entries.get(key);
+
+		if (entry == null)
+			entry = this.bulk.touch(key);
+
+		if (entry == null)
+			return null;
+
+		entry.pin();
+		return entry;
+	}
+
+	@Override
+	public PinnedCacheEntry getPinnedEntry(int resourceId, int pageNumber) {
+
+		long key = ReplacementEntry.key(resourceId, pageNumber);
+		ReplacementEntry entry = this.entries.get(key);
+
+		return entry != null ? entry : this.bulk.get(key);
+	}
+
+	@Override
+	public EvictedCacheEntry addPage(CacheableData newPage, int resourceId)
+			throws CachePinnedException, DuplicateCacheEntryException {
+
+		return addPage(newPage, resourceId, false);
+	}
+
+	@Override
+	public EvictedCacheEntry addPageAndPin(CacheableData newPage, int resourceId)
+			throws CachePinnedException, DuplicateCacheEntryException {
+
+		return addPage(newPage, resourceId, true);
+	}
+
+	@Override
+	public EvictedCacheEntry addBulkPage(CacheableData newPage, int resourceId)
+			throws CachePinnedException, DuplicateCacheEntryException {
+
+		return addBulkPage(newPage, resourceId, false);
+	}
+
+	@Override
+	public EvictedCacheEntry addBulkPageAndPin(CacheableData newPage, int resourceId)
+			throws CachePinnedException, DuplicateCacheEntryException {
+
+		return addBulkPage(newPage, resourceId, true);
+	}
+
+	private EvictedCacheEntry addPage(CacheableData newPage, int resourceId, boolean pinned)
+			throws CachePinnedException, DuplicateCacheEntryException {
+
+		int pageNumber = newPage.getPageNumber();
+		long key = ReplacementEntry.key(resourceId, pageNumber);
+
+		if (this.entries.containsKey(key) || this.bulk.contains(key))
+			throw new DuplicateCacheEntryException(resourceId, pageNumber);
+
+		// make room first, so that the policy does not pick the new page
+		EvictedCacheEntry evicted = evictPage();
+
+		ReplacementEntry entry = this.policy.createEntry(resourceId, pageNumber, newPage);
+
+		if (pinned)
+			entry.pin();
+
+		this.entries.put(key, entry);
+		this.policy.admit(entry);
+
+		return evicted;
+	}
+
+	/**
+	 * Adds a page read in bulk, see {@link G5BulkRing}. The policy sees the page only once it is
+	 * requested regularly.
+	 */
+	private EvictedCacheEntry addBulkPage(CacheableData newPage, int resourceId, boolean pinned)
+			throws CachePinnedException, DuplicateCacheEntryException {
+
+		int pageNumber = newPage.getPageNumber();
+		long key = ReplacementEntry.key(resourceId, pageNumber);
+
+		if (this.entries.containsKey(key) || this.bulk.contains(key))
+			throw new DuplicateCacheEntryException(resourceId, pageNumber);
+
+		EvictedCacheEntry evicted = null;
+
+		if (this.bulk.isFull())
+			evicted = evictBulkPage();
+
+		if (evicted == null)
+			evicted = evictPage();
+
+		ReplacementEntry entry = this.policy.createEntry(resourceId, pageNumber, newPage);
+
+		if (pinned)
+			entry.pin();
+
+		this.bulk.add(key, entry);
+
+		return evicted;
+	}
+
+	@Override
+	public void unpinPage(int resourceId, int pageNumber) {
+
+		long key = ReplacementEntry.key(resourceId, pageNumber);
+		ReplacementEntry entry = this.entries.get(key);
+
+		if (entry == null)
+			entry = this.bulk.get(key);
+
+		if (entry != null)
+			entry.unpin();
+	}
+
+	@Override
+	public CacheableData[] getAllPagesForResource(int resourceId) {
+
+		ArrayList<CacheableData> results = new ArrayList<CacheableData>();
+
+		for (ReplacementEntry entry : this.entries.values()) {
+			if (entry.getResourceId() == resourceId)
+				results.add(entry.getPage());
+		}
+
+		for (ReplacementEntry entry : this.bulk.values()) {
+			if (entry.getResourceId() == resourceId)
+				results.add(entry.getPage());
+		}
+
+		return results.toArray(new CacheableData[results.size()]);
+	}
+
+	@Override
+	public void expellAllPagesForResource(int resourceId) {
+
+		Iterator<ReplacementEntry> it = this.entries.values().iterator();
+
+		while (it.hasNext()) {
+
+			ReplacementEntry entry = it.next();
+
+			if (entry.getResourceId() == resourceId) {
+				it.remove();
+				this.policy.remove(entry);
+				entry.expell();
+				this.expelled.add(entry);
+			}
+		}
+
+		it = this.bulk.values().iterator();
+
+		while (it.hasNext()) {
+
+			ReplacementEntry entry = it.next();
+
+			if (entry.getResourceId() == resourceId) {
+				it.remove();
+				entry.expell();
+				this.expelled.add(entry);
+			}
+		}
+	}
+
+	@Override
+	public int getCapacity() {
+		return this.numPages;
+	}
+
+	@Override
+	public boolean supportsResize() {
+		return true;
+	}
+	
+	/**
+	 * Changes the capacity. Shrinking evicts the pages the policy picks, and stops early if only
+	 * pinned pages are left.
+	 */
+	@Override
+	public EvictedCacheEntry[] resize(int numPages) {
+
+		if (numPages < 1)
+			throw new IllegalArgumentException("A cache must hold at least one page.");
+
+		ArrayList<EvictedCacheEntry> evicted = new ArrayList<EvictedCacheEntry>();
+
+		this.numPages = numPages;
+		this.policy.setCapacity(numPages);
+
+		while (size() > numPages) {
+			try {
+				evicted.add(evictPage());
+			} catch (CachePinnedException cpe) {
+				break;
+			}
+		}
+
+		if (size() > numPages) {
+			this.numPages = size();
+			this.policy.setCapacity(this.numPages);
+		}
+
+		this.bulk.resize(this.numPages);
+
+		return evicted.toArray(new EvictedCacheEntry[evicted.size()]);
+	}
+
+	@Override
+	public long getGhostHits() {
+		return this.policy.getGhostHits();
+	}
+
+	/**
+	 * Lists the pages the policy counts as seen once before the frequent ones. The policies do
+	 * not expose their order beyond that.
+	 */
+	@Override
+	public ResidentPage[] getResidentPages() {
+
+		ArrayList<ResidentPage> once = new ArrayList<ResidentPage>();
+		ArrayList<ResidentPage> frequent = new ArrayList<ResidentPage>();
+
+		for (ReplacementEntry entry : this.entries.values()) {
+
+			boolean isFrequent = this.policy.isFrequent(entry);
+			ResidentPage page = new ResidentPage(entry.getResourceId(), entry.getPageNumber(), isFrequent);
+
+			(isFrequent ? frequent : once).add(page);
+		}
+
+		once.addAll(frequent);
+		return once.toArray(new ResidentPage[once.size()]);
+	}
+
+	@Override
+	public ResidentPage[] getModifiedPages() {
+
+		ArrayList<ResidentPage> pages = new ArrayList<ResidentPage>();
+		ArrayList<ResidentPage> frequent = new ArrayList<ResidentPage>();
+
+		for (ReplacementEntry entry : this.bulk.values()) {
+			if (!entry.isPinned() && entry.getPage().hasBeenModified())
+				pages.add(new ResidentPage(entry.getResourceId(), entry.getPageNumber(), false));
+		}
+
+		// pages seen once are closer to eviction than those the policy keeps
+		for (ReplacementEntry entry : this.entries.values()) {
+
+			if (entry.isPinned() || !entry.getPage().hasBeenModified())
+				continue;
+
+			boolean isFrequent = this.policy.isFrequent(entry);
+			(isFrequent ? frequent : pages).add(new ResidentPage(entry.getResourceId(), entry.getPageNumber(), isFrequent));
+		}
+
+		pages.addAll(frequent);
+		return pages.toArray(new ResidentPage[pages.size()]);
+	}
+
+	@Override
+	public void unpinAllPages() {
+
+		for (ReplacementEntry entry : this.entries.values())
+			entry.unpinAll();
+
+		for (ReplacementEntry entry : this.bulk.values())
+			entry.unpinAll();
+
+		for (ReplacementEntry entry : this.expelled)
+			entry.unpinAll();
+	}
+
+	@Override
+	public int getNumberOfPinnedPages() {
+
+		int pinned = 0;
+
+		for (ReplacementEntry entry : this.entries.values()) {
+			if (entry.isPinned())
+				pinned++;
+		}
+
+		for (ReplacementEntry entry : this.bulk.values()) {
+			if (entry.isPinned())
+				pinned++;
+		}
+
+		return pinned;
+	}
+
+
+	private int size() {
+		return this.entries.size() + this.bulk.size() + this.expelled.size();
+	}
+
+	/**
+	 * Finds the entry for a regular request. A bulk page that is requested regularly enters the
+	 * policy, so that the request counts as its first hit.
+	 */
+	private ReplacementEntry lookUp(int resourceId, int pageNumber) {
+
+		long key = ReplacementEntry.key(resourceId, pageNumber);
+		ReplacementEntry entry = this.entries.get(key);
+
+		if (entry == null) {
+
+			entry = this.bulk.remove(key);
+
+			if (entry != null) {
+				this.entries.put(key, entry);
+				this.policy.admit(entry);
+			}
+		}
+
+		return entry;
+	}
+
+	/**
+	 * Evicts the oldest unpinned bulk page.
+	 *
+	 * @return The evicted entry, or null, if all bulk pages are pinned.
+	 */
+	private EvictedCacheEntry evictBulkPage() {
+
+		Entry<Long, ReplacementEntry> entry = this.bulk.removeOldestUnpinned(ReplacementEntry::isPinned);
+
+		return entry == null ? null : evicted(entry.getValue());
+	}
+
+	/**
+	 * Makes room for one page: hands out a new frame while the cache is not full, and otherwise
+	 * evicts an expelled page, the page the policy picks, or a bulk page, in this order.
+	 */
+	private EvictedCacheEntry evictPage() throws CachePinnedException {
+
+		if (size() < this.numPages)
+			return new EvictedCacheEntry(new byte[this.pageSize.getNumberOfBytes()]);
+
+		ReplacementEntry entry = this.expelled.poll();
+
+		if (entry != null)
+			return evicted(entry);
+
+		entry = this.policy.evict();
+
+		if (entry != null) {
+			this.entries.remove(entry.getKey());
+			return evicted(entry);
+		}
+
+		// every page the policy tracks is pinned, only bulk pages are left
+		EvictedCacheEntry evicted = evictBulkPage();
+
+		if (evicted != null)
+			return evicted;
+
+		throw new CachePinnedException();
+	}
+
+	private static EvictedCacheEntry evicted(ReplacementEntry entry) {
+
+		CacheableData page = entry.getPage();
+		return new EvictedCacheEntry(page.getBuffer(), page, entry.getResourceId());
+	}
+}
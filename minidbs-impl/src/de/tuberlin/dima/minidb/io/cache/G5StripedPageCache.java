@@ -0,0 +1,392 @@
+package de.tuberlin.dima.minidb.io.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+
+
+/**
+ * A thread-safe page cache that splits its capacity into independent segments. Every page
+ * is mapped to a segment by the hash of its resource id and page number, and each segment
+ * is a complete cache guarded by its own monitor, with the replacement policy the cache was
+ * created with. Accesses to pages in different segments therefore do not contend.
+ * <p>
+ * Replacement decisions are made per segment, so the cache as a whole only approximates the
+ * global policy. For the same reason, a segment whose pages are all pinned raises a
+ * <tt>CachePinnedException</tt> even if other segments still have unpinned pages.
+ * <p>
+ * With a single segment, this cache behaves exactly like the segment cache behind one
+ * global lock.
+ */
+public class G5StripedPageCache implements PageCache {
+
+
+	private final PageCache[] segments;
+
+	private volatile int capacity;
+
+
+
+	public G5StripedPageCache(PageSize pageSize, int numPages, int numSegments) {
+		this(pageSize, numPages, numSegments, ReplacementPolicyType.ARC);
+	}
+
+
+	public G5StripedPageCache(PageSize pageSize, int numPages, int numSegments, ReplacementPolicyType policy) {
+
+		if (numSegments < 1 || numSegments > numPages)
+			throw new IllegalArgumentException("The number of segments must be between 1 and the number of pages.");
+
+		this.segments = new PageCache[numSegments];
+		this.capacity = numPages;
+
+		// spread the capacity evenly, the first segments take the remainder
+		for (int i = 0; i < numSegments; i++) {
+			int segmentPages = numPages / numSegments + (i < numPages % numSegments ? 1 : 0);
+			this.segments[i] = createSegment(pageSize, segmentPages, policy);
+		}
+	}
+
+
+	/**
+	 * Creates the cache for one segment. ARC segments come from the extension factory, the other
+	 * policies run in a {@link G5PolicyPageCache}.
+	 */
+	private static PageCache createSegment(PageSize pageSize, int numPages, ReplacementPolicyType policy) {
+
+		if (policy == ReplacementPolicyType.ARC)
+			return AbstractExtensionFactory.getExtensionFactory().createPageCache(pageSize, numPages);
+
+		return new G5PolicyPageCache(pageSize, numPages, G5PolicyPageCache.createPolicy(policy));
+	}
+
+
+
+	/**
+	 * Gets the monitor that guards the segment holding the given page. Callers that must make
+	 * several calls atomic with respect to that page may synchronize on it; the cache methods
+	 * take the same monitor, so they can be called while holding it.
+	 *
+	 * @param resourceId The id of the resource.
+	 * @param pageNumber The page number.
+	 * @return The monitor of the segment.
+	 */
+	public Object getLock(int resourceId, int pageNumber) {
+		return getSegment(resourceId, pageNumber);
+	}
+
+
+	public int getNumberOfSegments() {
+		return this.segments.length;
+	}
+
+
+	@Override
+	public CacheableData getPage(int resourceId, int pageNumber) {
+
+		PageCache segment = getSegment(resourceId, pageNumber);
+
+		synchronized (segment) {
+			return segment.getPage(resourceId, pageNumber);
+		}
+	}
+
+	@Override
+	public boolean containsPage(int resourceId, int pageNumber) {
+
+		PageCache segment = getSegment(resourceId, pageNumber);
+
+		synchronized (segment) {
+			return segment.containsPage(resourceId, pageNumber);
+		}
+	}
+
+	@Override
+	public CacheableData getPageAndPin(int resourceId, int pageNumber) {
+
+		PageCache segment = getSegment(resourceId, pageNumber);
+
+		synchronized (segment) {
+			return segment.getPageAndPin(resourceId, pageNumber);
+		}
+	}
+
+	@Override
+	public PinnedCacheEntry getEntryAndPin(int resourceId, int pageNumber) {
+
+		PageCache segment = getSegment(resourceId, pageNumber);
+
+		synchronized (segment) {
+			return segment.getEntryAndPin(resourceId, pageNumber);
+		}
+	}
+
+	@Override
+	public PinnedCacheEntry getEntryAndPinWithoutHit(int resourceId, int pageNumber) {
+
+		PageCache segment = getSegment(resourceId, pageNumber);
+
+		synchronized (segment) {
+			return segment.getEntryAndPinWithoutHit(resourceId, pageNumber);
+		}
+	}
+
+	/**
+	 * Gets the entry of a pinned page. The entry is unpinned under the monitor of its segment,
+	 * see {@link #getLock(int, int)}.
+	 */
+	@Override
+	public PinnedCacheEntry getPinnedEntry(int resourceId, int pageNumber) {
+
+		PageCache segment = getSegment(resourceId, pageNumber);
+
+		synchronized (segment) {
+			return segment.getPinnedEntry(resourceId, pageNumber);
+		}
+	}
+
+	@Override
+	public EvictedCacheEntry addPage(CacheableData newPage, int resourceId)
+			throws CachePinnedException, DuplicateCacheEntryException {
+
+		PageCache segment = getSegment(resourceId, newPage.getPageNumber());
+
+		synchronized (segment) {
+			return segment.addPage(newPage, resourceId);
+		}
+	}
+
+	@Override
+	public EvictedCacheEntry addPageAndPin(CacheableData newPage, int resourceId)
+			throws CachePinnedException, DuplicateCacheEntryException {
+
+		PageCache segment = getSegment(resourceId, newPage.getPageNumber());
+
+		synchronized (segment) {
+			return segment.addPageAndPin(newPage, resourceId);
+		}
+	}
+
+	@Override
+	public CacheableData getPageAndPinWithoutHit(int resourceId, int pageNumber) {
+
+		PageCache segment = getSegment(resourceId, pageNumber);
+
+		synchronized (segment) {
+			return segment.getPageAndPinWithoutHit(resourceId, pageNumber);
+		}
+	}
+
+	@Override
+	public EvictedCacheEntry addBulkPage(CacheableData newPage, int resourceId)
+			throws CachePinnedException, DuplicateCacheEntryException {
+
+		PageCache segment = getSegment(resourceId, newPage.getPageNumber());
+
+		synchronized (segment) {
+			return segment.addBulkPage(newPage, resourceId);
+		}
+	}
+
+	@Override
+	public EvictedCacheEntry addBulkPageAndPin(CacheableData newPage, int resourceId)
+			throws CachePinnedException, DuplicateCacheEntryException {
+
+		PageCache segment = getSegment(resourceId, newPage.getPageNumber());
+
+		synchronized (segment) {
+			return segment.addBulkPageAndPin(newPage, resourceId);
+		}
+	}
+
+	@Override
+	public void unpinPage(int resourceId, int pageNumber) {
+
+		PageCache segment = getSegment(resourceId, pageNumber);
+
+		synchronized (segment) {
+			segment.unpinPage(resourceId, pageNumber);
+		}
+	}
+
+	@Override
+	public CacheableData[] getAllPagesForResource(int resourceId) {
+
+		ArrayList<CacheableData> results = new ArrayList<CacheableData>();
+
+		for (PageCache segment : this.segments) {
+			synchronized (segment) {
+				Collections.addAll(results, segment.getAllPagesForResource(resourceId));
+			}
+		}
+
+		return results.toArray(new CacheableData[results.size()]);
+	}
+
+	@Override
+	public void expellAllPagesForResource(int resourceId) {
+
+		for (PageCache segment : this.segments) {
+			synchronized (segment) {
+				segment.expellAllPagesForResource(resourceId);
+			}
+		}
+	}
+
+	@Override
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Checks whether all segments can be resized.
+	 */
+	@Override
+	public boolean supportsResize() {
+
+		for (PageCache segment : this.segments) {
+			if (!segment.supportsResize())
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Resizes every segment to its share of the new capacity, see {@link PageCache#resize(int)}.
+	 */
+	@Override
+	public EvictedCacheEntry[] resize(int numPages) {
+
+		if (numPages < this.segments.length)
+			throw new IllegalArgumentException("The cache must hold at least one page per segment.");
+
+		ArrayList<EvictedCacheEntry> evicted = new ArrayList<EvictedCacheEntry>();
+		int reached = 0;
+
+		for (int i = 0; i < this.segments.length; i++) {
+
+			PageCache segment = this.segments[i];
+			int segmentPages = numPages / this.segments.length + (i < numPages % this.segments.length ? 1 : 0);
+
+			synchronized (segment) {
+				Collections.addAll(evicted, segment.resize(segmentPages));
+				reached += segment.getCapacity();
+			}
+		}
+
+		this.capacity = reached;
+		return evicted.toArray(new EvictedCacheEntry[evicted.size()]);
+	}
+
+	@Override
+	public long getGhostHits() {
+
+		long hits = 0;
+
+		for (PageCache segment : this.segments) {
+			synchronized (segment) {
+				hits += segment.getGhostHits();
+			}
+		}
+
+		return hits;
+	}
+
+	/**
+	 * Interleaves the pages of the segments, each in the order of its own replacement policy, so
+	 * that the next victims of all segments come first.
+	 */
+	@Override
+	public ResidentPage[] getResidentPages() {
+
+		ResidentPage[][] perSegment = new ResidentPage[this.segments.length][];
+		int total = 0, longest = 0;
+
+		for (int i = 0; i < this.segments.length; i++) {
+			synchronized (this.segments[i]) {
+				perSegment[i] = this.segments[i].getResidentPages();
+			}
+			total += perSegment[i].length;
+			longest = Math.max(longest, perSegment[i].length);
+		}
+
+		ResidentPage[] pages = new ResidentPage[total];
+		int next = 0;
+
+		for (int pos = 0; pos < longest; pos++) {
+			for (ResidentPage[] segmentPages : perSegment) {
+				if (pos < segmentPages.length)
+					pages[next++] = segmentPages[pos];
+			}
+		}
+
+		return pages;
+	}
+
+	@Override
+	public ResidentPage[] getModifiedPages() {
+
+		ResidentPage[][] perSegment = new ResidentPage[this.segments.length][];
+		int total = 0, longest = 0;
+
+		for (int i = 0; i < this.segments.length; i++) {
+			synchronized (this.segments[i]) {
+				perSegment[i] = this.segments[i].getModifiedPages();
+			}
+			total += perSegment[i].length;
+			longest = Math.max(longest, perSegment[i].length);
+		}
+
+		ResidentPage[] pages = new ResidentPage[total];
+		int next = 0;
+
+		for (int pos = 0; pos < longest; pos++) {
+			for (ResidentPage[] segmentPages : perSegment) {
+				if (pos < segmentPages.length)
+					pages[next++] = segmentPages[pos];
+			}
+		}
+
+		return pages;
+	}
+
+	@Override
+	public void unpinAllPages() {
+
+		for (PageCache segment : this.segments) {
+			synchronized (segment) {
+				segment.unpinAllPages();
+			}
+		}
+	}
+
+	@Override
+	public int getNumberOfPinnedPages() {
+
+		int pinned = 0;
+
+		for (PageCache segment : this.segments) {
+			synchronized (segment) {
+				pinned += segment.getNumberOfPinnedPages();
+			}
+		}
+
+		return pinned;
+	}
+
+
+	private PageCache getSegment(int resourceId, int pageNumber) {
+
+		if (this.segments.length == 1)
+			return this.segments[0];
+
+		// mix the bits, so that consecutive pages of one resource spread over all segments
+		int h = resourceId * 31 + pageNumber;
+		h ^= (h >>> 16);
+		h *= 0x85ebca6b;
+		h ^= (h >>> 13);
+
+		return this.segments[(h & 0x7fffffff) % this.segments.length];
+	}
+}
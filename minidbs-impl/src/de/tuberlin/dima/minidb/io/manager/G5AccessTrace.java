@@ -0,0 +1,159 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.cache.UnsupportedPageSizeException;
+
+
+/**
+ * A trace of the pages requested from a buffer pool, in the order of the requests. Each request
+ * is stored as three integers: the page size in bytes, the resource id and the page number.
+ * <p>
+ * The buffer pool records the trace while queries run, the {@link G5CacheSimulator} replays it
+ * against caches with different replacement policies. A trace that cannot be written stops
+ * recording, the requests themselves are not affected.
+ */
+public class G5AccessTrace implements Closeable {
+
+
+	private final File file;
+
+	private final Logger logger;
+
+	private DataOutputStream out;
+
+
+	/**
+	 * Creates the trace file, replacing one that exists.
+	 *
+	 * @throws IOException Thrown, if the file cannot be created.
+	 */
+	public G5AccessTrace(File file, Logger logger) throws IOException {
+
+		this.file = file;
+		this.logger = logger;
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+	}
+
+
+	/**
+	 * Appends a request to the trace.
+	 */
+	public synchronized void record(PageSize pageSize, int resourceId, int pageNumber) {
+
+		if (this.out == null)
+			return;
+
+		try {
+			this.out.writeInt(pageSize.getNumberOfBytes());
+			this.out.writeInt(resourceId);
+			this.out.writeInt(pageNumber);
+		} catch (IOException ioe) {
+			fail(ioe);
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+
+		if (this.out == null)
+			return;
+
+		try {
+			this.out.close();
+		} catch (IOException ioe) {
+			fail(ioe);
+		}
+		this.out = null;
+	}
+
+
+	private void fail(IOException ioe) {
+
+		if (this.logger != null)
+			this.logger.log(Level.WARNING, "Recording the page requests to " + this.file + " failed, the trace ends here.", ioe);
+
+		try {
+			this.out.close();
+		} catch (IOException e) {
+			// the trace is given up anyway
+		}
+		this.out = null;
+	}
+
+
+	/**
+	 * Reads a trace file request by request.
+	 */
+	public static class Reader implements Closeable {
+
+		private final DataInputStream in;
+
+		private PageSize pageSize;
+
+		private int resourceId;
+
+		private int pageNumber;
+
+
+		public Reader(File file) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+		}
+
+
+		/**
+		 * Moves to the next request.
+		 *
+		 * @return True, if there was another request, false at the end of the trace.
+		 * @throws IOException Thrown, if the trace cannot be read or is cut off.
+		 */
+		public boolean next() throws IOException {
+
+			int bytes;
+
+			try {
+				bytes = this.in.readInt();
+			} catch (EOFException eof) {
+				return false;
+			}
+
+			try {
+				this.pageSize = PageSize.getPageSize(bytes);
+			} catch (UnsupportedPageSizeException upse) {
+				throw new IOException("The trace is corrupt: " + upse.getMessage(), upse);
+			}
+			this.resourceId = this.in.readInt();
+			this.pageNumber = this.in.readInt();
+			return true;
+		}
+
+		public PageSize getPageSize() {
+			return this.pageSize;
+		}
+
+		public int getResourceId() {
+			return this.resourceId;
+		}
+
+		public int getPageNumber() {
+			return this.pageNumber;
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.in.close();
+		}
+	}
+}
@@ -1,23 +1,36 @@
 package de.tuberlin.dima.minidb.io.manager;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import de.tuberlin.dima.minidb.Config;
-import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
 import de.tuberlin.dima.minidb.io.cache.CachePinnedException;
 import de.tuberlin.dima.minidb.io.cache.CacheableData;
 import de.tuberlin.dima.minidb.io.cache.DuplicateCacheEntryException;
 import de.tuberlin.dima.minidb.io.cache.EvictedCacheEntry;
+import de.tuberlin.dima.minidb.io.cache.G5StripedPageCache;
 import de.tuberlin.dima.minidb.io.cache.PageCache;
+import de.tuberlin.dima.minidb.io.cache.PageExpiredException;
 import de.tuberlin.dima.minidb.io.cache.PageFormatException;
 import de.tuberlin.dima.minidb.io.cache.PageSize;
-import de.tuberlin.dima.minidb.io.manager.G5ReadThread.PrefetchCallback;
+import de.tuberlin.dima.minidb.io.cache.PinnedCacheEntry;
+import de.tuberlin.dima.minidb.io.cache.ResidentPage;
+import de.tuberlin.dima.minidb.io.manager.G5ReadScheduler.PrefetchCallback;
 import de.tuberlin.dima.minidb.io.manager.G5WriteThread.FreeBufferCallback;
 
 
@@ -30,16 +43,54 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 	
 	
 	
-	private HashMap<Integer, ResourceManager> resources; // 
+	/*
+	 * The maps are changed only under the monitor of the buffer pool, when a resource is registered,
+	 * but the page cleaner, the cache warmer and the read-ahead read them without it.
+	 */
+	private ConcurrentHashMap<Integer, ResourceManager> resources;
+	
+	private ConcurrentHashMap<PageSize, PageCache> caches;
+	
+	private ConcurrentHashMap<PageSize, LinkedList<byte[]>> buffers;
 	
-	private HashMap<PageSize, PageCache> caches;
+	/**
+	 * The number of I/O buffers per page size that are dropped instead of being returned to the
+	 * pool, because they were frames of pages evicted to shrink the cache. Guarded by the buffer list.
+	 */
+	private ConcurrentHashMap<PageSize, AtomicInteger> surplusBuffers;
 	
-	private HashMap<PageSize, LinkedList<byte[]>> buffers;	
+	private ConcurrentHashMap<Integer, G5ReadAheadTracker> readAheadTrackers;
 	
-	private G5ReadThread readThread;
+	private G5ReadScheduler readScheduler;
 	private G5WriteThread writeThread;
 	
+	/**
+	 * The metrics of this buffer pool, <code>null</code>, if they are disabled.
+	 */
+	private G5BufferPoolMetrics metrics;
+	
+	/**
+	 * Moves memory between the caches, <code>null</code>, if the caches keep their size.
+	 */
+	private G5CacheTuner cacheTuner;
+	
+	/**
+	 * Records the requested pages, <code>null</code>, if no trace is recorded.
+	 */
+	private G5AccessTrace trace;
+	
+	/**
+	 * Loads the pages of a cache image, <code>null</code>, if no image is loaded.
+	 */
+	private G5CacheWarmer cacheWarmer;
+	
+	/**
+	 * Writes modified pages before they are evicted, <code>null</code> if disabled.
+	 */
+	private G5PageCleaner pageCleaner;
+	
 	private Config config;
+	private Logger logger;
 	private int nbrIOBuffers;
 	private boolean opened;
 
@@ -48,21 +99,36 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 	public G5BufferPoolManager(Config config, Logger logger) {
 		
 		this.config = config;
+		this.logger = logger;
 
 		
-		resources = new HashMap<Integer, ResourceManager>();
+		resources = new ConcurrentHashMap<Integer, ResourceManager>();
+		
+		caches = new ConcurrentHashMap<PageSize, PageCache>();
 		
-		caches = new HashMap<PageSize, PageCache>();
+		buffers = new ConcurrentHashMap<PageSize,LinkedList<byte[]>>();
 		
-		buffers = new HashMap<PageSize,LinkedList<byte[]>>();
+		surplusBuffers = new ConcurrentHashMap<PageSize, AtomicInteger>();
+		
+		readAheadTrackers = new ConcurrentHashMap<Integer, G5ReadAheadTracker>();
 
 		
 		nbrIOBuffers = config.getNumIOBuffers();
+		
+		if (config.isBufferPoolMetricsEnabled())
+			metrics = new G5BufferPoolMetrics(this, logger);
 
 		
-		readThread = new G5ReadThread(this);
+		readScheduler = new G5ReadScheduler(config.getNumReadThreads(), this, metrics);
+		
+		writeThread = new G5WriteThread(this, config.getWriteBatchWindow(), nbrIOBuffers, metrics);
 		
-		writeThread = new G5WriteThread(this);
+		if (config.getCacheTuningInterval() > 0)
+			cacheTuner = new G5CacheTuner(this, config.getCacheTuningInterval(), logger);
+		
+		if (config.getCleanerInterval() > 0)
+			pageCleaner = new G5PageCleaner(this, config.getCleanerInterval(), config.getCleanerHighWatermark(),
+					config.getCleanerLowWatermark(), nbrIOBuffers / 2, logger);
 
 		
 		this.opened = false;
@@ -71,9 +137,24 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 
 	@Override
 	public void startIOThreads() throws BufferPoolException {
-		readThread.start();
+		
+		if (config.getCacheTraceFile() != null) {
+			try {
+				trace = new G5AccessTrace(new File(config.getCacheTraceFile()), logger);
+			} catch (IOException ioe) {
+				throw new BufferPoolException("The trace file could not be created: " + ioe.getMessage(), ioe);
+			}
+		}
+		
+		readScheduler.start();
 		writeThread.start();
 		
+		if (cacheTuner != null)
+			cacheTuner.start();
+		
+		if (pageCleaner != null)
+			pageCleaner.start();
+		
 		this.opened = true;
 		
 	}
@@ -99,34 +180,34 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 		
 		this.opened = false;
 		
+		if (cacheTuner != null)
+			cacheTuner.shutdown();
+		
+		if (cacheWarmer != null)
+			cacheWarmer.shutdown();
+		
+		if (pageCleaner != null)
+			pageCleaner.shutdown();
 		
-		readThread.stopThread();
+		readScheduler.stopScheduler();
 		
 		
 		for(Entry<Integer, ResourceManager> entry : resources.entrySet()) {
-			try {
-				int resourceId = entry.getKey();
-				ResourceManager resource = entry.getValue();
-				
-				PageCache cache = caches.get(resource.getPageSize());
-				
-				CacheableData[] pages = cache.getAllPagesForResource(resourceId);
-				
-				for (CacheableData page : pages) {
+			int resourceId = entry.getKey();
+			ResourceManager resource = entry.getValue();
 			
-					if (page != null && page.hasBeenModified()) {
-
-						byte[] writeBuffer = getBuffer(resource.getPageSize());
-						 
-						 
-						 System.arraycopy(page.getBuffer(), 0, writeBuffer, 0, writeBuffer.length);
+			PageCache cache = caches.get(resource.getPageSize());
 			
-						 G5WriteRequest writeRequest = new G5WriteRequest(resourceId, resource, writeBuffer, page);
-						 writeThread.request(writeRequest);	
-					}
+			CacheableData[] pages = cache.getAllPagesForResource(resourceId);
+			
+			for (CacheableData page : pages) {
+		
+				if (page != null && page.hasBeenModified()) {
+
+					 // the cache is dropped, so the page's own frame is written
+					 G5WriteRequest writeRequest = new G5WriteRequest(resourceId, resource, page.getBuffer(), page);
+					 writeThread.request(writeRequest);	
 				}
-			} catch (BufferPoolException e) {
-				// Well .. can't do much
 			}
 		}
 		
@@ -142,6 +223,12 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 		for(PageCache cache : caches.values()) {
 			cache = null;
 		}
+		
+		if (metrics != null)
+			metrics.unregister();
+		
+		if (trace != null)
+			trace.close();
 
 		
 		// The bufferPool shouldn't close the resource managers himself
@@ -160,6 +247,90 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 	}
 
 	
+	/**
+	 * Writes all modified pages to their resources and syncs the resources. The modified pages are
+	 * copied into I/O buffers under the lock of their entry, so that they stay in the cache, and
+	 * unpinned pages are marked clean; the method then waits until the write thread has written
+	 * everything queued so far.
+	 */
+	@Override
+	public void checkpoint() throws BufferPoolException, IOException {
+		
+		if (!this.opened)
+			throw new BufferPoolException("The Buffer Pool Manager is closed");
+		
+		ArrayList<Entry<Integer, ResourceManager>> registered;
+		
+		synchronized (this) {
+			registered = new ArrayList<Entry<Integer, ResourceManager>>(resources.entrySet());
+		}
+		
+		for (Entry<Integer, ResourceManager> entry : registered) {
+			
+			int resourceId = entry.getKey();
+			ResourceManager resource = entry.getValue();
+			
+			PageCache cache = caches.get(resource.getPageSize());
+			
+			for (CacheableData candidate : cache.getAllPagesForResource(resourceId)) {
+				
+				int pageNumber;
+				
+				try {
+					if (candidate == null || !candidate.hasBeenModified())
+						continue;
+					pageNumber = candidate.getPageNumber();
+				} catch (PageExpiredException pee) {
+					// evicted in the meantime, the eviction wrote it
+					continue;
+				}
+				
+				byte[] writeBuffer = getBuffer(resource.getPageSize());
+				CacheableData page = null;
+				
+				synchronized (lockFor(cache, resourceId, pageNumber)) {
+					
+					// the frame may have been evicted and reused since the snapshot, look the page up again
+					PinnedCacheEntry current = cache.getPinnedEntry(resourceId, pageNumber);
+					
+					if (current != null && current.getPage().hasBeenModified()) {
+						
+						page = current.getPage();
+						System.arraycopy(page.getBuffer(), 0, writeBuffer, 0, writeBuffer.length);
+						
+						// a pinned page may be modified while it is copied, so it stays modified
+						if (!current.isPinned())
+							page.markClean();
+					}
+				}
+				
+				if (page == null) {
+					freeBuffer(resource.getPageSize(), writeBuffer);
+					continue;
+				}
+				
+				G5WriteRequest writeRequest = new G5WriteRequest(resourceId, resource, writeBuffer, page);
+				writeThread.request(writeRequest);
+			}
+		}
+		
+		try {
+			writeThread.flush();
+		} catch (InterruptedException ie) {
+			throw new IOException("Checkpoint interrupted");
+		}
+		
+		for (Entry<Integer, ResourceManager> entry : registered) {
+			
+			ResourceManager resource = entry.getValue();
+			
+			synchronized (resource) {
+				resource.sync();
+			}
+		}
+	}
+	
+	
 	/**
 	 * Registers a resource with this buffer pool. All requests for this resource are then served through this buffer pool.
 	 * <p>
@@ -186,13 +357,14 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 		if (resources.containsKey(id))
 			throw new BufferPoolException("This resource is already registered");
 
-		resources.put(id, manager);		
-		
 		PageSize pageSize = manager.getPageSize();
 		
 		if (!caches.containsKey(pageSize)) {
 			
-			PageCache cache = AbstractExtensionFactory.getExtensionFactory().createPageCache(pageSize, config.getCacheSize(pageSize));
+			int cacheSize = config.getCacheSize(pageSize);
+			int partitions = Math.max(1, Math.min(config.getCachePartitions(), cacheSize));
+			
+			PageCache cache = new G5StripedPageCache(pageSize, cacheSize, partitions, config.getCacheReplacementPolicy());
 			
 			caches.put(pageSize, cache);
 			
@@ -208,12 +380,288 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 			}
 			
 			buffers.put(pageSize, bufferList);
+			surplusBuffers.put(pageSize, new AtomicInteger());
 			
+			if (metrics != null)
+				metrics.registerCache(pageSize, cache);
 		}
 		
+		if (config.getMaxReadAheadPages() > 0)
+			readAheadTrackers.put(id, new G5ReadAheadTracker(config.getMaxReadAheadPages()));
+		
+		// published last, whoever finds the resource also finds its cache and buffers
+		resources.put(id, manager);
+		
+		if (metrics != null)
+			metrics.registerResource(id, pageSize);
+		
 	}
 
 	
+	@Override
+	public boolean supportsResize() {
+		return true;
+	}
+	
+	@Override
+	public synchronized int resizeCache(PageSize pageSize, int numPages) throws BufferPoolException {
+		
+		if (!this.opened)
+			throw new BufferPoolException("The Buffer Pool Manager is closed");
+		
+		PageCache cache = caches.get(pageSize);
+		
+		if (cache == null)
+			throw new BufferPoolException("No resource with that page size is registered");
+		
+		if (!cache.supportsResize())
+			return cache.getCapacity();
+		
+		for (EvictedCacheEntry evicted : cache.resize(numPages)) {
+			dropEvictedFrame(pageSize, evicted);
+		}
+		
+		return cache.getCapacity();
+	}
+	
+	@Override
+	public void saveCacheImage(File file) throws BufferPoolException, IOException {
+		
+		if (!this.opened)
+			throw new BufferPoolException("The Buffer Pool Manager is closed");
+		
+		HashMap<PageSize, ResidentPage[]> image = new HashMap<PageSize, ResidentPage[]>();
+		
+		for (Entry<PageSize, PageCache> entry : getCaches().entrySet()) {
+			image.put(entry.getKey(), entry.getValue().getResidentPages());
+		}
+		
+		G5CacheImage.write(file, image);
+	}
+	
+	/**
+	 * Starts to load the pages of a cache image in the background, see {@link G5CacheWarmer}. A
+	 * warm-up that is still running is stopped first. Half of the I/O buffers make a batch.
+	 */
+	@Override
+	public synchronized void loadCacheImage(File file) throws BufferPoolException, IOException {
+		
+		if (!this.opened)
+			throw new BufferPoolException("The Buffer Pool Manager is closed");
+		
+		Map<PageSize, ResidentPage[]> image = G5CacheImage.read(file);
+		
+		if (cacheWarmer != null)
+			cacheWarmer.shutdown();
+		
+		cacheWarmer = new G5CacheWarmer(this, image, caches, nbrIOBuffers / 2, logger);
+		cacheWarmer.start();
+	}
+	
+	/**
+	 * Waits until the pages of the last loaded cache image are in the cache, or the warm-up
+	 * stopped. Returns right away if no image was loaded.
+	 * 
+	 * @throws InterruptedException Thrown, if the waiting thread is interrupted.
+	 */
+	public void awaitCacheWarmup() throws InterruptedException {
+		
+		G5CacheWarmer warmer;
+		
+		synchronized (this) {
+			warmer = cacheWarmer;
+		}
+		
+		if (warmer != null)
+			warmer.join();
+	}
+	
+	/**
+	 * Reads a batch of pages of a cache image into the caches and waits for them. Pages of
+	 * resources that are not registered, beyond the end of their resource, cached or being
+	 * read or written already are skipped. The batch is cut short when no I/O buffer is free.
+	 * A page that was frequent gets two hits once it is cached, which makes it frequent again
+	 * under each of the replacement policies.
+	 * 
+	 * @param pages The pages, sorted by resource and page number.
+	 * @return The number of pages from the start of the list that were read or skipped.
+	 * 
+	 * @throws BufferPoolException Thrown, if the buffer pool is closed.
+	 */
+	int warmPages(List<ResidentPage> pages) throws BufferPoolException {
+		
+		if (!this.opened)
+			throw new BufferPoolException("The Buffer Pool Manager is closed");
+		
+		ArrayList<G5ReadRequest> requests = new ArrayList<G5ReadRequest>();
+		ArrayList<ResidentPage> requested = new ArrayList<ResidentPage>();
+		int handled = 0;
+		
+		for (ResidentPage page : pages) {
+			
+			int resourceId = page.getResourceId();
+			int pageNumber = page.getPageNumber();
+			ResourceManager resource = resources.get(resourceId);
+			
+			if (resource != null && pageNumber <= resource.getLastPageNumber()) {
+				
+				PageCache cache = caches.get(resource.getPageSize());
+				boolean skip;
+				
+				synchronized (lockFor(cache, resourceId, pageNumber)) {
+					skip = cache.containsPage(resourceId, pageNumber) || readScheduler.getRequest(resourceId, pageNumber) != null;
+				}
+				
+				if (!skip && !writeThread.hasPendingWrite(resourceId, pageNumber)) {
+					
+					byte[] readBuffer = pollBuffer(resource.getPageSize());
+					
+					if (readBuffer == null)
+						break;
+					
+					G5ReadRequest request = new G5ReadRequest(resource, readBuffer, pageNumber, resourceId, true);
+					
+					if (readScheduler.request(request) != request) {
+						freeBuffer(resource.getPageSize(), readBuffer);
+					} else {
+						requests.add(request);
+						requested.add(page);
+					}
+				}
+			}
+			
+			handled++;
+		}
+		
+		for (int i = 0; i < requests.size(); i++) {
+			
+			try {
+				waitForRequest(requests.get(i));
+			} catch (IOException ioe) {
+				// the page is not warmed up, queries read it when they need it
+				continue;
+			}
+			
+			ResidentPage page = requested.get(i);
+			
+			if (page.isFrequent()) {
+				
+				PageCache cache = caches.get(requests.get(i).getManager().getPageSize());
+				
+				synchronized (lockFor(cache, page.getResourceId(), page.getPageNumber())) {
+					if (cache.getPage(page.getResourceId(), page.getPageNumber()) != null)
+						cache.getPage(page.getResourceId(), page.getPageNumber());
+				}
+			}
+		}
+		
+		return handled;
+	}
+	
+	/**
+	 * Queues modified pages with the write thread ahead of their eviction. Each page is copied
+	 * into a free I/O buffer and marked clean while the monitor of the page is held, so that
+	 * it cannot be evicted in between, and stays in the cache. Pages of resources that are not
+	 * registered, that are no longer cached, pinned or clean by now are skipped. The batch is cut
+	 * short when no I/O buffer is free.
+	 * 
+	 * @param pages The pages, the next victims first.
+	 * @return The number of pages from the start of the list that were queued or skipped.
+	 * 
+	 * @throws BufferPoolException Thrown, if the buffer pool is closed.
+	 */
+	int cleanPages(List<ResidentPage> pages) throws BufferPoolException {
+		
+		if (!this.opened)
+			throw new BufferPoolException("The Buffer Pool Manager is closed");
+		
+		int handled = 0;
+		
+		for (ResidentPage candidate : pages) {
+			
+			int resourceId = candidate.getResourceId();
+			int pageNumber = candidate.getPageNumber();
+			ResourceManager resource = resources.get(resourceId);
+			
+			if (resource != null) {
+				
+				PageSize pageSize = resource.getPageSize();
+				PageCache cache = caches.get(pageSize);
+				byte[] writeBuffer = pollBuffer(pageSize);
+				
+				if (writeBuffer == null)
+					break;
+				
+				CacheableData page = null;
+				
+				synchronized (lockFor(cache, resourceId, pageNumber)) {
+					
+					PinnedCacheEntry entry = cache.getPinnedEntry(resourceId, pageNumber);
+					
+					// a pinned page may be modified while it is copied, it is left to the eviction
+					if (entry != null && !entry.isPinned() && entry.getPage().hasBeenModified()) {
+						
+						page = entry.getPage();
+						System.arraycopy(page.getBuffer(), 0, writeBuffer, 0, writeBuffer.length);
+						page.markClean();
+					}
+				}
+				
+				if (page == null) {
+					freeBuffer(pageSize, writeBuffer);
+				} else {
+					writeThread.request(new G5WriteRequest(resourceId, resource, writeBuffer, page));
+					
+					if (metrics != null)
+						metrics.cleaned(resourceId);
+				}
+			}
+			
+			handled++;
+		}
+		
+		return handled;
+	}
+	
+	/**
+	 * Gets a snapshot of the caches, by page size.
+	 */
+	public synchronized HashMap<PageSize, PageCache> getCaches() {
+		return new HashMap<PageSize, PageCache>(caches);
+	}
+	
+	/**
+	 * Lets go of the frame of a page that was evicted to shrink the cache. A modified page is
+	 * written from its frame, which is dropped once the write hands it back as an I/O buffer.
+	 */
+	private void dropEvictedFrame(PageSize pageSize, EvictedCacheEntry evicted) {
+		
+		CacheableData page = evicted.getWrappingPage();
+		int resourceId = evicted.getResourceID();
+		
+		if (page == null)
+			return;
+		
+		if (metrics != null)
+			metrics.evicted(resourceId, page.hasBeenModified());
+		
+		if (page.hasBeenModified()) {
+			
+			LinkedList<byte[]> bufferQueue = buffers.get(pageSize);
+			
+			synchronized (bufferQueue) {
+				surplusBuffers.get(pageSize).incrementAndGet();
+			}
+			
+			writeThread.request(new G5WriteRequest(resourceId, resources.get(resourceId), evicted.getBinaryPage(), page));
+			
+		} else if (!writeThread.hasPendingWrite(resourceId, page)) {
+			
+			// a page waiting to be written keeps its frame until the write is done
+			page.markExpired();
+		}
+	}
+	
 	/**
 	 * Transparently fetches the page defined by the page number for the given resource.
 	 * If the cache contains the page, it will be fetched from there, otherwise it will
@@ -236,119 +684,179 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 	public CacheableData getPageAndPin(int resourceId, int pageNumber)
 			throws BufferPoolException, IOException {
 		
-		if (!this.opened)
-			throw new BufferPoolException("The Buffer Pool Manager is closed");
+		return getPageAndPin(resourceId, pageNumber, BufferAccessStrategy.NORMAL);
+	}
+	
+	@Override
+	public CacheableData getPageAndPin(int resourceId, int pageNumber, BufferAccessStrategy strategy)
+			throws BufferPoolException, IOException {
+		
+		CacheableData page = fetchPageAndPin(resourceId, pageNumber, strategy);
+		readAhead(resourceId, pageNumber, strategy);
+		return page;
+	}
+	
+	@Override
+	public PinnedPage pinPage(int resourceId, int pageNumber) throws BufferPoolException, IOException {
+		
+		return pinPage(resourceId, pageNumber, BufferAccessStrategy.NORMAL);
+	}
+	
+	@Override
+	public PinnedPage pinPage(int resourceId, int pageNumber, BufferAccessStrategy strategy)
+			throws BufferPoolException, IOException {
+		
+		G5PinnedPage pinned = new G5PinnedPage(this, resourceId, strategy);
+		pinned.pin(pageNumber);
+		return pinned;
+	}
+	
+	/**
+	 * Gets and pins a page for a handle, see {@link #pinPage(int, int, BufferAccessStrategy)}.
+	 * 
+	 * @return The entry of the page in the cache.
+	 */
+	PinnedCacheEntry pinEntry(int resourceId, int pageNumber, BufferAccessStrategy strategy)
+			throws BufferPoolException, IOException {
+		
+		PinnedCacheEntry entry = fetchEntryAndPin(resourceId, pageNumber, strategy);
+		readAhead(resourceId, pageNumber, strategy);
+		return entry;
+	}
+	
+	/**
+	 * Gets the monitor under which a handle unpins the entry of a page, see {@link #lockFor(PageCache, int, int)}.
+	 * 
+	 * @throws BufferPoolException Thrown, if the resource is not registered.
+	 */
+	Object getLock(int resourceId, int pageNumber) throws BufferPoolException {
 		
 		ResourceManager resource = resources.get(resourceId);
 		
 		if (resource == null) 
 			throw new BufferPoolException("Resource not registered");
 		
+		return lockFor(caches.get(resource.getPageSize()), resourceId, pageNumber);
+	}
+	
+	/**
+	 * Gets and pins the page, see {@link #getPageAndPin(int, int)}. Read-ahead is issued by the
+	 * caller once the page is there, so that it does not delay the page itself.
+	 */
+	private CacheableData fetchPageAndPin(int resourceId, int pageNumber, BufferAccessStrategy strategy)
+			throws BufferPoolException, IOException {
 		
+		return fetchEntryAndPin(resourceId, pageNumber, strategy).getPage();
+	}
+	
+	/**
+	 * Gets and pins the page, see {@link #fetchPageAndPin(int, int, BufferAccessStrategy)}, and
+	 * returns its entry in the cache.
+	 */
+	private PinnedCacheEntry fetchEntryAndPin(int resourceId, int pageNumber, BufferAccessStrategy strategy)
+			throws BufferPoolException, IOException {
 		
+		if (!this.opened)
+			throw new BufferPoolException("The Buffer Pool Manager is closed");
 		
-		// Look in the cache first
-		PageCache cache = caches.get(resource.getPageSize());
-		G5ReadRequest request;
+		ResourceManager resource = resources.get(resourceId);
 		
-		synchronized (cache) {
+		if (resource == null) 
+			throw new BufferPoolException("Resource not registered");
 		
-			CacheableData page = cache.getPageAndPin(resourceId, pageNumber);
 		
-			if (page != null)
-				return page;		
 		
-			
-			 request = readThread.getRequest(resourceId, pageNumber);
-
-		}
 		
+		if (trace != null)
+			trace.record(resource.getPageSize(), resourceId, pageNumber);
 		
+		// Look in the cache first
+		PageCache cache = caches.get(resource.getPageSize());
+		boolean first = true;
 		
+		while (true) {
 			
-			// Page not in cache : is it currently in one request queue ? (useful ??)
+			G5ReadRequest request;
 			
-			// - write queue : use the version waiting to be read
+			synchronized (lockFor(cache, resourceId, pageNumber)) {
 			
-			CacheableData page = writeThread.getRequest(resourceId, pageNumber);
-			
-			if (page != null) {
-				addPageInCache(resourceId, page, true);
-				//System.out.println("Write request found");
-				return page;
-			}
+				PinnedCacheEntry entry = lookUpEntryAndPin(cache, resourceId, pageNumber, strategy);
 			
+				if (entry != null) {
+					if (first && metrics != null)
+						metrics.hit(resourceId);
+					return entry;		
+				}
 			
-			// - Read queue : wait for the request to complete and return the page (+ hit ! )
+				request = readScheduler.getRequest(resourceId, pageNumber);
+			}
 			
+			if (first && metrics != null)
+				metrics.miss(resourceId);
+			first = false;
 			
-			if (request != null) {
+			if (request == null) {
 				
-				//System.out.println("read request found");
-				try {
-					synchronized (request) {
-						
-						while (!request.isDone()) {
-							request.wait();
-							if(!readThread.isRunning())
-								throw new BufferPoolException("Buffer Pool is closing");
-						}
-					}			
-				} catch (InterruptedException ie) {
-					throw new IOException("Request interrupted");
-				}
+				// Page not in cache : is it waiting to be written ? Then use that version
+				CacheableData page = writeThread.getRequest(resourceId, pageNumber);
 				
-				synchronized (cache) {
-					
-					page = cache.getPageAndPin(resourceId, pageNumber); // Just to hit it, should be the same as in the request wrapper
+				if (page != null)
+					return pinnedEntry(cache, resourceId, addPageInCache(resourceId, page, true, strategy));
 				
-					if (page != null)
-						return page;		
-				}
+				// emit a read request, unless somebody else read the page or started to read it in the
+				// meantime. The reader adds the page to the cache and pins it before the request leaves
+				// the table of requests in flight, so the cache and the table are checked again under
+				// the same lock under which the request is registered. The buffer is taken before,
+				// because waiting for a free buffer must not hold the lock.
+				byte[] readBuffer = getBuffer(resource.getPageSize());
+				G5ReadRequest own = new G5ReadRequest(resource, readBuffer, pageNumber, resourceId, true, true, strategy);
 				
+				PinnedCacheEntry cached;
 				
-				return request.getWrapper();
-			}
-		
-		
-		
-		
-		// Page not in cache : emit a read request
-		byte[] readBuffer;
-		
-		
-		
-			
-			readBuffer = getBuffer(resource.getPageSize());
-		
-			request = new G5ReadRequest(resource, readBuffer, pageNumber, resourceId, false);
-			readThread.request(request);
-			
-			CacheableData wrapper;
-			
-			
-		try {
-			synchronized (request) {
+				synchronized (lockFor(cache, resourceId, pageNumber)) {
+					
+					cached = lookUpEntryAndPin(cache, resourceId, pageNumber, strategy);
+					
+					if (cached == null)
+						request = readScheduler.request(own);
+				}
 				
-				while (!request.isDone()) {
-					request.wait();
-					if(!readThread.isRunning())
-						throw new BufferPoolException("Buffer Pool is closing");
+				if (cached != null) {
+					freeBuffer(resource.getPageSize(), readBuffer);
+					return cached;
 				}
 				
-				wrapper = request.getWrapper();
-			}			
-		} catch (InterruptedException ie) {
-			throw new IOException("Request interrupted");
-		}
+				if (request == own)
+					return pinnedEntry(cache, resourceId, waitForRequest(own));
+				
+				freeBuffer(resource.getPageSize(), readBuffer);
+			}
 			
+			// the page is being read already : wait for that read and share the page
+			PinnedCacheEntry entry = waitForSharedRead(cache, resourceId, pageNumber, request, strategy);
 			
-			// Read request complete : add page to cache
-			addPageInCache(resourceId, wrapper, true);
+			if (entry != null)
+				return entry;
 			
+			// the page has been evicted again before it could be pinned, look for it anew
+		}
+	}
+	
+	/**
+	 * Waits for a read of the page that was issued by another request and pins the page it read.
+	 * 
+	 * @return The page, pinned, or <code>null</code>, if the page has been evicted again in the meantime.
+	 */
+	private PinnedCacheEntry waitForSharedRead(PageCache cache, int resourceId, int pageNumber, G5ReadRequest request,
+			BufferAccessStrategy strategy) throws BufferPoolException, IOException {
 		
-				
-		return wrapper;
+		readScheduler.expedite(request);
+		waitForRequest(request);
+		
+		// every request adds its page to the cache before it completes
+		synchronized (lockFor(cache, resourceId, pageNumber)) {
+			return lookUpEntryAndPin(cache, resourceId, pageNumber, strategy);
+		}
 	}
 
 	
@@ -378,6 +886,25 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 			int unpinPageNumber, int getPageNumber) throws BufferPoolException,
 			IOException {
 		
+		return unpinAndGetPageAndPin(resourceId, unpinPageNumber, getPageNumber, BufferAccessStrategy.NORMAL);
+	}
+	
+	@Override
+	public CacheableData unpinAndGetPageAndPin(int resourceId,
+			int unpinPageNumber, int getPageNumber, BufferAccessStrategy strategy)
+			throws BufferPoolException, IOException {
+		
+		CacheableData page = unpinAndFetchPageAndPin(resourceId, unpinPageNumber, getPageNumber, strategy);
+		readAhead(resourceId, getPageNumber, strategy);
+		return page;
+	}
+	
+	/**
+	 * Unpins the one page and gets and pins the other, see {@link #unpinAndGetPageAndPin(int, int, int)}.
+	 */
+	private CacheableData unpinAndFetchPageAndPin(int resourceId,
+			int unpinPageNumber, int getPageNumber, BufferAccessStrategy strategy)
+			throws BufferPoolException, IOException {
 		
 		if (!this.opened)
 			throw new BufferPoolException("The Buffer Pool Manager is closed");
@@ -388,78 +915,109 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 			throw new BufferPoolException("Resource not registered");
 		
 		
-		// Look first in cache
+		// Unpin first, then get the page as getPageAndPin does
 		PageCache cache = caches.get(resource.getPageSize());
-		G5ReadRequest request;
-		synchronized (cache) {
+		
+		synchronized (lockFor(cache, resourceId, unpinPageNumber)) {
 			cache.unpinPage(resourceId, unpinPageNumber);
-			CacheableData page = cache.getPageAndPin(resourceId, getPageNumber);
+		}
 		
-			if (page != null)
-				return page;
+		return fetchPageAndPin(resourceId, getPageNumber, strategy);
+	}
+	
+	
+	@Override
+	public CompletableFuture<CacheableData> getPageAndPinAsync(final int resourceId, final int pageNumber)
+			throws BufferPoolException {
 		
-			 request = readThread.getRequest(resourceId, getPageNumber);
-			
-		}
+		if (!this.opened)
+			throw new BufferPoolException("The Buffer Pool Manager is closed");
 		
-
+		ResourceManager resource = resources.get(resourceId);
 		
-		// Page not in cache : emit a read request
-		byte[] buffer;
+		if (resource == null) 
+			throw new BufferPoolException("Resource not registered");
 		
-		buffer = getBuffer(resource.getPageSize());
+		if (trace != null)
+			trace.record(resource.getPageSize(), resourceId, pageNumber);
 		
+		PageCache cache = caches.get(resource.getPageSize());
+		G5ReadRequest request;
 		
+		synchronized (lockFor(cache, resourceId, pageNumber)) {
+			
+			CacheableData page = cache.getPageAndPin(resourceId, pageNumber);
+			
+			if (page != null) {
+				if (metrics != null)
+					metrics.hit(resourceId);
+				return CompletableFuture.completedFuture(page);
+			}
+			
+			request = readScheduler.getRequest(resourceId, pageNumber);
+		}
 		
+		if (metrics != null)
+			metrics.miss(resourceId);
 		
-		if (request != null) {
-			synchronized (request) {
-				while (!request.isDone()) {
-					try {
-						request.wait();
-					} catch (InterruptedException e) {
-						throw new IOException("Request interrupted");
-					}
-					if(!readThread.isRunning())
-						throw new BufferPoolException("Buffer Pool is closing");
-				}			
-			}	
-			return request.getWrapper();
+		if (request == null) {
+			
+			CacheableData page = writeThread.getRequest(resourceId, pageNumber);
 			
+			if (page != null)
+				return CompletableFuture.completedFuture(addPageInCache(resourceId, page, true));
+			
+			// the reader adds the page to the cache and pins it before it completes the future
+			byte[] readBuffer = getBuffer(resource.getPageSize());
+			G5ReadRequest own = new G5ReadRequest(resource, readBuffer, pageNumber, resourceId, true, true,
+					BufferAccessStrategy.NORMAL);
+			
+			request = readScheduler.request(own);
+			
+			if (request == own)
+				return own.getCompletion();
+			
+			// somebody else started to read the page in the meantime
+			freeBuffer(resource.getPageSize(), readBuffer);
 		}
-
+		
+		// the page is being read already, fetch it once it is there, which pins it. That runs in
+		// a thread of its own, since the future of the request completes in the reader's thread.
+		readScheduler.expedite(request);
+		return request.getCompletion().handle((page, failure) -> null).thenApplyAsync(ignored -> {
+			try {
+				return fetchPageAndPin(resourceId, pageNumber, BufferAccessStrategy.NORMAL);
+			} catch (BufferPoolException | IOException e) {
+				throw new CompletionException(e);
+			}
+		});
+	}
 	
-		request = new G5ReadRequest(resource, buffer, getPageNumber, resourceId, false);
-
-		readThread.request(request);
+	
+	@Override
+	public List<CompletableFuture<CacheableData>> getPagesAndPinAsync(int resourceId, final int[] pageNumbers)
+			throws BufferPoolException {
 		
-		CacheableData wrapper;
+		// request the pages in page order, so that the reader can read consecutive ones together
+		Integer[] order = new Integer[pageNumbers.length];
 		
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
 		
-		try {			
-			synchronized (request) {
-				while (!request.isDone()) {
-					request.wait();
-					if(!readThread.isRunning())
-						throw new BufferPoolException("Buffer Pool is closing");
-				}
-				
-				wrapper = request.getWrapper();
-			}	
-			
-		} catch (InterruptedException ie) {
-			throw new IOException("Request interrupted");
-		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Integer.compare(pageNumbers[a], pageNumbers[b]);
+			}
+		});
 		
-
-		if (wrapper.getPageNumber() != getPageNumber)
-			throw new BufferPoolException("Read page number different from the one requested");
+		List<CompletableFuture<CacheableData>> futures = new ArrayList<CompletableFuture<CacheableData>>(
+				Collections.nCopies(pageNumbers.length, (CompletableFuture<CacheableData>) null));
 		
-		// Add page to cache
-		addPageInCache(resourceId, wrapper, true);
-
+		for (int i : order)
+			futures.set(i, getPageAndPinAsync(resourceId, pageNumbers[i]));
 		
-		return wrapper;
+		return futures;
 	}
 
 	
@@ -483,7 +1041,7 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 		
 			PageCache cache = caches.get(resource.getPageSize());
 			
-			synchronized (cache) {
+			synchronized (lockFor(cache, resourceId, pageNumber)) {
 			
 				cache.unpinPage(resourceId, pageNumber);				
 			}
@@ -529,7 +1087,7 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 		// Look in cache first
 		CacheableData page;
 		
-		synchronized(cache) {
+		synchronized (lockFor(cache, resourceId, pageNumber)) {
 			 page = cache.getPage(resourceId, pageNumber);
 		}
 		
@@ -546,7 +1104,10 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 		
 			// prefetch = true : the read request takes care of adding the page to cache to allow the prefetch function to return immediately
 			request = new G5ReadRequest(resource, readBuffer, pageNumber, resourceId, true);
-			readThread.request(request);					
+			
+			// the page is being read already
+			if (readScheduler.request(request) != request)
+				freeBuffer(resource.getPageSize(), readBuffer);
 	}
 
 	
@@ -565,6 +1126,13 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 	public void prefetchPages(int resourceId, int startPageNumber,
 			int endPageNumber) throws BufferPoolException {
 		
+		prefetchPages(resourceId, startPageNumber, endPageNumber, BufferAccessStrategy.NORMAL);
+	}
+	
+	@Override
+	public void prefetchPages(int resourceId, int startPageNumber,
+			int endPageNumber, BufferAccessStrategy strategy) throws BufferPoolException {
+		
 		if (!this.opened)
 			throw new BufferPoolException("The Buffer Pool Manager is closed");
 		
@@ -579,18 +1147,20 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 		
 		PageCache cache = caches.get(resource.getPageSize());
 		
-		CacheableData page;
+		boolean cached;
 		
-		// List the pages not in cache
+		// List the pages not in cache, bulk reads do not hit the cached ones
 		
-		synchronized(cache) {
-			for (int i = startPageNumber; i <= endPageNumber; i++ ) {
-				page = cache.getPage(resourceId, i);
-				
-				if (page == null)
-					toLoad.add(i);
-				
+		for (int i = startPageNumber; i <= endPageNumber; i++ ) {
+			synchronized (lockFor(cache, resourceId, i)) {
+				if (strategy == BufferAccessStrategy.BULK_READ)
+					cached = cache.containsPage(resourceId, i);
+				else
+					cached = cache.getPage(resourceId, i) != null;
 			}
+			
+			if (!cached)
+				toLoad.add(i);
 		}
 		
 
@@ -605,11 +1175,20 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 			readBuffer = getBuffer(resource.getPageSize());
 			
 			// prefetch = true : the read request takes care of adding the page to cache to allow the prefetch function to return immediately
-			request = new G5ReadRequest(resource, readBuffer, pageNumber, resourceId, true);
+			request = new G5ReadRequest(resource, readBuffer, pageNumber, resourceId, true, strategy);
 
-			readThread.request(request);
+			if (readScheduler.request(request) != request)
+				freeBuffer(resource.getPageSize(), readBuffer);
 		}	
 	}
+	
+	@Override
+	public int getCacheCapacity(PageSize pageSize) {
+		
+		PageCache cache = caches.get(pageSize);
+		
+		return cache == null ? -1 : cache.getCapacity();
+	}
 
 	@Override
 	public CacheableData createNewPageAndPin(int resourceId)
@@ -708,18 +1287,215 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 
 	
 
+	/**
+	 * Returns a page frame to the I/O buffers of the given page size. Frames are reused, so that
+	 * the buffer pool allocates the frames for its caches once instead of for every page that
+	 * passes through them.
+	 * 
+	 * @param pageSize The page size of the frame.
+	 * @param buffer The frame, or <code>null</code> to allocate a new one in place of a frame that
+	 *               is still referenced elsewhere.
+	 */
 	@Override
-	public synchronized void freeBuffer(PageSize pageSize) {
+	public void freeBuffer(PageSize pageSize, byte[] buffer) {
 		
 		LinkedList<byte[]> bufferQueue = buffers.get(pageSize);
 		
+		if (buffer == null)
+			buffer = new byte[pageSize.getNumberOfBytes()];
+		
 		synchronized (bufferQueue) {
 			
-			bufferQueue.add(new byte[pageSize.getNumberOfBytes()]);		
+			// the cache has shrunk, the frame goes
+			AtomicInteger surplus = surplusBuffers.get(pageSize);
+			
+			if (surplus.get() > 0) {
+				surplus.decrementAndGet();
+				return;
+			}
+			
+			bufferQueue.add(buffer);		
 			bufferQueue.notifyAll();      
 		}		
 	}	
 	
+	/**
+	 * Gets how often a demand read was served before prefetches that had been queued earlier.
+	 */
+	public long getExpeditedReads() {
+		return readScheduler.getExpeditedReads();
+	}
+	
+	/**
+	 * Gets the number of read requests that have not yet completed.
+	 */
+	public int getReadQueueDepth() {
+		return readScheduler.getNumberOfRequests();
+	}
+	
+	/**
+	 * Gets the number of pages that are waiting to be written.
+	 */
+	public int getWriteQueueDepth() {
+		return writeThread.getNumberOfPendingPages();
+	}
+	
+	/**
+	 * Gets the metrics of this buffer pool.
+	 * 
+	 * @return The metrics, or <code>null</code>, if they are disabled in the configuration.
+	 */
+	public G5BufferPoolMetrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Gets the manager a resource was registered with.
+	 * 
+	 * @param resourceId The id of the resource.
+	 * @return The manager of the resource, or <code>null</code>, if it is not registered.
+	 */
+	public synchronized ResourceManager getResourceManager(int resourceId) {
+		return resources.get(resourceId);
+	}
+	
+	/**
+	 * Records a request for the given page with the read-ahead tracker of the resource and
+	 * issues the read-ahead the tracker asks for. Pages that are cached, already being read or
+	 * waiting to be written are skipped. The remaining pages are queued as prefetch requests
+	 * in page order, so that the reader fetches consecutive ones with a single call. If no
+	 * I/O buffer is free, the read-ahead is cut short rather than waiting for one.
+	 * Read-ahead pages are cached with the strategy of the request that triggered them.
+	 */
+	private void readAhead(int resourceId, int pageNumber, BufferAccessStrategy strategy) {
+		
+		G5ReadAheadTracker tracker = readAheadTrackers.get(resourceId);
+		
+		if (tracker == null)
+			return;
+		
+		int[] range = tracker.access(pageNumber);
+		
+		if (range == null)
+			return;
+		
+		ResourceManager resource = resources.get(resourceId);
+		PageCache cache = caches.get(resource.getPageSize());
+		int last = Math.min(range[1], resource.getLastPageNumber());
+		
+		for (int i = range[0]; i <= last; i++) {
+			
+			synchronized (lockFor(cache, resourceId, i)) {
+				if (cache.containsPage(resourceId, i) || readScheduler.getRequest(resourceId, i) != null)
+					continue;
+			}
+			
+			if (writeThread.hasPendingWrite(resourceId, i))
+				continue;
+			
+			byte[] readBuffer = pollBuffer(resource.getPageSize());
+			
+			if (readBuffer == null)
+				break;
+			
+			G5ReadRequest request = new G5ReadRequest(resource, readBuffer, i, resourceId, true, strategy);
+			
+			if (readScheduler.request(request) != request)
+				freeBuffer(resource.getPageSize(), readBuffer);
+		}
+	}
+	
+	/**
+	 * Blocks until the given read request has been served and returns the page it read.
+	 * 
+	 * @param request The request to wait for.
+	 * @return The page read by the request.
+	 * 
+	 * @throws BufferPoolException Thrown, if the buffer pool is closed while waiting.
+	 * @throws IOException Thrown, if the read failed or the waiting thread was interrupted.
+	 */
+	private CacheableData waitForRequest(G5ReadRequest request)
+			throws BufferPoolException, IOException {
+		
+		try {
+			synchronized (request) {
+				while (!request.isDone()) {
+					if (!readScheduler.isRunning())
+						throw new BufferPoolException("Buffer Pool is closing");
+					
+					request.wait();
+				}
+			}
+		} catch (InterruptedException ie) {
+			throw new IOException("Request interrupted");
+		}
+		
+		if (request.getFailure() != null)
+			throw request.getFailure();
+		
+		return request.getWrapper();
+	}
+	
+	/**
+	 * Gets and pins a cached page. Bulk reads do not count as a hit, so that a scan does not make
+	 * its pages frequent. The caller holds the monitor of the page.
+	 * 
+	 * @return The page, or <code>null</code>, if it is not cached.
+	 */
+	private static CacheableData lookUpAndPin(PageCache cache, int resourceId, int pageNumber,
+			BufferAccessStrategy strategy) {
+		
+		if (strategy == BufferAccessStrategy.BULK_READ)
+			return cache.getPageAndPinWithoutHit(resourceId, pageNumber);
+		
+		return cache.getPageAndPin(resourceId, pageNumber);
+	}
+	
+	/**
+	 * Gets and pins a cached page like {@link #lookUpAndPin(PageCache, int, int, BufferAccessStrategy)},
+	 * and returns its entry. The caller holds the monitor of the page.
+	 * 
+	 * @return The entry, or <code>null</code>, if the page is not cached.
+	 */
+	private static PinnedCacheEntry lookUpEntryAndPin(PageCache cache, int resourceId, int pageNumber,
+			BufferAccessStrategy strategy) {
+		
+		if (strategy == BufferAccessStrategy.BULK_READ)
+			return cache.getEntryAndPinWithoutHit(resourceId, pageNumber);
+		
+		return cache.getEntryAndPin(resourceId, pageNumber);
+	}
+	
+	/**
+	 * Gets the entry of a page that was just added to the cache pinned. A page whose resource
+	 * was expelled in the meantime has no entry any more, it gets one that only holds the page.
+	 */
+	private static PinnedCacheEntry pinnedEntry(PageCache cache, int resourceId, CacheableData page) {
+		
+		PinnedCacheEntry entry;
+		
+		synchronized (lockFor(cache, resourceId, page.getPageNumber())) {
+			entry = cache.getPinnedEntry(resourceId, page.getPageNumber());
+		}
+		
+		if (entry != null && entry.getPage() == page)
+			return entry;
+		
+		return new DetachedEntry(page);
+	}
+	
+	/**
+	 * Gets the monitor that protects the given page in the given cache. Striped caches have
+	 * one monitor per segment, any other cache is protected as a whole.
+	 */
+	private static Object lockFor(PageCache cache, int resourceId, int pageNumber) {
+		
+		if (cache instanceof G5StripedPageCache)
+			return ((G5StripedPageCache) cache).getLock(resourceId, pageNumber);
+		
+		return cache;
+	}
+	
 	private byte[] getBuffer(PageSize pageSize) throws BufferPoolException {
 		
 		LinkedList<byte[]> bufferQueue = buffers.get(pageSize);
@@ -744,8 +1520,33 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 		return buffer;
 	}
 
+	/**
+	 * Takes an I/O buffer if one is free, without waiting.
+	 * 
+	 * @return The buffer, or <code>null</code>, if all buffers are in use.
+	 */
+	private byte[] pollBuffer(PageSize pageSize) {
+		
+		LinkedList<byte[]> bufferQueue = buffers.get(pageSize);
+		
+		synchronized (bufferQueue) {
+			return bufferQueue.poll();
+		}
+	}
+
+	private CacheableData addPageInCache(int resourceId, CacheableData page, boolean pin) {
+		
+		return addPageInCache(resourceId, page, pin, BufferAccessStrategy.NORMAL);
+	}
+	
+	/**
+	 * Adds a page to the cache and takes care of the page that is evicted for it. If the page has
+	 * been cached in the meantime, by a concurrent request for it, the cached page is used instead.
+	 * 
+	 * @return The cached page. Pinned, if <code>pin</code> is set.
+	 */
 	@Override
-	public void addPageInCache(int resourceId, CacheableData page, boolean pin) {
+	public CacheableData addPageInCache(int resourceId, CacheableData page, boolean pin, BufferAccessStrategy strategy) {
 				
 		ResourceManager resource = resources.get(resourceId);
 		PageSize pageSize = resource.getPageSize();
@@ -755,8 +1556,10 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 
 		EvictedCacheEntry evicted;
 		try {
-			synchronized(cache) {
-				if (pin) {
+			synchronized (lockFor(cache, resourceId, page.getPageNumber())) {
+				if (strategy == BufferAccessStrategy.BULK_READ) {
+					evicted = pin ? cache.addBulkPageAndPin(page, resourceId) : cache.addBulkPage(page, resourceId);
+				} else if (pin) {
 					evicted = cache.addPageAndPin(page, resourceId);
 				} else {
 					evicted = cache.addPage(page, resourceId);
@@ -767,42 +1570,99 @@ public class G5BufferPoolManager implements BufferPoolManager, FreeBufferCallbac
 			
 			
 			
-			freeBuffer(pageSize);	
-			
 			CacheableData evictedPage = evicted.getWrappingPage();
 			
 			
 			int evictedResourceId = evicted.getResourceID();
 			ResourceManager evictedResource = resources.get(evictedResourceId);
+			
+			if (evictedPage != null && metrics != null)
+				metrics.evicted(evictedResourceId, evictedPage.hasBeenModified());
 	
-			if (evictedPage != null && evictedPage.hasBeenModified()) {
+			if (evictedPage == null) {
+				
+				// the cache was not yet full and handed out a new frame
+				freeBuffer(pageSize, evicted.getBinaryPage());
+				
+			} else if (evictedPage.hasBeenModified()) {
 
-				byte[] writeBuffer = getBuffer(pageSize);
-				 
-				 
-				 System.arraycopy(evictedPage.getBuffer(), 0, writeBuffer, 0, writeBuffer.length);
-	
-				 G5WriteRequest writeRequest = new G5WriteRequest(evictedResourceId, evictedResource, writeBuffer, evictedPage);
+				 // the evicted frame is written as it is and reused after the write
+				 G5WriteRequest writeRequest = new G5WriteRequest(evictedResourceId, evictedResource, evicted.getBinaryPage(), evictedPage);
 				 writeThread.request(writeRequest);	
+				 
+				 // the cleaner fell behind
+				 if (pageCleaner != null)
+					 pageCleaner.wakeUp();
 
+			} else if (writeThread.hasPendingWrite(evictedResourceId, evictedPage)) {
+				
+				// the page may still be taken back from the write queue, keep its frame
+				freeBuffer(pageSize, null);
+				
+			} else {
+				
+				evictedPage.markExpired();
+				freeBuffer(pageSize, evicted.getBinaryPage());
 			}
 			
 		} catch (DuplicateCacheEntryException dcee) {
 			
-			dcee.printStackTrace();
-			System.out.println("Page : " + dcee.getPageNumber());
+			CacheableData cached = null;
+			
+			if (pin) {
+				synchronized (lockFor(cache, resourceId, page.getPageNumber())) {
+					cached = lookUpAndPin(cache, resourceId, page.getPageNumber(), strategy);
+				}
+			}
+			
+			if (cached == page)
+				return page;
+			
+			// a page that was read by two requests at the same time, the frame of this copy is not needed
+			page.markExpired();
+			freeBuffer(pageSize, page.getBuffer());
+			
+			if (cached != null)
+				return cached;
+			
+			if (pin) {
+				dcee.printStackTrace();
+				System.out.println("Page : " + dcee.getPageNumber());
+			}
 		} catch (CachePinnedException cpe) {
 			cpe.printStackTrace();
 		} catch (NoSuchElementException nsee) {			
 			nsee.printStackTrace();
-		} catch (BufferPoolException ie) {
-			ie.printStackTrace();
 		}
+		
+		return page;
 	}		
 	
 	
-	
-	
-
-	
+	/**
+	 * The entry of a pinned page that is no longer in the cache, because its resource was
+	 * expelled. There is nothing to unpin.
+	 */
+	private static final class DetachedEntry implements PinnedCacheEntry {
+		
+		private final CacheableData page;
+		
+		DetachedEntry(CacheableData page) {
+			this.page = page;
+		}
+		
+		@Override
+		public CacheableData getPage() {
+			return page;
+		}
+		
+		@Override
+		public boolean isPinned() {
+			return true;
+		}
+		
+		@Override
+		public void unpin() {
+		}
+	}
 }
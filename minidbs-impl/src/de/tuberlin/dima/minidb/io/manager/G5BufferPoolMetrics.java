@@ -0,0 +1,205 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import de.tuberlin.dima.minidb.Constants;
+import de.tuberlin.dima.minidb.io.cache.PageCache;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+
+
+/**
+ * Records the metrics of one buffer pool and publishes them as MBeans in the platform MBean server.
+ * <p>
+ * There is one MBean for the buffer pool itself, one for the cache of each page size and one for
+ * each registered resource. Their names carry the number of the buffer pool, so that several
+ * buffer pools in one virtual machine do not clash, for example
+ * <code>de.tuberlin.dima.minidb:type=Resource,pool=1,id=3</code>.
+ * <p>
+ * Counters for a resource that is not registered are dropped.
+ */
+public class G5BufferPoolMetrics implements G5BufferPoolMetricsMBean {
+
+	private static final AtomicInteger POOLS = new AtomicInteger();
+
+
+	private final G5BufferPoolManager pool;
+
+	private final Logger logger;
+
+	private final String poolKey;
+
+	private final ConcurrentHashMap<Integer, G5IOMetrics> resources;
+
+	private final ConcurrentHashMap<PageSize, G5CacheMetrics> caches;
+
+	private final List<ObjectName> registered;
+
+
+	public G5BufferPoolMetrics(G5BufferPoolManager pool, Logger logger) {
+
+		this.pool = pool;
+		this.logger = logger;
+		this.poolKey = "pool=" + POOLS.incrementAndGet();
+		this.resources = new ConcurrentHashMap<Integer, G5IOMetrics>();
+		this.caches = new ConcurrentHashMap<PageSize, G5CacheMetrics>();
+		this.registered = new ArrayList<ObjectName>();
+
+		register(this, "type=BufferPool," + this.poolKey);
+	}
+
+
+	public void registerCache(PageSize pageSize, PageCache cache) {
+
+		G5CacheMetrics metrics = new G5CacheMetrics(pageSize, cache);
+		this.caches.put(pageSize, metrics);
+
+		register(metrics, "type=PageCache," + this.poolKey + ",pageSize=" + pageSize.getNumberOfBytes());
+	}
+
+
+	/**
+	 * Starts recording the metrics of a resource. The cache for its page size must have been
+	 * registered before.
+	 */
+	public void registerResource(int resourceId, PageSize pageSize) {
+
+		G5IOMetrics metrics = new G5IOMetrics(this.caches.get(pageSize));
+		this.resources.put(resourceId, metrics);
+
+		register(metrics, "type=Resource," + this.poolKey + ",id=" + resourceId);
+	}
+
+
+	/**
+	 * Gets the metrics of a resource, or <code>null</code>, if the resource is not registered.
+	 */
+	public G5IOMetrics getResourceMetrics(int resourceId) {
+		return this.resources.get(resourceId);
+	}
+
+
+	/**
+	 * Gets the metrics of the cache for a page size, or <code>null</code>, if there is no such cache.
+	 */
+	public G5CacheMetrics getCacheMetrics(PageSize pageSize) {
+		return this.caches.get(pageSize);
+	}
+
+
+	public void hit(int resourceId) {
+
+		G5IOMetrics metrics = this.resources.get(resourceId);
+
+		if (metrics != null)
+			metrics.hit();
+	}
+
+
+	public void miss(int resourceId) {
+
+		G5IOMetrics metrics = this.resources.get(resourceId);
+
+		if (metrics != null)
+			metrics.miss();
+	}
+
+
+	public void evicted(int resourceId, boolean modified) {
+
+		G5IOMetrics metrics = this.resources.get(resourceId);
+
+		if (metrics != null)
+			metrics.evicted(modified);
+	}
+
+
+	public void cleaned(int resourceId) {
+
+		G5IOMetrics metrics = this.resources.get(resourceId);
+
+		if (metrics != null)
+			metrics.cleaned();
+	}
+
+
+	public void read(int resourceId, int numPages, long nanos) {
+
+		G5IOMetrics metrics = this.resources.get(resourceId);
+
+		if (metrics != null)
+			metrics.read(numPages, nanos);
+	}
+
+
+	public void written(int resourceId, int numPages, long nanos) {
+
+		G5IOMetrics metrics = this.resources.get(resourceId);
+
+		if (metrics != null)
+			metrics.written(numPages, nanos);
+	}
+
+
+	/**
+	 * Removes all MBeans of this buffer pool from the MBean server.
+	 */
+	public void unregister() {
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		synchronized (this.registered) {
+
+			for (ObjectName name : this.registered) {
+				try {
+					server.unregisterMBean(name);
+				} catch (JMException jme) {
+					// already gone
+				}
+			}
+			this.registered.clear();
+		}
+	}
+
+
+	@Override
+	public int getReadQueueDepth() {
+		return this.pool.getReadQueueDepth();
+	}
+
+	@Override
+	public int getWriteQueueDepth() {
+		return this.pool.getWriteQueueDepth();
+	}
+
+	@Override
+	public long getExpeditedReads() {
+		return this.pool.getExpeditedReads();
+	}
+
+
+	private void register(Object mbean, String properties) {
+
+		try {
+			ObjectName name = new ObjectName(Constants.MBEAN_DOMAIN + ":" + properties);
+			ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, name);
+
+			synchronized (this.registered) {
+				this.registered.add(name);
+			}
+		} catch (JMException jme) {
+			// the metrics are still recorded, they are only not visible
+			if (this.logger != null)
+				this.logger.log(Level.WARNING, "Could not publish buffer pool metrics as " + properties, jme);
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+
+/**
+ * The metrics the buffer pool publishes about itself.
+ */
+public interface G5BufferPoolMetricsMBean {
+
+	/**
+	 * Gets the number of read requests that have not yet completed.
+	 */
+	int getReadQueueDepth();
+
+	/**
+	 * Gets the number of pages that are waiting to be written.
+	 */
+	int getWriteQueueDepth();
+
+	/**
+	 * Gets how often a demand read was served before prefetches that had been queued earlier.
+	 */
+	long getExpeditedReads();
+}
@@ -0,0 +1,126 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.cache.ResidentPage;
+import de.tuberlin.dima.minidb.io.cache.UnsupportedPageSizeException;
+
+
+/**
+ * Reads and writes the image of the caches of a buffer pool: for every page size, the pages
+ * that were cached, in the order the cache would have evicted them, and whether they were used
+ * frequently. The file starts with a magic number and the number of page sizes. Every page size
+ * follows as its size in bytes and the number of its pages, and every page as its resource id,
+ * its page number and its frequent flag.
+ * <p>
+ * The image is written to a temporary file first, which then replaces the image, so that a
+ * crash while writing leaves the previous image intact.
+ */
+public class G5CacheImage {
+
+	/**
+	 * Marks the file as a cache image, "MDCI".
+	 */
+	private static final int MAGIC = 0x4D444349;
+
+
+	/**
+	 * Writes the image, replacing the file if it exists.
+	 *
+	 * @param file The file to write.
+	 * @param pages The cached pages per page size, the next victims first.
+	 * @throws IOException Thrown, if the file cannot be written.
+	 */
+	public static void write(File file, Map<PageSize, ResidentPage[]> pages) throws IOException {
+
+		File temp = new File(file.getPath() + ".tmp");
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024));
+
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(pages.size());
+
+			for (Entry<PageSize, ResidentPage[]> entry : pages.entrySet()) {
+
+				out.writeInt(entry.getKey().getNumberOfBytes());
+				out.writeInt(entry.getValue().length);
+
+				for (ResidentPage page : entry.getValue()) {
+					out.writeInt(page.getResourceId());
+					out.writeInt(page.getPageNumber());
+					out.writeBoolean(page.isFrequent());
+				}
+			}
+		} finally {
+			out.close();
+		}
+
+		try {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException amnse) {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Reads an image.
+	 *
+	 * @param file The file to read.
+	 * @return The cached pages per page size, the next victims first.
+	 * @throws IOException Thrown, if the file cannot be read, or is not a complete image.
+	 */
+	public static Map<PageSize, ResidentPage[]> read(File file) throws IOException {
+
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+
+		try {
+			if (in.readInt() != MAGIC)
+				throw new IOException(file + " is not a cache image.");
+
+			int numPageSizes = in.readInt();
+			HashMap<PageSize, ResidentPage[]> pages = new HashMap<PageSize, ResidentPage[]>();
+
+			for (int i = 0; i < numPageSizes; i++) {
+
+				PageSize pageSize;
+
+				try {
+					pageSize = PageSize.getPageSize(in.readInt());
+				} catch (UnsupportedPageSizeException upse) {
+					throw new IOException("The cache image is corrupt: " + upse.getMessage(), upse);
+				}
+
+				int numPages = in.readInt();
+
+				if (numPages < 0)
+					throw new IOException("The cache image is corrupt: negative number of pages.");
+
+				ResidentPage[] sizePages = new ResidentPage[numPages];
+
+				for (int p = 0; p < numPages; p++)
+					sizePages[p] = new ResidentPage(in.readInt(), in.readInt(), in.readBoolean());
+
+				pages.put(pageSize, sizePages);
+			}
+
+			return pages;
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+import de.tuberlin.dima.minidb.io.cache.PageCache;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+
+
+/**
+ * Records the metrics of the cache of one page size.
+ */
+public class G5CacheMetrics extends G5IOMetrics implements G5CacheMetricsMBean {
+
+	private final PageSize pageSize;
+
+	private final PageCache cache;
+
+
+	public G5CacheMetrics(PageSize pageSize, PageCache cache) {
+
+		super(null);
+
+		this.pageSize = pageSize;
+		this.cache = cache;
+	}
+
+
+	@Override
+	public int getPageSize() {
+		return this.pageSize.getNumberOfBytes();
+	}
+
+	@Override
+	public int getCapacity() {
+		return this.cache.getCapacity();
+	}
+
+	@Override
+	public int getPinnedPages() {
+		return this.cache.getNumberOfPinnedPages();
+	}
+}
@@ -0,0 +1,19 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+
+/**
+ * The metrics the buffer pool publishes for the cache of each page size. Hits, misses, evictions
+ * and I/O are the sums over all resources that use the cache.
+ */
+public interface G5CacheMetricsMBean extends G5IOMetricsMBean {
+
+	int getPageSize();
+
+	int getCapacity();
+
+	/**
+	 * Gets the number of pages that are currently pinned, or -1, if the cache does not count
+	 * them. Looks at every page of the cache.
+	 */
+	int getPinnedPages();
+}
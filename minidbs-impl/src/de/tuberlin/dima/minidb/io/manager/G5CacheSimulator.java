@@ -0,0 +1,164 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.HashMap;
+
+import de.tuberlin.dima.minidb.io.cache.CachePinnedException;
+import de.tuberlin.dima.minidb.io.cache.CacheableData;
+import de.tuberlin.dima.minidb.io.cache.DuplicateCacheEntryException;
+import de.tuberlin.dima.minidb.io.cache.G5PageCache;
+import de.tuberlin.dima.minidb.io.cache.G5PolicyPageCache;
+import de.tuberlin.dima.minidb.io.cache.PageCache;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.cache.ReplacementPolicyType;
+
+
+/**
+ * Replays a trace of page requests, as recorded by the buffer pool in a {@link G5AccessTrace},
+ * against the page caches of the different replacement policies and reports their hit ratios.
+ * <p>
+ * Every page size gets a cache of its own with the given capacity, as in the buffer pool. A
+ * request that misses adds the page, nothing is pinned and no I/O takes place, so that the hit
+ * ratios depend on the replacement policies alone.
+ * <p>
+ * Usage: <code>G5CacheSimulator &lt;trace file&gt; &lt;cache pages&gt; [&lt;cache pages&gt; ...]</code>
+ */
+public class G5CacheSimulator {
+
+
+	/**
+	 * Replays the trace against caches with the given policy.
+	 *
+	 * @param trace The trace file.
+	 * @param policy The replacement policy of the caches.
+	 * @param numPages The capacity of the cache of each page size.
+	 * @return The share of the requests that hit the cache.
+	 * @throws IOException Thrown, if the trace cannot be read.
+	 */
+	public static double simulate(File trace, ReplacementPolicyType policy, int numPages) throws IOException {
+
+		HashMap<PageSize, PageCache> caches = new HashMap<PageSize, PageCache>();
+		long requests = 0, hits = 0;
+
+		G5AccessTrace.Reader reader = new G5AccessTrace.Reader(trace);
+
+		try {
+			while (reader.next()) {
+
+				PageCache cache = caches.get(reader.getPageSize());
+
+				if (cache == null) {
+					cache = createCache(reader.getPageSize(), numPages, policy);
+					caches.put(reader.getPageSize(), cache);
+				}
+
+				requests++;
+
+				if (cache.getPage(reader.getResourceId(), reader.getPageNumber()) != null) {
+					hits++;
+				} else {
+					request(cache, reader.getResourceId(), reader.getPageNumber());
+				}
+			}
+		} finally {
+			reader.close();
+		}
+
+		return requests == 0 ? 0 : hits / (double) requests;
+	}
+
+	/**
+	 * Replays the trace for every policy and cache size and prints a line per run.
+	 */
+	public static void simulateAll(File trace, int[] cacheSizes, PrintStream out) throws IOException {
+
+		for (int numPages : cacheSizes) {
+			for (ReplacementPolicyType policy : ReplacementPolicyType.values()) {
+				out.println(String.format("%-10s %8d pages   hit ratio %.4f", policy, numPages,
+						simulate(trace, policy, numPages)));
+			}
+		}
+	}
+
+
+	public static void main(String[] args) throws IOException {
+
+		if (args.length < 2) {
+			System.err.println("Usage: G5CacheSimulator <trace file> <cache pages> [<cache pages> ...]");
+			System.exit(1);
+		}
+
+		int[] cacheSizes = new int[args.length - 1];
+
+		for (int i = 1; i < args.length; i++)
+			cacheSizes[i - 1] = Integer.parseInt(args[i]);
+
+		simulateAll(new File(args[0]), cacheSizes, System.out);
+	}
+
+
+	private static PageCache createCache(PageSize pageSize, int numPages, ReplacementPolicyType policy) {
+
+		if (policy == ReplacementPolicyType.ARC)
+			return new G5PageCache(pageSize, numPages);
+
+		return new G5PolicyPageCache(pageSize, numPages, G5PolicyPageCache.createPolicy(policy));
+	}
+
+	private static void request(PageCache cache, int resourceId, int pageNumber) {
+
+		try {
+			// the frame of the evicted page is not needed, the simulated pages have no contents
+			cache.addPage(new SimulatedPage(pageNumber), resourceId);
+		} catch (CachePinnedException cpe) {
+			throw new IllegalStateException("The simulation pins no pages.", cpe);
+		} catch (DuplicateCacheEntryException dce) {
+			throw new IllegalStateException("A page that missed the cache was in the cache.", dce);
+		}
+	}
+
+
+	/**
+	 * A page without contents, which only has to be told apart from the other pages.
+	 */
+	private static final class SimulatedPage implements CacheableData {
+
+		private static final byte[] NO_DATA = new byte[0];
+
+		private final int pageNumber;
+
+		SimulatedPage(int pageNumber) {
+			this.pageNumber = pageNumber;
+		}
+
+		@Override
+		public boolean hasBeenModified() {
+			return false;
+		}
+
+		@Override
+		public void markClean() {
+		}
+
+		@Override
+		public int getPageNumber() {
+			return this.pageNumber;
+		}
+
+		@Override
+		public void markExpired() {
+		}
+
+		@Override
+		public boolean isExpired() {
+			return false;
+		}
+
+		@Override
+		public byte[] getBuffer() {
+			return NO_DATA;
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import de.tuberlin.dima.minidb.io.cache.PageCache;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+
+
+/**
+ * Moves memory between the caches of the different page sizes, toward the cache that gains the
+ * most hits from it.
+ * <p>
+ * The signal are the ghost hits of the caches: pages that are added again shortly after the cache
+ * evicted them, and which a larger cache would have kept. In every interval, the tuner compares
+ * the ghost hits per byte of cache memory. The cache with the most gets a step of memory from the
+ * cache with the fewest, which shrinks by evicting unpinned pages. A cache never shrinks below a
+ * minimum size, and nothing moves while no cache had ghost hits.
+ * <p>
+ * The thread is stopped through a flag rather than an interrupt, because interrupting a thread
+ * that is blocked in channel I/O closes the channel.
+ */
+public class G5CacheTuner extends Thread {
+
+	/**
+	 * The share of the donor's memory that moves in one step, as a divisor.
+	 */
+	private static final int STEP_DIVISOR = 32;
+
+	/**
+	 * The number of pages below which a cache does not shrink.
+	 */
+	private static final int MIN_PAGES = 64;
+
+
+	private final G5BufferPoolManager pool;
+
+	private final long interval;
+
+	private final Logger logger;
+
+	/**
+	 * The ghost hits of each cache at the last decision.
+	 */
+	private final Map<PageSize, Long> lastGhostHits;
+
+	private final Object lock = new Object();
+
+	private boolean alive = true;
+
+
+	public G5CacheTuner(G5BufferPoolManager pool, long interval, Logger logger) {
+
+		super("Buffer Pool Cache Tuner");
+		setDaemon(true);
+
+		this.pool = pool;
+		this.interval = interval;
+		this.logger = logger;
+		this.lastGhostHits = new HashMap<PageSize, Long>();
+	}
+
+
+	@Override
+	public void run() {
+
+		while (true) {
+
+			synchronized (this.lock) {
+
+				long deadline = System.currentTimeMillis() + this.interval;
+				long remaining = this.interval;
+
+				while (this.alive && remaining > 0) {
+					try {
+						this.lock.wait(remaining);
+					} catch (InterruptedException ie) {
+						// check the flag
+					}
+					remaining = deadline - System.currentTimeMillis();
+				}
+
+				if (!this.alive)
+					return;
+			}
+
+			try {
+				tune();
+			} catch (BufferPoolException bpe) {
+				// closed in the meantime
+			} catch (RuntimeException re) {
+				if (this.logger != null)
+					this.logger.log(Level.WARNING, "Moving memory between the caches failed: " + re.getMessage(), re);
+			}
+		}
+	}
+
+
+	/**
+	 * Moves one step of memory from the cache that gains the fewest hits per byte to the one that
+	 * gains the most, if they differ. Caches that cannot be resized neither give nor get memory.
+	 *
+	 * @return The number of bytes moved.
+	 * @throws BufferPoolException Thrown, if the buffer pool was closed.
+	 */
+	public long tune() throws BufferPoolException {
+
+		if (!this.pool.supportsResize())
+			return 0;
+
+		PageSize receiver = null, donor = null;
+		double maxGain = 0, minGain = Double.MAX_VALUE;
+		Map<PageSize, PageCache> caches = this.pool.getCaches();
+
+		for (Map.Entry<PageSize, PageCache> entry : caches.entrySet()) {
+
+			PageSize pageSize = entry.getKey();
+			PageCache cache = entry.getValue();
+
+			if (!cache.supportsResize())
+				continue;
+
+			long ghostHits = cache.getGhostHits();
+			Long last = this.lastGhostHits.put(pageSize, ghostHits);
+			long delta = ghostHits - (last == null ? 0 : last);
+
+			double gain = (double) delta / ((long) cache.getCapacity() * pageSize.getNumberOfBytes());
+
+			if (delta > 0 && gain > maxGain) {
+				maxGain = gain;
+				receiver = pageSize;
+			}
+
+			if (gain < minGain && cache.getCapacity() > MIN_PAGES) {
+				minGain = gain;
+				donor = pageSize;
+			}
+		}
+
+		if (receiver == null || donor == null || receiver == donor || minGain >= maxGain)
+			return 0;
+
+		PageCache donorCache = caches.get(donor);
+		PageCache receiverCache = caches.get(receiver);
+
+		int donorBytes = donor.getNumberOfBytes();
+		int receiverBytes = receiver.getNumberOfBytes();
+
+		// at least one page of the receiver, at most what the donor can spare, in whole receiver pages
+		int donorPagesPerPage = Math.max(1, receiverBytes / donorBytes);
+		int step = Math.max(donorCache.getCapacity() / STEP_DIVISOR, donorPagesPerPage);
+		step = Math.min(step, donorCache.getCapacity() - MIN_PAGES);
+		step -= step % donorPagesPerPage;
+
+		if (step <= 0)
+			return 0;
+
+		int capacity = donorCache.getCapacity();
+		int reached = this.pool.resizeCache(donor, capacity - step);
+
+		long freed = (long) (capacity - reached) * donorBytes;
+		int gained = (int) (freed / receiverBytes);
+
+		if (gained > 0)
+			this.pool.resizeCache(receiver, receiverCache.getCapacity() + gained);
+
+		return freed;
+	}
+
+
+	/**
+	 * Stops the thread and waits until a step that is in progress has finished.
+	 */
+	public void shutdown() {
+
+		synchronized (this.lock) {
+			this.alive = false;
+			this.lock.notifyAll();
+		}
+
+		while (isAlive()) {
+			try {
+				join();
+			} catch (InterruptedException ie) {
+				// wait on
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import de.tuberlin.dima.minidb.io.cache.PageCache;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.cache.ResidentPage;
+
+
+/**
+ * Loads the pages listed in a cache image into the caches of a buffer pool, in the background.
+ * <p>
+ * Of every page size, the warmer loads at most as many pages as the cache holds now, the ones
+ * the saved cache would have evicted last. It sorts them by resource and page number and reads
+ * them in batches of prefetch requests, which the read scheduler serves after the demand reads
+ * and joins into multi-page reads. A batch takes only the I/O buffers that are free, so that
+ * requests are not kept waiting for buffers. Pages that were used frequently are hit again once
+ * they are cached, so that the replacement policy keeps them apart from the pages used once.
+ * <p>
+ * The thread is stopped through a flag rather than an interrupt, because interrupting a thread
+ * that is blocked in channel I/O closes the channel.
+ */
+public class G5CacheWarmer extends Thread {
+
+	/**
+	 * How long to wait for I/O buffers to be freed, if all are in use, in milliseconds.
+	 */
+	private static final long BUFFER_WAIT_MSECS = 10;
+
+
+	private final G5BufferPoolManager pool;
+
+	private final List<ResidentPage> pages;
+
+	private final int batchSize;
+
+	private final Logger logger;
+
+	private final Object lock = new Object();
+
+	private volatile boolean alive = true;
+
+
+	/**
+	 * Creates the warmer for the given image.
+	 *
+	 * @param pool The buffer pool to load the pages into.
+	 * @param image The cached pages per page size, the next victims first.
+	 * @param caches The caches of the buffer pool, by page size. Pages of other sizes are skipped.
+	 * @param batchSize The number of pages to read before waiting for them.
+	 * @param logger The logger for failures, may be <code>null</code>.
+	 */
+	public G5CacheWarmer(G5BufferPoolManager pool, Map<PageSize, ResidentPage[]> image,
+			Map<PageSize, PageCache> caches, int batchSize, Logger logger) {
+
+		super("Buffer Pool Cache Warmer");
+		setDaemon(true);
+
+		this.pool = pool;
+		this.batchSize = Math.max(1, batchSize);
+		this.logger = logger;
+		this.pages = new ArrayList<ResidentPage>();
+
+		for (Map.Entry<PageSize, ResidentPage[]> entry : image.entrySet()) {
+
+			PageCache cache = caches.get(entry.getKey());
+
+			if (cache == null)
+				continue;
+
+			ResidentPage[] sizePages = entry.getValue();
+			int from = Math.max(0, sizePages.length - cache.getCapacity());
+
+			this.pages.addAll(Arrays.asList(sizePages).subList(from, sizePages.length));
+		}
+
+		this.pages.sort(new Comparator<ResidentPage>() {
+			@Override
+			public int compare(ResidentPage a, ResidentPage b) {
+				int c = Integer.compare(a.getResourceId(), b.getResourceId());
+				return c != 0 ? c : Integer.compare(a.getPageNumber(), b.getPageNumber());
+			}
+		});
+	}
+
+
+	@Override
+	public void run() {
+
+		int next = 0;
+
+		try {
+			while (this.alive && next < this.pages.size()) {
+
+				int end = Math.min(next + this.batchSize, this.pages.size());
+				int loaded = this.pool.warmPages(this.pages.subList(next, end));
+
+				if (loaded > 0) {
+					next += loaded;
+					continue;
+				}
+
+				// all I/O buffers are in use, give them time to come back
+				synchronized (this.lock) {
+					if (this.alive) {
+						try {
+							this.lock.wait(BUFFER_WAIT_MSECS);
+						} catch (InterruptedException ie) {
+							// check the flag
+						}
+					}
+				}
+			}
+		} catch (BufferPoolException bpe) {
+			// closed in the meantime
+		} catch (RuntimeException re) {
+			if (this.logger != null)
+				this.logger.log(Level.WARNING, "Warming up the cache failed: " + re.getMessage(), re);
+		}
+	}
+
+	/**
+	 * Gets the number of pages the warmer loads.
+	 */
+	public int getNumberOfPages() {
+		return this.pages.size();
+	}
+
+	/**
+	 * Stops the warmer after the batch it is reading, and waits for it.
+	 */
+	public void shutdown() {
+
+		synchronized (this.lock) {
+			this.alive = false;
+			this.lock.notifyAll();
+		}
+
+		try {
+			join();
+		} catch (InterruptedException ie) {
+			// the warmer stops on its own
+		}
+	}
+}
@@ -0,0 +1,303 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+
+/**
+ * The queue of read requests of one reader.
+ * <p>
+ * Requests are kept in two priority classes. Demand reads, for which a caller waits, are always
+ * served before prefetches, which are speculative. A prefetch that somebody starts to wait for can
+ * be promoted to a demand read.
+ * <p>
+ * Within a class, the resource of the oldest request is served next, and its requests are served
+ * in elevator order: in ascending page order from the page read last, wrapping around to the lowest
+ * page once no request lies ahead. Reads thus sweep over a resource instead of jumping back and forth,
+ * and requests for consecutive pages end up next to each other, so that they can be read together.
+ */
+public class G5ElevatorQueue {
+
+	private static final int DEMAND = 0;
+
+	private static final int PREFETCH = 1;
+
+
+	private final RequestClass[] classes;
+
+	private final HashMap<G5ReadRequest, Entry> entries;
+
+	/**
+	 * The page read last from each resource, the position of the elevator.
+	 */
+	private final HashMap<Integer, Integer> heads;
+
+	private long sequence;
+
+	private long expedited;
+
+	private boolean closed;
+
+
+	public G5ElevatorQueue() {
+
+		this.classes = new RequestClass[] { new RequestClass(), new RequestClass() };
+		this.entries = new HashMap<G5ReadRequest, Entry>();
+		this.heads = new HashMap<Integer, Integer>();
+	}
+
+
+	/**
+	 * Queues a request. Prefetches that nobody waits for go into the prefetch class, all other
+	 * requests into the demand class.
+	 */
+	public synchronized void add(G5ReadRequest request) {
+
+		int cls = request.isPrefetch() && !request.isPin() ? PREFETCH : DEMAND;
+
+		Entry entry = new Entry(request, cls, this.sequence++);
+		this.classes[cls].add(entry);
+		this.entries.put(request, entry);
+
+		notifyAll();
+	}
+
+
+	/**
+	 * Takes the next request to serve, waiting while the queue is empty.
+	 *
+	 * @return The request, or <code>null</code>, if the queue has been closed.
+	 * @throws InterruptedException Thrown, if the thread was interrupted while waiting.
+	 */
+	public synchronized G5ReadRequest take() throws InterruptedException {
+
+		while (!this.closed && this.entries.isEmpty())
+			wait();
+
+		if (this.closed)
+			return null;
+
+		RequestClass demand = this.classes[DEMAND];
+		RequestClass prefetch = this.classes[PREFETCH];
+
+		Entry next;
+
+		if (!demand.isEmpty()) {
+
+			next = demand.next(this.heads);
+
+			// an older prefetch is still waiting, the demand read overtakes it
+			if (!prefetch.isEmpty() && prefetch.oldest() < next.sequence)
+				this.expedited++;
+
+		} else {
+			next = prefetch.next(this.heads);
+		}
+
+		remove(next);
+		return next.request;
+	}
+
+
+	/**
+	 * Takes a queued prefetch request for the page following the given one from the same resource,
+	 * looking at the demand reads first. Only prefetch requests add their pages to the cache
+	 * themselves and can be read together with others.
+	 *
+	 * @param request A request that has been taken from this queue.
+	 * @return The request for the next page, or <code>null</code>, if there is none.
+	 */
+	public synchronized G5ReadRequest takeFollowing(G5ReadRequest request) {
+
+		int resourceId = request.getResourceId();
+		int pageNumber = request.getPageNumber() + 1;
+
+		for (RequestClass cls : this.classes) {
+
+			Entry next = cls.find(resourceId, pageNumber);
+
+			if (next != null && next.request.getPageNumber() == pageNumber && next.request.isPrefetch()) {
+
+				remove(next);
+				this.heads.put(resourceId, pageNumber);
+				return next.request;
+			}
+		}
+
+		return null;
+	}
+
+
+	/**
+	 * Moves a queued prefetch into the demand class, because a caller now waits for it.
+	 * Does nothing if the request is not queued or already a demand read.
+	 */
+	public synchronized void promote(G5ReadRequest request) {
+
+		Entry entry = this.entries.get(request);
+
+		if (entry == null || entry.cls == DEMAND)
+			return;
+
+		this.classes[PREFETCH].remove(entry);
+
+		// keep the age of the request, so that it does not count as overtaken
+		Entry promoted = new Entry(request, DEMAND, entry.sequence);
+		this.classes[DEMAND].add(promoted);
+		this.entries.put(request, promoted);
+	}
+
+
+	/**
+	 * Removes all queued requests.
+	 *
+	 * @return The removed requests.
+	 */
+	public synchronized List<G5ReadRequest> drain() {
+
+		List<G5ReadRequest> drained = new ArrayList<G5ReadRequest>(this.entries.keySet());
+
+		for (RequestClass cls : this.classes)
+			cls.clear();
+
+		this.entries.clear();
+		return drained;
+	}
+
+
+	/**
+	 * Closes the queue. Threads waiting in {@link #take()} return <code>null</code>.
+	 */
+	public synchronized void close() {
+
+		this.closed = true;
+		notifyAll();
+	}
+
+
+	/**
+	 * Gets how often a demand read was served before a prefetch that had been queued earlier.
+	 */
+	public synchronized long getExpedited() {
+		return this.expedited;
+	}
+
+
+	private void remove(Entry entry) {
+
+		this.classes[entry.cls].remove(entry);
+		this.entries.remove(entry.request);
+	}
+
+
+	// --------------------------------------------------------------------------------------------
+
+
+	private static final class Entry {
+
+		private final G5ReadRequest request;
+
+		private final int cls;
+
+		private final long sequence;
+
+		private Entry(G5ReadRequest request, int cls, long sequence) {
+
+			this.request = request;
+			this.cls = cls;
+			this.sequence = sequence;
+		}
+	}
+
+
+	/**
+	 * The requests of one priority class, by position and by age.
+	 */
+	private static final class RequestClass {
+
+		private static final Comparator<Entry> BY_POSITION = new Comparator<Entry>() {
+
+			@Override
+			public int compare(Entry a, Entry b) {
+
+				int c = Integer.compare(a.request.getResourceId(), b.request.getResourceId());
+
+				if (c == 0)
+					c = Integer.compare(a.request.getPageNumber(), b.request.getPageNumber());
+
+				return c != 0 ? c : Long.compare(a.sequence, b.sequence);
+			}
+		};
+
+
+		private final TreeSet<Entry> byPosition = new TreeSet<Entry>(BY_POSITION);
+
+		private final TreeMap<Long, Entry> byAge = new TreeMap<Long, Entry>();
+
+
+		private void add(Entry entry) {
+
+			this.byPosition.add(entry);
+			this.byAge.put(entry.sequence, entry);
+		}
+
+		private void remove(Entry entry) {
+
+			this.byPosition.remove(entry);
+			this.byAge.remove(entry.sequence);
+		}
+
+		private void clear() {
+
+			this.byPosition.clear();
+			this.byAge.clear();
+		}
+
+		private boolean isEmpty() {
+			return this.byAge.isEmpty();
+		}
+
+		private long oldest() {
+			return this.byAge.firstKey();
+		}
+
+		/**
+		 * Gets the next request of the resource that has the oldest request, in elevator order.
+		 */
+		private Entry next(HashMap<Integer, Integer> heads) {
+
+			int resourceId = this.byAge.firstEntry().getValue().request.getResourceId();
+			Integer head = heads.get(resourceId);
+
+			Entry next = null;
+
+			if (head != null)
+				next = find(resourceId, head);
+
+			// nothing ahead of the elevator, start over at the lowest page
+			if (next == null)
+				next = find(resourceId, Integer.MIN_VALUE);
+
+			heads.put(resourceId, next.request.getPageNumber());
+			return next;
+		}
+
+		/**
+		 * Finds the first request of the given resource at or after the given page.
+		 */
+		private Entry find(int resourceId, int fromPage) {
+
+			Entry probe = new Entry(new G5ReadRequest(null, null, fromPage, resourceId, false), DEMAND, Long.MIN_VALUE);
+			Entry found = this.byPosition.ceiling(probe);
+
+			if (found == null || found.request.getResourceId() != resourceId)
+				return null;
+
+			return found;
+		}
+	}
+}
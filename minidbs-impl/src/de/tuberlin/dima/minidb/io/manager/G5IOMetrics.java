@@ -0,0 +1,209 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Records hits, misses, evictions and I/O of one resource. The counters are striped, so that
+ * concurrent requests do not contend on them. Everything recorded here is also recorded with
+ * the metrics of the cache the resource uses, if there is one.
+ */
+public class G5IOMetrics implements G5IOMetricsMBean {
+
+	private final G5IOMetrics parent;
+
+	private final LongAdder hits;
+
+	private final LongAdder misses;
+
+	private final LongAdder evictions;
+
+	private final LongAdder dirtyEvictions;
+
+	private final LongAdder pagesCleaned;
+
+	private final LongAdder pagesRead;
+
+	private final LongAdder pagesWritten;
+
+	private final G5LatencyHistogram readLatency;
+
+	private final G5LatencyHistogram writeLatency;
+
+
+	/**
+	 * @param parent The metrics that record everything this one records as well, or <code>null</code>.
+	 */
+	public G5IOMetrics(G5IOMetrics parent) {
+
+		this.parent = parent;
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+		this.evictions = new LongAdder();
+		this.dirtyEvictions = new LongAdder();
+		this.pagesCleaned = new LongAdder();
+		this.pagesRead = new LongAdder();
+		this.pagesWritten = new LongAdder();
+		this.readLatency = new G5LatencyHistogram();
+		this.writeLatency = new G5LatencyHistogram();
+	}
+
+
+	public void hit() {
+
+		this.hits.increment();
+
+		if (this.parent != null)
+			this.parent.hit();
+	}
+
+
+	public void miss() {
+
+		this.misses.increment();
+
+		if (this.parent != null)
+			this.parent.miss();
+	}
+
+
+	public void evicted(boolean modified) {
+
+		this.evictions.increment();
+
+		if (modified)
+			this.dirtyEvictions.increment();
+
+		if (this.parent != null)
+			this.parent.evicted(modified);
+	}
+
+
+	/**
+	 * Records a modified page that the cleaner queued for writing before it was evicted.
+	 */
+	public void cleaned() {
+
+		this.pagesCleaned.increment();
+
+		if (this.parent != null)
+			this.parent.cleaned();
+	}
+
+
+	/**
+	 * Records a call that read the given number of pages.
+	 */
+	public void read(int numPages, long nanos) {
+
+		this.pagesRead.add(numPages);
+		this.readLatency.record(nanos);
+
+		if (this.parent != null)
+			this.parent.read(numPages, nanos);
+	}
+
+
+	/**
+	 * Records a call that wrote the given number of pages.
+	 */
+	public void written(int numPages, long nanos) {
+
+		this.pagesWritten.add(numPages);
+		this.writeLatency.record(nanos);
+
+		if (this.parent != null)
+			this.parent.written(numPages, nanos);
+	}
+
+
+	@Override
+	public long getHits() {
+		return this.hits.sum();
+	}
+
+	@Override
+	public long getMisses() {
+		return this.misses.sum();
+	}
+
+	@Override
+	public double getHitRatio() {
+
+		long h = this.hits.sum();
+		long requests = h + this.misses.sum();
+
+		return requests == 0 ? 0 : (double) h / requests;
+	}
+
+	@Override
+	public long getEvictions() {
+		return this.evictions.sum();
+	}
+
+	@Override
+	public long getDirtyEvictions() {
+		return this.dirtyEvictions.sum();
+	}
+
+	@Override
+	public long getPagesCleaned() {
+		return this.pagesCleaned.sum();
+	}
+
+	@Override
+	public long getPagesRead() {
+		return this.pagesRead.sum();
+	}
+
+	@Override
+	public long getPagesWritten() {
+		return this.pagesWritten.sum();
+	}
+
+	@Override
+	public long getReadLatencyMeanMicros() {
+		return micros(this.readLatency.getMean());
+	}
+
+	@Override
+	public long getReadLatencyMedianMicros() {
+		return micros(this.readLatency.getPercentile(50));
+	}
+
+	@Override
+	public long getReadLatency99thMicros() {
+		return micros(this.readLatency.getPercentile(99));
+	}
+
+	@Override
+	public long getReadLatencyMaxMicros() {
+		return micros(this.readLatency.getMax());
+	}
+
+	@Override
+	public long getWriteLatencyMeanMicros() {
+		return micros(this.writeLatency.getMean());
+	}
+
+	@Override
+	public long getWriteLatencyMedianMicros() {
+		return micros(this.writeLatency.getPercentile(50));
+	}
+
+	@Override
+	public long getWriteLatency99thMicros() {
+		return micros(this.writeLatency.getPercentile(99));
+	}
+
+	@Override
+	public long getWriteLatencyMaxMicros() {
+		return micros(this.writeLatency.getMax());
+	}
+
+
+	private static long micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
@@ -0,0 +1,59 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+
+/**
+ * The metrics the buffer pool publishes for each registered resource. Latencies are those of
+ * the calls to the resource manager, in microseconds.
+ */
+public interface G5IOMetricsMBean {
+
+	/**
+	 * Gets the number of page requests that were served from the cache.
+	 */
+	long getHits();
+
+	/**
+	 * Gets the number of page requests for which the page was not in the cache.
+	 */
+	long getMisses();
+
+	/**
+	 * Gets the share of page requests that were served from the cache, between 0 and 1.
+	 */
+	double getHitRatio();
+
+	/**
+	 * Gets the number of pages evicted from the cache.
+	 */
+	long getEvictions();
+
+	/**
+	 * Gets the number of evicted pages that had been modified and had to be written.
+	 */
+	long getDirtyEvictions();
+
+	/**
+	 * Gets the number of modified pages the background cleaner wrote before they were evicted.
+	 */
+	long getPagesCleaned();
+
+	long getPagesRead();
+
+	long getPagesWritten();
+
+	long getReadLatencyMeanMicros();
+
+	long getReadLatencyMedianMicros();
+
+	long getReadLatency99thMicros();
+
+	long getReadLatencyMaxMicros();
+
+	long getWriteLatencyMeanMicros();
+
+	long getWriteLatencyMedianMicros();
+
+	long getWriteLatency99thMicros();
+
+	long getWriteLatencyMaxMicros();
+}
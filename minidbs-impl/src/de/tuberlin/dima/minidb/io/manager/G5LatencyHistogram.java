@@ -0,0 +1,141 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A histogram of latencies in nanoseconds with a bounded relative error.
+ * <p>
+ * Values are counted in buckets whose width grows with the value: every power of two is split
+ * into eight buckets of equal width, so that a bucket is at most an eighth of its lower bound
+ * wide. Recording a value is a single increment of its bucket, no matter how large the value is,
+ * and percentiles are reported as the upper bound of the bucket they fall into.
+ */
+public class G5LatencyHistogram {
+
+	/**
+	 * The number of bits that select the bucket within a power of two.
+	 */
+	private static final int SUB_BUCKET_BITS = 3;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * Enough buckets for all non-negative long values.
+	 */
+	private static final int NUM_BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+
+	private final AtomicLongArray buckets;
+
+	private final LongAdder count;
+
+	private final LongAdder sum;
+
+	private final LongAccumulator max;
+
+
+	public G5LatencyHistogram() {
+
+		this.buckets = new AtomicLongArray(NUM_BUCKETS);
+		this.count = new LongAdder();
+		this.sum = new LongAdder();
+		this.max = new LongAccumulator(Math::max, 0);
+	}
+
+
+	/**
+	 * Records a latency. Negative values count as zero.
+	 */
+	public void record(long nanos) {
+
+		if (nanos < 0)
+			nanos = 0;
+
+		this.buckets.incrementAndGet(bucketOf(nanos));
+		this.count.increment();
+		this.sum.add(nanos);
+		this.max.accumulate(nanos);
+	}
+
+
+	public long getCount() {
+		return this.count.sum();
+	}
+
+
+	/**
+	 * Gets the mean of all recorded latencies, or zero, if none has been recorded.
+	 */
+	public long getMean() {
+
+		long n = this.count.sum();
+		return n == 0 ? 0 : this.sum.sum() / n;
+	}
+
+
+	public long getMax() {
+		return this.max.get();
+	}
+
+
+	/**
+	 * Gets the latency below which the given share of the recorded latencies lies.
+	 *
+	 * @param percentile The share, between 0 and 100.
+	 * @return The upper bound of the bucket the percentile falls into, or zero, if nothing has
+	 *         been recorded.
+	 */
+	public long getPercentile(double percentile) {
+
+		long total = 0;
+
+		for (int i = 0; i < NUM_BUCKETS; i++)
+			total += this.buckets.get(i);
+
+		if (total == 0)
+			return 0;
+
+		long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+		long seen = 0;
+
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+
+			seen += this.buckets.get(i);
+
+			if (seen >= rank)
+				return Math.min(upperBoundOf(i), getMax());
+		}
+
+		return getMax();
+	}
+
+
+	private static int bucketOf(long value) {
+
+		if (value < SUB_BUCKETS)
+			return (int) value;
+
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+
+		return (shift + 1) * SUB_BUCKETS + subBucket;
+	}
+
+
+	private static long upperBoundOf(int bucket) {
+
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+
+		int shift = bucket / SUB_BUCKETS - 1;
+		long mantissa = SUB_BUCKETS + bucket % SUB_BUCKETS;
+
+		long upper = ((mantissa + 1) << shift) - 1;
+
+		// the last bucket reaches up to the largest long
+		return upper < 0 ? Long.MAX_VALUE : upper;
+	}
+}
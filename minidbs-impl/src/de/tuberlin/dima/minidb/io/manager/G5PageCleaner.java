@@ -0,0 +1,198 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import de.tuberlin.dima.minidb.io.cache.PageCache;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.cache.ResidentPage;
+
+
+/**
+ * Writes modified pages in the background before they are evicted, so that an eviction finds a
+ * clean frame and the request that needs the frame does not wait for a write.
+ * <p>
+ * In every interval, the cleaner checks the share of each cache that modified unpinned pages
+ * take. Above the high watermark, it queues the pages the cache would evict next with the write
+ * thread, until the share is down to the low watermark. The pages are copied into I/O buffers
+ * and stay in the cache, clean. A batch takes only the I/O buffers that are free, at most half
+ * of them, so that reads are not kept waiting for buffers. An eviction that has to write the
+ * page it evicts wakes the cleaner before the interval is over.
+ * <p>
+ * The thread is stopped through a flag rather than an interrupt, because interrupting a thread
+ * that is blocked in channel I/O closes the channel.
+ */
+public class G5PageCleaner extends Thread {
+
+	/**
+	 * How long to wait for I/O buffers to be freed, if all are in use, in milliseconds.
+	 */
+	private static final long BUFFER_WAIT_MSECS = 10;
+
+
+	private final G5BufferPoolManager pool;
+
+	private final long interval;
+
+	private final int highWatermark;
+
+	private final int lowWatermark;
+
+	private final int batchSize;
+
+	private final Logger logger;
+
+	private final Object lock = new Object();
+
+	private volatile boolean alive = true;
+
+	private volatile boolean woken;
+
+
+	/**
+	 * Creates the cleaner.
+	 *
+	 * @param pool The buffer pool whose caches are cleaned.
+	 * @param interval The time between two checks, in milliseconds.
+	 * @param highWatermark The share of a cache, in percent, above which the cleaner writes pages.
+	 * @param lowWatermark The share of a cache, in percent, down to which the cleaner writes pages.
+	 * @param batchSize The number of pages to queue before taking further I/O buffers.
+	 * @param logger The logger for failures, may be <code>null</code>.
+	 */
+	public G5PageCleaner(G5BufferPoolManager pool, long interval, int highWatermark, int lowWatermark,
+			int batchSize, Logger logger) {
+
+		super("Buffer Pool Page Cleaner");
+		setDaemon(true);
+
+		this.pool = pool;
+		this.interval = interval;
+		this.highWatermark = highWatermark;
+		this.lowWatermark = Math.min(lowWatermark, highWatermark);
+		this.batchSize = Math.max(1, batchSize);
+		this.logger = logger;
+	}
+
+
+	@Override
+	public void run() {
+
+		while (true) {
+
+			synchronized (this.lock) {
+
+				long deadline = System.currentTimeMillis() + this.interval;
+				long remaining = this.interval;
+
+				while (this.alive && !this.woken && remaining > 0) {
+					try {
+						this.lock.wait(remaining);
+					} catch (InterruptedException ie) {
+						// check the flag
+					}
+					remaining = deadline - System.currentTimeMillis();
+				}
+
+				if (!this.alive)
+					return;
+
+				this.woken = false;
+			}
+
+			try {
+				clean();
+			} catch (BufferPoolException bpe) {
+				// closed in the meantime
+			} catch (RuntimeException re) {
+				if (this.logger != null)
+					this.logger.log(Level.WARNING, "Cleaning the caches failed: " + re.getMessage(), re);
+			}
+		}
+	}
+
+
+	/**
+	 * Writes modified pages of every cache whose modified unpinned pages exceed the high
+	 * watermark, until they are down to the low watermark.
+	 *
+	 * @throws BufferPoolException Thrown, if the buffer pool was closed.
+	 */
+	public void clean() throws BufferPoolException {
+
+		for (Map.Entry<PageSize, PageCache> entry : this.pool.getCaches().entrySet()) {
+
+			PageCache cache = entry.getValue();
+			long capacity = cache.getCapacity();
+
+			ResidentPage[] modified = cache.getModifiedPages();
+
+			if (modified.length * 100L <= capacity * this.highWatermark)
+				continue;
+
+			int target = (int) (modified.length - capacity * this.lowWatermark / 100);
+			List<ResidentPage> pages = Arrays.asList(modified).subList(0, target);
+			int next = 0;
+
+			while (this.alive && next < pages.size()) {
+
+				int end = Math.min(next + this.batchSize, pages.size());
+				int handled = this.pool.cleanPages(pages.subList(next, end));
+
+				if (handled > 0) {
+					next += handled;
+					continue;
+				}
+
+				// all I/O buffers are in use, give the writes time to finish
+				synchronized (this.lock) {
+					if (this.alive) {
+						try {
+							this.lock.wait(BUFFER_WAIT_MSECS);
+						} catch (InterruptedException ie) {
+							// check the flag
+						}
+					}
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Lets the cleaner check the caches now rather than at the end of its interval. Cheap if the
+	 * cleaner was woken already.
+	 */
+	public void wakeUp() {
+
+		if (this.woken)
+			return;
+
+		synchronized (this.lock) {
+			this.woken = true;
+			this.lock.notifyAll();
+		}
+	}
+
+
+	/**
+	 * Stops the thread and waits until a batch that is in progress has been queued.
+	 */
+	public void shutdown() {
+
+		synchronized (this.lock) {
+			this.alive = false;
+			this.lock.notifyAll();
+		}
+
+		while (isAlive()) {
+			try {
+				join();
+			} catch (InterruptedException ie) {
+				// wait on
+			}
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+import java.io.IOException;
+
+import de.tuberlin.dima.minidb.io.cache.CacheableData;
+import de.tuberlin.dima.minidb.io.cache.PinnedCacheEntry;
+
+
+/**
+ * The handle of a page pinned in a {@link G5BufferPoolManager}. It keeps the entry of the page
+ * and the monitor that guards the entry, so that unpinning takes neither a lookup of the page
+ * nor of its cache segment.
+ */
+public class G5PinnedPage implements PinnedPage {
+
+
+	private final G5BufferPoolManager pool;
+
+	private final int resourceId;
+
+	private final BufferAccessStrategy strategy;
+
+	private int pageNumber;
+
+	/**
+	 * The entry of the pinned page, <code>null</code>, if the handle is closed.
+	 */
+	private PinnedCacheEntry entry;
+
+	/**
+	 * The monitor under which the entry is unpinned.
+	 */
+	private Object lock;
+
+
+	G5PinnedPage(G5BufferPoolManager pool, int resourceId, BufferAccessStrategy strategy) {
+
+		this.pool = pool;
+		this.resourceId = resourceId;
+		this.strategy = strategy;
+	}
+
+
+	@Override
+	public CacheableData getPage() {
+		return this.entry == null ? null : this.entry.getPage();
+	}
+
+	@Override
+	public int getResourceId() {
+		return this.resourceId;
+	}
+
+	@Override
+	public int getPageNumber() {
+		return this.pageNumber;
+	}
+
+	/**
+	 * Unpins the current page first, so that its frame may take the new page.
+	 */
+	@Override
+	public CacheableData moveTo(int pageNumber) throws BufferPoolException, IOException {
+
+		close();
+		return pin(pageNumber);
+	}
+
+	@Override
+	public void close() {
+
+		if (this.entry == null)
+			return;
+
+		synchronized (this.lock) {
+			this.entry.unpin();
+		}
+		this.entry = null;
+	}
+
+
+	/**
+	 * Pins the given page. The handle holds no page before.
+	 */
+	CacheableData pin(int pageNumber) throws BufferPoolException, IOException {
+
+		PinnedCacheEntry pinned = this.pool.pinEntry(this.resourceId, pageNumber, this.strategy);
+
+		this.lock = this.pool.getLock(this.resourceId, pageNumber);
+		this.pageNumber = pageNumber;
+		this.entry = pinned;
+
+		return pinned.getPage();
+	}
+}
@@ -0,0 +1,96 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+
+/**
+ * Detects sequential access to one resource and decides how far to read ahead.
+ * <p>
+ * After a few requests for consecutive pages, the tracker asks for the pages behind the current
+ * one to be read ahead. The window starts small and doubles, up to a maximum, each time the
+ * scan has consumed half of what was read ahead. A request that breaks the sequence halves the
+ * window, so that a scan which continues after a few random requests picks up quickly, while
+ * random access lets the window shrink away.
+ */
+public class G5ReadAheadTracker {
+
+	/**
+	 * The number of consecutive requests after which an access pattern counts as sequential.
+	 */
+	private static final int SEQUENTIAL_THRESHOLD = 2;
+
+	/**
+	 * The window with which read-ahead starts.
+	 */
+	private static final int INITIAL_WINDOW = 4;
+
+
+	private final int maxWindow;
+
+	private int lastPageNumber;
+
+	private int sequentialCount;
+
+	private int window;
+
+	/**
+	 * The last page for which read-ahead has been issued.
+	 */
+	private int readAheadEnd;
+
+
+	public G5ReadAheadTracker(int maxWindow) {
+
+		this.maxWindow = maxWindow;
+		this.lastPageNumber = -1;
+		this.readAheadEnd = -1;
+	}
+
+
+	/**
+	 * Records a request for the given page.
+	 *
+	 * @param pageNumber The requested page.
+	 * @return The first and the last page to read ahead, or <code>null</code>, if nothing is to be read ahead.
+	 */
+	public synchronized int[] access(int pageNumber) {
+
+		if (pageNumber == this.lastPageNumber)
+			return null;
+
+		if (pageNumber != this.lastPageNumber + 1) {
+
+			this.lastPageNumber = pageNumber;
+			this.sequentialCount = 0;
+			this.window /= 2;
+			this.readAheadEnd = pageNumber;
+			return null;
+		}
+
+		this.lastPageNumber = pageNumber;
+
+		if (++this.sequentialCount < SEQUENTIAL_THRESHOLD)
+			return null;
+
+		// keep at least half a window ahead of the scan
+		if (this.readAheadEnd - pageNumber >= this.window / 2 && this.window > 0)
+			return null;
+
+		this.window = Math.min(this.maxWindow, Math.max(INITIAL_WINDOW, this.window * 2));
+
+		int first = Math.max(this.readAheadEnd, pageNumber) + 1;
+		int last = pageNumber + this.window;
+
+		if (first > last)
+			return null;
+
+		this.readAheadEnd = last;
+		return new int[] { first, last };
+	}
+
+
+	/**
+	 * Gets the current read-ahead window.
+	 */
+	public synchronized int getWindow() {
+		return this.window;
+	}
+}
@@ -1,5 +1,8 @@
 package de.tuberlin.dima.minidb.io.manager;
 
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
 import de.tuberlin.dima.minidb.io.cache.CacheableData;
 
 public class G5ReadRequest {
@@ -10,18 +13,40 @@ public class G5ReadRequest {
 	private ResourceManager manager;
 	private boolean prefetch;
 	private boolean done;
+	private IOException failure;
 	private int pageNumber;
 	private int resourceId;
+	private BufferAccessStrategy strategy;
+	private boolean pin;
+	private final CompletableFuture<CacheableData> completion = new CompletableFuture<CacheableData>();
 	
 	
 	
 	public G5ReadRequest(ResourceManager manager, byte[] buffer, int pageNumber, int resourceId, boolean prefetch) {
 		
+		this(manager, buffer, pageNumber, resourceId, prefetch, BufferAccessStrategy.NORMAL);
+	}
+	
+	public G5ReadRequest(ResourceManager manager, byte[] buffer, int pageNumber, int resourceId, boolean prefetch,
+			BufferAccessStrategy strategy) {
+		
+		this(manager, buffer, pageNumber, resourceId, prefetch, false, strategy);
+	}
+	
+	/**
+	 * Creates a request. A prefetch request adds the page it read to the cache, pinned if
+	 * <code>pin</code> is set, so that nobody needs to wait for it.
+	 */
+	public G5ReadRequest(ResourceManager manager, byte[] buffer, int pageNumber, int resourceId, boolean prefetch,
+			boolean pin, BufferAccessStrategy strategy) {
+		
 		this.manager = manager;
 		this.buffer = buffer;
 		this.pageNumber = pageNumber;
 		this.resourceId = resourceId;
 		this.prefetch = prefetch;
+		this.strategy = strategy;
+		this.pin = prefetch && pin;
 		this.done = false;
 		
 	}
@@ -54,6 +79,20 @@ public class G5ReadRequest {
 	public boolean isPrefetch() {
 		return this.prefetch;
 	}
+	
+	/**
+	 * Checks whether the prefetched page is pinned when it is added to the cache.
+	 */
+	public boolean isPin() {
+		return this.pin;
+	}
+	
+	/**
+	 * Gets the strategy with which a prefetched page is added to the cache.
+	 */
+	public BufferAccessStrategy getStrategy() {
+		return this.strategy;
+	}
 		
 	public boolean isDone() {
 		return this.done;
@@ -63,6 +102,38 @@ public class G5ReadRequest {
 		this.done = true;;
 	}
 	
+	public IOException getFailure() {
+		return this.failure;
+	}
+	
+	public void setFailure(IOException failure) {
+		this.failure = failure;
+	}
+	
+	/**
+	 * Gets the future that is completed with the page read by this request, or with the
+	 * exception that made it fail.
+	 */
+	public CompletableFuture<CacheableData> getCompletion() {
+		return this.completion;
+	}
+	
+	/**
+	 * Completes the future of this request. Called by the reader after the waiters have been
+	 * notified, without holding the monitor of the request, since the future's dependents run
+	 * in the calling thread. A request that is completed before it was served has been
+	 * discarded because the buffer pool closed.
+	 */
+	public void complete() {
+		
+		if (this.failure != null)
+			this.completion.completeExceptionally(this.failure);
+		else if (this.wrapper != null)
+			this.completion.complete(this.wrapper);
+		else
+			this.completion.completeExceptionally(new BufferPoolException("Buffer Pool is closing"));
+	}
+	
 	
 	
 
@@ -0,0 +1,373 @@
+package de.tuberlin.dima.minidb.io.manager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.tuberlin.dima.minidb.io.cache.CacheableData;
+
+
+/**
+ * Serves the read requests of the buffer pool through a pool of reader threads.
+ * <p>
+ * Every resource is bound to exactly one reader (by its id), so that reads for the same
+ * resource stay sequential and on one thread, while reads for different resources run
+ * in parallel. Idle readers block on their queue instead of polling it.
+ * <p>
+ * Each reader serves its requests from a {@link G5ElevatorQueue}: demand reads before prefetches,
+ * and per resource in page order. Prefetch requests for consecutive pages of a resource are read
+ * with a single multi-page call.
+ * <p>
+ * Besides waking up the threads that wait on a request, a reader completes the request's
+ * future once it is done, after it has released the request's monitor.
+ * <p>
+ * All requests that have not yet completed are kept in a table by resource and page number.
+ * There is at most one request per page: whoever asks for a page that is being read already
+ * is handed the request in flight and waits on it, instead of reading the page a second time.
+ */
+public class G5ReadScheduler {
+
+
+	interface PrefetchCallback {
+
+		/**
+		 * Adds a page read by a prefetch request to the cache.
+		 *
+		 * @return The page that is cached, which is another one than the given page if the page
+		 *         had been cached in the meantime and is to be pinned.
+		 */
+		CacheableData addPageInCache(int resourceId, CacheableData page, boolean pin, BufferAccessStrategy strategy);
+	}
+
+
+	/**
+	 * The maximal number of prefetch requests that are read with one call.
+	 */
+	private static final int MAX_RUN_LENGTH = 64;
+
+
+	private final ReadWorker[] workers;
+
+	private final PrefetchCallback callback;
+
+	/**
+	 * The metrics that the reads are recorded with, <code>null</code>, if none are recorded.
+	 */
+	private final G5BufferPoolMetrics metrics;
+
+	/**
+	 * All requests that have not yet completed, including the ones being read. A request stays
+	 * here until its page is in the cache, so that it cannot be missed between the queue and the cache.
+	 */
+	private final ConcurrentHashMap<EntryId, G5ReadRequest> inFlight;
+
+	private volatile boolean alive;
+
+
+
+	public G5ReadScheduler(int numWorkers, PrefetchCallback callback, G5BufferPoolMetrics metrics) {
+
+		if (numWorkers < 1)
+			throw new IllegalArgumentException("At least one read thread is needed.");
+
+		this.callback = callback;
+		this.metrics = metrics;
+		this.inFlight = new ConcurrentHashMap<EntryId, G5ReadRequest>();
+		this.workers = new ReadWorker[numWorkers];
+
+		for (int i = 0; i < numWorkers; i++) {
+			this.workers[i] = new ReadWorker(i);
+		}
+
+		this.alive = true;
+	}
+
+
+	public void start() {
+
+		for (ReadWorker worker : this.workers) {
+			worker.start();
+		}
+	}
+
+
+	/**
+	 * Queues a read request, unless the page is being read already.
+	 *
+	 * @return The request that reads the page: the given one, or the one in flight, which the
+	 *         caller is to wait for instead. The buffer of a request that is not queued is not used.
+	 */
+	public G5ReadRequest request(G5ReadRequest request) {
+
+		G5ReadRequest existing = this.inFlight.putIfAbsent(key(request), request);
+
+		if (existing != null)
+			return existing;
+
+		ReadWorker worker = getWorker(request.getResourceId());
+		worker.queue.add(request);
+
+		// the scheduler may have been stopped concurrently, in which case nobody takes the request
+		if (!this.alive)
+			worker.discardPending();
+
+		return request;
+	}
+
+
+	/**
+	 * Serves a queued prefetch request as a demand read, because a caller waits for it now.
+	 */
+	public void expedite(G5ReadRequest request) {
+
+		getWorker(request.getResourceId()).queue.promote(request);
+	}
+
+
+	public G5ReadRequest getRequest(int resourceId, int pageNumber) {
+
+		return this.inFlight.get(new EntryId(resourceId, pageNumber));
+	}
+
+
+	public int getNumberOfWorkers() {
+		return this.workers.length;
+	}
+
+
+	/**
+	 * Gets the number of requests that have not yet completed.
+	 */
+	public int getNumberOfRequests() {
+		return this.inFlight.size();
+	}
+
+
+	public boolean isRunning() {
+		return this.alive;
+	}
+
+
+	/**
+	 * Gets how often a demand read was served before prefetches that had been queued earlier.
+	 */
+	public long getExpeditedReads() {
+
+		long expedited = 0;
+
+		for (ReadWorker worker : this.workers)
+			expedited += worker.queue.getExpedited();
+
+		return expedited;
+	}
+
+
+	/**
+	 * Stops all readers. Requests that have not been started are discarded and their waiters
+	 * are woken up. A read that is currently executing is still completed.
+	 */
+	public void stopScheduler() {
+
+		this.alive = false;
+
+		for (ReadWorker worker : this.workers) {
+			worker.queue.close();
+			worker.discardPending();
+		}
+	}
+
+
+	private ReadWorker getWorker(int resourceId) {
+
+		return this.workers[(resourceId & 0x7fffffff) % this.workers.length];
+	}
+
+
+	private static EntryId key(G5ReadRequest request) {
+
+		return new EntryId(request.getResourceId(), request.getPageNumber());
+	}
+
+
+	/**
+	 * Removes a request that has completed from the table of requests in flight.
+	 */
+	private void remove(G5ReadRequest request) {
+
+		this.inFlight.remove(key(request), request);
+	}
+
+
+	// --------------------------------------------------------------------------------------------
+
+
+	private final class ReadWorker extends Thread {
+
+		private final G5ElevatorQueue queue;
+
+
+		private ReadWorker(int index) {
+
+			super("Buffer Pool Reader " + index);
+			setDaemon(true);
+
+			this.queue = new G5ElevatorQueue();
+		}
+
+
+		@Override
+		public void run() {
+
+			while (G5ReadScheduler.this.alive) {
+
+				G5ReadRequest request;
+
+				try {
+					request = this.queue.take();
+				} catch (InterruptedException ie) {
+					continue;
+				}
+
+				if (request == null || !G5ReadScheduler.this.alive) {
+					if (request != null) {
+						remove(request);
+						synchronized (request) {
+							request.notifyAll();
+						}
+						request.complete();
+					}
+					discardPending();
+					break;
+				}
+
+				List<G5ReadRequest> run = collectRun(request);
+
+				try {
+					if (run.size() == 1)
+						process(request);
+					else
+						processRun(run);
+				} finally {
+					for (G5ReadRequest done : run)
+						remove(done);
+				}
+			}
+		}
+
+
+		/**
+		 * Takes the queued prefetch requests for the pages following the given one.
+		 */
+		private List<G5ReadRequest> collectRun(G5ReadRequest first) {
+
+			List<G5ReadRequest> run = new ArrayList<G5ReadRequest>();
+			run.add(first);
+
+			if (!first.isPrefetch())
+				return run;
+
+			G5ReadRequest next;
+
+			while (run.size() < MAX_RUN_LENGTH && (next = this.queue.takeFollowing(run.get(run.size() - 1))) != null) {
+				run.add(next);
+			}
+			return run;
+		}
+
+
+		private void process(G5ReadRequest request) {
+
+			synchronized (request) {
+
+				ResourceManager resource = request.getManager();
+
+				try {
+					CacheableData page;
+					long start = G5ReadScheduler.this.metrics != null ? System.nanoTime() : 0;
+
+					synchronized (resource) {
+						page = resource.readPageFromResource(request.getBuffer(), request.getPageNumber());
+					}
+
+					if (G5ReadScheduler.this.metrics != null)
+						G5ReadScheduler.this.metrics.read(request.getResourceId(), 1, System.nanoTime() - start);
+
+					if (request.isPrefetch())
+						page = G5ReadScheduler.this.callback.addPageInCache(request.getResourceId(), page,
+								request.isPin(), request.getStrategy());
+
+					request.setWrapper(page);
+
+				} catch (IOException ioe) {
+					System.out.println("Read IO Exception : " + ioe.getMessage());
+					request.setFailure(ioe);
+
+				} finally {
+					request.done();
+					request.notifyAll();
+				}
+			}
+
+			request.complete();
+		}
+
+
+		private void processRun(List<G5ReadRequest> run) {
+
+			ResourceManager resource = run.get(0).getManager();
+			byte[][] buffers = new byte[run.size()][];
+
+			for (int i = 0; i < buffers.length; i++) {
+				buffers[i] = run.get(i).getBuffer();
+			}
+
+			CacheableData[] pages;
+			long start = G5ReadScheduler.this.metrics != null ? System.nanoTime() : 0;
+
+			try {
+				synchronized (resource) {
+					pages = resource.readPagesFromResource(buffers, run.get(0).getPageNumber());
+				}
+			} catch (IOException ioe) {
+				// read the pages one by one, so that one bad page does not fail the others
+				for (G5ReadRequest request : run) {
+					process(request);
+				}
+				return;
+			}
+
+			if (G5ReadScheduler.this.metrics != null)
+				G5ReadScheduler.this.metrics.read(run.get(0).getResourceId(), pages.length, System.nanoTime() - start);
+
+			for (int i = 0; i < pages.length; i++) {
+
+				G5ReadRequest request = run.get(i);
+
+				synchronized (request) {
+					CacheableData page = G5ReadScheduler.this.callback.addPageInCache(request.getResourceId(), pages[i],
+							request.isPin(), request.getStrategy());
+					request.setWrapper(page);
+					request.done();
+					request.notifyAll();
+				}
+
+				request.complete();
+			}
+		}
+
+
+		private void discardPending() {
+
+			for (G5ReadRequest request : this.queue.drain()) {
+
+				remove(request);
+
+				synchronized (request) {
+					request.notifyAll();
+				}
+				request.complete();
+			}
+		}
+	}
+}
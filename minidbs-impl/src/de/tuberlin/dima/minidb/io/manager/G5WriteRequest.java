@@ -8,6 +8,13 @@ public class G5WriteRequest {
 	private CacheableData wrapper;
 	private ResourceManager resource;
 	private int resourceId;
+	private int pageNumber;
+	
+	/**
+	 * Set when the page was taken back into the cache before the request completed.
+	 */
+	private boolean reclaimed;
+	private boolean done;
 	
 	
 	
@@ -18,6 +25,8 @@ public class G5WriteRequest {
 		this.wrapper = wrapper;
 		this.resourceId = resourceId;
 		
+		// kept, because the wrapper expires once the frame of an evicted page is reused
+		this.pageNumber = wrapper == null ? -1 : wrapper.getPageNumber();
 	}
 	
 	
@@ -29,6 +38,10 @@ public class G5WriteRequest {
 		return this.resourceId;
 	}
 	
+	public int getPageNumber() {
+		return this.pageNumber;
+	}
+	
 	public CacheableData getWrapper() {
 		return this.wrapper;
 	}	
@@ -37,6 +50,31 @@ public class G5WriteRequest {
 		return this.buffer;
 	}
 	
+	/**
+	 * Marks the page of this request as taken back into the cache, so that its buffer is not
+	 * reused once the request completes.
+	 * 
+	 * @return False, if the request has already completed and its buffer may have been reused.
+	 */
+	public synchronized boolean reclaim() {
+		
+		if (this.done)
+			return false;
+		
+		this.reclaimed = true;
+		return true;
+	}
+	
+	/**
+	 * Marks this request as completed.
+	 * 
+	 * @return True, if the buffer may be reused, false if the page was reclaimed.
+	 */
+	public synchronized boolean complete() {
+		
+		this.done = true;
+		return !this.reclaimed;
+	}
 	
 	
 
@@ -1,110 +1,407 @@
 package de.tuberlin.dima.minidb.io.manager;
 
 import java.io.IOException;
-import java.util.Iterator;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import de.tuberlin.dima.minidb.io.cache.CacheableData;
 import de.tuberlin.dima.minidb.io.cache.PageSize;
 
+/**
+ * Writes modified pages back to their resources.
+ * <p>
+ * The thread blocks until a request arrives and then keeps collecting requests for the
+ * duration of the batching window. The collected pages are grouped by resource and sorted by
+ * page number; if a page was queued several times, only its latest version is written. Runs
+ * of consecutive pages go out as a single vectored write.
+ * <p>
+ * A flush request acts as a barrier: it is released once every request issued before it has
+ * been written.
+ * <p>
+ * The buffer of a written request is handed back to the buffer pool. If the request wrote the
+ * frame of an evicted page itself, the page is marked expired before its frame is reused.
+ * <p>
+ * The requests that have not yet been written are kept in a table by resource and page number,
+ * so that the buffer pool can look up a queued page without going through the whole queue.
+ */
 public class G5WriteThread extends Thread {
 
-	interface FreeBufferCallback   
-	{  
-	    void freeBuffer(PageSize pageSize);
-	}  
-	
-	public ConcurrentLinkedQueue<G5WriteRequest> requests;
-	
+	interface FreeBufferCallback
+	{
+	    /**
+	     * Returns a buffer to the pool. A <code>null</code> buffer makes the pool allocate a new one.
+	     */
+	    void freeBuffer(PageSize pageSize, byte[] buffer);
+	}
+
+	/**
+	 * Marker request that tells the thread to terminate once all earlier requests are written.
+	 */
+	private static final G5WriteRequest STOP_REQUEST = new G5WriteRequest(-1, null, null, null);
+
+	/**
+	 * Marker request that is released when all earlier requests have been written.
+	 */
+	private static final class FlushRequest extends G5WriteRequest {
+
+		private final CountDownLatch written = new CountDownLatch(1);
+
+		private IOException failure;
+
+		FlushRequest() {
+			super(-1, null, null, null);
+		}
+	}
+
+	/**
+	 * The requests that have not yet been picked up by the thread.
+	 */
+	private final LinkedBlockingQueue<G5WriteRequest> requests;
+
+	/**
+	 * All requests that have not yet been written, by page. The requests for one page are kept in
+	 * the order they were issued. The arrays are never modified, but replaced.
+	 */
+	private final ConcurrentHashMap<EntryId, G5WriteRequest[]> pending;
+
 	private final FreeBufferCallback callback;
 
-	private volatile boolean alive;
-	
-	public G5WriteThread(FreeBufferCallback callback) {
-		
-		this.callback = callback;
-		this.requests = new ConcurrentLinkedQueue<G5WriteRequest>();
-		this.alive = true;	
+	/**
+	 * The metrics that the writes are recorded with, <code>null</code>, if none are recorded.
+	 */
+	private final G5BufferPoolMetrics metrics;
+
+	private final long batchWindowNanos;
+
+	private final int maxBatchSize;
+
+	/**
+	 * The first write failure since the last flush request was released. Only accessed by the thread itself.
+	 */
+	private IOException failure;
+
 
+	public G5WriteThread(FreeBufferCallback callback, long batchWindowMillis, int maxBatchSize, G5BufferPoolMetrics metrics) {
+
+		super("Buffer Pool Writer");
+		setDaemon(true);
+
+		this.callback = callback;
+		this.metrics = metrics;
+		this.requests = new LinkedBlockingQueue<G5WriteRequest>();
+		this.pending = new ConcurrentHashMap<EntryId, G5WriteRequest[]>();
+		this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(batchWindowMillis);
+		this.maxBatchSize = Math.max(1, maxBatchSize);
 	}
-	
-	
+
+
 	@Override
 	public void run() {
-		
-		while(this.alive) {
-			
-			
-			
-			while (!requests.isEmpty()) {	
-				
-				
-				G5WriteRequest request = requests.remove();
-				
-				CacheableData wrapper;
-				byte[] buffer;
-				ResourceManager resource;
-				
-				synchronized(request) {
-					
-					wrapper = request.getWrapper();
-					buffer = request.getBuffer();
-					resource = request.getManager();
-				}
-				
-					
-						
+
+		boolean stop = false;
+
+		while (!stop) {
+
+			G5WriteRequest first;
+
+			try {
+				first = this.requests.take();
+			} catch (InterruptedException ie) {
+				continue;
+			}
+
+			if (first == STOP_REQUEST)
+				break;
+
+			if (first instanceof FlushRequest) {
+				release((FlushRequest) first);
+				continue;
+			}
+
+			List<G5WriteRequest> batch = new ArrayList<G5WriteRequest>();
+			FlushRequest flush = null;
+			batch.add(first);
+
+			// collect what arrives within the batching window
+			long deadline = System.nanoTime() + this.batchWindowNanos;
+
+			while (batch.size() < this.maxBatchSize) {
+
+				G5WriteRequest next;
+				long remaining = deadline - System.nanoTime();
+
 				try {
-					synchronized(resource) {
-						
-						
-						resource.writePageToResource(buffer, wrapper);
-						
-					//System.out.println("W");
+					next = remaining > 0 ? this.requests.poll(remaining, TimeUnit.NANOSECONDS) : this.requests.poll();
+				} catch (InterruptedException ie) {
+					next = null;
+				}
+
+				if (next == null)
+					break;
+
+				if (next == STOP_REQUEST) {
+					stop = true;
+					break;
+				}
+
+				if (next instanceof FlushRequest) {
+					flush = (FlushRequest) next;
+					break;
+				}
+
+				batch.add(next);
+			}
+
+			writeBatch(batch);
+
+			if (flush != null)
+				release(flush);
+		}
+	}
+
+
+	private void release(FlushRequest flush) {
+
+		flush.failure = this.failure;
+		this.failure = null;
+		flush.written.countDown();
+	}
+
+
+	/**
+	 * Writes a batch of requests. The requests are grouped by resource and ordered by page number;
+	 * consecutive pages are written together.
+	 */
+	private void writeBatch(List<G5WriteRequest> batch) {
+
+		Map<Integer, TreeMap<Integer, G5WriteRequest>> byResource = new LinkedHashMap<Integer, TreeMap<Integer, G5WriteRequest>>();
+
+		for (G5WriteRequest request : batch) {
+
+			TreeMap<Integer, G5WriteRequest> pages = byResource.get(request.getResourceId());
+
+			if (pages == null) {
+				pages = new TreeMap<Integer, G5WriteRequest>();
+				byResource.put(request.getResourceId(), pages);
+			}
+
+			// a later request for the same page carries the newer contents
+			G5WriteRequest superseded = pages.put(request.getPageNumber(), request);
+
+			if (superseded != null)
+				complete(superseded);
+		}
+
+		for (TreeMap<Integer, G5WriteRequest> pages : byResource.values()) {
+
+			List<G5WriteRequest> run = new ArrayList<G5WriteRequest>();
+			int lastPageNumber = Integer.MIN_VALUE;
+
+			for (Map.Entry<Integer, G5WriteRequest> entry : pages.entrySet()) {
+
+				if (!run.isEmpty() && entry.getKey() != lastPageNumber + 1) {
+					writeRun(run);
+					run.clear();
+				}
 
+				run.add(entry.getValue());
+				lastPageNumber = entry.getKey();
+			}
+
+			writeRun(run);
+		}
+	}
+
+
+	private void writeRun(List<G5WriteRequest> run) {
+
+		ResourceManager resource = run.get(0).getManager();
+		long start = this.metrics != null ? System.nanoTime() : 0;
+
+		try {
+			synchronized (resource) {
+
+				if (run.size() == 1) {
+					resource.writePageToResource(run.get(0).getBuffer(), run.get(0).getWrapper());
+				} else {
+					byte[][] buffers = new byte[run.size()][];
+					CacheableData[] wrappers = new CacheableData[run.size()];
+
+					for (int i = 0; i < run.size(); i++) {
+						buffers[i] = run.get(i).getBuffer();
+						wrappers[i] = run.get(i).getWrapper();
 					}
-					
-				} catch (IOException ioe) {
-					System.out.println("Write thread IOException : " + ioe.getMessage());
-				} finally {
-					callback.freeBuffer(resource.getPageSize());
+
+					resource.writePagesToResource(buffers, wrappers);
 				}
 			}
-			
+
+			if (this.metrics != null)
+				this.metrics.written(run.get(0).getResourceId(), run.size(), System.nanoTime() - start);
+
+		} catch (IOException ioe) {
+			System.out.println("Write thread IOException : " + ioe.getMessage());
+
+			if (this.failure == null)
+				this.failure = ioe;
+		} finally {
+			for (G5WriteRequest request : run) {
+				complete(request);
+			}
+		}
+	}
+
+
+	private void complete(G5WriteRequest request) {
+
+		this.pending.computeIfPresent(key(request), (id, requests) -> {
+
+			int index = Arrays.asList(requests).indexOf(request);
+
+			if (index < 0)
+				return requests;
+
+			if (requests.length == 1)
+				return null;
+
+			G5WriteRequest[] remaining = new G5WriteRequest[requests.length - 1];
+			System.arraycopy(requests, 0, remaining, 0, index);
+			System.arraycopy(requests, index + 1, remaining, index, remaining.length - index);
+			return remaining;
+		});
+
+		// a reclaimed page is back in the cache, together with its frame
+		if (!request.complete())
+			return;
+
+		// the frame of an evicted page: the page cannot come back from the queue any more,
+		// since taking it back reclaims all of its requests
+		if (request.getBuffer() == request.getWrapper().getBuffer())
+			request.getWrapper().markExpired();
+
+		this.callback.freeBuffer(request.getManager().getPageSize(), request.getBuffer());
+	}
+
+
+	public void request(G5WriteRequest request) {
+
+		this.pending.merge(key(request), new G5WriteRequest[] { request }, (requests, added) -> {
+
+			G5WriteRequest[] all = Arrays.copyOf(requests, requests.length + 1);
+			all[requests.length] = added[0];
+			return all;
+		});
+		this.requests.add(request);
+	}
+
+
+	private static EntryId key(G5WriteRequest request) {
+
+		return new EntryId(request.getResourceId(), request.getPageNumber());
+	}
+
+
+	/**
+	 * Gets the page that is waiting to be written for the given resource and page number,
+	 * if any, so that it can go back into the cache. If the page was queued several times, the
+	 * latest version is returned. The requests for the page are reclaimed, so that the frame of
+	 * the page is not reused once they complete.
+	 */
+	public CacheableData getRequest(int resourceId, int pageNumber) {
+
+		G5WriteRequest[] requests = this.pending.get(new EntryId(resourceId, pageNumber));
+
+		if (requests == null)
+			return null;
+
+		G5WriteRequest latest = requests[requests.length - 1];
+
+		// the request may have completed in the meantime, then the page is on the resource
+		if (!latest.reclaim())
+			return null;
+
+		for (G5WriteRequest request : requests) {
+			if (request.getWrapper() == latest.getWrapper())
+				request.reclaim();
 		}
-		
-	}
-	
-	
-	
-	public synchronized void request(G5WriteRequest request) {
-		
-	//	System.out.println("Rq");
-		requests.add(request);
-	}
-	
-	public synchronized CacheableData getRequest(int resourceId, int pageNumber) {
-		
-		Iterator<G5WriteRequest> it = requests.iterator();
-		
-		while (it.hasNext()) {
-			
-			G5WriteRequest request = it.next();
-			
-			synchronized(request) {		
-					if (request.getResourceId() == resourceId && request.getWrapper().getPageNumber() == pageNumber)
-						return request.getWrapper();
+		return latest.getWrapper();
+	}
+
+
+	/**
+	 * Checks whether a write of the given page of the given resource is still queued.
+	 */
+	public boolean hasPendingWrite(int resourceId, CacheableData page) {
+
+		G5WriteRequest[] requests = this.pending.get(new EntryId(resourceId, page.getPageNumber()));
+
+		if (requests != null) {
+			for (G5WriteRequest request : requests) {
+				if (request.getWrapper() == page)
+					return true;
 			}
 		}
-		return null;
-		
+		return false;
 	}
-	
-	
+
+
+	/**
+	 * Checks whether a write of the page with the given number is still queued. Until it
+	 * completes, the resource may hold an older version of the page.
+	 */
+	public boolean hasPendingWrite(int resourceId, int pageNumber) {
+
+		return this.pending.containsKey(new EntryId(resourceId, pageNumber));
+	}
+
+
+	/**
+	 * Gets the number of pages that are waiting to be written.
+	 */
+	public int getNumberOfPendingPages() {
+		return this.pending.size();
+	}
+
+
+	/**
+	 * Blocks until all requests issued before this call have been written. Returns right away
+	 * if the thread is not running.
+	 *
+	 * @throws IOException Thrown, if a write failed since the last flush.
+	 * @throws InterruptedException Thrown, if the calling thread was interrupted while waiting.
+	 */
+	public void flush() throws IOException, InterruptedException {
+
+		if (!isAlive())
+			return;
+
+		FlushRequest flush = new FlushRequest();
+		this.requests.add(flush);
+
+		// the thread may stop before it reaches the flush request
+		while (!flush.written.await(100, TimeUnit.MILLISECONDS)) {
+			if (!isAlive())
+				return;
+		}
+
+		if (flush.failure != null)
+			throw flush.failure;
+	}
+
+
+	/**
+	 * Stops the thread after all requests issued so far have been written.
+	 */
 	public void stopThread()
 	{
-		this.alive = false;
+		this.requests.add(STOP_REQUEST);
 	}
-	
-	
 }
@@ -0,0 +1,173 @@
+package de.tuberlin.dima.minidb.io.tables;
+
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.BasicType;
+import de.tuberlin.dima.minidb.core.DataField;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.core.IntField;
+import de.tuberlin.dima.minidb.qexec.LowLevelPredicate;
+
+/**
+ * A predicate compiled against the binary encoding of its column, so that the pages evaluate it
+ * on the bytes of a record without creating a field. Integer columns compare the encoded number
+ * with the literal, VARCHAR columns test equality and inequality on the encoded characters.
+ * Predicates on other columns, and other operators on VARCHAR columns, are not compiled and are
+ * evaluated on fields as before.
+ * <p>
+ * Like the predicates on fields, a compiled predicate lets no NULL pass.
+ */
+final class G5BytePredicate {
+
+	private final BasicType type;
+
+	/**
+	 * The predicate, which applies the operator to the result of the comparison.
+	 */
+	private final LowLevelPredicate predicate;
+
+	/**
+	 * The literal as number for integer columns, and as encoded characters for VARCHAR columns.
+	 */
+	private final long number;
+	private final byte[] characters;
+
+	private G5BytePredicate(BasicType type, LowLevelPredicate predicate, long number, byte[] characters) {
+		this.type = type;
+		this.predicate = predicate;
+		this.number = number;
+		this.characters = characters;
+	}
+
+	/**
+	 * Compiles the predicate for a column of the given type.
+	 *
+	 * @return The compiled predicate, or null, if the predicate must be evaluated on fields.
+	 */
+	static G5BytePredicate compile(LowLevelPredicate predicate, DataType columnType) {
+
+		DataField literal = predicate.getLiteral();
+		BasicType type = columnType.getBasicType();
+
+		if (literal.isNULL() || literal.getBasicType() != type)
+			return null;
+
+		byte[] encoded = new byte[literal.getNumberOfBytes()];
+		literal.encodeBinary(encoded, 0);
+
+		switch (type) {
+		case SMALL_INT:
+		case INT:
+		case BIG_INT:
+			return new G5BytePredicate(type, predicate, readNumber(type, encoded, 0), null);
+
+		case VAR_CHAR:
+			// only equality can be decided on the bytes, the order of the strings cannot
+			boolean equal = predicate.acceptsComparison(0);
+			if (equal == predicate.acceptsComparison(-1) || equal == predicate.acceptsComparison(1))
+				return null;
+			return new G5BytePredicate(type, predicate, 0, encoded);
+
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Compiles the predicates for the columns of the schema.
+	 *
+	 * @return The compiled predicates, null where a predicate must be evaluated on fields, or
+	 *         null, if there are no predicates.
+	 */
+	static G5BytePredicate[] compile(LowLevelPredicate[] preds, TableSchema schema) {
+
+		if (preds == null || preds.length == 0)
+			return null;
+
+		G5BytePredicate[] compiled = new G5BytePredicate[preds.length];
+		for (int j = 0; j < preds.length; j++)
+			compiled[j] = compile(preds[j], schema.getColumn(preds[j].getColumnIndex()).getDataType());
+		return compiled;
+	}
+
+	/**
+	 * Evaluates the predicate on the value of the column at the given offset, which is the
+	 * number itself for integer columns, and the offset and the length of the characters for
+	 * VARCHAR columns, where offset and length zero encode NULL.
+	 */
+	boolean evaluate(byte[] buffer, int valueOffset) {
+
+		if (characters == null) {
+			long value = readNumber(type, buffer, valueOffset);
+
+			// the smallest number of each type encodes NULL
+			if (value == nullNumber(type))
+				return false;
+
+			return predicate.acceptsComparison(value < number ? -1 : value == number ? 0 : 1);
+		}
+
+		int start = IntField.getIntFromBinary(buffer, valueOffset);
+		int length = IntField.getIntFromBinary(buffer, valueOffset + 4);
+
+		if (start == 0 && length == 0)
+			return false;
+
+		boolean equal = length == characters.length;
+		for (int i = 0; equal && i < length; i++)
+			equal = buffer[start + i] == characters[i];
+
+		return predicate.acceptsComparison(equal ? 0 : 1);
+	}
+
+	/**
+	 * Predicates compiled for a page, together with the array they were compiled from, so that
+	 * the page compiles them only once for a caller that passes the same array for every record.
+	 * The compiled predicates hold no state, threads may share them.
+	 */
+	static final class Compiled {
+
+		private final LowLevelPredicate[] preds;
+		private final G5BytePredicate[] compiled;
+
+		Compiled(LowLevelPredicate[] preds, G5BytePredicate[] compiled) {
+			this.preds = preds;
+			this.compiled = compiled;
+		}
+
+		/**
+		 * Checks whether these are the compiled predicates of the given array.
+		 */
+		boolean isFor(LowLevelPredicate[] preds) {
+			return this.preds == preds;
+		}
+
+		G5BytePredicate[] get() {
+			return this.compiled;
+		}
+	}
+
+	private static long readNumber(BasicType type, byte[] buffer, int offset) {
+
+		switch (type) {
+		case SMALL_INT:
+			return (short) ((buffer[offset] & 0xff) | (buffer[offset + 1] << 8));
+		case INT:
+			return IntField.getIntFromBinary(buffer, offset);
+		default:
+			return (IntField.getIntFromBinary(buffer, offset) & 0xffffffffL) |
+					((long) IntField.getIntFromBinary(buffer, offset + 4) << 32);
+		}
+	}
+
+	private static long nullNumber(BasicType type) {
+
+		switch (type) {
+		case SMALL_INT:
+			return Short.MIN_VALUE;
+		case INT:
+			return Integer.MIN_VALUE;
+		default:
+			return Long.MIN_VALUE;
+		}
+	}
+}
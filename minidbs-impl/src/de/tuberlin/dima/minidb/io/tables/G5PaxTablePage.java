@@ -0,0 +1,812 @@
+package de.tuberlin.dima.minidb.io.tables;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataField;
+import de.tuberlin.dima.minidb.core.DataTuple;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.core.RID;
+import de.tuberlin.dima.minidb.io.cache.PageExpiredException;
+import de.tuberlin.dima.minidb.io.cache.PageFormatException;
+import de.tuberlin.dima.minidb.qexec.LowLevelPredicate;
+import de.tuberlin.dima.minidb.util.Pair;
+
+/**
+ * A table page in the PAX layout. After the 32 byte header, the page holds one tombstone byte
+ * per record slot, followed by one mini-page per column. A mini-page holds the values of its
+ * column for all slots of the page, fixed-length values in place, variable-length values as
+ * offset and length into the chunk at the end of the page, as on row pages.
+ * <p>
+ * The number of slots is fixed when the page is created, so that every mini-page starts at a
+ * known offset. It is computed such that the slots fit with all variable-length values at
+ * their maximal length. Shorter values leave part of the page unused.
+ * <p>
+ * Fetching a tuple reads only the mini-pages of the requested columns, and the values of one
+ * column for consecutive records lie next to each other.
+ * <p>
+ * The mini-page of a dictionary encoded column holds one byte codes. The distinct values of
+ * the column are kept once in the dictionary of the page, which grows from the end of the
+ * mini-pages towards the chunk, each entry as the column and the length of the value in one
+ * int, followed by the value. The codes number the entries of a column in their order, and
+ * a page holds at most 255 values per column. The page decodes its dictionary once, so that
+ * all records with the same value share one field, and evaluates a predicate on such a column
+ * once per code instead of once per record.
+ */
+public class G5PaxTablePage implements TablePage {
+
+	/**
+	 * The magic number of pages in the PAX layout, which differs from the one of row pages.
+	 */
+	public static final int PAX_PAGE_HEADER_MAGIC_NUMBER = 0xDEADBEE5;
+
+	public static final int HEADER_POS_MAGIC_NUMBER = 0;
+	public static final int HEADER_POS_PAGE_NUMBER = 4;
+	public static final int HEADER_POS_NUMBER_RECORDS = 8;
+	public static final int HEADER_POS_CAPACITY = 12;
+	public static final int HEADER_POS_CHUNK_OFFSET = 16;
+	public static final int HEADER_POS_DICTIONARY_END = 20;
+
+	/**
+	 * The code of NULL values in dictionary encoded columns, and the number of codes for values.
+	 */
+	private static final int NULL_CODE = 0xff;
+
+	private byte[] binaryPage;
+	private TableSchema schema;
+
+	private boolean expired;
+	private boolean modified;
+
+	/**
+	 * The number of record slots on the page.
+	 */
+	private int capacity;
+
+	/**
+	 * The offset of each column's mini-page and the width of its values.
+	 */
+	private int[] columnOffsets;
+	private int[] columnWidths;
+
+	/**
+	 * The end of the last mini-page, where the space for the chunk starts.
+	 */
+	private int dataEnd;
+
+	/**
+	 * The position up to which all records are known to be alive, where the search for the
+	 * slot of a deleted record starts.
+	 */
+	private int freeSlotHint;
+
+	/**
+	 * The decoded dictionary of each dictionary encoded column, indexed by code, null for the
+	 * other columns, and the number of entries in it.
+	 */
+	private DataField[][] dictionaries;
+	private int[] dictionarySizes;
+
+	/**
+	 * The codes of the dictionary values, built on the first insert.
+	 */
+	private List<Map<DataField, Integer>> dictionaryCodes;
+
+	/**
+	 * The predicates compiled last, see {@link #compile(LowLevelPredicate[])}.
+	 */
+	private G5BytePredicate.Compiled lastCompiled;
+
+
+	/**
+	 * Create a page from an existing buffer
+	 *
+	 * @param schema The schema of the table
+	 * @param binaryPage The existing buffer to build the TablePage from
+	 * @throws PageFormatException if the buffer is not correctly formed
+	 */
+	public G5PaxTablePage(TableSchema schema, byte[] binaryPage) throws PageFormatException {
+
+		this.binaryPage = binaryPage;
+		this.schema = schema;
+
+		expired = false;
+		modified = false;
+
+		if (readIntByteArray(binaryPage, HEADER_POS_MAGIC_NUMBER) != PAX_PAGE_HEADER_MAGIC_NUMBER)
+			throw new PageFormatException("Magic number doesn't match");
+
+		computeLayout(readIntByteArray(binaryPage, HEADER_POS_CAPACITY));
+
+		if (dataEnd > binaryPage.length)
+			throw new PageFormatException("The record slots of the page exceed the page size");
+
+		readDictionaries();
+	}
+
+	/**
+	 * Create a new page and initialize its header
+	 *
+	 * @param schema The schema of the table
+	 * @param binaryPage The buffer to build the TablePage in
+	 * @param newPageNumber The number of the new page
+	 * @throws PageFormatException if not even one record fits on the page
+	 */
+	public G5PaxTablePage(TableSchema schema, byte[] binaryPage, int newPageNumber) throws PageFormatException {
+
+		this.binaryPage = binaryPage;
+		this.schema = schema;
+
+		expired = false;
+		modified = true;	// new pages are considered already modified
+
+		// a slot takes its tombstone, its values, and its variable-length values at full length,
+		// a dictionary encoded column its code and room for a distinct value per eight records
+		int slotWidth = 1;
+		for (int i = 0; i < schema.getNumberOfColumns(); i++) {
+			DataType dataType = schema.getColumn(i).getDataType();
+			if (schema.getColumn(i).isDictionaryEncoded())
+				slotWidth += 1 + (4 + dataType.getNumberOfBytes() + 7) / 8;
+			else
+				slotWidth += dataType.isFixLength() ? dataType.getNumberOfBytes() : 8 + dataType.getNumberOfBytes();
+		}
+
+		int capacity = (binaryPage.length - TABLE_DATA_PAGE_HEADER_BYTES) / slotWidth;
+		if (capacity < 1)
+			throw new PageFormatException("A record of the table does not fit on a page");
+
+		computeLayout(capacity);
+
+		writeIntByteArray(binaryPage, HEADER_POS_MAGIC_NUMBER, PAX_PAGE_HEADER_MAGIC_NUMBER);
+		writeIntByteArray(binaryPage, HEADER_POS_PAGE_NUMBER, newPageNumber);
+		writeIntByteArray(binaryPage, HEADER_POS_NUMBER_RECORDS, 0);
+		writeIntByteArray(binaryPage, HEADER_POS_CAPACITY, capacity);
+		writeIntByteArray(binaryPage, HEADER_POS_CHUNK_OFFSET, binaryPage.length);
+		writeIntByteArray(binaryPage, HEADER_POS_DICTIONARY_END, dataEnd);
+
+		readDictionaries();
+	}
+
+	/**
+	 * Computes where the mini-pages start for the given number of slots.
+	 */
+	private void computeLayout(int capacity) {
+
+		this.capacity = capacity;
+
+		int numColumns = schema.getNumberOfColumns();
+		columnOffsets = new int[numColumns];
+		columnWidths = new int[numColumns];
+
+		int offset = TABLE_DATA_PAGE_HEADER_BYTES + capacity;
+		for (int i = 0; i < numColumns; i++) {
+			DataType dataType = schema.getColumn(i).getDataType();
+			if (schema.getColumn(i).isDictionaryEncoded())
+				columnWidths[i] = 1;
+			else
+				columnWidths[i] = dataType.isFixLength() ? dataType.getNumberOfBytes() : 8;
+			columnOffsets[i] = offset;
+			offset += capacity * columnWidths[i];
+		}
+
+		dataEnd = offset;
+	}
+
+	/**
+	 * Decodes the dictionary entries of the page.
+	 */
+	private void readDictionaries() throws PageFormatException {
+
+		int numColumns = schema.getNumberOfColumns();
+		dictionaries = new DataField[numColumns][];
+		dictionarySizes = new int[numColumns];
+
+		for (int i = 0; i < numColumns; i++) {
+			if (schema.getColumn(i).isDictionaryEncoded())
+				dictionaries[i] = new DataField[NULL_CODE];
+		}
+
+		int end = getDictionaryEnd();
+		if (end > getChunkOffset())
+			throw new PageFormatException("The dictionary of the page overlaps its chunk");
+
+		for (int offset = dataEnd; offset < end; ) {
+
+			int entry = readIntByteArray(binaryPage, offset);
+			int column = entry >>> 16;
+			int length = entry & 0xffff;
+			offset += 4;
+
+			if (column >= numColumns || dictionaries[column] == null || dictionarySizes[column] == NULL_CODE || offset + length > end)
+				throw new PageFormatException("Malformed dictionary entry on the page");
+
+			// values are kept at their length, also those of CHAR columns
+			DataType type = schema.getColumn(column).getDataType();
+			dictionaries[column][dictionarySizes[column]++] = type.getFromBinary(binaryPage, offset, length);
+			offset += length;
+		}
+	}
+
+	/**
+	 * Gets the end of the dictionary. Pages without dictionary encoded columns may not have set it.
+	 */
+	private int getDictionaryEnd() {
+		return Math.max(dataEnd, readIntByteArray(binaryPage, HEADER_POS_DICTIONARY_END));
+	}
+
+
+	@Override
+	public boolean hasBeenModified() throws PageExpiredException {
+
+		if (expired) throw new PageExpiredException();
+		return modified;
+	}
+
+	@Override
+	public void markClean() {
+		modified = false;
+	}
+
+	@Override
+	public void markExpired() {
+		expired = true;
+	}
+
+	@Override
+	public boolean isExpired() {
+		return expired;
+	}
+
+	@Override
+	public byte[] getBuffer() {
+		return binaryPage;
+	}
+
+	@Override
+	public int getPageNumber() throws PageExpiredException {
+
+		if (expired) throw new PageExpiredException();
+
+		return readIntByteArray(binaryPage, HEADER_POS_PAGE_NUMBER);
+	}
+
+	@Override
+	public int getNumRecordsOnPage() throws PageExpiredException {
+
+		if (expired) throw new PageExpiredException();
+
+		return readIntByteArray(binaryPage, HEADER_POS_NUMBER_RECORDS);
+	}
+
+	private int getChunkOffset() {
+		return readIntByteArray(binaryPage, HEADER_POS_CHUNK_OFFSET);
+	}
+
+	private boolean isDeleted(int position) {
+		return (binaryPage[TABLE_DATA_PAGE_HEADER_BYTES + position] & 0x1) == 1;
+	}
+
+	@Override
+	public boolean insertTuple(DataTuple tuple) throws PageFormatException, PageExpiredException {
+
+		if (expired) throw new PageExpiredException();
+
+		int numRecords = getNumRecordsOnPage();
+
+		if (numRecords == capacity || !fits(tuple))
+			return false;
+
+		writeRecord(tuple, numRecords);
+		writeIntByteArray(binaryPage, HEADER_POS_NUMBER_RECORDS, numRecords + 1);
+
+		this.modified = true;
+
+		return true;
+	}
+
+	@Override
+	public int insertTupleReusingSlot(DataTuple tuple) throws PageFormatException, PageExpiredException {
+
+		if (expired) throw new PageExpiredException();
+
+		int numRecords = getNumRecordsOnPage();
+
+		// find the first deleted record, all records before the hint are alive
+		int position = freeSlotHint;
+		while (position < numRecords && !isDeleted(position))
+			position++;
+
+		freeSlotHint = position;
+
+		if (position == numRecords)
+			return insertTuple(tuple) ? numRecords : -1;
+
+		if (!fits(tuple))
+			return -1;
+
+		writeRecord(tuple, position);
+		freeSlotHint = position + 1;
+
+		this.modified = true;
+
+		return position;
+	}
+
+	@Override
+	public int getNumFreeSlots() throws PageExpiredException {
+
+		if (expired) throw new PageExpiredException();
+
+		int numRecords = getNumRecordsOnPage();
+		int free = capacity - numRecords;
+
+		for (int i = freeSlotHint; i < numRecords; i++) {
+			if (isDeleted(i))
+				free++;
+		}
+
+		return free;
+	}
+
+	/**
+	 * Checks that the variable-length values of the tuple fit into the chunk, and its values
+	 * of dictionary encoded columns that are not in the dictionaries into them.
+	 */
+	private boolean fits(DataTuple tuple) throws PageFormatException {
+
+		int width = getChunkWidth(tuple);
+
+		for (int i = 0; i < dictionaries.length; i++) {
+
+			DataField field = tuple.getField(i);
+
+			if (dictionaries[i] != null && !field.isNULL() && getCode(i, field) < 0) {
+				if (dictionarySizes[i] == NULL_CODE)
+					return false;
+				width += 4 + field.getNumberOfBytes();
+			}
+		}
+
+		return width <= getChunkOffset() - getDictionaryEnd();
+	}
+
+	/**
+	 * Gets the code of the value in the dictionary of the column, or -1, if it is not in it.
+	 */
+	private int getCode(int column, DataField value) {
+
+		if (dictionaryCodes == null) {
+			dictionaryCodes = new ArrayList<Map<DataField, Integer>>(dictionaries.length);
+			for (int i = 0; i < dictionaries.length; i++) {
+				Map<DataField, Integer> codes = null;
+				if (dictionaries[i] != null) {
+					codes = new HashMap<DataField, Integer>();
+					for (int code = 0; code < dictionarySizes[i]; code++)
+						codes.put(dictionaries[i][code], code);
+				}
+				dictionaryCodes.add(codes);
+			}
+		}
+
+		Integer code = dictionaryCodes.get(column).get(value);
+		return code == null ? -1 : code;
+	}
+
+	/**
+	 * Gets the code of the value in the dictionary of the column, and adds it to the dictionary
+	 * if it is not in it yet. The caller checked that the dictionary has room for it.
+	 */
+	private int encode(int column, DataField value) {
+
+		int code = getCode(column, value);
+		if (code >= 0)
+			return code;
+
+		int offset = getDictionaryEnd();
+		writeIntByteArray(binaryPage, offset, (column << 16) | value.getNumberOfBytes());
+		value.encodeBinary(binaryPage, offset + 4);
+		writeIntByteArray(binaryPage, HEADER_POS_DICTIONARY_END, offset + 4 + value.getNumberOfBytes());
+
+		code = dictionarySizes[column]++;
+		dictionaries[column][code] = value;
+		dictionaryCodes.get(column).put(value, code);
+		return code;
+	}
+
+	/**
+	 * Gets the number of bytes the variable-length fields of the tuple take in the chunk,
+	 * and checks that the tuple matches the schema.
+	 */
+	private int getChunkWidth(DataTuple tuple) throws PageFormatException {
+
+		if (tuple.getNumberOfFields() != schema.getNumberOfColumns())
+			throw new PageFormatException("Tuple and page format not coherent");
+
+		int chunkWidth = 0;
+
+		for (int i = 0; i < tuple.getNumberOfFields(); i++) {
+
+			DataField field = tuple.getField(i);
+
+			if (!field.getBasicType().equals(schema.getColumn(i).getDataType().getBasicType()))
+				throw new PageFormatException("Tuple and page format not coherent");
+
+			if (!field.getBasicType().isFixLength() && dictionaries[i] == null)
+				chunkWidth += field.getNumberOfBytes();
+		}
+
+		return chunkWidth;
+	}
+
+	/**
+	 * Writes the values of the tuple to the given slot of the mini-pages, and its
+	 * variable-length values to the chunk. The caller checked that the chunk has room for them.
+	 */
+	private void writeRecord(DataTuple tuple, int position) {
+
+		binaryPage[TABLE_DATA_PAGE_HEADER_BYTES + position] = 0;
+
+		int currentChunkOffset = getChunkOffset();
+
+		for (int i = 0; i < tuple.getNumberOfFields(); i++) {
+
+			DataField field = tuple.getField(i);
+			int valueOffset = columnOffsets[i] + position * columnWidths[i];
+
+			if (dictionaries[i] != null) {
+
+				binaryPage[valueOffset] = (byte) (field.isNULL() ? NULL_CODE : encode(i, field));
+
+			} else if (field.getBasicType().isFixLength()) {
+
+				field.encodeBinary(binaryPage, valueOffset);
+
+			} else if (field.isNULL()) {
+
+				writeIntByteArray(binaryPage, valueOffset, 0);
+				writeIntByteArray(binaryPage, valueOffset + 4, 0);
+
+			} else {
+
+				currentChunkOffset -= field.getNumberOfBytes();
+				field.encodeBinary(binaryPage, currentChunkOffset);
+
+				writeIntByteArray(binaryPage, valueOffset, currentChunkOffset);
+				writeIntByteArray(binaryPage, valueOffset + 4, field.getNumberOfBytes());
+			}
+		}
+
+		writeIntByteArray(binaryPage, HEADER_POS_CHUNK_OFFSET, currentChunkOffset);
+	}
+
+	@Override
+	public void deleteTuple(int position) throws PageTupleAccessException, PageExpiredException {
+
+		if (expired) throw new PageExpiredException();
+
+		if (position >= getNumRecordsOnPage() || position < 0)
+			throw new PageTupleAccessException(position, "index negative or larger than the number of tuple on the page");
+
+		binaryPage[TABLE_DATA_PAGE_HEADER_BYTES + position] = 1;
+
+		if (position < freeSlotHint)
+			freeSlotHint = position;
+
+		this.modified = true;
+	}
+
+	/**
+	 * Reads the value of the given column of the record at the given position from its mini-page.
+	 */
+	private DataField getField(int column, int position) {
+		return getField(column, position, null);
+	}
+
+	/**
+	 * Reads the value of the given column of the record at the given position from its
+	 * mini-page into the holder, where the type allows it.
+	 */
+	private DataField getField(int column, int position, DataField holder) {
+
+		DataType type = schema.getColumn(column).getDataType();
+		int valueOffset = columnOffsets[column] + position * columnWidths[column];
+
+		if (dictionaries[column] != null) {
+			int code = binaryPage[valueOffset] & 0xff;
+			return code == NULL_CODE ? type.getNullValue() : dictionaries[column][code];
+		}
+
+		if (type.isFixLength())
+			return type.getFromBinary(binaryPage, valueOffset, columnWidths[column], holder);
+
+		int start = readIntByteArray(binaryPage, valueOffset);
+		int length = readIntByteArray(binaryPage, valueOffset + 4);
+
+		return start == 0 && length == 0 ? type.getNullValue() : type.getFromBinary(binaryPage, start, length, holder);
+	}
+
+	/**
+	 * Compiles the predicates against the mini-pages of this page. Predicates on dictionary
+	 * encoded columns are not compiled, they are decided per code. The page keeps the result for
+	 * the array last passed, so that the predicates are compiled once for all its records.
+	 *
+	 * @return The compiled predicates, null where one is evaluated on its field, or null, if
+	 *         there are no predicates.
+	 */
+	private G5BytePredicate[] compile(LowLevelPredicate[] preds) {
+
+		G5BytePredicate.Compiled last = lastCompiled;
+		if (last != null && last.isFor(preds))
+			return last.get();
+
+		G5BytePredicate[] compiled = G5BytePredicate.compile(preds, schema);
+		for (int j = 0; compiled != null && j < compiled.length; j++) {
+			if (dictionaries[preds[j].getColumnIndex()] != null)
+				compiled[j] = null;
+		}
+		lastCompiled = new G5BytePredicate.Compiled(preds, compiled);
+		return compiled;
+	}
+
+	/**
+	 * Evaluates the predicate on the record at the given position, on the bytes of its
+	 * mini-page if the predicate is compiled, and on the decoded field otherwise.
+	 */
+	private boolean evaluate(LowLevelPredicate pred, G5BytePredicate compiled, int position) {
+
+		int column = pred.getColumnIndex();
+		if (compiled != null)
+			return compiled.evaluate(binaryPage, columnOffsets[column] + position * columnWidths[column]);
+		return pred.evaluateWithNull(getField(column, position));
+	}
+
+	/**
+	 * Assembles the tuple of the columns in the bitmap, touching only their mini-pages.
+	 */
+	private DataTuple project(int position, long columnBitmap, int numCols) {
+		return project(position, columnBitmap, numCols, new DataTuple(numCols), null);
+	}
+
+	/**
+	 * Assembles the tuple of the columns in the bitmap in the target tuple. If holders are
+	 * given, the values are decoded into the fields of the previous record where the type
+	 * allows it, and the new fields are kept there.
+	 */
+	private DataTuple project(int position, long columnBitmap, int numCols, DataTuple target, DataField[] holders) {
+
+		int numColumns = columnOffsets.length;
+		int currentColumn = 0;
+
+		for (long bits = columnBitmap; bits != 0 && currentColumn < numCols; bits &= bits - 1) {
+
+			int column = Long.numberOfTrailingZeros(bits);
+			if (column >= numColumns)
+				break;
+
+			DataField field;
+			if (holders == null) {
+				field = getField(column, position);
+			} else {
+				field = getField(column, position, holders[column]);
+				holders[column] = field;
+			}
+			target.assignDataField(field, currentColumn++);
+		}
+
+		return target;
+	}
+
+	@Override
+	public DataTuple getDataTuple(int position, long columnBitmap, int numCols)
+			throws PageTupleAccessException, PageExpiredException {
+
+		if (expired) throw new PageExpiredException();
+
+		if (position >= getNumRecordsOnPage() || position < 0)
+			throw new PageTupleAccessException(position, "index negative or larger than the number of tuple on the page");
+
+		if (isDeleted(position))
+			return null;
+
+		return project(position, columnBitmap, numCols);
+	}
+
+	@Override
+	public DataTuple getDataTuple(LowLevelPredicate[] preds, int position, long columnBitmap, int numCols)
+			throws PageTupleAccessException, PageExpiredException {
+
+		if (expired) throw new PageExpiredException();
+
+		if (position >= getNumRecordsOnPage() || position < 0)
+			throw new PageTupleAccessException(position, "index negative or larger than the number of tuple on the page");
+
+		if (isDeleted(position))
+			return null;
+
+		// the predicates read only the mini-pages of their columns
+		G5BytePredicate[] compiled = compile(preds);
+		for (int j = 0; j < preds.length; j++) {
+			if (!evaluate(preds[j], compiled[j], position))
+				return null;
+		}
+
+		return project(position, columnBitmap, numCols);
+	}
+
+	@Override
+	public TupleIterator getIterator(int numCols, long columnBitmap)
+			throws PageTupleAccessException, PageExpiredException {
+
+		if (expired) throw new PageExpiredException();
+
+		return new PaxTupleIterator(null, numCols, columnBitmap, null);
+	}
+
+	@Override
+	public TupleIterator getIterator(LowLevelPredicate[] preds, int numCols, long columnBitmap)
+			throws PageTupleAccessException, PageExpiredException {
+
+		if (expired) throw new PageExpiredException();
+
+		return new PaxTupleIterator(preds, numCols, columnBitmap, null);
+	}
+
+	@Override
+	public TupleIterator getIterator(LowLevelPredicate[] preds, int numCols, long columnBitmap, DataTuple reuse)
+			throws PageTupleAccessException, PageExpiredException {
+
+		if (expired) throw new PageExpiredException();
+
+		return new PaxTupleIterator(preds, numCols, columnBitmap, reuse);
+	}
+
+	@Override
+	public TupleRIDIterator getIteratorWithRID() throws PageTupleAccessException, PageExpiredException {
+
+		if (expired) throw new PageExpiredException();
+
+		return new PaxTupleRIDIterator(schema.getNumberOfColumns(), Long.MAX_VALUE);
+	}
+
+
+	/**
+	 * Moves over the live records of the page that qualify for the predicates, and keeps the
+	 * tuple of the next one. Predicates on dictionary encoded columns are evaluated once per
+	 * code, and their results are kept for the following records, the others are evaluated
+	 * on the bytes of the mini-pages where they compile.
+	 */
+	private abstract class PaxCursor {
+
+		private static final byte UNKNOWN = 0, QUALIFIES = 1, FAILS = 2;
+
+		private final LowLevelPredicate[] preds;
+		private final G5BytePredicate[] compiled;
+		private final int numCols;
+		private final long columnBitmap;
+
+		/**
+		 * The tuple that is refilled for every record and the fields of the previous record,
+		 * both null, unless the caller gave a tuple to reuse.
+		 */
+		private final DataTuple reuse;
+		private final DataField[] holders;
+
+		/**
+		 * The result of each predicate on a dictionary encoded column per code, null for the others.
+		 */
+		private final byte[][] verdicts;
+
+		protected int position = -1;
+		protected DataTuple nextTuple;
+
+		PaxCursor(LowLevelPredicate[] preds, int numCols, long columnBitmap, DataTuple reuse) {
+			this.preds = preds;
+			this.compiled = compile(preds);
+			this.numCols = numCols;
+			this.columnBitmap = columnBitmap;
+			this.reuse = reuse;
+			this.holders = reuse == null ? null : new DataField[columnOffsets.length];
+
+			this.verdicts = preds == null ? null : new byte[preds.length][];
+			for (int j = 0; preds != null && j < preds.length; j++) {
+				if (dictionaries[preds[j].getColumnIndex()] != null)
+					verdicts[j] = new byte[NULL_CODE + 1];
+			}
+		}
+
+		private boolean qualifies(int position) {
+
+			for (int j = 0; j < preds.length; j++) {
+
+				int column = preds[j].getColumnIndex();
+
+				if (verdicts[j] == null) {
+					if (!evaluate(preds[j], compiled[j], position))
+						return false;
+					continue;
+				}
+
+				int code = binaryPage[columnOffsets[column] + position] & 0xff;
+				if (verdicts[j][code] == UNKNOWN)
+					verdicts[j][code] = preds[j].evaluateWithNull(getField(column, position)) ? QUALIFIES : FAILS;
+				if (verdicts[j][code] == FAILS)
+					return false;
+			}
+			return true;
+		}
+
+		public boolean hasNext() throws PageTupleAccessException {
+
+			if (nextTuple != null)
+				return true;
+
+			int numRecords = getNumRecordsOnPage();
+
+			while (++position < numRecords) {
+				if (!isDeleted(position) && (preds == null || qualifies(position))) {
+					nextTuple = reuse == null ? project(position, columnBitmap, numCols) :
+							project(position, columnBitmap, numCols, reuse, holders);
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private final class PaxTupleIterator extends PaxCursor implements TupleIterator {
+
+		PaxTupleIterator(LowLevelPredicate[] preds, int numCols, long columnBitmap, DataTuple reuse) {
+			super(preds, numCols, columnBitmap, reuse);
+		}
+
+		@Override
+		public DataTuple next() throws PageTupleAccessException {
+
+			if (!hasNext())
+				return null;
+
+			DataTuple tuple = nextTuple;
+			nextTuple = null;
+			return tuple;
+		}
+	}
+
+	private final class PaxTupleRIDIterator extends PaxCursor implements TupleRIDIterator {
+
+		PaxTupleRIDIterator(int numCols, long columnBitmap) {
+			super(null, numCols, columnBitmap, null);
+		}
+
+		@Override
+		public Pair<DataTuple, RID> next() throws PageTupleAccessException {
+
+			if (!hasNext())
+				return null;
+
+			Pair<DataTuple, RID> result = new Pair<DataTuple, RID>(nextTuple, new RID(getPageNumber(), position));
+			nextTuple = null;
+			return result;
+		}
+	}
+
+
+	private static void writeIntByteArray(byte[] buffer, int offset, int value) {
+
+		buffer[offset    ] = (byte) (value       );
+		buffer[offset + 1] = (byte) (value >>>  8);
+		buffer[offset + 2] = (byte) (value >>> 16);
+		buffer[offset + 3] = (byte) (value >>> 24);
+	}
+
+	private static int readIntByteArray(byte[] byteArray, int offset) {
+
+		return (byteArray[offset    ]        & 0x000000ff) |
+		      ((byteArray[offset + 1] <<  8) & 0x0000ff00) |
+		      ((byteArray[offset + 2] << 16) & 0x00ff0000) |
+		      ((byteArray[offset + 3] << 24) & 0xff000000);
+	}
+
+}
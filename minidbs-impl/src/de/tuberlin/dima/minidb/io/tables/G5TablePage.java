@@ -22,6 +22,22 @@ public class G5TablePage implements TablePage {
 	private boolean expired;
 	private boolean modified;
 	
+	/**
+	 * The position up to which all records are known to be alive, where the search for the
+	 * slot of a deleted record starts.
+	 */
+	private int freeSlotHint;
+	
+	/**
+	 * The offset of every column in a record, behind the tombstone.
+	 */
+	private int[] columnOffsets;
+	
+	/**
+	 * The predicates compiled last, see {@link #compile(LowLevelPredicate[])}.
+	 */
+	private G5BytePredicate.Compiled lastCompiled;
+	
 	public static int debug = 0;
 	
 
@@ -37,6 +53,7 @@ public class G5TablePage implements TablePage {
 		
 		this.binaryPage = binaryPage;
 		this.schema = schema;
+		this.columnOffsets = computeColumnOffsets(schema);
 		
 		expired = false;
 		modified = false; // Page already exists, not modified
@@ -93,9 +110,29 @@ public class G5TablePage implements TablePage {
 		writeIntByteArray(binaryPage, HEADER_POS_CHUNK_OFFSET, binaryPage.length);
 			
 		this.schema = schema;
+		this.columnOffsets = computeColumnOffsets(schema);
 		
 	}
 	
+	/**
+	 * Computes the offset of every column in a record, where fixed-length values take their
+	 * width and variable-length values the offset and the length of their bytes in the chunk.
+	 */
+	private static int[] computeColumnOffsets(TableSchema schema) {
+		
+		int[] offsets = new int[schema.getNumberOfColumns()];
+		int offset = 4;
+		
+		for (int i = 0; i < offsets.length; i++) {
+			
+			offsets[i] = offset;
+			DataType dataType = schema.getColumn(i).getDataType();
+			offset += dataType.isFixLength() ? dataType.getNumberOfBytes() : 8;
+		}
+		
+		return offsets;
+	}
+	
 
 	@Override
 	public boolean hasBeenModified() throws PageExpiredException {
@@ -104,6 +141,11 @@ public class G5TablePage implements TablePage {
 		return modified;
 	}
 
+	@Override
+	public void markClean() {
+		modified = false;
+	}
+
 	@Override
 	public void markExpired() {
 		expired = true;
@@ -171,81 +213,130 @@ public class G5TablePage implements TablePage {
 		/* TODO : Throw exception, if the format of the page is invalid, such as that
 		 *  current offset to the variable-length-chunk is invalid. */
 		
-		int chunkWidth = 0;
+		int chunkWidth = getChunkWidth(tuple);
 		int recordOffset = getNumRecordsOnPage()*getRecordWidth() + 32;
 
+		if (chunkWidth + getRecordWidth()  > getChunkOffset() - recordOffset)
+			return false;
 		
-	for (int i = 0; i < tuple.getNumberOfFields(); i++) {
-			
+		writeRecord(tuple, recordOffset);
+		writeIntByteArray(binaryPage, HEADER_POS_NUMBER_RECORDS, getNumRecordsOnPage()+1);
+
+		this.modified = true;
+		
+		return true;
+	}
+	
+	@Override
+	public int insertTupleReusingSlot(DataTuple tuple) throws PageFormatException,
+			PageExpiredException {
+		
+		if (expired) throw new PageExpiredException();
+		
+		int numRecords = getNumRecordsOnPage();
+		int recordWidth = getRecordWidth();
+		
+		// find the first deleted record, all records before the hint are alive
+		int position = freeSlotHint;
+		while (position < numRecords && (readIntByteArray(binaryPage, 32 + position * recordWidth) & 0x1) == 0)
+			position++;
+		
+		freeSlotHint = position;
+		
+		if (position == numRecords)
+			return insertTuple(tuple) ? numRecords : -1;
+		
+		// the slot is there, only the variable-length fields need room
+		if (getChunkWidth(tuple) > getChunkOffset() - (numRecords * recordWidth + 32))
+			return -1;
+		
+		writeRecord(tuple, 32 + position * recordWidth);
+		freeSlotHint = position + 1;
+		
+		this.modified = true;
+		
+		return position;
+	}
+	
+	@Override
+	public int getNumFreeSlots() throws PageExpiredException {
+		
+		if (expired) throw new PageExpiredException();
+		
+		int numRecords = getNumRecordsOnPage();
+		int recordWidth = getRecordWidth();
+		int free = 0;
+		
+		for (int i = freeSlotHint; i < numRecords; i++) {
+			if ((readIntByteArray(binaryPage, 32 + i * recordWidth) & 0x1) == 1)
+				free++;
+		}
+		
+		return free + (getChunkOffset() - (numRecords * recordWidth + 32)) / recordWidth;
+	}
+	
+	/**
+	 * Gets the number of bytes the variable-length fields of the tuple take in the chunk,
+	 * and checks that the tuple matches the schema.
+	 */
+	private int getChunkWidth(DataTuple tuple) throws PageFormatException {
+		
+		int chunkWidth = 0;
+		
+		for (int i = 0; i < tuple.getNumberOfFields(); i++) {
 			
 			DataField field = tuple.getField(i);
 			
 			if (!field.getBasicType().equals(schema.getColumn(i).getDataType().getBasicType()))
 				throw new PageFormatException("Tuple and page format not coherent");
 			
-			
-			
-			
 			if (!field.getBasicType().isFixLength()) {
 				
 				chunkWidth += field.getNumberOfBytes();
 			}
-			
-			//System.out.println(schema.getColumn(i).getColumnName() + " : " + schema.getColumn(i).getDataType() + ", "  + schema.getColumn(i).getDataType().getNumberOfBytes() + ", fixed : " + (schema.getColumn(i).getDataType().isFixLength() ? "yes" : "no"));	
 		}
-
-	if (chunkWidth + getRecordWidth()  > getChunkOffset() - recordOffset)
-		return false;
-		
 		
+		return chunkWidth;
+	}
 	
-	writeIntByteArray(binaryPage, recordOffset, 0);
-	
-	int currentRecordOffset = recordOffset +4;
-	int currentChunkOffset = getChunkOffset();
-	
-	for (int i = 0; i < tuple.getNumberOfFields(); i++) {
-		
+	/**
+	 * Writes the record of the tuple at the given offset, and its variable-length fields
+	 * to the chunk. The caller checked that the chunk has room for them.
+	 */
+	private void writeRecord(DataTuple tuple, int recordOffset) throws PageExpiredException {
 		
-		DataField field = tuple.getField(i);
+		writeIntByteArray(binaryPage, recordOffset, 0);
 		
+		int currentRecordOffset = recordOffset +4;
+		int currentChunkOffset = getChunkOffset();
 		
-		if (field.getBasicType().isFixLength()) {
-
-			field.encodeBinary(binaryPage, currentRecordOffset);
-			currentRecordOffset += schema.getColumn(i).getDataType().getNumberOfBytes();
-			
-		} else {
+		for (int i = 0; i < tuple.getNumberOfFields(); i++) {
 			
+			DataField field = tuple.getField(i);
 			
-			if (field.isNULL()) {
-				writeIntByteArray(binaryPage, currentRecordOffset, 0);
-				writeIntByteArray(binaryPage, currentRecordOffset + 4, 0);
-			} else {
-				currentChunkOffset -= field.getNumberOfBytes();
+			if (field.getBasicType().isFixLength()) {
+
+				field.encodeBinary(binaryPage, currentRecordOffset);
+				currentRecordOffset += schema.getColumn(i).getDataType().getNumberOfBytes();
 				
+			} else {
 				
+				if (field.isNULL()) {
+					writeIntByteArray(binaryPage, currentRecordOffset, 0);
+					writeIntByteArray(binaryPage, currentRecordOffset + 4, 0);
+				} else {
+					currentChunkOffset -= field.getNumberOfBytes();
+					
 					field.encodeBinary(binaryPage, currentChunkOffset);
-	
-				
-				
-				
-				writeIntByteArray(binaryPage, currentRecordOffset, currentChunkOffset);
-				writeIntByteArray(binaryPage, currentRecordOffset + 4, field.getNumberOfBytes());
-								
+					
+					writeIntByteArray(binaryPage, currentRecordOffset, currentChunkOffset);
+					writeIntByteArray(binaryPage, currentRecordOffset + 4, field.getNumberOfBytes());
+				}
+				currentRecordOffset += 8;	
 			}
-			currentRecordOffset += 8;	
 		}
 		
-		//System.out.println(schema.getColumn(i).getColumnName() + " : " + schema.getColumn(i).getDataType() + ", "  + schema.getColumn(i).getDataType().getNumberOfBytes() + ", fixed : " + (schema.getColumn(i).getDataType().isFixLength() ? "yes" : "no"));	
-	}
-	
-	writeIntByteArray(binaryPage, HEADER_POS_NUMBER_RECORDS, getNumRecordsOnPage()+1);
-	writeIntByteArray(binaryPage, HEADER_POS_CHUNK_OFFSET, currentChunkOffset);
-
-		this.modified = true;
-		
-		return true;
+		writeIntByteArray(binaryPage, HEADER_POS_CHUNK_OFFSET, currentChunkOffset);
 	}
 
 	@Override
@@ -258,6 +349,9 @@ public class G5TablePage implements TablePage {
 		
 		writeIntByteArray(binaryPage, recordOffset, 1);
 		
+		if (position < freeSlotHint)
+			freeSlotHint = position;
+		
 		this.modified = true;
 		
 	}
@@ -271,86 +365,7 @@ public class G5TablePage implements TablePage {
 		if (position > readIntByteArray(binaryPage, HEADER_POS_NUMBER_RECORDS) || position < 0) 
 			throw new PageTupleAccessException(position, "index negative or larger than the number of tuple on the page");
 
-		
-		int recordOffset = readIntByteArray(binaryPage, HEADER_POS_RECORD_WIDTH) * position + 32;
-		
-		if (( readIntByteArray(binaryPage, recordOffset) & 0x1) == 1)
-			return null;
-		
-		
-		
-
-		recordOffset += 4;
-		
-		DataTuple tuple = new DataTuple(numCols);
-		DataType type;
-		DataField field;
-		int currentColumn = 0;
-		
-		
-
-		for (int i =0; i < schema.getNumberOfColumns(); i++) {
-			
-			type = schema.getColumn(i).getDataType();
-
-			
-			
-			if ((columnBitmap & 0x1) == 0) {
-			
-				if (type.isFixLength()) {
-					recordOffset += type.getNumberOfBytes();
-					
-				} else {					
-					recordOffset += 8;
-				}
-
-			} else {
-
-				
-			
-			
-			
-			
-			
-			
-				if (type.isFixLength()) {
-				
-					field = type.getFromBinary(binaryPage, recordOffset);
-				
-					recordOffset += type.getNumberOfBytes();
-
-					if (field.getNumberOfBytes() != type.getNumberOfBytes() ) {
-
-				
-					}
-				
-				} else  {
-					int start = readIntByteArray(binaryPage, recordOffset);
-					int length = readIntByteArray(binaryPage, recordOffset+4);
-					
-					if(start == 0 && length ==0) {
-						field = type.getNullValue();
-						
-					} else {
-						
-	
-							field = type.getFromBinary(binaryPage, start, length);	
-							
-					}				
-					recordOffset += 8;
-							
-				}
-
-				tuple.assignDataField(field, currentColumn);
-				
-				currentColumn++;
-			}	
-			
-			columnBitmap >>>=1;
-		}
-		
-
-		return tuple;
+		return readRecord(null, null, position, columnBitmap, numCols, null, null);
 	}
 
 	@Override
@@ -358,86 +373,110 @@ public class G5TablePage implements TablePage {
 			long columnBitmap, int numCols) throws PageTupleAccessException,
 			PageExpiredException {
 		
-		/* TODO should be optimized and not just use the normal method */
-				
 		if (expired) throw new PageExpiredException();
 		
 		if (position > readIntByteArray(binaryPage, HEADER_POS_NUMBER_RECORDS) || position < 0) 
 			throw new PageTupleAccessException(position, "index negative or larger than the number of tuple on the page");
 
+		return readRecord(preds, compile(preds), position, columnBitmap, numCols, null, null);
+	}
+
+	/**
+	 * Reads the record at the given position into the target tuple, if it is alive and passes
+	 * the predicates. The predicates are evaluated first, the compiled ones on the bytes of the
+	 * record, so that a record that fails them creates no fields. If holders are given, the
+	 * values are decoded into the field of the same column from the previous call where the
+	 * type allows it, and the new fields are kept there.
+	 * 
+	 * @param compiled The predicates compiled for this page, null where one is evaluated on its field.
+	 * @param target The tuple to fill, or null, to create one with the given number of columns
+	 *               once the record passed.
+	 * @return The filled tuple, or null, if the record is deleted or fails a predicate.
+	 */
+	DataTuple readRecord(LowLevelPredicate[] preds, G5BytePredicate[] compiled, int position,
+			long columnBitmap, int numCols, DataTuple target, DataField[] holders) {
 		
 		int recordOffset = readIntByteArray(binaryPage, HEADER_POS_RECORD_WIDTH) * position + 32;
 		
 		if (( readIntByteArray(binaryPage, recordOffset) & 0x1) == 1)
 			return null;
-		
-		
 
-		recordOffset += 4;
-	
+		for (int j = 0; preds != null && j < preds.length; j++) {
+			
+			int column = preds[j].getColumnIndex();
+			
+			if (compiled != null && compiled[j] != null) {
+				if (!compiled[j].evaluate(binaryPage, recordOffset + columnOffsets[column]))
+					return null;
+				
+			} else {
+				DataField field = readField(column, recordOffset, holders == null ? null : holders[column]);
+				if (holders != null)
+					holders[column] = field;
+				
+				if (!preds[j].evaluateWithNull(field))
+					return null;
+			}
+		}
 		
-		DataTuple tuple = new DataTuple(numCols);
-		DataType type;
-		DataField field;
-		int currentColumn = 0;
+		// only records that passed are materialized, with the fetched columns alone
+		if (target == null)
+			target = new DataTuple(numCols);
 		
+		int numColumns = columnOffsets.length;
+		int currentColumn = 0;
 		
-
-		for (int i =0; i < schema.getNumberOfColumns(); i++) {
+		for (long bits = columnBitmap; bits != 0; bits &= bits - 1) {
 			
-			type = schema.getColumn(i).getDataType();
+			int column = Long.numberOfTrailingZeros(bits);
+			if (column >= numColumns)
+				break;
 			
+			DataField field = readField(column, recordOffset, holders == null ? null : holders[column]);
+			if (holders != null)
+				holders[column] = field;
 			
-			
-				if (type.isFixLength()) {
-				
-					field = type.getFromBinary(binaryPage, recordOffset);
-
-				
-					recordOffset += type.getNumberOfBytes();
+			target.assignDataField(field, currentColumn++);
+		}
 
-				
-				} else  {
-					int start = readIntByteArray(binaryPage, recordOffset);
-					int length = readIntByteArray(binaryPage, recordOffset+4);
-					
-					if(start == 0 && length ==0) {
-						field = type.getNullValue();
-						
-					} else {
-						
+		return target;
+	}
 	
-							field = type.getFromBinary(binaryPage, start, length);	
-							
-					}				
-					recordOffset += 8;							
-				}
-				
-				
-				
-				for(int j = 0; j < preds.length; j++) {
-					if (preds[j].getColumnIndex() == i) {						
-						if (!preds[j].evaluateWithNull(field))
-							return null;
-					}
-				}
-					
-
-					
-				if ((columnBitmap & 0x1) == 1) {
-					tuple.assignDataField(field, currentColumn);
-					
-					currentColumn++;
-				}
-				
-			
-			columnBitmap >>>=1;
-		}
+	/**
+	 * Decodes the value of the given column of the record at the given offset, into the
+	 * holder where the type allows it.
+	 */
+	private DataField readField(int column, int recordOffset, DataField holder) {
 		
-
-		return tuple;
+		DataType type = schema.getColumn(column).getDataType();
+		int valueOffset = recordOffset + columnOffsets[column];
+		
+		if (type.isFixLength())
+			return type.getFromBinary(binaryPage, valueOffset, type.getNumberOfBytes(), holder);
+		
+		int start = readIntByteArray(binaryPage, valueOffset);
+		int length = readIntByteArray(binaryPage, valueOffset + 4);
+		
+		return start == 0 && length == 0 ? type.getNullValue() : type.getFromBinary(binaryPage, start, length, holder);
+	}
+	
+	/**
+	 * Compiles the predicates against the record layout of this page. The page keeps the result
+	 * for the array last passed, so that callers that ask for one record at a time with the same
+	 * predicates compile them once.
+	 * 
+	 * @return The compiled predicates, null where one is evaluated on its field, or null, if
+	 *         there are no predicates.
+	 */
+	G5BytePredicate[] compile(LowLevelPredicate[] preds) {
 		
+		G5BytePredicate.Compiled last = lastCompiled;
 		
+		if (last == null || !last.isFor(preds)) {
+			last = new G5BytePredicate.Compiled(preds, G5BytePredicate.compile(preds, schema));
+			lastCompiled = last;
+		}
+		return last.get();
 	}
 
 	@Override
@@ -446,8 +485,7 @@ public class G5TablePage implements TablePage {
 		
 		if (expired) throw new PageExpiredException();
 
-		
-		return new G5TupleIterator(this, numCols, columnBitmap);
+		return new G5TupleIterator(this, null, numCols, columnBitmap, null);
 	}
 
 	@Override
@@ -457,7 +495,17 @@ public class G5TablePage implements TablePage {
 		
 		if (expired) throw new PageExpiredException();
 
-		return new G5TupleIterator(this, preds, numCols, columnBitmap);
+		return new G5TupleIterator(this, preds, numCols, columnBitmap, null);
+	}
+
+	@Override
+	public TupleIterator getIterator(LowLevelPredicate[] preds, int numCols,
+			long columnBitmap, DataTuple reuse) throws PageTupleAccessException,
+			PageExpiredException {
+		
+		if (expired) throw new PageExpiredException();
+
+		return new G5TupleIterator(this, preds, numCols, columnBitmap, reuse);
 	}
 
 	@Override
@@ -1,85 +1,83 @@
 package de.tuberlin.dima.minidb.io.tables;
 
+import de.tuberlin.dima.minidb.core.DataField;
 import de.tuberlin.dima.minidb.core.DataTuple;
 import de.tuberlin.dima.minidb.qexec.LowLevelPredicate;
 
 public class G5TupleIterator implements TupleIterator {
-	
+
 	int position;
 	int numCols;
 	long columnBitmap;
 	LowLevelPredicate[] preds;
-	
+
+	/**
+	 * The predicates compiled once for the page, null where one is evaluated on its field.
+	 */
+	G5BytePredicate[] compiled;
+
 	G5TablePage page;
-	
-	public G5TupleIterator(G5TablePage page, int numCols, long columnBitmap) {
-		
-		this.page = page;
-		this.numCols = numCols;
-		this.columnBitmap = columnBitmap;
-		
-		position = -1;
-		
-	}
-	
-	public G5TupleIterator(G5TablePage page, LowLevelPredicate[] preds, int numCols, long columnBitmap) {
-		
+
+	/**
+	 * The tuple that is refilled for every record and the fields from the previous record,
+	 * both null, unless the caller gave a tuple to reuse.
+	 */
+	DataTuple reuse;
+	DataField[] holders;
+
+	/**
+	 * The tuple that hasNext() found, until next() returns it, and a new tuple that records
+	 * which failed the predicates left unused.
+	 */
+	DataTuple nextTuple;
+	DataTuple spare;
+
+	public G5TupleIterator(G5TablePage page, LowLevelPredicate[] preds, int numCols, long columnBitmap, DataTuple reuse) {
+
 		this.page = page;
 		this.numCols = numCols;
 		this.columnBitmap = columnBitmap;
 		this.preds = preds;
+		this.compiled = page.compile(preds);
+		this.reuse = reuse;
+
+		if (reuse != null)
+			holders = new DataField[Long.SIZE];
+
 		position = -1;
-		
 	}
 
 	@Override
 	public boolean hasNext() throws PageTupleAccessException {
-		
+
+		if (nextTuple != null)
+			return true;
+
 		int numRecords = page.getNumRecordsOnPage();
-		
-		
-		
-		for (int i = position +1; i < numRecords; i++){
-			
-			if ((page.getTombstone(i) & 0x1) == 0) {
-				
-				if (preds.length == 0)		
-					return true;	
-				
-				if (page.getDataTuple(preds, i, columnBitmap, numCols) != null) 					
-					return true;
 
+		while (++position < numRecords) {
+
+			if (reuse == null && spare == null)
+				spare = new DataTuple(numCols);
+
+			nextTuple = page.readRecord(preds, compiled, position, columnBitmap, numCols, reuse != null ? reuse : spare, holders);
+			if (nextTuple != null) {
+				spare = null;
+				return true;
 			}
 		}
 		return false;
 	}
 
-	
-	
-	
 	@Override
 	public DataTuple next() throws PageTupleAccessException {
-		
-		int numRecords = page.getNumRecordsOnPage();
-		
-		for (int i = position +1; i < numRecords; i++){
-			
-			if ((page.getTombstone(i) & 0x1) == 0) {
-				if (preds == null) {
-					position = i;
-					return page.getDataTuple( i, columnBitmap, numCols);
-				}
-				
-				
-				DataTuple tuple = page.getDataTuple(preds, i, columnBitmap, numCols);
-				
-				if (tuple != null) {
-					position = i;
-					return tuple;	
-				}
-			}
-		}
-		return null;
+
+		if (!hasNext())
+			return null;
+
+		DataTuple tuple = nextTuple;
+		nextTuple = null;
+		return tuple;
 	}
 
 }
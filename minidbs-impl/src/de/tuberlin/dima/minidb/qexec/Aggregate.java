@@ -56,14 +56,15 @@ public class Aggregate {
 			sum.add(field);
 			
 		} else if (aggregation == AggregationType.MIN) {
+			// the field may be refilled in place by the child, so keep a copy
 			if(min.isNULL() || min.compareTo(field) > 0) {
-				min = field;
+				min = field.clone();
 			}
 			
 		} else if (aggregation == AggregationType.MAX) {
 			
 			if (max.isNULL() || max.compareTo(field) < 0) {
-				max = field;
+				max = field.clone();
 			}
 		}
 		
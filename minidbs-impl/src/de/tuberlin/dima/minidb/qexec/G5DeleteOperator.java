@@ -8,18 +8,30 @@ import de.tuberlin.dima.minidb.core.RID;
 import de.tuberlin.dima.minidb.io.cache.PageExpiredException;
 import de.tuberlin.dima.minidb.io.manager.BufferPoolException;
 import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.io.manager.PinnedPage;
+import de.tuberlin.dima.minidb.io.tables.FreeSpaceMap;
 import de.tuberlin.dima.minidb.io.tables.PageTupleAccessException;
 import de.tuberlin.dima.minidb.io.tables.TablePage;
+import de.tuberlin.dima.minidb.io.tables.TableResourceManager;
 
 public class G5DeleteOperator implements DeleteOperator {
 
 	private BufferPoolManager bufferPool;
 	private int resourceId;
 	private PhysicalPlanOperator child;
+	
+	/**
+	 * The table manager, through which the free-space map of the table is found. May be null.
+	 */
+	private TableResourceManager tableManager;
+	
+	private FreeSpaceMap freeSpaceMap;
 
-	public G5DeleteOperator(BufferPoolManager bufferPool, int resourceId, PhysicalPlanOperator child) {
+	public G5DeleteOperator(BufferPoolManager bufferPool, TableResourceManager tableManager, int resourceId,
+			PhysicalPlanOperator child) {
 		
 		this.bufferPool = bufferPool;
+		this.tableManager = tableManager;
 		this.resourceId = resourceId;
 		this.child = child;
 	}
@@ -28,6 +40,9 @@ public class G5DeleteOperator implements DeleteOperator {
 	public void open(DataTuple correlatedTuple) throws QueryExecutionException {
 		
 		child.open(correlatedTuple);
+		
+		// tell the free-space map of the table about the slots the deletes free
+		freeSpaceMap = tableManager == null ? null : tableManager.getFreeSpaceMap();
 
 	}
 
@@ -43,9 +58,13 @@ public class G5DeleteOperator implements DeleteOperator {
 				
 				RID rid = (RID) tuple.getField(0);
 				
-				TablePage page = (TablePage) bufferPool.getPageAndPin(resourceId, rid.getPageIndex());
-				
-				page.deleteTuple(rid.getTupleIndex());
+				try (PinnedPage pinned = bufferPool.pinPage(resourceId, rid.getPageIndex())) {
+					TablePage page = (TablePage) pinned.getPage();
+					page.deleteTuple(rid.getTupleIndex());
+					
+					if (freeSpaceMap != null)
+						freeSpaceMap.update(page.getPageNumber(), page.getNumFreeSlots());
+				}
 				
 				deleted++;
 				
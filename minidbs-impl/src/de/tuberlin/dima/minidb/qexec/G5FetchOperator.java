@@ -9,6 +9,7 @@ import de.tuberlin.dima.minidb.core.RID;
 import de.tuberlin.dima.minidb.io.cache.PageExpiredException;
 import de.tuberlin.dima.minidb.io.manager.BufferPoolException;
 import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.io.manager.PinnedPage;
 import de.tuberlin.dima.minidb.io.tables.PageTupleAccessException;
 import de.tuberlin.dima.minidb.io.tables.TablePage;
 
@@ -66,15 +67,11 @@ public class G5FetchOperator implements FetchOperator {
 		if ((childTuple = child.next()) != null) {
 			RID rid = (RID) childTuple.getField(0);
 			
-			TablePage page;
-			try {
-				page = (TablePage) bufferPool.getPageAndPin(tableResourceId, rid.getPageIndex());
+			try (PinnedPage pinned = bufferPool.pinPage(tableResourceId, rid.getPageIndex())) {
 				
-				DataTuple result = normalize(page.getDataTuple(rid.getTupleIndex(), colBitmap, columnIndexes.size()));
+				TablePage page = (TablePage) pinned.getPage();
 				
-				bufferPool.unpinPage(tableResourceId, rid.getPageIndex());
-				
-				return result;
+				return normalize(page.getDataTuple(rid.getTupleIndex(), colBitmap, columnIndexes.size()));
 				
 			} catch (BufferPoolException | IOException | PageExpiredException | PageTupleAccessException e) {
 				throw new QueryExecutionException(e);
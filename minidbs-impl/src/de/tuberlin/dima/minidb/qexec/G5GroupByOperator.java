@@ -40,7 +40,10 @@ public class G5GroupByOperator implements GroupByOperator {
 		
 		child.open(correlatedTuple);
 		
+		// the child may refill its tuples in place, so the group keeps a copy
 		groupTuple = child.next();
+		if (groupTuple != null)
+			groupTuple = groupTuple.clone();
 
 		hasNext = groupTuple != null || groupColumnIndices.length == 0;
 		 
@@ -77,7 +80,7 @@ public class G5GroupByOperator implements GroupByOperator {
 
 				DataTuple outputTuple = getOutputTuple();
 				
-				groupTuple = currentTuple;
+				groupTuple = currentTuple.clone();
 
 				for( int i = 0; i <aggColumnIndices.length; i++) {	
 					aggregates[i].reset();
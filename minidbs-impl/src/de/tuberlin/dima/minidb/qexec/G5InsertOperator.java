@@ -10,8 +10,10 @@ import de.tuberlin.dima.minidb.io.cache.PageFormatException;
 import de.tuberlin.dima.minidb.io.index.BTreeIndex;
 import de.tuberlin.dima.minidb.io.manager.BufferPoolException;
 import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.io.tables.FreeSpaceMap;
 import de.tuberlin.dima.minidb.io.tables.TablePage;
 import de.tuberlin.dima.minidb.io.tables.TableResourceManager;
+import de.tuberlin.dima.minidb.io.tables.ZoneMap;
 
 public class G5InsertOperator implements InsertOperator {
 
@@ -23,6 +25,10 @@ public class G5InsertOperator implements InsertOperator {
 	private PhysicalPlanOperator child;
 	
 	private TablePage currentPage;
+	
+	private FreeSpaceMap freeSpaceMap;
+	
+	private ZoneMap zoneMap;
 
 	public G5InsertOperator(BufferPoolManager bufferPool, TableResourceManager tableManager, int resourceId,
 			BTreeIndex[] indexes, int[] columnNumbers, PhysicalPlanOperator child) {
@@ -40,8 +46,18 @@ public class G5InsertOperator implements InsertOperator {
 		
 		child.open(correlatedTuple);
 		
+		// without indexes, nothing refers to deleted records, so their slots can be reused
+		freeSpaceMap = indexes.length == 0 ? tableManager.getFreeSpaceMap() : null;
+		zoneMap = tableManager.getZoneMap();
+		
 		int currentPageNumber = tableManager.getLastDataPageNumber();
 		
+		if (freeSpaceMap != null) {
+			int pageWithFreeSlots = freeSpaceMap.findPageWithFreeSlots();
+			if (pageWithFreeSlots >= 0)
+				currentPageNumber = pageWithFreeSlots;
+		}
+		
 		try {
 			currentPage = (TablePage) bufferPool.getPageAndPin(resourceId, currentPageNumber);
 		} catch (BufferPoolException | IOException e) {
@@ -60,7 +76,11 @@ public class G5InsertOperator implements InsertOperator {
 				
 			while( (tuple = child.next()) != null) {
 				
-				if(!currentPage.insertTuple(tuple)) {
+				if (freeSpaceMap != null) {
+					
+					insertIntoFreeSlot(tuple);
+					
+				} else if(!currentPage.insertTuple(tuple)) {
 					
 					bufferPool.unpinPage(resourceId, currentPage.getPageNumber());
 					currentPage = (TablePage) bufferPool.createNewPageAndPin(resourceId);
@@ -68,6 +88,10 @@ public class G5InsertOperator implements InsertOperator {
 					
 					
 				}
+				
+				// scans must not skip the page for the new tuple
+				if (zoneMap != null)
+					zoneMap.include(currentPage.getPageNumber(), tuple);
 								
 				for( int i = 0; i < indexes.length; i++) {
 					
@@ -93,9 +117,43 @@ public class G5InsertOperator implements InsertOperator {
 		return result;
 	}
 
+	/**
+	 * Inserts the tuple into a free slot of the current page, or of the next page the free-space
+	 * map knows to have free slots, or into a new page.
+	 */
+	private void insertIntoFreeSlot(DataTuple tuple) throws PageExpiredException, PageFormatException,
+			BufferPoolException, IOException {
+		
+		while (currentPage.insertTupleReusingSlot(tuple) < 0) {
+			
+			// full, at least for this tuple
+			freeSpaceMap.update(currentPage.getPageNumber(), 0);
+			bufferPool.unpinPage(resourceId, currentPage.getPageNumber());
+			
+			int next = freeSpaceMap.findPageWithFreeSlots();
+			
+			if (next < 0) {
+				currentPage = (TablePage) bufferPool.createNewPageAndPin(resourceId);
+				currentPage.insertTupleReusingSlot(tuple);
+				return;
+			}
+			
+			currentPage = (TablePage) bufferPool.getPageAndPin(resourceId, next);
+		}
+	}
+
 	@Override
 	public void close() throws QueryExecutionException {
 		
+		// let the next insert start with the slots this one left
+		if (freeSpaceMap != null) {
+			try {
+				freeSpaceMap.update(currentPage.getPageNumber(), currentPage.getNumFreeSlots());
+			} catch (PageExpiredException e) {
+				throw new QueryExecutionException(e);
+			}
+		}
+		
 		bufferPool.unpinPage(resourceId, currentPage.getPageNumber());
 		child.close();
 
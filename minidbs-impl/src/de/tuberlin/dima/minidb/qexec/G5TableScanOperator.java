@@ -6,15 +6,25 @@ import java.util.Collections;
 
 import de.tuberlin.dima.minidb.core.DataTuple;
 import de.tuberlin.dima.minidb.io.cache.PageExpiredException;
+import de.tuberlin.dima.minidb.io.manager.BufferAccessStrategy;
 import de.tuberlin.dima.minidb.io.manager.BufferPoolException;
 import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.io.manager.PinnedPage;
 import de.tuberlin.dima.minidb.io.tables.PageTupleAccessException;
 import de.tuberlin.dima.minidb.io.tables.TablePage;
 import de.tuberlin.dima.minidb.io.tables.TableResourceManager;
 import de.tuberlin.dima.minidb.io.tables.TupleIterator;
+import de.tuberlin.dima.minidb.io.tables.ZoneMap;
 
 public class G5TableScanOperator implements TableScanOperator {
 
+	/**
+	 * The share of the cache, as a divisor, above which a table is read with
+	 * {@link BufferAccessStrategy#BULK_READ}, so that scanning it does not push the working set out.
+	 * Smaller tables are cached as usual and are served from the cache when they are scanned again.
+	 */
+	private static final int BULK_READ_CACHE_DIVISOR = 4;
+
 	private BufferPoolManager bufferPool;
 	private TableResourceManager tableManager;
 	private int resourceId;	
@@ -25,8 +35,16 @@ public class G5TableScanOperator implements TableScanOperator {
 	private long colBitmap;
 	private ArrayList<Integer> columnIndexes;
 
-	private TablePage currentPage;
+	private PinnedPage pinnedPage;
 	private TupleIterator iterator;
+	private BufferAccessStrategy strategy;
+	
+	private ZoneMap zoneMap;
+	
+	// with tuple reuse, the pages refill the fetched tuple, and the scan the produced one
+	private boolean reuseTuples;
+	private DataTuple fetchedTuple;
+	private DataTuple producedTuple;
 
 
 	public G5TableScanOperator(BufferPoolManager bufferPool, TableResourceManager tableManager, int resourceId,
@@ -61,23 +79,44 @@ public class G5TableScanOperator implements TableScanOperator {
 				Collections.sort(columnIndexes);
 	}
 
+	@Override
+	public void setReuseTuples(boolean reuseTuples) {
+		this.reuseTuples = reuseTuples;
+	}
+
 	@Override
 	public void open(DataTuple correlatedTuple) throws QueryExecutionException {
 		
-		currentPageNumber = tableManager.getFirstDataPageNumber();
+		fetchedTuple = reuseTuples ? new DataTuple(columnIndexes.size()) : null;
+		producedTuple = reuseTuples ? new DataTuple(producedColumnIndexes.length) : null;
+		
+		// pages whose zones rule out the predicates are neither read nor pinned
+		zoneMap = predicate.length > 0 ? tableManager.getZoneMap() : null;
+		
+		currentPageNumber = nextPageToScan(tableManager.getFirstDataPageNumber());
+		
+		if (currentPageNumber < 0)
+			return;
 	
+		strategy = chooseStrategy();
+		
 		try {
 			
-			currentPage = (TablePage) bufferPool.getPageAndPin(resourceId, currentPageNumber);
+			pinnedPage = bufferPool.pinPage(resourceId, currentPageNumber, strategy);
 			
-			iterator = currentPage.getIterator(predicate, columnIndexes.size(), colBitmap);
+			iterator = getIterator((TablePage) pinnedPage.getPage());
 			
 		
 			int endPrefetchPageNumber = Math.min(currentPageNumber + prefetchWindowLength, tableManager.getLastDataPageNumber());
 			
-			
-			bufferPool.prefetchPages(resourceId, currentPageNumber + 1, endPrefetchPageNumber);
+			if (zoneMap == null) {
+				bufferPool.prefetchPages(resourceId, currentPageNumber + 1, endPrefetchPageNumber, strategy);
+			} else {
+				for (int p = nextPageToScan(currentPageNumber + 1); p >= 0 && p <= endPrefetchPageNumber; p = nextPageToScan(p + 1))
+					bufferPool.prefetchPages(resourceId, p, p, strategy);
+			}
 		} catch (BufferPoolException | PageExpiredException | PageTupleAccessException | IOException e) {		
+			close();
 			throw new QueryExecutionException(e);
 		}
 	}
@@ -87,17 +126,21 @@ public class G5TableScanOperator implements TableScanOperator {
 		
 		
 		
+		if (iterator == null)
+			return null;
+		
 		try {
 			if(iterator.hasNext()) {
 				return normalize(iterator.next());
 				
 			} else {
-				while(currentPageNumber != tableManager.getLastDataPageNumber()) {
+				int nextPageNumber;
+				while((nextPageNumber = nextPageToScan(currentPageNumber + 1)) >= 0) {
 					
-					currentPageNumber++;
+					currentPageNumber = nextPageNumber;
 					//System.out.print("[" + currentPageNumber + "]");
-					currentPage = (TablePage) bufferPool.unpinAndGetPageAndPin(resourceId, currentPageNumber - 1, currentPageNumber);
-					iterator = currentPage.getIterator(predicate, columnIndexes.size(), colBitmap);
+					TablePage currentPage = (TablePage) pinnedPage.moveTo(currentPageNumber);
+					iterator = getIterator(currentPage);
 
 					if(iterator.hasNext())
 						return normalize(iterator.next());					
@@ -110,6 +153,7 @@ public class G5TableScanOperator implements TableScanOperator {
 			
 		} catch (BufferPoolException | IOException | PageTupleAccessException e) {
 			e.printStackTrace();
+			close();
 			throw new QueryExecutionException(e);
 		} 
 		
@@ -121,10 +165,48 @@ public class G5TableScanOperator implements TableScanOperator {
 		
 		iterator = null;
 		
-		bufferPool.unpinPage(resourceId, currentPageNumber);
+		if (pinnedPage != null) {
+			pinnedPage.close();
+			pinnedPage = null;
+		}
+	}
+	
+	
+	
+	private TupleIterator getIterator(TablePage page) throws PageTupleAccessException {
+		
+		if (reuseTuples)
+			return page.getIterator(predicate, columnIndexes.size(), colBitmap, fetchedTuple);
+		
+		return page.getIterator(predicate, columnIndexes.size(), colBitmap);
 	}
 	
+	/**
+	 * Reads the table in bulk if it takes a large share of the cache. Buffer pools that do not
+	 * tell the size of their caches read it normally.
+	 */
+	private BufferAccessStrategy chooseStrategy() {
+		
+		int capacity = bufferPool.getCacheCapacity(tableManager.getPageSize());
+		int tablePages = tableManager.getLastDataPageNumber() - tableManager.getFirstDataPageNumber() + 1;
+		
+		return capacity >= 0 && tablePages > capacity / BULK_READ_CACHE_DIVISOR ?
+				BufferAccessStrategy.BULK_READ : BufferAccessStrategy.NORMAL;
+	}
 	
+	/**
+	 * Gets the first page from the given one on that may hold tuples for the predicates,
+	 * or -1, if there is none up to the end of the table.
+	 */
+	private int nextPageToScan(int pageNumber) {
+		
+		int last = tableManager.getLastDataPageNumber();
+		
+		while (pageNumber <= last && zoneMap != null && !zoneMap.mayMatch(pageNumber, predicate))
+			pageNumber++;
+		
+		return pageNumber <= last ? pageNumber : -1;
+	}
 	
 	private DataTuple normalize(DataTuple tuple) {
 		
@@ -133,7 +215,7 @@ public class G5TableScanOperator implements TableScanOperator {
 		 * and has to be mapped to the result tuple following producedColumnIndexes
 		 * 
 		 */
-		DataTuple result = new DataTuple(producedColumnIndexes.length);
+		DataTuple result = reuseTuples ? producedTuple : new DataTuple(producedColumnIndexes.length);
 
 		/* Ex : columnIndexes : [1,2,4]
 		 * 		producedColumnIndexes : [2, 4, 4, 1]
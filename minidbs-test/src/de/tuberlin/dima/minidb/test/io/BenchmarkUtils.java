@@ -0,0 +1,87 @@
+package de.tuberlin.dima.minidb.test.io;
+
+import java.util.function.IntFunction;
+import java.util.logging.Logger;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.core.DataTuple;
+import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.io.manager.ResourceManager;
+import de.tuberlin.dima.minidb.io.tables.TablePage;
+import de.tuberlin.dima.minidb.io.tables.TableResourceManager;
+
+/**
+ * A small collection of helper utilities for the benchmarks of the I/O layer, which set up
+ * buffer pools and tables the same way.
+ */
+public final class BenchmarkUtils
+{
+	private BenchmarkUtils()
+	{
+	}
+
+
+	/**
+	 * Creates a buffer pool through the extension factory, starts its I/O threads and registers
+	 * the given resources with it, under the ids 0, 1, 2 and so on.
+	 *
+	 * @param config The configuration of the buffer pool.
+	 * @param name The name of the benchmark, which names the logger of the buffer pool.
+	 * @param resources The resources to register.
+	 * @return The started buffer pool.
+	 */
+	public static BufferPoolManager startBufferPool(Config config, String name, ResourceManager... resources)
+		throws Exception
+	{
+		BufferPoolManager bpm = AbstractExtensionFactory.getExtensionFactory().createBufferPoolManager(
+				config, Logger.getLogger("Test-" + name + "-Logger"));
+		bpm.startIOThreads();
+
+		for (int i = 0; i < resources.length; i++) {
+			bpm.registerResource(i, resources[i]);
+		}
+		return bpm;
+	}
+
+	/**
+	 * Writes the given number of tuples into new pages of the table, filling every page before
+	 * the next one is reserved.
+	 *
+	 * @param rm The table.
+	 * @param numTuples The number of tuples.
+	 * @param tuples Creates the tuple with the given number.
+	 * @return The number of pages written.
+	 */
+	public static int fillTable(TableResourceManager rm, int numTuples, IntFunction<DataTuple> tuples)
+		throws Exception
+	{
+		byte[] buffer = new byte[rm.getPageSize().getNumberOfBytes()];
+		TablePage page = rm.reserveNewPage(buffer);
+		int pages = 1;
+
+		for (int i = 0; i < numTuples; i++) {
+			DataTuple tuple = tuples.apply(i);
+			if (!page.insertTuple(tuple)) {
+				rm.writePageToResource(buffer, page);
+				page = rm.reserveNewPage(buffer);
+				pages++;
+				page.insertTuple(tuple);
+			}
+		}
+		rm.writePageToResource(buffer, page);
+		return pages;
+	}
+
+	/**
+	 * Gets the rate of a number of operations that took the given time.
+	 *
+	 * @param count The number of operations.
+	 * @param nanos The time they took in nanoseconds.
+	 * @return The operations per second.
+	 */
+	public static long perSecond(long count, long nanos)
+	{
+		return (long) (count / (nanos / 1000000000.0));
+	}
+}
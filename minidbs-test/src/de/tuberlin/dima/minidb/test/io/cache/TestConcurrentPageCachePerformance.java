@@ -0,0 +1,216 @@
+package de.tuberlin.dima.minidb.test.io.cache;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.io.cache.CachePinnedException;
+import de.tuberlin.dima.minidb.io.cache.CacheableData;
+import de.tuberlin.dima.minidb.io.cache.DuplicateCacheEntryException;
+import de.tuberlin.dima.minidb.io.cache.EvictedCacheEntry;
+import de.tuberlin.dima.minidb.io.cache.G5StripedPageCache;
+import de.tuberlin.dima.minidb.io.cache.PageCache;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+
+/**
+ * Multi-threaded variant of {@link TestPageCachePerformance}. Several threads run a skewed
+ * read workload against one shared cache, and every miss loads the page into the cache.
+ * The cache is either guarded by a single lock (one segment) or split into independently
+ * locked segments. Throughput and hit ratio are printed for both.
+ */
+public class TestConcurrentPageCachePerformance
+{
+	/**
+	 * Fixed seed to make tests reproducible.
+	 */
+	private static final long SEED = 347987612876524L;
+
+	/**
+	 * Size of the pages in the performance test.
+	 */
+	private final static PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * Size of the cache in the performance test.
+	 */
+	private final static int size = 10000;
+
+	/**
+	 * Number of distinct pages accessed, a multiple of the cache size.
+	 */
+	private final static int numPages = size * 2;
+
+	/**
+	 * Percentage of the pages that are hot.
+	 */
+	private final static float hotPagesPercentage = 0.2f;
+
+	/**
+	 * Ratio of accesses that go to the hot pages.
+	 */
+	private final static float hotAccessRatio = 0.8f;
+
+	/**
+	 * Number of threads accessing the cache.
+	 */
+	private final static int numThreads = 8;
+
+	/**
+	 * Number of cache accesses per thread.
+	 */
+	private final static int accessesPerThread = 250000;
+
+	/**
+	 * Number of segments of the striped cache.
+	 */
+	private final static int numSegments = 16;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The schema used for the test.
+	 */
+	private TableSchema schema;
+
+
+	/**
+	 * Writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void benchmarkInfos()
+	{
+		System.out.println("");
+		System.out.println("Page size in B: " + pz.getNumberOfBytes());
+		System.out.println("Cache size: " + size + ", distinct pages: " + numPages);
+		System.out.println("Threads: " + numThreads + ", accesses per thread: " + accessesPerThread);
+		System.out.println("");
+	}
+
+	@Before
+	public void setUp() throws Exception
+	{
+		// load the custom code
+		AbstractExtensionFactory.initializeDefault();
+
+		this.schema = new TableSchema(pz);
+		this.schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 2)
+	@Test
+	public void testSingleLock() throws Exception
+	{
+		runWorkload(new G5StripedPageCache(pz, size, 1), "single lock");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 2)
+	@Test
+	public void testStriped() throws Exception
+	{
+		runWorkload(new G5StripedPageCache(pz, size, numSegments), numSegments + " segments");
+	}
+
+
+	/**
+	 * Runs the workload with all threads against the given cache.
+	 */
+	private void runWorkload(final PageCache cache, String name) throws Exception
+	{
+		final AtomicLong hits = new AtomicLong();
+		final AtomicLong misses = new AtomicLong();
+		final Throwable[] errors = new Throwable[numThreads];
+
+		Thread[] threads = new Thread[numThreads];
+		for (int t = 0; t < numThreads; t++) {
+			final int threadNum = t;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						runAccesses(cache, new Random(SEED + threadNum), hits, misses);
+					}
+					catch (Throwable th) {
+						errors[threadNum] = th;
+					}
+				}
+			};
+		}
+
+		long start = System.nanoTime();
+		for (Thread t : threads) {
+			t.start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		long nanos = System.nanoTime() - start;
+
+		for (Throwable t : errors) {
+			if (t != null) {
+				throw new Exception("Access thread failed: " + t.getMessage(), t);
+			}
+		}
+
+		long total = hits.get() + misses.get();
+		System.out.println(name + ": " + BenchmarkUtils.perSecond(total, nanos) + " accesses/s, hit ratio " +
+				String.format("%.3f", hits.get() / (double) total));
+	}
+
+	/**
+	 * Executes the accesses of a single thread. A missed page is created and added to the
+	 * cache, recycling the buffer of the evicted page.
+	 */
+	private void runAccesses(PageCache cache, Random random, AtomicLong hits, AtomicLong misses)
+		throws Exception
+	{
+		int hotPages = (int) (numPages * hotPagesPercentage);
+		byte[] buffer = new byte[pz.getNumberOfBytes()];
+		long localHits = 0, localMisses = 0;
+
+		for (int i = 0; i < accessesPerThread; i++)
+		{
+			int pageNumber = random.nextFloat() < hotAccessRatio ?
+					random.nextInt(hotPages) : hotPages + random.nextInt(numPages - hotPages);
+			int resourceId = pageNumber % 4;
+
+			if (cache.getPage(resourceId, pageNumber) != null) {
+				localHits++;
+				continue;
+			}
+			localMisses++;
+
+			CacheableData page = AbstractExtensionFactory.getExtensionFactory().initTablePage(this.schema, buffer, pageNumber);
+			try {
+				EvictedCacheEntry evicted = cache.addPage(page, resourceId);
+				buffer = evicted.getBinaryPage();
+			}
+			catch (DuplicateCacheEntryException dceex) {
+				// another thread loaded the same page concurrently, the buffer is still ours
+			}
+			catch (CachePinnedException cpex) {
+				throw new Exception("No page is pinned in this test.");
+			}
+		}
+
+		hits.addAndGet(localHits);
+		misses.addAndGet(localMisses);
+	}
+}
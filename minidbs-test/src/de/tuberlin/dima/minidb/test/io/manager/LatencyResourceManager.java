@@ -0,0 +1,240 @@
+package de.tuberlin.dima.minidb.test.io.manager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.io.cache.CacheableData;
+import de.tuberlin.dima.minidb.io.cache.PageFormatException;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.ResourceManager;
+
+/**
+ * In-memory resource manager that simulates the latency of a storage device. Every
+ * read or write call costs a fixed access overhead plus a transfer time per page, so
+ * that multi-page calls are cheaper than the same number of single-page calls.
+ * Used by the buffer pool benchmarks.
+ */
+public class LatencyResourceManager extends ResourceManager
+{
+	/**
+	 * The number of the first data page.
+	 */
+	private static final int FIRST_PAGE_NUMBER = 1;
+
+	/**
+	 * The page size of this resource.
+	 */
+	private final PageSize pageSize;
+
+	/**
+	 * The schema of this resource.
+	 */
+	private final TableSchema schema;
+
+	/**
+	 * A list of byte arrays simulating the disk.
+	 */
+	private final ArrayList<byte[]> disk;
+
+	/**
+	 * The overhead of a single access in microseconds.
+	 */
+	private final long accessMicros;
+
+	/**
+	 * The transfer time per page in microseconds.
+	 */
+	private final long transferMicros;
+
+	/**
+	 * Counters for the issued calls and the transferred pages.
+	 */
+	private final AtomicInteger readCalls, pagesRead, writeCalls, pagesWritten;
+
+
+	/**
+	 * Creates a resource with the given number of initialized pages.
+	 *
+	 * @param schema The schema of the table pages.
+	 * @param numPages The number of pages the resource initially has.
+	 * @param accessMicros The overhead of a single access in microseconds.
+	 * @param transferMicros The transfer time per page in microseconds.
+	 */
+	public LatencyResourceManager(TableSchema schema, int numPages, long accessMicros, long transferMicros)
+		throws PageFormatException
+	{
+		this.schema = schema;
+		this.pageSize = schema.getPageSize();
+		this.disk = new ArrayList<byte[]>(numPages);
+		this.accessMicros = accessMicros;
+		this.transferMicros = transferMicros;
+		this.readCalls = new AtomicInteger();
+		this.pagesRead = new AtomicInteger();
+		this.writeCalls = new AtomicInteger();
+		this.pagesWritten = new AtomicInteger();
+
+		for (int i = 0; i < numPages; i++) {
+			byte[] page = new byte[this.pageSize.getNumberOfBytes()];
+			AbstractExtensionFactory.getExtensionFactory().initTablePage(this.schema, page, FIRST_PAGE_NUMBER + i);
+			this.disk.add(page);
+		}
+	}
+
+
+	@Override
+	public PageSize getPageSize()
+	{
+		return this.pageSize;
+	}
+
+	@Override
+	public synchronized int getLastPageNumber()
+	{
+		return FIRST_PAGE_NUMBER + this.disk.size() - 1;
+	}
+
+	@Override
+	public synchronized void truncate() throws IOException
+	{
+		this.disk.clear();
+	}
+
+	@Override
+	public void closeResource() throws IOException
+	{
+		// nothing to release
+	}
+
+	@Override
+	public CacheableData readPageFromResource(byte[] buffer, int pageNumber) throws IOException
+	{
+		return readPagesFromResource(new byte[][] { buffer }, pageNumber)[0];
+	}
+
+	@Override
+	public CacheableData[] readPagesFromResource(byte[][] buffers, int firstPageNumber) throws IOException
+	{
+		this.readCalls.incrementAndGet();
+		this.pagesRead.addAndGet(buffers.length);
+		simulateAccess(buffers.length);
+
+		CacheableData[] pages = new CacheableData[buffers.length];
+		for (int i = 0; i < buffers.length; i++) {
+			System.arraycopy(getDiskPage(firstPageNumber + i), 0, buffers[i], 0, buffers[i].length);
+			try {
+				pages[i] = AbstractExtensionFactory.getExtensionFactory().createTablePage(this.schema, buffers[i]);
+			}
+			catch (PageFormatException pfex) {
+				throw new IOException("Error initializing page: " + pfex.getMessage());
+			}
+		}
+		return pages;
+	}
+
+	@Override
+	public void writePageToResource(byte[] buffer, CacheableData wrapper) throws IOException
+	{
+		writePagesToResource(new byte[][] { buffer }, new CacheableData[] { wrapper });
+	}
+
+	@Override
+	public void writePagesToResource(byte[][] buffers, CacheableData[] wrappers) throws IOException
+	{
+		this.writeCalls.incrementAndGet();
+		this.pagesWritten.addAndGet(buffers.length);
+		simulateAccess(buffers.length);
+
+		for (int i = 0; i < buffers.length; i++) {
+			System.arraycopy(buffers[i], 0, getDiskPage(wrappers[i].getPageNumber()), 0, buffers[i].length);
+		}
+	}
+
+	@Override
+	public synchronized CacheableData reserveNewPage(byte[] ioBuffer) throws IOException, PageFormatException
+	{
+		int pageNumber = FIRST_PAGE_NUMBER + this.disk.size();
+		this.disk.add(new byte[this.pageSize.getNumberOfBytes()]);
+		return AbstractExtensionFactory.getExtensionFactory().initTablePage(this.schema, ioBuffer, pageNumber);
+	}
+
+	@Override
+	public CacheableData reserveNewPage(byte[] ioBuffer, Enum<?> type) throws IOException, PageFormatException
+	{
+		return reserveNewPage(ioBuffer);
+	}
+
+
+	/**
+	 * Gets the number of the first page of this resource.
+	 *
+	 * @return The first page number.
+	 */
+	public int getFirstPageNumber()
+	{
+		return FIRST_PAGE_NUMBER;
+	}
+
+	/**
+	 * Gets the number of read calls issued to this resource.
+	 *
+	 * @return The number of read calls.
+	 */
+	public int getReadCalls()
+	{
+		return this.readCalls.get();
+	}
+
+	/**
+	 * Gets the number of pages read from this resource.
+	 *
+	 * @return The number of pages read.
+	 */
+	public int getPagesRead()
+	{
+		return this.pagesRead.get();
+	}
+
+	/**
+	 * Gets the number of write calls issued to this resource.
+	 *
+	 * @return The number of write calls.
+	 */
+	public int getWriteCalls()
+	{
+		return this.writeCalls.get();
+	}
+
+	/**
+	 * Gets the number of pages written to this resource.
+	 *
+	 * @return The number of pages written.
+	 */
+	public int getPagesWritten()
+	{
+		return this.pagesWritten.get();
+	}
+
+
+	private synchronized byte[] getDiskPage(int pageNumber) throws IOException
+	{
+		int index = pageNumber - FIRST_PAGE_NUMBER;
+		if (index < 0 || index >= this.disk.size()) {
+			throw new IOException("This page does not exist.");
+		}
+		return this.disk.get(index);
+	}
+
+	private void simulateAccess(int numPages)
+	{
+		long micros = this.accessMicros + numPages * this.transferMicros;
+		try {
+			Thread.sleep(micros / 1000, (int) (micros % 1000) * 1000);
+		}
+		catch (InterruptedException e) {
+			// do nothing
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package de.tuberlin.dima.minidb.test.io.manager;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.io.cache.CacheableData;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+/**
+ * Benchmark for random page requests, as a fetch operator issues them for the row IDs it gets
+ * from an index. Every page is processed for a while after it has been fetched. The requests
+ * run once one after the other through the blocking API and once in batches through the
+ * asynchronous API, which lets the pages of a batch be read while the earlier ones are processed.
+ */
+public class TestAsyncPagePerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * Number of pages of the resource, many more than the cache holds.
+	 */
+	private static final int numPages = 20000;
+
+	/**
+	 * Number of page requests per round.
+	 */
+	private static final int numRequests = 2000;
+
+	/**
+	 * Number of pages requested together through the asynchronous API.
+	 */
+	private static final int batchSize = 16;
+
+	/**
+	 * Simulated access overhead and transfer time per page in microseconds.
+	 */
+	private static final long accessMicros = 200, transferMicros = 20;
+
+	/**
+	 * Time spent processing a page in microseconds.
+	 */
+	private static final long processMicros = 1000;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The resource, shared by all rounds.
+	 */
+	private static LatencyResourceManager resource;
+
+
+	/**
+	 * Creates the resource and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void benchmarkInfos() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		TableSchema schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		resource = new LatencyResourceManager(schema, numPages, accessMicros, transferMicros);
+
+		System.out.println("");
+		System.out.println("Pages: " + numPages + ", cache size: " + Config.getDefaultConfig().getCacheSize(pz) +
+				", requests per round: " + numRequests + ", batch size: " + batchSize);
+		System.out.println("Simulated read latency in us: " + accessMicros + " + " + transferMicros +
+				" per page, processing per page in us: " + processMicros);
+		System.out.println("");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testBlockingRequests() throws Exception
+	{
+		BufferPoolManager bpm = createBufferPool();
+		int[] pageNumbers = createRequests();
+
+		long start = System.nanoTime();
+
+		for (int pageNumber : pageNumbers) {
+			CacheableData page = bpm.getPageAndPin(0, pageNumber);
+			assertEquals(pageNumber, page.getPageNumber());
+			process();
+			bpm.unpinPage(0, pageNumber);
+		}
+
+		long nanos = System.nanoTime() - start;
+		bpm.closeBufferPool();
+
+		System.out.println("blocking: " + BenchmarkUtils.perSecond(numRequests, nanos) + " pages/s");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testAsyncRequests() throws Exception
+	{
+		BufferPoolManager bpm = createBufferPool();
+		int[] pageNumbers = createRequests();
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < pageNumbers.length; i += batchSize) {
+			int[] batch = new int[Math.min(batchSize, pageNumbers.length - i)];
+			System.arraycopy(pageNumbers, i, batch, 0, batch.length);
+
+			List<CompletableFuture<CacheableData>> futures = bpm.getPagesAndPinAsync(0, batch);
+
+			for (int k = 0; k < batch.length; k++) {
+				CacheableData page = futures.get(k).get();
+				assertEquals(batch[k], page.getPageNumber());
+				process();
+				bpm.unpinPage(0, batch[k]);
+			}
+		}
+
+		long nanos = System.nanoTime() - start;
+		bpm.closeBufferPool();
+
+		System.out.println("async: " + BenchmarkUtils.perSecond(numRequests, nanos) + " pages/s");
+	}
+
+
+	private BufferPoolManager createBufferPool() throws Exception
+	{
+		BufferPoolManager bpm = BenchmarkUtils.startBufferPool(Config.getDefaultConfig(), "Async", resource);
+		return bpm;
+	}
+
+	/**
+	 * Creates the random page numbers, the same ones for every round.
+	 */
+	private int[] createRequests()
+	{
+		Random rnd = new Random(42);
+		int[] pageNumbers = new int[numRequests];
+
+		for (int i = 0; i < numRequests; i++) {
+			pageNumbers[i] = resource.getFirstPageNumber() + rnd.nextInt(numPages);
+		}
+		return pageNumbers;
+	}
+
+	/**
+	 * Simulates the processing of a page by the caller.
+	 */
+	private static void process()
+	{
+		long end = System.nanoTime() + processMicros * 1000;
+		while (System.nanoTime() < end) {
+			// busy
+		}
+	}
+}
@@ -0,0 +1,185 @@
+package de.tuberlin.dima.minidb.test.io.manager;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.Constants;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+/**
+ * Benchmark for the cost of the buffer pool metrics. Requests pages that are all cached, where
+ * the bookkeeping for the metrics weighs most, once with and once without metrics. Also checks
+ * that the metrics published as MBeans match the requests.
+ */
+public class TestBufferPoolMetricsPerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * Number of pages of the resource, fewer than the cache holds.
+	 */
+	private static final int numPages = 500;
+
+	/**
+	 * Number of requests for cached pages.
+	 */
+	private static final int numRequests = 500000;
+
+	/**
+	 * Simulated access overhead and transfer time per page in microseconds.
+	 */
+	private static final long accessMicros = 200, transferMicros = 20;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The resource, shared by all runs.
+	 */
+	private static LatencyResourceManager resource;
+
+
+	/**
+	 * Creates the resource and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void benchmarkInfos() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		TableSchema schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		resource = new LatencyResourceManager(schema, numPages, accessMicros, transferMicros);
+
+		System.out.println("");
+		System.out.println("Cached pages: " + numPages + ", requests: " + numRequests);
+		System.out.println("");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testMetricsDisabled() throws Exception
+	{
+		runRequests(false);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testMetricsEnabled() throws Exception
+	{
+		runRequests(true);
+	}
+
+
+	/**
+	 * Checks the published hit and miss counts for one scan through a cold and one through
+	 * the warm buffer pool, and that the MBeans go away with the buffer pool.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testPublishedMetrics() throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setMaxReadAheadPages(0);
+		config.setBufferPoolMetricsEnabled(true);
+
+		BufferPoolManager bpm = BenchmarkUtils.startBufferPool(config, "Metrics", resource);
+
+		int first = resource.getFirstPageNumber();
+
+		for (int scan = 0; scan < 2; scan++) {
+			for (int i = first; i < first + numPages; i++) {
+				bpm.getPageAndPin(0, i);
+				bpm.unpinPage(0, i);
+			}
+		}
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName query = new ObjectName(Constants.MBEAN_DOMAIN + ":type=Resource,id=0,*");
+		Set<ObjectName> names = server.queryNames(query, null);
+
+		assertEquals("Exactly one buffer pool must publish the resource.", 1, names.size());
+
+		ObjectName name = names.iterator().next();
+		assertEquals(Long.valueOf(numPages), server.getAttribute(name, "Hits"));
+		assertEquals(Long.valueOf(numPages), server.getAttribute(name, "Misses"));
+		assertEquals(Long.valueOf(numPages), server.getAttribute(name, "PagesRead"));
+
+		String pool = name.getKeyProperty("pool");
+		ObjectName cache = new ObjectName(Constants.MBEAN_DOMAIN + ":type=PageCache,pool=" + pool +
+				",pageSize=" + pz.getNumberOfBytes());
+		assertEquals(Integer.valueOf(0), server.getAttribute(cache, "PinnedPages"));
+		assertEquals(Long.valueOf(numPages), server.getAttribute(cache, "Hits"));
+
+		System.out.println("read latency in us: mean " + server.getAttribute(name, "ReadLatencyMeanMicros") +
+				", median " + server.getAttribute(name, "ReadLatencyMedianMicros") +
+				", 99th " + server.getAttribute(name, "ReadLatency99thMicros"));
+
+		bpm.closeBufferPool();
+
+		assertEquals("The MBeans must be removed when the buffer pool closes.", 0,
+				server.queryNames(query, null).size());
+	}
+
+
+	/**
+	 * Requests random pages from a buffer pool that holds all of them.
+	 */
+	private void runRequests(boolean metrics) throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setMaxReadAheadPages(0);
+		config.setBufferPoolMetricsEnabled(metrics);
+
+		BufferPoolManager bpm = BenchmarkUtils.startBufferPool(config, "Metrics", resource);
+
+		int first = resource.getFirstPageNumber();
+
+		for (int i = first; i < first + numPages; i++) {
+			bpm.getPageAndPin(0, i);
+			bpm.unpinPage(0, i);
+		}
+
+		Random rnd = new Random(42);
+		long start = System.nanoTime();
+
+		for (int i = 0; i < numRequests; i++) {
+			int pageNumber = first + rnd.nextInt(numPages);
+			bpm.getPageAndPin(0, pageNumber);
+			bpm.unpinPage(0, pageNumber);
+		}
+
+		long nanos = System.nanoTime() - start;
+		bpm.closeBufferPool();
+
+		System.out.println("metrics " + (metrics ? "enabled" : "disabled") + ": " + nanos / numRequests +
+				" ns per cached request");
+	}
+}
@@ -0,0 +1,199 @@
+package de.tuberlin.dima.minidb.test.io.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.logging.Logger;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.io.cache.CacheableData;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.G5BufferPoolManager;
+import de.tuberlin.dima.minidb.io.manager.G5CacheTuner;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+/**
+ * Benchmark for moving memory between the caches of two page sizes. The working set of the
+ * resource with small pages does not fit its cache, while the one of the resource with large
+ * pages takes only a fraction of its cache. Reports the hit rate of the small pages after a
+ * number of rounds, with caches of fixed size and with the tuner moving memory after each round.
+ */
+public class TestCacheTuningPerformance
+{
+	/**
+	 * The page sizes of the two resources.
+	 */
+	private static final PageSize smallPz = PageSize.SIZE_4096, largePz = PageSize.SIZE_8192;
+
+	/**
+	 * The initial capacity of both caches, in pages.
+	 */
+	private static final int cacheSize = 500;
+
+	/**
+	 * Number of pages requested at random from each resource.
+	 */
+	private static final int smallWorkingSet = 700, largeWorkingSet = 100;
+
+	/**
+	 * Number of rounds, and requests per resource and round.
+	 */
+	private static final int numRounds = 12, numRequests = 1000;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The resources, shared by all runs.
+	 */
+	private static LatencyResourceManager small, large;
+
+	/**
+	 * The schema of the small pages.
+	 */
+	private static TableSchema smallSchema;
+
+
+	/**
+	 * Creates the resources and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void benchmarkInfos() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		smallSchema = new TableSchema(smallPz);
+		smallSchema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		small = new LatencyResourceManager(smallSchema, smallWorkingSet, 0, 0);
+
+		TableSchema largeSchema = new TableSchema(largePz);
+		largeSchema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		large = new LatencyResourceManager(largeSchema, largeWorkingSet, 0, 0);
+
+		System.out.println("");
+		System.out.println("Cache sizes: " + cacheSize + " pages each, working sets: " + smallWorkingSet +
+				" pages of " + smallPz.getNumberOfBytes() + " bytes, " + largeWorkingSet + " pages of " +
+				largePz.getNumberOfBytes() + " bytes");
+		System.out.println("");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testFixedCaches() throws Exception
+	{
+		runRounds(false);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testTunedCaches() throws Exception
+	{
+		double hitRate = runRounds(true);
+
+		assertTrue("With the memory moved, the small pages must fit the cache, but the hit rate is " + hitRate,
+				hitRate > 0.95);
+	}
+
+
+	/**
+	 * Checks that shrinking a cache keeps its pinned pages and that every modified page is
+	 * written once, the evicted ones by the shrinking and the pinned ones when the pool closes.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testShrinkWritesModifiedPages() throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setMaxReadAheadPages(0);
+		config.setCacheSize(smallPz, cacheSize);
+
+		G5BufferPoolManager bpm = (G5BufferPoolManager) BenchmarkUtils.startBufferPool(config, "CacheTuning");
+
+		LatencyResourceManager rm = new LatencyResourceManager(smallSchema, 0, 0, 0);
+		bpm.registerResource(0, rm);
+
+		int numPinned = 100;
+
+		for (int i = 0; i < cacheSize; i++) {
+
+			CacheableData page = bpm.createNewPageAndPin(0);
+
+			if (i < cacheSize - numPinned)
+				bpm.unpinPage(0, page.getPageNumber());
+		}
+
+		// more pages are pinned than the cache may keep
+		int reached = bpm.resizeCache(smallPz, numPinned / 2);
+		bpm.closeBufferPool();
+
+		assertEquals("The cache must keep its pinned pages.", numPinned, reached);
+		assertEquals("Every modified page must be written once.", cacheSize, rm.getPagesWritten());
+	}
+
+
+	/**
+	 * Requests random pages of both resources in rounds and returns the hit rate of the small
+	 * pages in the last round.
+	 */
+	private double runRounds(boolean tune) throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setMaxReadAheadPages(0);
+		config.setCacheSize(smallPz, cacheSize);
+		config.setCacheSize(largePz, cacheSize);
+
+		G5BufferPoolManager bpm = (G5BufferPoolManager) BenchmarkUtils.startBufferPool(config, "CacheTuning", small, large);
+
+		// the tuner is driven by the rounds rather than by a timer
+		G5CacheTuner tuner = new G5CacheTuner(bpm, 1, Logger.getLogger("Test-CacheTuning-Logger"));
+		Random rnd = new Random(42);
+		double hitRate = 0;
+
+		for (int round = 0; round < numRounds; round++) {
+
+			int pagesRead = small.getPagesRead();
+
+			for (int i = 0; i < numRequests; i++) {
+				request(bpm, 0, small.getFirstPageNumber() + rnd.nextInt(smallWorkingSet));
+				request(bpm, 1, large.getFirstPageNumber() + rnd.nextInt(largeWorkingSet));
+			}
+
+			hitRate = 1 - (small.getPagesRead() - pagesRead) / (double) numRequests;
+
+			if (tune)
+				tuner.tune();
+		}
+
+		int smallCapacity = bpm.getCaches().get(smallPz).getCapacity();
+		int largeCapacity = bpm.getCaches().get(largePz).getCapacity();
+		bpm.closeBufferPool();
+
+		System.out.println((tune ? "tuned" : "fixed") + " caches: hit rate of the small pages in the last round " +
+				String.format("%.3f", hitRate) + ", capacities " + smallCapacity + " / " + largeCapacity + " pages");
+
+		return hitRate;
+	}
+
+
+	private static void request(G5BufferPoolManager bpm, int resourceId, int pageNumber) throws Exception
+	{
+		bpm.getPageAndPin(resourceId, pageNumber);
+		bpm.unpinPage(resourceId, pageNumber);
+	}
+}
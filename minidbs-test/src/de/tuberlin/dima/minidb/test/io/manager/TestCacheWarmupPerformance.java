@@ -0,0 +1,251 @@
+package de.tuberlin.dima.minidb.test.io.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.cache.ResidentPage;
+import de.tuberlin.dima.minidb.io.manager.G5BufferPoolManager;
+import de.tuberlin.dima.minidb.io.manager.G5CacheImage;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+/**
+ * Benchmark for warming the cache up after a restart. A first buffer pool caches a hot set of
+ * pages, used repeatedly, and a few pages used once, and saves its cache image when it closes.
+ * A new buffer pool then serves requests for the hot set, once with a cold cache and once after
+ * it loaded the image.
+ */
+public class TestCacheWarmupPerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * Capacity of the cache, in pages.
+	 */
+	private static final int cacheSize = 400;
+
+	/**
+	 * Number of pages of the resource, of the hot set at its start, and of the pages used once after it.
+	 */
+	private static final int numPages = 600, hotPages = 300, oncePages = 100;
+
+	/**
+	 * Number of requests for pages of the hot set after the restart.
+	 */
+	private static final int numRequests = 2000;
+
+	/**
+	 * Latency of accessing the resource and of transferring a page, in microseconds.
+	 */
+	private static final long accessMicros = 200, transferMicros = 20;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The resource, shared by all runs.
+	 */
+	private static LatencyResourceManager resource;
+
+	/**
+	 * The image saved by the first buffer pool.
+	 */
+	private static File image;
+
+
+	/**
+	 * Creates the resource and the image and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void benchmarkInfos() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		TableSchema schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		resource = new LatencyResourceManager(schema, numPages, accessMicros, transferMicros);
+
+		image = File.createTempFile("minidb-cache", ".image");
+
+		G5BufferPoolManager bpm = createBufferPool();
+		int first = resource.getFirstPageNumber();
+
+		// request every hot page three times, the third request makes it frequent
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < hotPages; i++)
+				request(bpm, first + i);
+		}
+
+		for (int i = hotPages; i < hotPages + oncePages; i++)
+			request(bpm, first + i);
+
+		bpm.saveCacheImage(image);
+		bpm.closeBufferPool();
+
+		System.out.println("");
+		System.out.println("Cache size: " + cacheSize + " pages, hot set: " + hotPages + " pages, used once: " +
+				oncePages + " pages, requests after restart: " + numRequests);
+		System.out.println("");
+	}
+
+	@AfterClass
+	public static void deleteImage()
+	{
+		image.delete();
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testColdStart() throws Exception
+	{
+		G5BufferPoolManager bpm = createBufferPool();
+
+		double hitRate = runRequests(bpm, "cold");
+		bpm.closeBufferPool();
+
+		assertTrue("A cold cache cannot hold the hot set yet.", hitRate < 0.95);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testWarmStart() throws Exception
+	{
+		G5BufferPoolManager bpm = createBufferPool();
+
+		int readCalls = resource.getReadCalls(), pagesRead = resource.getPagesRead();
+
+		bpm.loadCacheImage(image);
+		bpm.awaitCacheWarmup();
+
+		readCalls = resource.getReadCalls() - readCalls;
+		pagesRead = resource.getPagesRead() - pagesRead;
+
+		System.out.println("warm-up: " + pagesRead + " pages in " + readCalls + " reads");
+
+		double hitRate = runRequests(bpm, "warm");
+		bpm.closeBufferPool();
+
+		assertEquals("Every page of the image must be loaded.", hotPages + oncePages, pagesRead);
+		assertTrue("The pages must be loaded with multi-page reads.", readCalls * 4 < pagesRead);
+		assertEquals("The warm cache must hold the hot set.", 1.0, hitRate, 0.0);
+	}
+
+
+	/**
+	 * Checks that the pages keep their list after the restart: the hot pages are frequent, the
+	 * pages used once are not. Also checks that a smaller cache loads only the pages the saved
+	 * cache would have evicted last, which are the hot ones.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testImageRestoresLists() throws Exception
+	{
+		G5BufferPoolManager bpm = createBufferPool();
+		bpm.loadCacheImage(image);
+		bpm.awaitCacheWarmup();
+
+		File restored = File.createTempFile("minidb-cache", ".image");
+
+		try {
+			bpm.saveCacheImage(restored);
+			bpm.closeBufferPool();
+
+			Map<PageSize, ResidentPage[]> pages = G5CacheImage.read(restored);
+			int first = resource.getFirstPageNumber(), frequent = 0;
+
+			assertEquals("The restored cache must hold the pages of the image.", hotPages + oncePages, pages.get(pz).length);
+
+			for (ResidentPage page : pages.get(pz)) {
+				boolean hot = page.getPageNumber() < first + hotPages;
+				assertEquals("Page " + page.getPageNumber() + " must keep its list.", hot, page.isFrequent());
+				frequent += page.isFrequent() ? 1 : 0;
+			}
+			assertEquals(hotPages, frequent);
+
+			// a cache that holds only the hot set
+			Config config = Config.getDefaultConfig();
+			config.setMaxReadAheadPages(0);
+			config.setCacheSize(pz, hotPages);
+
+			bpm = (G5BufferPoolManager) BenchmarkUtils.startBufferPool(config, "CacheWarmup", resource);
+			bpm.loadCacheImage(image);
+			bpm.awaitCacheWarmup();
+			bpm.saveCacheImage(restored);
+			bpm.closeBufferPool();
+
+			HashSet<Integer> loaded = new HashSet<Integer>();
+			for (ResidentPage page : G5CacheImage.read(restored).get(pz))
+				loaded.add(page.getPageNumber());
+
+			for (int i = 0; i < hotPages; i++)
+				assertTrue("Hot page " + (first + i) + " must be loaded.", loaded.contains(first + i));
+		} finally {
+			restored.delete();
+		}
+	}
+
+
+	/**
+	 * Requests random pages of the hot set and returns the hit rate.
+	 */
+	private static double runRequests(G5BufferPoolManager bpm, String label) throws Exception
+	{
+		Random rnd = new Random(42);
+		int first = resource.getFirstPageNumber();
+		int pagesRead = resource.getPagesRead();
+		long start = System.nanoTime();
+
+		for (int i = 0; i < numRequests; i++)
+			request(bpm, first + rnd.nextInt(hotPages));
+
+		long nanos = System.nanoTime() - start;
+		double hitRate = 1 - (resource.getPagesRead() - pagesRead) / (double) numRequests;
+
+		System.out.println(label + " cache: hit rate " + String.format("%.3f", hitRate) + ", " +
+				nanos / numRequests / 1000 + " us per request");
+
+		return hitRate;
+	}
+
+	private static G5BufferPoolManager createBufferPool() throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setMaxReadAheadPages(0);
+		config.setCacheSize(pz, cacheSize);
+
+		G5BufferPoolManager bpm = (G5BufferPoolManager) BenchmarkUtils.startBufferPool(config, "CacheWarmup", resource);
+
+		return bpm;
+	}
+
+	private static void request(G5BufferPoolManager bpm, int pageNumber) throws Exception
+	{
+		bpm.getPageAndPin(0, pageNumber);
+		bpm.unpinPage(0, pageNumber);
+	}
+}
@@ -0,0 +1,279 @@
+package de.tuberlin.dima.minidb.test.io.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataField;
+import de.tuberlin.dima.minidb.core.DataTuple;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.core.IntField;
+import de.tuberlin.dima.minidb.core.VarcharField;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.io.manager.DurabilityMode;
+import de.tuberlin.dima.minidb.io.tables.TablePage;
+import de.tuberlin.dima.minidb.io.tables.TableResourceManager;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+/**
+ * Benchmark for inserts into a table file. The table is opened in strict mode, where every
+ * page write is synchronous, and in deferred mode, where the pages are made durable by a
+ * checkpoint at the end of the load. Both runs include that checkpoint.
+ */
+public class TestDurabilityModePerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * Number of tuples inserted. The table grows larger than the cache, so pages are
+	 * written while the load runs.
+	 */
+	private static final int numTuples = 200000;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The schema of the table.
+	 */
+	private TableSchema schema;
+
+
+	/**
+	 * Writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void benchmarkInfos()
+	{
+		System.out.println("");
+		System.out.println("Tuples inserted: " + numTuples + ", cache size: " + Config.getDefaultConfig().getCacheSize(pz));
+		System.out.println("");
+	}
+
+	@Before
+	public void setUp() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		this.schema = new TableSchema(pz);
+		this.schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		this.schema.addColumn(ColumnSchema.createColumnSchema("Value", DataType.varcharType(64), true));
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testStrictMode() throws Exception
+	{
+		runInserts(DurabilityMode.STRICT);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testDeferredMode() throws Exception
+	{
+		runInserts(DurabilityMode.DEFERRED);
+	}
+
+	/**
+	 * Checks that a checkpoint writes the current contents of every modified page, marks the
+	 * unpinned pages clean and keeps a pinned page modified, since it may change while it is
+	 * copied.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testCheckpointWritesModifiedPages() throws Exception
+	{
+		LatencyResourceManager rm = new LatencyResourceManager(this.schema, 8, 0, 0);
+		int first = rm.getFirstPageNumber();
+
+		Config config = Config.getDefaultConfig();
+		config.setCacheSize(pz, 16);
+		BufferPoolManager bpm = BenchmarkUtils.startBufferPool(config, "Durability", rm);
+
+		try {
+			TablePage[] pages = new TablePage[8];
+			for (int i = 0; i < pages.length; i++) {
+				pages[i] = (TablePage) bpm.getPageAndPin(0, first + i);
+				assertTrue(pages[i].insertTuple(createTuple(first + i)));
+				if (i > 0) {
+					bpm.unpinPage(0, first + i);
+				}
+			}
+			bpm.checkpoint();
+
+			assertTrue("A pinned page must stay modified.", pages[0].hasBeenModified());
+			for (int i = 1; i < pages.length; i++) {
+				assertFalse("An unpinned page must be clean after a checkpoint.", pages[i].hasBeenModified());
+			}
+			for (int i = 0; i < pages.length; i++) {
+				assertPage(rm, first + i, 1);
+			}
+			bpm.unpinPage(0, first);
+		}
+		finally {
+			bpm.closeBufferPool();
+		}
+	}
+
+	/**
+	 * Runs checkpoints while another thread modifies the pages of a resource that is much
+	 * larger than the cache, so that the frames of checkpointed pages are evicted and reused
+	 * all the time. Every page on disk must end up with its own contents only, and no insert
+	 * may be lost.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testCheckpointRacesWithEviction() throws Exception
+	{
+		final int cacheSize = 16;
+		final LatencyResourceManager rm = new LatencyResourceManager(this.schema, 4 * cacheSize, 0, 0);
+		final int first = rm.getFirstPageNumber();
+
+		Config config = Config.getDefaultConfig();
+		config.setCacheSize(pz, cacheSize);
+		final BufferPoolManager bpm = BenchmarkUtils.startBufferPool(config, "Durability", rm);
+
+		// every thread modifies its own pages, a page is not safe for concurrent inserts
+		final int[] inserted = new int[4 * cacheSize];
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		Thread[] modifiers = new Thread[3];
+		for (int t = 0; t < modifiers.length; t++) {
+			final int offset = t;
+			modifiers[t] = new Thread() {
+				@Override
+				public void run()
+				{
+					try {
+						Random rnd = new Random(42 + offset);
+						for (int i = 0; i < 10000; i++) {
+							int index = rnd.nextInt(inserted.length / modifiers.length) * modifiers.length + offset;
+							TablePage page = (TablePage) bpm.getPageAndPin(0, first + index);
+							if (page.insertTuple(createTuple(first + index))) {
+								inserted[index]++;
+							}
+							bpm.unpinPage(0, first + index);
+						}
+					}
+					catch (Throwable t) {
+						error.compareAndSet(null, t);
+					}
+				}
+			};
+			modifiers[t].start();
+		}
+
+		try {
+			for (Thread modifier : modifiers) {
+				while (modifier.isAlive()) {
+					bpm.checkpoint();
+				}
+				modifier.join();
+			}
+		}
+		finally {
+			bpm.closeBufferPool();
+		}
+		if (error.get() != null) {
+			throw new AssertionError("A modification failed.", error.get());
+		}
+
+		for (int i = 0; i < inserted.length; i++) {
+			assertPage(rm, first + i, inserted[i]);
+		}
+	}
+
+
+	/**
+	 * Inserts the tuples into a new table in the given mode, takes a checkpoint and checks
+	 * that all pages reached the file.
+	 */
+	private void runInserts(DurabilityMode mode) throws Exception
+	{
+		File tableFile = File.createTempFile("minidbs-durability", ".tbl");
+		int pages = 0;
+
+		try {
+			TableResourceManager rm = TableResourceManager.createTable(tableFile, this.schema, mode);
+
+			BufferPoolManager bpm = BenchmarkUtils.startBufferPool(Config.getDefaultConfig(), "Durability", rm);
+
+			long start = System.nanoTime();
+
+			TablePage page = null;
+			for (int i = 0; i < numTuples; i++) {
+				DataTuple tuple = createTuple(i);
+
+				if (page == null || !page.insertTuple(tuple)) {
+					if (page != null) {
+						bpm.unpinPage(0, page.getPageNumber());
+					}
+					page = (TablePage) bpm.createNewPageAndPin(0);
+					pages++;
+					page.insertTuple(tuple);
+				}
+			}
+			bpm.unpinPage(0, page.getPageNumber());
+			bpm.checkpoint();
+
+			long nanos = System.nanoTime() - start;
+
+			bpm.closeBufferPool();
+			rm.closeResource();
+
+			System.out.println(mode + ": " + BenchmarkUtils.perSecond(numTuples, nanos) + " inserts/s");
+
+			// all pages must be in the file
+			rm = TableResourceManager.openTable(tableFile);
+			assertEquals("Every page must be in the table file.", pages,
+					rm.getLastDataPageNumber() - rm.getFirstDataPageNumber() + 1);
+			rm.closeResource();
+		}
+		finally {
+			tableFile.delete();
+		}
+	}
+
+	/**
+	 * Reads a page from the resource and checks that it carries its own number and holds the
+	 * given number of tuples, all with that number as their key.
+	 */
+	private void assertPage(LatencyResourceManager rm, int pageNumber, int numTuples) throws Exception
+	{
+		TablePage page = (TablePage) rm.readPageFromResource(new byte[pz.getNumberOfBytes()], pageNumber);
+		assertEquals("The page must carry its own number.", pageNumber, page.getPageNumber());
+		assertEquals("No insert into page " + pageNumber + " may be lost.", numTuples, page.getNumRecordsOnPage());
+
+		for (int i = 0; i < numTuples; i++) {
+			assertEquals(new IntField(pageNumber), page.getDataTuple(i, 1, 1).getField(0));
+		}
+	}
+
+	private static DataTuple createTuple(int key)
+	{
+		return new DataTuple(new DataField[] { new IntField(key), new VarcharField("value-" + key) });
+	}
+}
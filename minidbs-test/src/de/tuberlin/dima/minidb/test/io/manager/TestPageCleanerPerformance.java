@@ -0,0 +1,218 @@
+package de.tuberlin.dima.minidb.test.io.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.logging.Logger;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataField;
+import de.tuberlin.dima.minidb.core.DataTuple;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.core.IntField;
+import de.tuberlin.dima.minidb.io.cache.PageCache;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.G5BufferPoolManager;
+import de.tuberlin.dima.minidb.io.manager.G5CacheMetrics;
+import de.tuberlin.dima.minidb.io.manager.G5PageCleaner;
+import de.tuberlin.dima.minidb.io.tables.TablePage;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+/**
+ * Benchmark for the background page cleaner. Random page requests over a resource five times
+ * the size of the cache evict a page on most misses, and a part of the requests modify their
+ * page. Without the cleaner, every modified page is written by the request that evicts it, with
+ * the cleaner most evictions find a clean page.
+ */
+public class TestPageCleanerPerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * Capacity of the cache, in pages.
+	 */
+	private static final int cacheSize = 200;
+
+	/**
+	 * Number of pages of the resource.
+	 */
+	private static final int numPages = 5 * cacheSize;
+
+	/**
+	 * Number of page requests per round.
+	 */
+	private static final int numRequests = 2000;
+
+	/**
+	 * The share of requests that modify their page, in percent.
+	 */
+	private static final int modifyPercent = 30;
+
+	/**
+	 * Latency of accessing the resource and of transferring a page, in microseconds.
+	 */
+	private static final long accessMicros = 200, transferMicros = 20;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The schema of the resources.
+	 */
+	private static TableSchema schema;
+
+	/**
+	 * The resource of the benchmark rounds, shared by all of them.
+	 */
+	private static LatencyResourceManager resource;
+
+
+	/**
+	 * Creates the resource and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void benchmarkInfos() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		resource = new LatencyResourceManager(schema, numPages, accessMicros, transferMicros);
+
+		System.out.println("");
+		System.out.println("Cache size: " + cacheSize + " pages, resource: " + numPages + " pages, requests: " +
+				numRequests + ", modifying: " + modifyPercent + "%");
+		System.out.println("");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testWithoutCleaner() throws Exception
+	{
+		double dirtyShare = runRequests(0, "without cleaner");
+
+		assertTrue("Without the cleaner, evictions must write the modified pages.", dirtyShare > 0.1);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testWithCleaner() throws Exception
+	{
+		double dirtyShare = runRequests(10, "with cleaner");
+
+		assertTrue("With the cleaner, evictions must mostly find clean pages, but " +
+				String.format("%.3f", dirtyShare) + " were modified.", dirtyShare < 0.05);
+	}
+
+
+	/**
+	 * Checks that the cleaner writes the modified pages down to the low watermark, the next
+	 * victims first, that the pages stay cached, and that every page is written only once.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testCleanerWritesDownToLowWatermark() throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setMaxReadAheadPages(0);
+		config.setCleanerInterval(0);
+		config.setCacheSize(pz, cacheSize);
+
+		LatencyResourceManager rm = new LatencyResourceManager(schema, cacheSize, 0, 0);
+		G5BufferPoolManager bpm = (G5BufferPoolManager) BenchmarkUtils.startBufferPool(config, "PageCleaner", rm);
+		Logger logger = Logger.getLogger("Test-PageCleaner-Logger");
+
+		DataTuple tuple = new DataTuple(new DataField[] { new IntField(42) });
+		int first = rm.getFirstPageNumber();
+
+		for (int i = first; i < first + cacheSize; i++) {
+			TablePage page = (TablePage) bpm.getPageAndPin(0, i);
+			page.insertTuple(tuple);
+			bpm.unpinPage(0, i);
+		}
+
+		PageCache cache = bpm.getCaches().get(pz);
+		assertEquals(cacheSize, cache.getModifiedPages().length);
+
+		// the cleaner is driven by the test rather than by a timer
+		G5PageCleaner cleaner = new G5PageCleaner(bpm, 1, 20, 10, config.getNumIOBuffers() / 2, logger);
+		cleaner.clean();
+
+		int remaining = cache.getModifiedPages().length;
+		assertEquals("The cleaner must stop at the low watermark.", cacheSize / 10, remaining);
+
+		for (int i = first; i < first + cacheSize; i++)
+			assertTrue("Page " + i + " must stay cached.", cache.containsPage(0, i));
+
+		// the pages added last are the last the cache evicts, they are still modified
+		for (int i = first + cacheSize - remaining; i < first + cacheSize; i++)
+			assertTrue("Page " + i + " must not have been cleaned.", cache.getPage(0, i).hasBeenModified());
+
+		bpm.closeBufferPool();
+
+		assertEquals("Every modified page must be written once.", cacheSize, rm.getPagesWritten());
+	}
+
+
+	/**
+	 * Runs the random requests with a fresh buffer pool and returns the share of evicted pages
+	 * that had been modified.
+	 */
+	private static double runRequests(long cleanerInterval, String label) throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setMaxReadAheadPages(0);
+		config.setBufferPoolMetricsEnabled(true);
+		config.setCleanerInterval(cleanerInterval);
+		config.setCacheSize(pz, cacheSize);
+
+		G5BufferPoolManager bpm = (G5BufferPoolManager) BenchmarkUtils.startBufferPool(config, "PageCleaner", resource);
+
+		Random rnd = new Random(42);
+		DataTuple tuple = new DataTuple(new DataField[] { new IntField(42) });
+		int first = resource.getFirstPageNumber();
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < numRequests; i++) {
+			int pageNumber = first + rnd.nextInt(numPages);
+
+			TablePage page = (TablePage) bpm.getPageAndPin(0, pageNumber);
+			if (rnd.nextInt(100) < modifyPercent) {
+				page.insertTuple(tuple);
+			}
+			bpm.unpinPage(0, pageNumber);
+		}
+
+		long nanos = System.nanoTime() - start;
+
+		G5CacheMetrics metrics = bpm.getMetrics().getCacheMetrics(pz);
+		double dirtyShare = (double) metrics.getDirtyEvictions() / metrics.getEvictions();
+
+		System.out.println(label + ": " + metrics.getDirtyEvictions() + " of " + metrics.getEvictions() +
+				" evicted pages modified, " + metrics.getPagesCleaned() + " cleaned, " +
+				nanos / numRequests / 1000 + " us per request");
+
+		bpm.closeBufferPool();
+
+		return dirtyShare;
+	}
+}
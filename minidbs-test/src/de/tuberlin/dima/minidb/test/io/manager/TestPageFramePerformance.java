@@ -0,0 +1,231 @@
+package de.tuberlin.dima.minidb.test.io.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataField;
+import de.tuberlin.dima.minidb.core.DataTuple;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.core.IntField;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.io.tables.TablePage;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+/**
+ * Benchmark for the page frames of a large cache. Random page requests over a resource twice
+ * the size of the cache evict a page on almost every miss, and a part of the requests modify
+ * their page, so that evicted pages are written. Reports the throughput and the time the
+ * garbage collectors spent while the requests ran.
+ */
+public class TestPageFramePerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * The capacity of the cache in pages, 256 MB of frames.
+	 */
+	private static final int cacheSize = 65536;
+
+	/**
+	 * The number of pages of the resource.
+	 */
+	private static final int numPages = 2 * cacheSize;
+
+	/**
+	 * The number of page requests per round.
+	 */
+	private static final int numRequests = 400000;
+
+	/**
+	 * The share of requests that modify their page, in percent.
+	 */
+	private static final int modifyPercent = 25;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The resource, shared by all rounds because it takes a while to build.
+	 */
+	private static LatencyResourceManager resource;
+
+
+	/**
+	 * Creates the resource and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void benchmarkInfos() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		TableSchema schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		resource = new LatencyResourceManager(schema, numPages, 0, 0);
+
+		System.out.println("");
+		System.out.println("Cache size: " + cacheSize + " pages (" + (cacheSize / 1024 * pz.getNumberOfBytes() / 1024) +
+				" MB), resource: " + numPages + " pages");
+		System.out.println("Requests per round: " + numRequests + ", modifying: " + modifyPercent + "%");
+		System.out.println("");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testRandomRequests() throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setCacheSize(pz, cacheSize);
+
+		BufferPoolManager bpm = BenchmarkUtils.startBufferPool(config, "PageFrame", resource);
+
+		Random rnd = new Random(42);
+		DataTuple tuple = new DataTuple(new DataField[] { new IntField(42) });
+		int first = resource.getFirstPageNumber();
+
+		long gcCount = getCollectionCount();
+		long gcTime = getCollectionTime();
+		long start = System.nanoTime();
+
+		for (int i = 0; i < numRequests; i++) {
+			int pageNumber = first + rnd.nextInt(numPages);
+
+			TablePage page = (TablePage) bpm.getPageAndPin(0, pageNumber);
+			if (rnd.nextInt(100) < modifyPercent) {
+				page.insertTuple(tuple);
+			}
+			bpm.unpinPage(0, pageNumber);
+		}
+
+		long nanos = System.nanoTime() - start;
+		gcTime = getCollectionTime() - gcTime;
+		gcCount = getCollectionCount() - gcCount;
+
+		bpm.closeBufferPool();
+
+		System.out.println(BenchmarkUtils.perSecond(numRequests, nanos) + " requests/s, " + gcCount +
+				" collections, " + gcTime + " ms in GC");
+	}
+
+	/**
+	 * Checks on a small cache that recycling frames never lets two pages share one. Several
+	 * pages are pinned at a time, every pinned page must have its own frame and number, a page
+	 * whose frame went to another page must be expired, and inserts must survive the eviction
+	 * of their page.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testRecycledFramesNeverAlias() throws Exception
+	{
+		TableSchema schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		LatencyResourceManager rm = new LatencyResourceManager(schema, 64, 0, 0);
+		int first = rm.getFirstPageNumber();
+
+		Config config = Config.getDefaultConfig();
+		config.setCacheSize(pz, 8);
+		BufferPoolManager bpm = BenchmarkUtils.startBufferPool(config, "PageFrame", rm);
+
+		Random rnd = new Random(42);
+		int[] inserted = new int[64];
+		ArrayDeque<TablePage> pinned = new ArrayDeque<TablePage>();
+		Set<TablePage> seen = Collections.newSetFromMap(new IdentityHashMap<TablePage, Boolean>());
+
+		try {
+			for (int i = 0; i < 5000; i++) {
+				int index = rnd.nextInt(inserted.length);
+				if (isPinned(pinned, first + index)) {
+					continue;
+				}
+
+				TablePage page = (TablePage) bpm.getPageAndPin(0, first + index);
+				assertEquals(first + index, page.getPageNumber());
+				assertEquals("The inserts into the page must survive its eviction.",
+						inserted[index], page.getNumRecordsOnPage());
+
+				for (TablePage other : pinned) {
+					assertNotSame("Two pinned pages must not share a frame.", other.getBuffer(), page.getBuffer());
+				}
+				for (Iterator<TablePage> it = seen.iterator(); it.hasNext(); ) {
+					TablePage other = it.next();
+					if (other != page && other.getBuffer() == page.getBuffer()) {
+						assertTrue("A page whose frame was reused must be expired.", other.isExpired());
+						it.remove();
+					}
+				}
+				seen.add(page);
+
+				if (rnd.nextBoolean()) {
+					assertTrue(page.insertTuple(new DataTuple(new DataField[] { new IntField(first + index) })));
+					inserted[index]++;
+				}
+
+				pinned.addLast(page);
+				if (pinned.size() > 3) {
+					bpm.unpinPage(0, pinned.removeFirst().getPageNumber());
+				}
+			}
+		}
+		finally {
+			bpm.closeBufferPool();
+		}
+	}
+
+
+	private static boolean isPinned(ArrayDeque<TablePage> pinned, int pageNumber) throws Exception
+	{
+		for (TablePage page : pinned) {
+			if (page.getPageNumber() == pageNumber) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	private static long getCollectionCount()
+	{
+		long sum = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			sum += Math.max(0, gc.getCollectionCount());
+		}
+		return sum;
+	}
+
+	private static long getCollectionTime()
+	{
+		long sum = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			sum += Math.max(0, gc.getCollectionTime());
+		}
+		return sum;
+	}
+}
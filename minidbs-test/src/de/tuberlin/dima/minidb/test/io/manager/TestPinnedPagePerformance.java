@@ -0,0 +1,234 @@
+package de.tuberlin.dima.minidb.test.io.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.io.cache.CacheableData;
+import de.tuberlin.dima.minidb.io.cache.PageCache;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.BufferAccessStrategy;
+import de.tuberlin.dima.minidb.io.manager.G5BufferPoolManager;
+import de.tuberlin.dima.minidb.io.manager.PinnedPage;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+/**
+ * Benchmark for pinning pages through handles. Requests cached pages, once by pinning and
+ * unpinning them by their page numbers and once through handles, and scans the resource by
+ * handing the pin over from page to page.
+ */
+public class TestPinnedPagePerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * Number of pages of the resource, all of which fit the cache.
+	 */
+	private static final int numPages = 500;
+
+	/**
+	 * Number of requests for cached pages, and number of scans.
+	 */
+	private static final int numRequests = 500000, numScans = 500;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The resource, shared by all runs.
+	 */
+	private static LatencyResourceManager resource;
+
+
+	/**
+	 * Creates the resource and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void benchmarkInfos() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		TableSchema schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		resource = new LatencyResourceManager(schema, numPages, 0, 0);
+
+		System.out.println("");
+		System.out.println("Resource: " + numPages + " cached pages, requests: " + numRequests + ", scans: " + numScans);
+		System.out.println("");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testPageNumbers() throws Exception
+	{
+		G5BufferPoolManager bpm = createBufferPool();
+		Random rnd = new Random(42);
+		int first = resource.getFirstPageNumber();
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < numRequests; i++) {
+			int pageNumber = first + rnd.nextInt(numPages);
+			bpm.getPageAndPin(0, pageNumber);
+			bpm.unpinPage(0, pageNumber);
+		}
+
+		report("page numbers", System.nanoTime() - start, numRequests);
+		bpm.closeBufferPool();
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testHandles() throws Exception
+	{
+		G5BufferPoolManager bpm = createBufferPool();
+		Random rnd = new Random(42);
+		int first = resource.getFirstPageNumber();
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < numRequests; i++) {
+			try (PinnedPage pinned = bpm.pinPage(0, first + rnd.nextInt(numPages))) {
+				pinned.getPage();
+			}
+		}
+
+		report("handles", System.nanoTime() - start, numRequests);
+		bpm.closeBufferPool();
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testScanUnpinAndGet() throws Exception
+	{
+		G5BufferPoolManager bpm = createBufferPool();
+		int first = resource.getFirstPageNumber();
+
+		long start = System.nanoTime();
+
+		for (int scan = 0; scan < numScans; scan++) {
+			bpm.getPageAndPin(0, first, BufferAccessStrategy.BULK_READ);
+			for (int i = first + 1; i < first + numPages; i++)
+				bpm.unpinAndGetPageAndPin(0, i - 1, i, BufferAccessStrategy.BULK_READ);
+			bpm.unpinPage(0, first + numPages - 1);
+		}
+
+		report("scan, unpin and get", System.nanoTime() - start, numScans * numPages);
+		bpm.closeBufferPool();
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testScanHandOver() throws Exception
+	{
+		G5BufferPoolManager bpm = createBufferPool();
+		int first = resource.getFirstPageNumber();
+
+		long start = System.nanoTime();
+
+		for (int scan = 0; scan < numScans; scan++) {
+			try (PinnedPage pinned = bpm.pinPage(0, first, BufferAccessStrategy.BULK_READ)) {
+				for (int i = first + 1; i < first + numPages; i++)
+					pinned.moveTo(i);
+			}
+		}
+
+		report("scan, hand-over", System.nanoTime() - start, numScans * numPages);
+		bpm.closeBufferPool();
+	}
+
+
+	/**
+	 * Checks that closing a handle unpins its page exactly once, also when the block that holds
+	 * the handle fails, and that a handle moving to another page releases the page it held.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testHandleContract() throws Exception
+	{
+		G5BufferPoolManager bpm = createBufferPool();
+		PageCache cache = bpm.getCaches().get(pz);
+		int first = resource.getFirstPageNumber();
+
+		try (PinnedPage pinned = bpm.pinPage(0, first)) {
+			assertEquals(first, pinned.getPage().getPageNumber());
+			assertEquals(1, cache.getNumberOfPinnedPages());
+			throw new IllegalStateException("fails while the page is pinned");
+		} catch (IllegalStateException ise) {
+			assertEquals("A failing block must unpin its page.", 0, cache.getNumberOfPinnedPages());
+		}
+
+		// a page pinned twice stays pinned until both pins are released
+		CacheableData page = bpm.getPageAndPin(0, first);
+		PinnedPage pinned = bpm.pinPage(0, first);
+		assertSame(page, pinned.getPage());
+
+		pinned.close();
+		pinned.close();
+		assertEquals("Closing twice must unpin once.", 1, cache.getNumberOfPinnedPages());
+		assertNull(pinned.getPage());
+
+		bpm.unpinPage(0, first);
+		assertEquals(0, cache.getNumberOfPinnedPages());
+
+		pinned = bpm.pinPage(0, first);
+		pinned.moveTo(first + 1);
+		assertEquals("Moving must release the previous page.", 1, cache.getNumberOfPinnedPages());
+		assertEquals(first + 1, pinned.getPageNumber());
+		assertEquals(first + 1, pinned.getPage().getPageNumber());
+
+		pinned.close();
+		assertEquals(0, cache.getNumberOfPinnedPages());
+
+		bpm.closeBufferPool();
+	}
+
+
+	/**
+	 * Creates a buffer pool that holds all pages of the resource, and caches them.
+	 */
+	private static G5BufferPoolManager createBufferPool() throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setMaxReadAheadPages(0);
+		config.setBufferPoolMetricsEnabled(false);
+		config.setCacheSize(pz, 2 * numPages);
+
+		G5BufferPoolManager bpm = (G5BufferPoolManager) BenchmarkUtils.startBufferPool(config, "PinnedPage", resource);
+
+		int first = resource.getFirstPageNumber();
+
+		for (int i = first; i < first + numPages; i++) {
+			bpm.getPageAndPin(0, i);
+			bpm.unpinPage(0, i);
+		}
+
+		return bpm;
+	}
+
+	private static void report(String label, long nanos, int requests)
+	{
+		System.out.println(label + ": " + nanos / requests + " ns per page");
+	}
+}
@@ -0,0 +1,152 @@
+package de.tuberlin.dima.minidb.test.io.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.io.cache.CacheableData;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+/**
+ * Benchmark for scans through a cold buffer pool. The scan requests the pages of a resource
+ * one after the other, as a table scan does, without prefetching them itself. It runs once
+ * without read-ahead and once with the buffer pool reading ahead of it.
+ */
+public class TestReadAheadPerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * Number of pages of the scanned resource, more than the cache holds.
+	 */
+	private static final int numPages = 2000;
+
+	/**
+	 * Simulated access overhead and transfer time per page in microseconds.
+	 */
+	private static final long accessMicros = 200, transferMicros = 20;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The scanned resource, shared by all runs.
+	 */
+	private static LatencyResourceManager resource;
+
+
+	/**
+	 * Creates the resource and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void benchmarkInfos() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		TableSchema schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		resource = new LatencyResourceManager(schema, numPages, accessMicros, transferMicros);
+
+		System.out.println("");
+		System.out.println("Pages scanned: " + numPages + ", cache size: " + Config.getDefaultConfig().getCacheSize(pz));
+		System.out.println("Simulated read latency in us: " + accessMicros + " + " + transferMicros + " per page");
+		System.out.println("");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testNoReadAhead() throws Exception
+	{
+		runScan(0);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testAdaptiveReadAhead() throws Exception
+	{
+		runScan(Config.getDefaultConfig().getMaxReadAheadPages());
+	}
+
+
+	/**
+	 * Checks that random requests do not trigger read-ahead.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testRandomRequestsReadNoMore() throws Exception
+	{
+		BufferPoolManager bpm = BenchmarkUtils.startBufferPool(Config.getDefaultConfig(), "ReadAhead", resource);
+
+		int pagesRead = resource.getPagesRead();
+		Random rnd = new Random(42);
+		int numRequests = 200;
+
+		for (int i = 0; i < numRequests; i++) {
+			int pageNumber = resource.getFirstPageNumber() + rnd.nextInt(numPages);
+			bpm.getPageAndPin(0, pageNumber);
+			bpm.unpinPage(0, pageNumber);
+		}
+		bpm.closeBufferPool();
+
+		pagesRead = resource.getPagesRead() - pagesRead;
+		assertTrue("Random requests must not read ahead, but " + pagesRead + " pages were read for " + numRequests +
+				" requests.", pagesRead <= numRequests);
+	}
+
+
+	/**
+	 * Scans all pages of the resource through a fresh buffer pool.
+	 */
+	private void runScan(int maxReadAhead) throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setMaxReadAheadPages(maxReadAhead);
+
+		BufferPoolManager bpm = BenchmarkUtils.startBufferPool(config, "ReadAhead", resource);
+
+		int readCalls = resource.getReadCalls();
+		int pagesRead = resource.getPagesRead();
+		int first = resource.getFirstPageNumber();
+
+		long start = System.nanoTime();
+
+		for (int i = first; i < first + numPages; i++) {
+			CacheableData page = bpm.getPageAndPin(0, i);
+			assertEquals(i, page.getPageNumber());
+			bpm.unpinPage(0, i);
+		}
+
+		long nanos = System.nanoTime() - start;
+		bpm.closeBufferPool();
+
+		readCalls = resource.getReadCalls() - readCalls;
+		pagesRead = resource.getPagesRead() - pagesRead;
+
+		assertEquals("Every page must be read exactly once.", numPages, pagesRead);
+
+		System.out.println("read-ahead " + maxReadAhead + " pages: " + readCalls + " read calls for " + pagesRead +
+				" pages, " + BenchmarkUtils.perSecond(numPages, nanos) + " pages/s");
+	}
+}
@@ -0,0 +1,137 @@
+package de.tuberlin.dima.minidb.test.io.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.io.cache.CacheableData;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.G5BufferPoolManager;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+/**
+ * Benchmark for demand reads behind a backlog of prefetches. A burst of prefetches for scattered
+ * pages is queued, then a query requests a few other pages and waits for each. Reports how long
+ * the demand reads took compared to a single read and to the time the reader needs for the
+ * prefetches, which the first demand read would wait for if the requests were served in the
+ * order they arrived.
+ */
+public class TestReadPriorityPerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * Number of pages of the resource.
+	 */
+	private static final int numPages = 4000;
+
+	/**
+	 * Number of prefetched pages, every other page, so that they are read one by one.
+	 */
+	private static final int numPrefetches = 100;
+
+	/**
+	 * Number of pages requested by the query.
+	 */
+	private static final int numDemandReads = 20;
+
+	/**
+	 * Simulated access overhead and transfer time per page in microseconds.
+	 */
+	private static final long accessMicros = 200, transferMicros = 20;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The resource, shared by all rounds.
+	 */
+	private static LatencyResourceManager resource;
+
+
+	/**
+	 * Creates the resource and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void benchmarkInfos() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		TableSchema schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		resource = new LatencyResourceManager(schema, numPages, accessMicros, transferMicros);
+
+		System.out.println("");
+		System.out.println("Prefetches: " + numPrefetches + ", demand reads: " + numDemandReads);
+		System.out.println("Simulated read latency in us: " + accessMicros + " + " + transferMicros + " per page");
+		System.out.println("");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testDemandReadsBehindPrefetches() throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setMaxReadAheadPages(0);
+
+		G5BufferPoolManager bpm = (G5BufferPoolManager) BenchmarkUtils.startBufferPool(config, "ReadPriority", resource);
+
+		int first = resource.getFirstPageNumber();
+
+		// a read through the idle reader, for comparison
+		long start = System.nanoTime();
+		bpm.getPageAndPin(0, first + numPages - 1);
+		long readMicros = (System.nanoTime() - start) / 1000;
+		bpm.unpinPage(0, first + numPages - 1);
+
+		for (int i = 0; i < numPrefetches; i++) {
+			bpm.prefetchPage(0, first + 2 * i);
+		}
+
+		// the query reads pages behind the prefetched ones
+		Random rnd = new Random(42);
+		long demandNanos = 0;
+
+		for (int i = 0; i < numDemandReads; i++) {
+			int pageNumber = first + 2 * numPrefetches + rnd.nextInt(numPages - 2 * numPrefetches - 1);
+
+			long requested = System.nanoTime();
+			CacheableData page = bpm.getPageAndPin(0, pageNumber);
+			demandNanos += System.nanoTime() - requested;
+
+			assertEquals(pageNumber, page.getPageNumber());
+			bpm.unpinPage(0, pageNumber);
+		}
+
+		long expedited = bpm.getExpeditedReads();
+		bpm.closeBufferPool();
+
+		long demandMicros = demandNanos / numDemandReads / 1000;
+
+		System.out.println("demand read: " + demandMicros + " us on average, idle read: " + readMicros +
+				" us, behind all prefetches: " + (numPrefetches * readMicros) + " us, expedited: " + expedited);
+
+		// served in arrival order, the first demand read alone would wait for all prefetches
+		assertTrue("Demand reads must not wait for the prefetches.", demandMicros < 4 * readMicros);
+	}
+}
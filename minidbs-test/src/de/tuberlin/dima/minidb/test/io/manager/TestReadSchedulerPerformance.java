@@ -0,0 +1,160 @@
+package de.tuberlin.dima.minidb.test.io.manager;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.io.cache.CacheableData;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+/**
+ * Benchmark for the read path of the buffer pool. Several clients read disjoint resources
+ * with a simulated device latency, once with a single read thread (the former design) and
+ * once with one read thread per resource.
+ */
+public class TestReadSchedulerPerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * Number of resources, each read by its own client thread.
+	 */
+	private static final int numResources = 4;
+
+	/**
+	 * Number of pages per resource.
+	 */
+	private static final int pagesPerResource = 250;
+
+	/**
+	 * Simulated access overhead and transfer time per page in microseconds.
+	 */
+	private static final long accessMicros = 500, transferMicros = 40;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The schema of the resources.
+	 */
+	private TableSchema schema;
+
+
+	/**
+	 * Writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void benchmarkInfos()
+	{
+		System.out.println("");
+		System.out.println("Resources: " + numResources + ", pages per resource: " + pagesPerResource);
+		System.out.println("Simulated read latency in us: " + accessMicros + " + " + transferMicros + " per page");
+		System.out.println("");
+	}
+
+	@Before
+	public void setUp() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		this.schema = new TableSchema(pz);
+		this.schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		this.schema.addColumn(ColumnSchema.createColumnSchema("Value", DataType.varcharType(64), true));
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 1)
+	@Test
+	public void testSingleReadThread() throws Exception
+	{
+		runColdReads(1);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 1)
+	@Test
+	public void testReadThreadPerResource() throws Exception
+	{
+		runColdReads(numResources);
+	}
+
+	/**
+	 * Reads every page of every resource through a fresh buffer pool with one client
+	 * thread per resource.
+	 */
+	private void runColdReads(int numReadThreads) throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setNumReadThreads(numReadThreads);
+
+		final BufferPoolManager bpm = BenchmarkUtils.startBufferPool(config, "ReadScheduler");
+
+		final List<LatencyResourceManager> resources = new ArrayList<LatencyResourceManager>();
+		for (int i = 0; i < numResources; i++) {
+			LatencyResourceManager rm = new LatencyResourceManager(this.schema, pagesPerResource, accessMicros, transferMicros);
+			bpm.registerResource(i, rm);
+			resources.add(rm);
+		}
+
+		final Throwable[] errors = new Throwable[numResources];
+		Thread[] clients = new Thread[numResources];
+
+		long start = System.nanoTime();
+		for (int i = 0; i < numResources; i++) {
+			final int resourceId = i;
+			clients[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						int first = resources.get(resourceId).getFirstPageNumber();
+						for (int p = first; p < first + pagesPerResource; p++) {
+							CacheableData page = bpm.getPageAndPin(resourceId, p);
+							assertEquals(p, page.getPageNumber());
+							bpm.unpinPage(resourceId, p);
+						}
+					}
+					catch (Throwable t) {
+						errors[resourceId] = t;
+					}
+				}
+			};
+			clients[i].start();
+		}
+		for (Thread client : clients) {
+			client.join();
+		}
+		long nanos = System.nanoTime() - start;
+
+		bpm.closeBufferPool();
+
+		for (Throwable t : errors) {
+			if (t != null) {
+				throw new Exception("Client failed: " + t.getMessage(), t);
+			}
+		}
+
+		int pages = numResources * pagesPerResource;
+		System.out.println(numReadThreads + " read thread(s): " + BenchmarkUtils.perSecond(pages, nanos) + " pages/s");
+	}
+}
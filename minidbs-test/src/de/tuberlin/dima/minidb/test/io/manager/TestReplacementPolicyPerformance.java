@@ -0,0 +1,288 @@
+package de.tuberlin.dima.minidb.test.io.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.Random;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.io.cache.CachePinnedException;
+import de.tuberlin.dima.minidb.io.cache.CacheableData;
+import de.tuberlin.dima.minidb.io.cache.G5PolicyPageCache;
+import de.tuberlin.dima.minidb.io.cache.PageCache;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.cache.ReplacementPolicyType;
+import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.io.manager.G5AccessTrace;
+import de.tuberlin.dima.minidb.io.manager.G5CacheSimulator;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+/**
+ * Benchmark for the replacement policies of the page cache. Requests pages that are all cached,
+ * where the cost of a hit weighs most, once per policy. Also records a trace of repeated scans
+ * over a table that does not fit the cache, mixed with index lookups, and replays it in the
+ * cache simulator.
+ */
+public class TestReplacementPolicyPerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * Capacity of the cache, in pages.
+	 */
+	private static final int cacheSize = 200;
+
+	/**
+	 * Number of pages of the scanned table, of the index, and number of scans.
+	 */
+	private static final int tablePages = 300, indexPages = 50, numScans = 6;
+
+	/**
+	 * Number of requests for cached pages.
+	 */
+	private static final int numRequests = 500000;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The resources, shared by all runs.
+	 */
+	private static LatencyResourceManager table, index;
+
+	/**
+	 * The recorded trace.
+	 */
+	private static File trace;
+
+
+	/**
+	 * Creates the resources and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void benchmarkInfos() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		TableSchema schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		table = new LatencyResourceManager(schema, tablePages, 0, 0);
+		index = new LatencyResourceManager(schema, indexPages, 0, 0);
+
+		trace = File.createTempFile("minidb-trace", ".bin");
+
+		System.out.println("");
+		System.out.println("Cache size: " + cacheSize + " pages, trace: " + numScans + " scans over " + tablePages +
+				" pages with lookups in " + indexPages + " pages, cached requests: " + numRequests);
+		System.out.println("");
+	}
+
+	@AfterClass
+	public static void deleteTrace()
+	{
+		trace.delete();
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testArc() throws Exception
+	{
+		runRequests(ReplacementPolicyType.ARC);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testClock() throws Exception
+	{
+		runRequests(ReplacementPolicyType.CLOCK);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testClockPro() throws Exception
+	{
+		runRequests(ReplacementPolicyType.CLOCK_PRO);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testLirs() throws Exception
+	{
+		runRequests(ReplacementPolicyType.LIRS);
+	}
+
+
+	/**
+	 * Records the trace through the buffer pool and replays it for every policy. Scans over a
+	 * table larger than the cache evict every page before it is used again under CLOCK, while
+	 * CLOCK-Pro and LIRS keep a part of the table.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testSimulatedTrace() throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setMaxReadAheadPages(0);
+		config.setCacheSize(pz, cacheSize);
+		config.setCacheTraceFile(trace.getPath());
+
+		BufferPoolManager bpm = BenchmarkUtils.startBufferPool(config, "Policy", table, index);
+
+		Random rnd = new Random(42);
+		int numTraced = 0;
+
+		for (int scan = 0; scan < numScans; scan++) {
+			for (int i = 0; i < tablePages; i++) {
+
+				request(bpm, 0, table.getFirstPageNumber() + i);
+
+				// every few rows, look up a key in the index
+				if (i % 3 == 0)
+					request(bpm, 1, index.getFirstPageNumber() + rnd.nextInt(indexPages));
+			}
+			numTraced += tablePages + (tablePages + 2) / 3;
+		}
+
+		bpm.closeBufferPool();
+
+		G5AccessTrace.Reader reader = new G5AccessTrace.Reader(trace);
+		int numRecorded = 0;
+		while (reader.next())
+			numRecorded++;
+		reader.close();
+
+		assertEquals("Every request must be recorded.", numTraced, numRecorded);
+
+		double[] hitRatios = new double[ReplacementPolicyType.values().length];
+
+		for (ReplacementPolicyType policy : ReplacementPolicyType.values()) {
+			hitRatios[policy.ordinal()] = G5CacheSimulator.simulate(trace, policy, cacheSize);
+			System.out.println(String.format("%-10s hit ratio %.4f", policy, hitRatios[policy.ordinal()]));
+		}
+
+		double clock = hitRatios[ReplacementPolicyType.CLOCK.ordinal()];
+
+		assertTrue("CLOCK-Pro must keep part of the scanned table.",
+				hitRatios[ReplacementPolicyType.CLOCK_PRO.ordinal()] > clock + 0.1);
+		assertTrue("LIRS must keep part of the scanned table.",
+				hitRatios[ReplacementPolicyType.LIRS.ordinal()] > clock + 0.1);
+	}
+
+
+	/**
+	 * Checks for every policy that pinned pages are not evicted, that a cache full of pinned pages
+	 * refuses new pages, and that expelled pages are gone and evicted first.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testPolicyContract() throws Exception
+	{
+		int numPages = 20;
+
+		for (ReplacementPolicyType policy : ReplacementPolicyType.values()) {
+
+			if (policy == ReplacementPolicyType.ARC)
+				continue;
+
+			PageCache cache = new G5PolicyPageCache(pz, numPages, G5PolicyPageCache.createPolicy(policy));
+
+			for (int i = 0; i < numPages; i++)
+				cache.addPageAndPin(newPage(i), 0);
+
+			try {
+				cache.addPage(newPage(numPages), 0);
+				fail(policy + ": a cache of pinned pages must refuse new pages.");
+			} catch (CachePinnedException cpe) {
+				// expected
+			}
+
+			// unpin one page, which must be the one evicted
+			cache.unpinPage(0, 7);
+			assertEquals(policy + ": only the unpinned page may be evicted.", 7,
+					cache.addPage(newPage(numPages), 0).getPageNumber());
+
+			cache.unpinAllPages();
+
+			// a page of another resource, expelled, is the next victim
+			cache.addPage(newPage(0), 1);
+			cache.expellAllPagesForResource(1);
+			assertNull(policy + ": an expelled page must be gone.", cache.getPage(1, 0));
+			assertEquals(policy + ": the expelled page must be evicted first.", 1,
+					cache.addPage(newPage(numPages + 1), 0).getResourceID());
+
+			for (int i = numPages + 2; i < 10 * numPages; i++) {
+				assertNotNull(cache.addPage(newPage(i), 0));
+				cache.getPage(0, i);
+			}
+			assertEquals(policy + ": the cache must stay at its capacity.", numPages,
+					cache.getAllPagesForResource(0).length);
+		}
+	}
+
+
+	/**
+	 * Requests random pages from a buffer pool that holds all of them.
+	 */
+	private void runRequests(ReplacementPolicyType policy) throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setMaxReadAheadPages(0);
+		config.setBufferPoolMetricsEnabled(false);
+		config.setCacheReplacementPolicy(policy);
+
+		BufferPoolManager bpm = BenchmarkUtils.startBufferPool(config, "Policy", table);
+
+		int first = table.getFirstPageNumber();
+
+		for (int i = first; i < first + tablePages; i++)
+			request(bpm, 0, i);
+
+		Random rnd = new Random(42);
+		long start = System.nanoTime();
+
+		for (int i = 0; i < numRequests; i++)
+			request(bpm, 0, first + rnd.nextInt(tablePages));
+
+		long nanos = System.nanoTime() - start;
+		bpm.closeBufferPool();
+
+		System.out.println(policy + ": " + nanos / numRequests + " ns per cached request");
+	}
+
+
+	private static void request(BufferPoolManager bpm, int resourceId, int pageNumber) throws Exception
+	{
+		bpm.getPageAndPin(resourceId, pageNumber);
+		bpm.unpinPage(resourceId, pageNumber);
+	}
+
+	private static CacheableData newPage(int pageNumber) throws Exception
+	{
+		TableSchema schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		return AbstractExtensionFactory.getExtensionFactory().initTablePage(schema, new byte[pz.getNumberOfBytes()], pageNumber);
+	}
+}
@@ -0,0 +1,303 @@
+package de.tuberlin.dima.minidb.test.io.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataField;
+import de.tuberlin.dima.minidb.core.DataTuple;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.core.IntField;
+import de.tuberlin.dima.minidb.io.cache.PageFormatException;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.BufferAccessStrategy;
+import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.io.tables.TablePage;
+import de.tuberlin.dima.minidb.io.tables.TableResourceManager;
+import de.tuberlin.dima.minidb.qexec.LowLevelPredicate;
+import de.tuberlin.dima.minidb.qexec.TableScanOperator;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+/**
+ * Benchmark for a mixed workload. Random lookups go to a small, frequently used resource, like
+ * the pages of an index, interleaved with a scan over a table several times the size of the
+ * cache. Reports the hit rate of the lookups with the scan reading its pages normally and with
+ * the scan using the bulk read strategy.
+ */
+public class TestScanResistancePerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * The capacity of the cache in pages.
+	 */
+	private static final int cacheSize = 1024;
+
+	/**
+	 * The number of pages of the looked up resource, which fits into the cache.
+	 */
+	private static final int hotPages = 960;
+
+	/**
+	 * The number of pages of the scanned table.
+	 */
+	private static final int scanPages = 8 * cacheSize;
+
+	/**
+	 * The number of times the table is scanned per round.
+	 */
+	private static final int numScans = 2;
+
+	/**
+	 * The number of lookups per scanned page.
+	 */
+	private static final int lookupsPerPage = 4;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The looked up resource and the scanned table, shared by all rounds.
+	 */
+	private static LatencyResourceManager hotResource, scanResource;
+
+
+	/**
+	 * Creates the resources and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void benchmarkInfos() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		TableSchema schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		hotResource = new LatencyResourceManager(schema, hotPages, 0, 0);
+		scanResource = new LatencyResourceManager(schema, scanPages, 0, 0);
+
+		System.out.println("");
+		System.out.println("Cache size: " + cacheSize + " pages, looked up: " + hotPages + " pages, scanned: " +
+				scanPages + " pages");
+		System.out.println("Scans per round: " + numScans + ", lookups per scanned page: " + lookupsPerPage);
+		System.out.println("");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testNormalScan() throws Exception
+	{
+		runMixed(BufferAccessStrategy.NORMAL);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testBulkReadScan() throws Exception
+	{
+		double hitRate = runMixed(BufferAccessStrategy.BULK_READ);
+		assertTrue("The scan must not push the looked up pages out of the cache, hit rate: " + hitRate, hitRate > 0.9);
+	}
+
+	/**
+	 * Checks that the table scan caches a table that takes a small share of the cache, so that
+	 * scanning it again reads nothing, and reads a table larger than the cache in bulk, so that
+	 * scanning it leaves the cached table in place.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testScanStrategyFollowsTableSize() throws Exception
+	{
+		File smallFile = createTable(cacheSize / 16);
+		File largeFile = createTable(2 * cacheSize);
+
+		try {
+			Config config = Config.getDefaultConfig();
+			config.setCacheSize(pz, cacheSize);
+
+			BufferPoolManager bpm = BenchmarkUtils.startBufferPool(config, "ScanResistance");
+			CountingTableResourceManager small = new CountingTableResourceManager(smallFile);
+			CountingTableResourceManager large = new CountingTableResourceManager(largeFile);
+			bpm.registerResource(0, small);
+			bpm.registerResource(1, large);
+
+			int smallTuples = scan(bpm, small, 0);
+			assertTrue(small.getPagesRead() > 0);
+
+			small.resetPagesRead();
+			assertEquals(smallTuples, scan(bpm, small, 0));
+			assertEquals("A rescanned table smaller than the cache must be served from the cache.",
+					0, small.getPagesRead());
+
+			scan(bpm, large, 1);
+			assertEquals(smallTuples, scan(bpm, small, 0));
+			assertEquals("Scanning a table larger than the cache must not evict the cached table.",
+					0, small.getPagesRead());
+
+			bpm.closeBufferPool();
+			small.closeResource();
+			large.closeResource();
+		} finally {
+			smallFile.delete();
+			largeFile.delete();
+		}
+	}
+
+
+	/**
+	 * Scans the table twice with the given strategy and runs a few lookups after each scanned page,
+	 * as they would run concurrently to the scan.
+	 *
+	 * @return The hit rate of the lookups.
+	 */
+	private double runMixed(BufferAccessStrategy strategy) throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setCacheSize(pz, cacheSize);
+
+		BufferPoolManager bpm = BenchmarkUtils.startBufferPool(config, "ScanResistance", hotResource, scanResource);
+
+		Random rnd = new Random(42);
+		int firstHot = hotResource.getFirstPageNumber();
+		int firstScan = scanResource.getFirstPageNumber();
+
+		// bring the looked up pages into the cache
+		for (int i = firstHot; i < firstHot + hotPages; i++) {
+			bpm.getPageAndPin(0, i);
+			bpm.unpinPage(0, i);
+		}
+
+		int hotRead = hotResource.getPagesRead();
+		int lookups = 0;
+		long start = System.nanoTime();
+
+		for (int pass = 0; pass < numScans; pass++) {
+			bpm.getPageAndPin(1, firstScan, strategy);
+
+			for (int i = firstScan; i < firstScan + scanPages; i++) {
+				if (i > firstScan) {
+					bpm.unpinAndGetPageAndPin(1, i - 1, i, strategy);
+				}
+
+				for (int k = 0; k < lookupsPerPage; k++, lookups++) {
+					int pageNumber = firstHot + rnd.nextInt(hotPages);
+					bpm.getPageAndPin(0, pageNumber);
+					bpm.unpinPage(0, pageNumber);
+				}
+			}
+			bpm.unpinPage(1, firstScan + scanPages - 1);
+		}
+
+		long nanos = System.nanoTime() - start;
+		bpm.closeBufferPool();
+
+		hotRead = hotResource.getPagesRead() - hotRead;
+		double hitRate = 1.0 - hotRead / (double) lookups;
+
+		System.out.println(strategy + " scan: lookup hit rate " + String.format("%.3f", hitRate) + " (" + hotRead +
+				" of " + lookups + " lookups read), " + BenchmarkUtils.perSecond(numScans * scanPages, nanos) +
+				" scanned pages/s");
+		return hitRate;
+	}
+
+	/**
+	 * Scans a table with the table scan operator and returns the number of tuples.
+	 */
+	private static int scan(BufferPoolManager bpm, TableResourceManager rm, int resourceId) throws Exception
+	{
+		TableScanOperator scan = AbstractExtensionFactory.getExtensionFactory().createTableScanOperator(
+				bpm, rm, resourceId, new int[] { 0 }, new LowLevelPredicate[0], 16);
+
+		int count = 0;
+		scan.open(null);
+		while (scan.next() != null) {
+			count++;
+		}
+		scan.close();
+		return count;
+	}
+
+	/**
+	 * Creates a table file with the given number of full pages.
+	 */
+	private static File createTable(int numPages) throws Exception
+	{
+		TableSchema schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+
+		File file = File.createTempFile("minidbs-scan", ".tbl");
+		TableResourceManager rm = TableResourceManager.createTable(file, schema);
+
+		byte[] buffer = new byte[pz.getNumberOfBytes()];
+		int key = 0;
+
+		for (int i = 0; i < numPages; i++) {
+			TablePage page = rm.reserveNewPage(buffer);
+			while (page.insertTuple(new DataTuple(new DataField[] { new IntField(key) }))) {
+				key++;
+			}
+			rm.writePageToResource(buffer, page);
+		}
+		rm.closeResource();
+		return file;
+	}
+
+
+	/**
+	 * A table resource manager that counts the pages it reads from its file.
+	 */
+	private static final class CountingTableResourceManager extends TableResourceManager
+	{
+		private final AtomicInteger pagesRead = new AtomicInteger();
+
+		CountingTableResourceManager(File file) throws IOException, PageFormatException
+		{
+			super(new RandomAccessFile(file, "rw"));
+		}
+
+		@Override
+		public TablePage readPageFromResource(byte[] buffer, int pageNumber) throws IOException
+		{
+			this.pagesRead.incrementAndGet();
+			return super.readPageFromResource(buffer, pageNumber);
+		}
+
+		@Override
+		public TablePage[] readPagesFromResource(byte[][] buffers, int firstPageNumber) throws IOException
+		{
+			this.pagesRead.addAndGet(buffers.length);
+			return super.readPagesFromResource(buffers, firstPageNumber);
+		}
+
+		int getPagesRead()
+		{
+			return this.pagesRead.get();
+		}
+
+		void resetPagesRead()
+		{
+			this.pagesRead.set(0);
+		}
+	}
+}
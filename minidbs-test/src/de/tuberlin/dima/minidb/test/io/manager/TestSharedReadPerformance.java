@@ -0,0 +1,155 @@
+package de.tuberlin.dima.minidb.test.io.manager;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.io.cache.CacheableData;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+/**
+ * Benchmark for concurrent requests of the same pages. Several threads request the pages of a
+ * cold resource in the same order, as concurrent queries scanning the same table do. Every page
+ * must be read only once, the threads that ask for a page which is being read wait for that read.
+ */
+public class TestSharedReadPerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * Number of pages of the resource, fewer than the cache holds.
+	 */
+	private static final int numPages = 500;
+
+	/**
+	 * Number of threads requesting the pages.
+	 */
+	private static final int numThreads = 4;
+
+	/**
+	 * Simulated access overhead and transfer time per page in microseconds.
+	 */
+	private static final long accessMicros = 200, transferMicros = 20;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The resource, shared by all runs.
+	 */
+	private static LatencyResourceManager resource;
+
+
+	/**
+	 * Creates the resource and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void benchmarkInfos() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		TableSchema schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		resource = new LatencyResourceManager(schema, numPages, accessMicros, transferMicros);
+
+		System.out.println("");
+		System.out.println("Pages: " + numPages + ", requested by " + numThreads + " threads each");
+		System.out.println("Simulated read latency in us: " + accessMicros + " + " + transferMicros + " per page");
+		System.out.println("");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testSingleThread() throws Exception
+	{
+		runScans(1);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testConcurrentThreads() throws Exception
+	{
+		runScans(numThreads);
+	}
+
+
+	/**
+	 * Lets the given number of threads request all pages of the resource through a fresh buffer pool.
+	 */
+	private void runScans(int threads) throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setMaxReadAheadPages(0);
+
+		final BufferPoolManager bpm = BenchmarkUtils.startBufferPool(config, "SharedRead", resource);
+
+		int pagesRead = resource.getPagesRead();
+		final int first = resource.getFirstPageNumber();
+		final List<Throwable> failures = new ArrayList<Throwable>();
+
+		List<Thread> scanners = new ArrayList<Thread>();
+
+		for (int t = 0; t < threads; t++) {
+			scanners.add(new Thread() {
+				@Override
+				public void run()
+				{
+					try {
+						for (int i = first; i < first + numPages; i++) {
+							CacheableData page = bpm.getPageAndPin(0, i);
+							assertEquals(i, page.getPageNumber());
+							bpm.unpinPage(0, i);
+						}
+					} catch (Throwable e) {
+						synchronized (failures) {
+							failures.add(e);
+						}
+					}
+				}
+			});
+		}
+
+		long start = System.nanoTime();
+
+		for (Thread scanner : scanners)
+			scanner.start();
+
+		for (Thread scanner : scanners)
+			scanner.join();
+
+		long nanos = System.nanoTime() - start;
+		bpm.closeBufferPool();
+
+		if (!failures.isEmpty())
+			throw new AssertionError(failures.get(0));
+
+		pagesRead = resource.getPagesRead() - pagesRead;
+
+		assertEquals("Every page must be read exactly once.", numPages, pagesRead);
+
+		System.out.println(threads + " threads: " + pagesRead + " pages read for " + threads * numPages +
+				" requests in " + nanos / 1000000 + " ms");
+	}
+}
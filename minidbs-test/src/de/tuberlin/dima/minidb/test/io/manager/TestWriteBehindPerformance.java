@@ -0,0 +1,165 @@
+package de.tuberlin.dima.minidb.test.io.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.io.cache.CacheableData;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+/**
+ * Benchmark for the write path of the buffer pool. A bulk load creates more pages than the
+ * cache holds, so that pages are written on eviction and when the buffer pool is closed.
+ */
+public class TestWriteBehindPerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * Number of pages created by the bulk load, a multiple of the cache size.
+	 */
+	private static final int numPages = 3000;
+
+	/**
+	 * Simulated access overhead and transfer time per page in microseconds.
+	 */
+	private static final long accessMicros = 200, transferMicros = 20;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The schema of the resource.
+	 */
+	private TableSchema schema;
+
+
+	/**
+	 * Writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void benchmarkInfos()
+	{
+		System.out.println("");
+		System.out.println("Pages created: " + numPages + ", cache size: " + Config.getDefaultConfig().getCacheSize(pz));
+		System.out.println("Simulated write latency in us: " + accessMicros + " + " + transferMicros + " per page");
+		System.out.println("");
+	}
+
+	@Before
+	public void setUp() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		this.schema = new TableSchema(pz);
+		this.schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 1)
+	@Test
+	public void testNoBatchingWindow() throws Exception
+	{
+		runBulkLoad(0);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 1)
+	@Test
+	public void testShortBatchingWindow() throws Exception
+	{
+		runBulkLoad(5);
+	}
+
+	/**
+	 * Checks that idle I/O threads block rather than spin.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testIdleIOThreadsDoNotSpin() throws Exception
+	{
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!threads.isThreadCpuTimeSupported()) {
+			return;
+		}
+		threads.setThreadCpuTimeEnabled(true);
+
+		BufferPoolManager bpm = BenchmarkUtils.startBufferPool(Config.getDefaultConfig(), "WriteBehind");
+
+		try {
+			long before = getOtherThreadsCpuTime(threads);
+			Thread.sleep(500);
+			long used = getOtherThreadsCpuTime(threads) - before;
+
+			assertTrue("Idle I/O threads used " + (used / 1000000) + " ms CPU in 500 ms.", used < 100 * 1000000L);
+		}
+		finally {
+			bpm.closeBufferPool();
+		}
+	}
+
+
+	/**
+	 * Creates new pages through a fresh buffer pool and closes it.
+	 */
+	private void runBulkLoad(long batchWindow) throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setWriteBatchWindow(batchWindow);
+
+		BufferPoolManager bpm = BenchmarkUtils.startBufferPool(config, "WriteBehind");
+
+		LatencyResourceManager rm = new LatencyResourceManager(this.schema, 0, accessMicros, transferMicros);
+		bpm.registerResource(0, rm);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < numPages; i++) {
+			CacheableData page = bpm.createNewPageAndPin(0);
+			bpm.unpinPage(0, page.getPageNumber());
+		}
+		bpm.closeBufferPool();
+		long nanos = System.nanoTime() - start;
+
+		assertEquals("Every created page must be written once.", numPages, rm.getPagesWritten());
+
+		System.out.println("batching window " + batchWindow + " ms: " + rm.getWriteCalls() + " write calls for " +
+				rm.getPagesWritten() + " pages, " + BenchmarkUtils.perSecond(numPages, nanos) + " pages/s");
+	}
+
+	private static long getOtherThreadsCpuTime(ThreadMXBean threads)
+	{
+		long self = Thread.currentThread().getId();
+		long sum = 0;
+		for (long id : threads.getAllThreadIds()) {
+			if (id != self) {
+				long t = threads.getThreadCpuTime(id);
+				if (t > 0) {
+					sum += t;
+				}
+			}
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,303 @@
+package de.tuberlin.dima.minidb.test.io.tables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.BigIntField;
+import de.tuberlin.dima.minidb.core.DataField;
+import de.tuberlin.dima.minidb.core.DataTuple;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.core.DoubleField;
+import de.tuberlin.dima.minidb.core.IntField;
+import de.tuberlin.dima.minidb.core.SmallIntField;
+import de.tuberlin.dima.minidb.core.VarcharField;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.tables.PageLayout;
+import de.tuberlin.dima.minidb.io.tables.TablePage;
+import de.tuberlin.dima.minidb.io.tables.TupleIterator;
+import de.tuberlin.dima.minidb.parser.Predicate.Operator;
+import de.tuberlin.dima.minidb.qexec.LowLevelPredicate;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+
+/**
+ * Benchmark for selective scans over table pages, once with the predicate evaluated by the
+ * pages before a tuple is created, and once on tuples that the pages created for all records.
+ * Reports the bytes allocated per row and the throughput of the scans.
+ */
+public class TestBytePredicatePerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_8192;
+
+	/**
+	 * Number of tuples in the table.
+	 */
+	private static final int numTuples = 500000;
+
+	/**
+	 * The columns the scans project, the int and the bigint column.
+	 */
+	private static final long projection = 0x5;
+
+	/**
+	 * The predicate of the scans, which one percent of the tuples pass.
+	 */
+	private static final LowLevelPredicate selective =
+			new LowLevelPredicate(Operator.GREATER_OR_EQUAL, new IntField(numTuples - numTuples / 100), 0);
+
+	/**
+	 * Number of scans per round.
+	 */
+	private static final int scansPerRound = 10;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The pages of the table.
+	 */
+	private static List<TablePage> pages;
+
+	/**
+	 * The sum of the projected columns over the tuples that pass the predicate.
+	 */
+	private static long expectedSum;
+
+
+	/**
+	 * Builds the pages of the table and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void createPages() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		TableSchema schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		schema.addColumn(ColumnSchema.createColumnSchema("Name", DataType.varcharType(20), true));
+		schema.addColumn(ColumnSchema.createColumnSchema("Amount", DataType.bigIntType(), false));
+
+		AbstractExtensionFactory factory = AbstractExtensionFactory.getExtensionFactory();
+		pages = new ArrayList<TablePage>();
+		TablePage page = factory.initTablePage(schema, new byte[pz.getNumberOfBytes()], 1);
+		pages.add(page);
+
+		for (int i = 0; i < numTuples; i++) {
+			DataTuple tuple = new DataTuple(new DataField[] { new IntField(i), new VarcharField("name-" + (i % 10)),
+					new BigIntField(i * 3L) });
+			if (selective.evaluate(tuple)) {
+				expectedSum += i + i * 3L;
+			}
+			if (!page.insertTuple(tuple)) {
+				page = factory.initTablePage(schema, new byte[pz.getNumberOfBytes()], pages.size() + 1);
+				pages.add(page);
+				page.insertTuple(tuple);
+			}
+		}
+
+		System.out.println("");
+		System.out.println("Tuples: " + numTuples + " on " + pages.size() + " pages, selectivity: 1%");
+		System.out.println("");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 2)
+	@Test
+	public void testPredicatesOnTuples() throws Exception
+	{
+		runScans(false);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 2)
+	@Test
+	public void testPredicatesOnBytes() throws Exception
+	{
+		// only the passing percent of the rows creates a tuple and its fields
+		assertTrue("Rejected records must not allocate.", runScans(true) < 8);
+	}
+
+
+	/**
+	 * Checks that the pages of both layouts, also with dictionary encoding, give the same
+	 * tuples for predicates with every operator on every kind of column as evaluating the
+	 * predicates on the decoded tuples, also with NULLs and deleted records.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testPredicatesOnBytesGiveTheSameTuples() throws Exception
+	{
+		AbstractExtensionFactory factory = AbstractExtensionFactory.getExtensionFactory();
+		PageSize pageSize = PageSize.SIZE_4096;
+
+		List<LowLevelPredicate[]> predicates = new ArrayList<LowLevelPredicate[]>();
+		for (Operator op : Operator.values()) {
+			if (op == Operator.UNDETERMINED) {
+				continue;
+			}
+			predicates.add(new LowLevelPredicate[] { new LowLevelPredicate(op, new SmallIntField((short) 3), 0) });
+			predicates.add(new LowLevelPredicate[] { new LowLevelPredicate(op, new IntField(-4), 1) });
+			predicates.add(new LowLevelPredicate[] { new LowLevelPredicate(op, new BigIntField(20L), 2) });
+			predicates.add(new LowLevelPredicate[] { new LowLevelPredicate(op, new VarcharField("name-3"), 3) });
+			predicates.add(new LowLevelPredicate[] { new LowLevelPredicate(op, new VarcharField("name"), 3) });
+			predicates.add(new LowLevelPredicate[] { new LowLevelPredicate(op, new DoubleField(2.5), 4) });
+			predicates.add(new LowLevelPredicate[] { new LowLevelPredicate(op, new IntField(-4), 1),
+					new LowLevelPredicate(Operator.NOT_EQUAL, new VarcharField("name-1"), 3) });
+		}
+
+		for (int variant = 0; variant < 3; variant++) {
+			TableSchema schema = new TableSchema(pageSize);
+			schema.addColumn(ColumnSchema.createColumnSchema("Small", DataType.smallIntType(), true));
+			schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), true));
+			schema.addColumn(ColumnSchema.createColumnSchema("Amount", DataType.bigIntType(), true));
+			schema.addColumn(ColumnSchema.createColumnSchema("Name", DataType.varcharType(20), true));
+			schema.addColumn(ColumnSchema.createColumnSchema("Price", DataType.doubleType(), true));
+			schema.setPageLayout(variant == 0 ? PageLayout.ROW : PageLayout.PAX);
+			schema.getColumn(3).setDictionaryEncoded(variant == 2);
+
+			TablePage page = factory.initTablePage(schema, new byte[pageSize.getNumberOfBytes()], 1);
+			for (int i = 0; i < 40; i++) {
+				DataField[] fields = { new SmallIntField((short) (i % 7)), new IntField(i % 11 - 6),
+						new BigIntField(i), new VarcharField("name-" + (i % 5)), new DoubleField(i % 6 * 0.5) };
+				fields[i % 5] = schema.getColumn(i % 5).getDataType().getNullValue();
+				assertTrue(page.insertTuple(new DataTuple(fields)));
+			}
+			page.deleteTuple(12);
+
+			for (LowLevelPredicate[] preds : predicates) {
+				List<DataTuple> expected = new ArrayList<DataTuple>();
+				for (int i = 0; i < page.getNumRecordsOnPage(); i++) {
+					DataTuple tuple = page.getDataTuple(i, 0x1f, 5);
+					boolean passes = tuple != null;
+					for (int j = 0; passes && j < preds.length; j++) {
+						passes = preds[j].evaluate(tuple);
+					}
+					if (passes) {
+						expected.add(tuple);
+					}
+
+					DataTuple single = page.getDataTuple(preds, i, 0x1f, 5);
+					assertEquals(passes ? tuple : null, single);
+				}
+
+				TupleIterator iter = page.getIterator(preds, 5, 0x1f);
+				for (DataTuple tuple : expected) {
+					assertTrue(iter.hasNext());
+					assertEquals(tuple, iter.next());
+				}
+				assertNull(iter.next());
+			}
+		}
+	}
+
+
+	/**
+	 * Checks that pages of both layouts compile the predicates of single record lookups once for
+	 * all lookups with the same predicates, so that rejected records allocate nothing, and that
+	 * passing other predicates between the lookups gives the tuples of those predicates.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testSingleRecordLookupsCompileOnce() throws Exception
+	{
+		AbstractExtensionFactory factory = AbstractExtensionFactory.getExtensionFactory();
+		LowLevelPredicate[] keys = { new LowLevelPredicate(Operator.SMALLER, new IntField(0), 0) };
+		LowLevelPredicate[] names = { new LowLevelPredicate(Operator.EQUAL, new VarcharField("name-3"), 1) };
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+
+		for (PageLayout layout : PageLayout.values()) {
+			TableSchema schema = new TableSchema(pz);
+			schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+			schema.addColumn(ColumnSchema.createColumnSchema("Name", DataType.varcharType(20), true));
+			schema.setPageLayout(layout);
+
+			TablePage page = factory.initTablePage(schema, new byte[pz.getNumberOfBytes()], 1);
+			int records = 100;
+			for (int i = 0; i < records; i++) {
+				assertTrue(page.insertTuple(new DataTuple(new DataField[] { new IntField(i), new VarcharField("name-" + (i % 10)) })));
+			}
+
+			for (int i = 0; i < records; i++) {
+				assertNull(page.getDataTuple(keys, i, 0x3, 2));
+				DataTuple tuple = page.getDataTuple(names, i, 0x3, 2);
+				assertEquals(layout + ", record " + i, i % 10 == 3, tuple != null);
+				if (tuple != null) {
+					assertEquals(new IntField(i), tuple.getField(0));
+				}
+			}
+
+			long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+			for (int round = 0; round < 100; round++) {
+				for (int i = 0; i < records; i++) {
+					page.getDataTuple(keys, i, 0x3, 2);
+				}
+			}
+
+			double bytesPerLookup = (threads.getThreadAllocatedBytes(thread) - allocatedBefore) / (100.0 * records);
+			assertTrue(layout + ": rejected records must not allocate, " + bytesPerLookup + " B per lookup.",
+					bytesPerLookup < 8);
+		}
+	}
+
+
+	/**
+	 * Scans all pages a few times and checks the sum of the projected columns of the tuples
+	 * that pass the predicate. Returns the bytes the scans allocated per row.
+	 */
+	private static double runScans(boolean onBytes) throws Exception
+	{
+		LowLevelPredicate[] noPreds = new LowLevelPredicate[0];
+		LowLevelPredicate[] preds = { selective };
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+
+		long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+
+		for (int s = 0; s < scansPerRound; s++) {
+			long sum = 0;
+			for (TablePage page : pages) {
+				TupleIterator iter = onBytes ? page.getIterator(preds, 2, projection) :
+						page.getIterator(noPreds, 2, projection);
+				while (iter.hasNext()) {
+					DataTuple tuple = iter.next();
+					// the key is the first column of the projection, where the predicate tests it
+					if (onBytes || selective.evaluate(tuple)) {
+						sum += ((IntField) tuple.getField(0)).getValue() + ((BigIntField) tuple.getField(1)).getValue();
+					}
+				}
+			}
+			assertEquals(expectedSum, sum);
+		}
+
+		long nanos = System.nanoTime() - start;
+		long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+		double bytesPerRow = allocated / (double) (scansPerRound * (long) numTuples);
+
+		System.out.println((onBytes ? "predicates on bytes" : "predicates on tuples") + ": " +
+				String.format("%.1f", bytesPerRow) + " B allocated per row, " +
+				BenchmarkUtils.perSecond(scansPerRound * (long) numTuples, nanos) + " tuples/s");
+		return bytesPerRow;
+	}
+}
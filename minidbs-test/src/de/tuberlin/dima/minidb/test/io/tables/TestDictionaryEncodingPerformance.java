@@ -0,0 +1,316 @@
+package de.tuberlin.dima.minidb.test.io.tables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.BigIntField;
+import de.tuberlin.dima.minidb.core.CharField;
+import de.tuberlin.dima.minidb.core.DataField;
+import de.tuberlin.dima.minidb.core.DataTuple;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.core.IntField;
+import de.tuberlin.dima.minidb.core.VarcharField;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.io.manager.DurabilityMode;
+import de.tuberlin.dima.minidb.io.tables.PageLayout;
+import de.tuberlin.dima.minidb.io.tables.TablePage;
+import de.tuberlin.dima.minidb.io.tables.TableResourceManager;
+import de.tuberlin.dima.minidb.io.tables.TupleIterator;
+import de.tuberlin.dima.minidb.parser.Predicate.Operator;
+import de.tuberlin.dima.minidb.qexec.LowLevelPredicate;
+import de.tuberlin.dima.minidb.qexec.TableScanOperator;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+
+/**
+ * Benchmark for scans with an equality predicate on a string column with few distinct values,
+ * once over PAX pages that store the strings as they are and once over PAX pages that store
+ * them through a page-local dictionary. The pages are held in memory. Reports the number of
+ * pages each table takes and the throughput of the scans.
+ */
+public class TestDictionaryEncodingPerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_8192;
+
+	/**
+	 * Number of tuples in the table.
+	 */
+	private static final int numTuples = 240000;
+
+	/**
+	 * The distinct values of the country column.
+	 */
+	private static final String[] countries = { "Germany", "France", "Netherlands", "Poland", "Austria",
+		"Switzerland", "Denmark", "Belgium", "Czech Republic", "Luxembourg", "Italy", "Spain" };
+
+	/**
+	 * The distinct values of the status column.
+	 */
+	private static final String[] states = { "OPEN", "SHIPPED", "RETURNED", "CLOSED" };
+
+	/**
+	 * Number of scans per round.
+	 */
+	private static final int scansPerRound = 10;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The pages of the table with plain and with dictionary encoded strings.
+	 */
+	private static List<TablePage> plainPages, encodedPages;
+
+
+	/**
+	 * Builds the pages of the table both ways and writes a few infos about the benchmark to
+	 * the console.
+	 */
+	@BeforeClass
+	public static void createPages() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		plainPages = buildPages(createSchema(pz, false));
+		encodedPages = buildPages(createSchema(pz, true));
+
+		System.out.println("");
+		System.out.println("Tuples: " + numTuples + ", distinct countries: " + countries.length +
+				", page size in B: " + pz.getNumberOfBytes());
+		System.out.println("Pages: " + plainPages.size() + " plain, " + encodedPages.size() + " dictionary encoded");
+		System.out.println("");
+
+		assertTrue("Dictionary encoded pages must hold more tuples.", encodedPages.size() < plainPages.size());
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 2)
+	@Test
+	public void testPlainPages() throws Exception
+	{
+		runScans(plainPages, "plain");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 2)
+	@Test
+	public void testDictionaryPages() throws Exception
+	{
+		runScans(encodedPages, "dictionary");
+	}
+
+
+	/**
+	 * Checks that the encoding of the columns is kept in the table header, that the pages give
+	 * the tuples as they were inserted, also with null values, predicates of all kinds and
+	 * reused slots, that records with the same value on a page share the field, and that a
+	 * page which runs out of codes takes no further values.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testEncodedPagesGiveTheInsertedTuples() throws Exception
+	{
+		TableSchema schema = createSchema(PageSize.SIZE_4096, true);
+		File file = File.createTempFile("minidbs-dictionary", ".tbl");
+
+		try {
+			TableResourceManager rm = TableResourceManager.createTable(file, schema, DurabilityMode.DEFERRED);
+			byte[] buffer = new byte[schema.getPageSize().getNumberOfBytes()];
+			List<DataTuple> tuples = new ArrayList<DataTuple>();
+
+			TablePage page = rm.reserveNewPage(buffer);
+			for (int i = 0; i < 2000; i++) {
+				DataTuple tuple = createTuple(i);
+				if (i % 11 == 0) {
+					tuple.assignDataField(DataType.varcharType(20).getNullValue(), 1);
+				}
+				tuples.add(tuple);
+				if (!page.insertTuple(tuple)) {
+					rm.writePageToResource(buffer, page);
+					page = rm.reserveNewPage(buffer);
+					assertTrue(page.insertTuple(tuple));
+				}
+			}
+			rm.writePageToResource(buffer, page);
+			rm.closeResource();
+
+			rm = TableResourceManager.openTable(file);
+			assertTrue(rm.getSchema().getColumn(1).isDictionaryEncoded());
+			assertTrue(rm.getSchema().getColumn(2).isDictionaryEncoded());
+			assertEquals(PageLayout.PAX, rm.getSchema().getPageLayout());
+
+			Config config = Config.getDefaultConfig();
+			BufferPoolManager bpm = BenchmarkUtils.startBufferPool(config, "Dictionary", rm);
+
+			assertEquals(tuples, scan(bpm, rm, new int[] { 0, 1, 2, 3 }, new LowLevelPredicate[0]));
+
+			// an equality, a range and an inequality on the encoded columns
+			LowLevelPredicate equal = new LowLevelPredicate(Operator.EQUAL, new VarcharField("France"), 1);
+			LowLevelPredicate range = new LowLevelPredicate(Operator.SMALLER, new VarcharField("Denmark"), 1);
+			LowLevelPredicate notClosed = new LowLevelPredicate(Operator.NOT_EQUAL, new CharField("CLOSED"), 2);
+			LowLevelPredicate[][] predicates = { { equal }, { range }, { notClosed, range } };
+
+			for (LowLevelPredicate[] preds : predicates) {
+				List<DataTuple> expected = new ArrayList<DataTuple>();
+				for (DataTuple tuple : tuples) {
+					boolean qualifies = true;
+					for (LowLevelPredicate pred : preds) {
+						qualifies &= pred.evaluateWithNull(tuple.getField(pred.getColumnIndex()));
+					}
+					if (qualifies) {
+						expected.add(new DataTuple(new DataField[] { tuple.getField(0), tuple.getField(2) }));
+					}
+				}
+				assertTrue(expected.size() > 0);
+				assertEquals(expected, scan(bpm, rm, new int[] { 0, 2 }, preds));
+			}
+
+			// records with the same value share the field, so grouping compares them by reference
+			int first = rm.getFirstDataPageNumber();
+			page = (TablePage) bpm.getPageAndPin(0, first);
+			assertSame(page.getDataTuple(1, 0x2, 1).getField(0), page.getDataTuple(1 + countries.length, 0x2, 1).getField(0));
+
+			// a deleted slot takes a value that is new to the page
+			page.deleteTuple(3);
+			assertNull(page.getDataTuple(3, 0xf, 4));
+			DataTuple replacement = new DataTuple(new DataField[] { new IntField(-3), new VarcharField("Portugal"),
+					new CharField("LOST"), new BigIntField(-3L) });
+			assertEquals(3, page.insertTupleReusingSlot(replacement));
+			assertEquals(replacement, page.getDataTuple(3, 0xf, 4));
+			bpm.unpinPage(0, first);
+
+			bpm.closeBufferPool();
+			rm.closeResource();
+		} finally {
+			file.delete();
+		}
+
+		// a column with more distinct values than codes spreads over more pages
+		AbstractExtensionFactory factory = AbstractExtensionFactory.getExtensionFactory();
+		TablePage page = factory.initTablePage(schema, new byte[PageSize.SIZE_4096.getNumberOfBytes()], 1);
+		int inserted = 0;
+		while (page.insertTuple(new DataTuple(new DataField[] { new IntField(inserted), new VarcharField("v" + inserted),
+				new CharField("OPEN"), new BigIntField(inserted) }))) {
+			inserted++;
+		}
+		assertTrue(inserted <= 255);
+
+		page = factory.createTablePage(schema, page.getBuffer());
+		TupleIterator iter = page.getIterator(new LowLevelPredicate[0], 2, 0x3);
+		for (int i = 0; i < inserted; i++) {
+			assertEquals(new DataTuple(new DataField[] { new IntField(i), new VarcharField("v" + i) }), iter.next());
+		}
+		assertTrue(!iter.hasNext());
+	}
+
+
+	/**
+	 * Scans all pages a few times with an equality predicate on the country and counts the
+	 * qualifying tuples per status.
+	 */
+	private static void runScans(List<TablePage> pages, String encoding) throws Exception
+	{
+		LowLevelPredicate[] preds = { new LowLevelPredicate(Operator.EQUAL, new VarcharField("Poland"), 1) };
+		long start = System.nanoTime();
+
+		for (int s = 0; s < scansPerRound; s++) {
+			int count = 0;
+			for (TablePage page : pages) {
+				TupleIterator iter = page.getIterator(preds, 2, 0x6);
+				while (iter.hasNext()) {
+					iter.next();
+					count++;
+				}
+			}
+			assertEquals(numTuples / countries.length, count);
+		}
+
+		long nanos = System.nanoTime() - start;
+		System.out.println(encoding + ": " + BenchmarkUtils.perSecond(scansPerRound * (long) numTuples, nanos) + " tuples/s");
+	}
+
+	/**
+	 * Creates the schema of the table in the PAX layout, with the two string columns encoded or not.
+	 */
+	private static TableSchema createSchema(PageSize pageSize, boolean encoded)
+	{
+		TableSchema schema = new TableSchema(pageSize);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		schema.addColumn(ColumnSchema.createColumnSchema("Country", DataType.varcharType(20), true));
+		schema.addColumn(ColumnSchema.createColumnSchema("Status", DataType.charType(8), false));
+		schema.addColumn(ColumnSchema.createColumnSchema("Amount", DataType.bigIntType(), false));
+		schema.getColumn(1).setDictionaryEncoded(encoded);
+		schema.getColumn(2).setDictionaryEncoded(encoded);
+		schema.setPageLayout(PageLayout.PAX);
+		return schema;
+	}
+
+	/**
+	 * Builds the pages of the table for the given schema.
+	 */
+	private static List<TablePage> buildPages(TableSchema schema) throws Exception
+	{
+		AbstractExtensionFactory factory = AbstractExtensionFactory.getExtensionFactory();
+		List<TablePage> pages = new ArrayList<TablePage>();
+		TablePage page = factory.initTablePage(schema, new byte[pz.getNumberOfBytes()], 1);
+		pages.add(page);
+
+		for (int i = 0; i < numTuples; i++) {
+			DataTuple tuple = createTuple(i);
+			if (!page.insertTuple(tuple)) {
+				page = factory.initTablePage(schema, new byte[pz.getNumberOfBytes()], pages.size() + 1);
+				pages.add(page);
+				page.insertTuple(tuple);
+			}
+		}
+		return pages;
+	}
+
+	private static DataTuple createTuple(int i)
+	{
+		return new DataTuple(new DataField[] { new IntField(i), new VarcharField(countries[i % countries.length]),
+				new CharField(states[i % states.length]), new BigIntField(i * 100L) });
+	}
+
+	/**
+	 * Scans the table with a table scan operator and returns the tuples.
+	 */
+	private static List<DataTuple> scan(BufferPoolManager bpm, TableResourceManager rm, int[] columns,
+			LowLevelPredicate[] preds) throws Exception
+	{
+		TableScanOperator scan = AbstractExtensionFactory.getExtensionFactory().createTableScanOperator(
+				bpm, rm, 0, columns, preds, 4);
+
+		List<DataTuple> result = new ArrayList<DataTuple>();
+		scan.open(null);
+		DataTuple tuple;
+		while ((tuple = scan.next()) != null) {
+			result.add(tuple);
+		}
+		scan.close();
+		return result;
+	}
+}
@@ -0,0 +1,276 @@
+package de.tuberlin.dima.minidb.test.io.tables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataField;
+import de.tuberlin.dima.minidb.core.DataTuple;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.core.IntField;
+import de.tuberlin.dima.minidb.io.cache.CacheableData;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.DurabilityMode;
+import de.tuberlin.dima.minidb.io.manager.G5BufferPoolManager;
+import de.tuberlin.dima.minidb.io.manager.G5CacheMetrics;
+import de.tuberlin.dima.minidb.io.tables.TablePage;
+import de.tuberlin.dima.minidb.io.tables.TableResourceManager;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+
+/**
+ * Benchmark for direct I/O against reads through the operating system's page cache, at equal
+ * total memory. With buffered I/O, a page the buffer pool holds is usually held by the page
+ * cache as well, so the buffer pool gets half of the memory and the page cache the other half.
+ * With direct I/O, the buffer pool gets all of it. Skewed random requests then go through the
+ * buffer pool, and the benchmark reports the hit ratio of the pool, the throughput and the
+ * latency of the reads that miss it.
+ * <p>
+ * The page cache cannot be limited from here, so the buffered run may find pages in the page
+ * cache that a real system with the same memory would have to read from the device.
+ */
+public class TestDirectIOPerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * Number of pages in the table.
+	 */
+	private static final int numPages = 8192;
+
+	/**
+	 * The memory for caching pages, in pages.
+	 */
+	private static final int memoryPages = 2048;
+
+	/**
+	 * The share of the requests that go to the hot pages, and the share of the pages that are hot, in percent.
+	 */
+	private static final int hotRequestPercent = 80, hotPagePercent = 20;
+
+	/**
+	 * Number of page requests per round.
+	 */
+	private static final int numRequests = 20000;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The schema of the table.
+	 */
+	private static TableSchema schema;
+
+	/**
+	 * The table file that is read.
+	 */
+	private static File tableFile;
+
+
+	/**
+	 * Creates the table file and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void createTable() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+
+		tableFile = File.createTempFile("minidbs-direct", ".tbl");
+		TableResourceManager rm = TableResourceManager.createTable(tableFile, schema, DurabilityMode.DEFERRED);
+
+		byte[][] buffers = new byte[32][pz.getNumberOfBytes()];
+		CacheableData[] pages = new CacheableData[buffers.length];
+		for (int i = 0; i < numPages; i += buffers.length) {
+			for (int k = 0; k < buffers.length; k++) {
+				pages[k] = rm.reserveNewPage(buffers[k]);
+			}
+			rm.writePagesToResource(buffers, pages);
+		}
+		rm.closeResource();
+
+		System.out.println("");
+		System.out.println("Table pages: " + numPages + ", memory: " + memoryPages + " pages, requests: " +
+				numRequests + ", " + hotRequestPercent + "% of them to " + hotPagePercent + "% of the pages");
+		System.out.println("");
+	}
+
+	@AfterClass
+	public static void deleteTable()
+	{
+		tableFile.delete();
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testBufferedIO() throws Exception
+	{
+		double hitRatio = runRequests(false, memoryPages / 2);
+
+		assertTrue("Half the memory cannot hold the hot pages.", hitRatio < 0.5);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testDirectIO() throws Exception
+	{
+		double hitRatio = runRequests(true, memoryPages);
+
+		assertTrue("All the memory must hold the hot pages.", hitRatio > 0.6);
+	}
+
+
+	/**
+	 * Checks that pages written with direct I/O read back through the file channel, and the
+	 * other way round, and that the metadata at the start of the file is not disturbed.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testDirectPagesMatchChannelPages() throws Exception
+	{
+		File file = File.createTempFile("minidbs-direct", ".tbl");
+
+		try {
+			TableResourceManager rm = TableResourceManager.createTable(file, schema, DurabilityMode.DEFERRED);
+			enableDirectIO(rm, file);
+
+			int first = rm.getFirstDataPageNumber();
+			byte[][] buffers = new byte[4][pz.getNumberOfBytes()];
+			CacheableData[] pages = new CacheableData[buffers.length];
+
+			// a single page and a sequence of pages, both written directly
+			TablePage page = rm.reserveNewPage(buffers[0]);
+			page.insertTuple(new DataTuple(new DataField[] { new IntField(first) }));
+			rm.writePageToResource(buffers[0], page);
+
+			for (int k = 0; k < buffers.length; k++) {
+				page = rm.reserveNewPage(buffers[k]);
+				page.insertTuple(new DataTuple(new DataField[] { new IntField(page.getPageNumber()) }));
+				pages[k] = page;
+			}
+			rm.writePagesToResource(buffers, pages);
+			rm.closeResource();
+
+			// read them through the channel, and write one page through it
+			rm = TableResourceManager.openTable(file);
+			assertEquals(first + buffers.length, rm.getLastDataPageNumber());
+
+			for (int i = first; i <= rm.getLastDataPageNumber(); i++)
+				assertKey(rm.readPageFromResource(buffers[0], i), i);
+
+			page = rm.readPageFromResource(buffers[0], first);
+			page.insertTuple(new DataTuple(new DataField[] { new IntField(-1) }));
+			rm.writePageToResource(buffers[0], page);
+			rm.closeResource();
+
+			// and read all of them back directly
+			rm = TableResourceManager.openTable(file);
+			enableDirectIO(rm, file);
+
+			TablePage[] read = rm.readPagesFromResource(buffers, first + 1);
+			for (int k = 0; k < read.length; k++)
+				assertKey(read[k], first + 1 + k);
+
+			page = rm.readPageFromResource(buffers[0], first);
+			assertEquals(2, page.getNumRecordsOnPage());
+			assertEquals(new IntField(-1), page.getDataTuple(1, 1, 1).getField(0));
+			rm.closeResource();
+		} finally {
+			file.delete();
+		}
+	}
+
+
+	/**
+	 * Requests random pages through a fresh buffer pool with a cache of the given size, and
+	 * returns the hit ratio of the cache.
+	 */
+	private static double runRequests(boolean direct, int cacheSize) throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setMaxReadAheadPages(0);
+		config.setBufferPoolMetricsEnabled(true);
+		config.setCacheSize(pz, cacheSize);
+
+		G5BufferPoolManager bpm = (G5BufferPoolManager) BenchmarkUtils.startBufferPool(config, "DirectIO");
+
+		TableResourceManager rm = TableResourceManager.openTable(tableFile);
+		if (direct) {
+			enableDirectIO(rm, tableFile);
+		}
+		bpm.registerResource(0, rm);
+
+		Random rnd = new Random(42);
+		int first = rm.getFirstDataPageNumber();
+		int hotPages = numPages * hotPagePercent / 100;
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < numRequests; i++) {
+			int offset = rnd.nextInt(100) < hotRequestPercent ?
+					rnd.nextInt(hotPages) : hotPages + rnd.nextInt(numPages - hotPages);
+
+			bpm.getPageAndPin(0, first + offset);
+			bpm.unpinPage(0, first + offset);
+		}
+
+		long nanos = System.nanoTime() - start;
+
+		G5CacheMetrics metrics = bpm.getMetrics().getCacheMetrics(pz);
+		double hitRatio = metrics.getHitRatio();
+
+		System.out.println((direct ? "direct" : "buffered") + ", cache of " + cacheSize + " pages: hit ratio " +
+				String.format("%.3f", hitRatio) + ", " + BenchmarkUtils.perSecond(numRequests, nanos) +
+				" requests/s, " + metrics.getReadLatencyMeanMicros() + " us per read");
+
+		bpm.closeBufferPool();
+		rm.closeResource();
+
+		return hitRatio;
+	}
+
+	/**
+	 * Enables direct I/O, or skips the test if the file system of the temporary files does not
+	 * support it.
+	 */
+	private static void enableDirectIO(TableResourceManager rm, File file) throws IOException
+	{
+		try {
+			rm.enableDirectIO(file, DurabilityMode.DEFERRED);
+		} catch (IOException ioex) {
+			rm.closeResource();
+			Assume.assumeNoException(ioex);
+		}
+	}
+
+	private static void assertKey(TablePage page, int key) throws Exception
+	{
+		assertEquals(1, page.getNumRecordsOnPage());
+		assertEquals(new IntField(key), page.getDataTuple(0, 1, 1).getField(0));
+	}
+}
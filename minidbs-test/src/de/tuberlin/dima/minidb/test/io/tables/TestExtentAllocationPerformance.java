@@ -0,0 +1,197 @@
+package de.tuberlin.dima.minidb.test.io.tables;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataField;
+import de.tuberlin.dima.minidb.core.DataTuple;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.core.IntField;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.DurabilityMode;
+import de.tuberlin.dima.minidb.io.tables.TablePage;
+import de.tuberlin.dima.minidb.io.tables.TableResourceManager;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+
+/**
+ * Benchmark for loading a table page by page, once growing the file with every page and once
+ * into extents that are allocated ahead of the pages. Reports the time of the load, including
+ * the sync at its end, and of a scan of the loaded table.
+ */
+public class TestExtentAllocationPerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * Number of pages loaded into the table.
+	 */
+	private static final int numPages = 8192;
+
+	/**
+	 * Number of pages in an extent.
+	 */
+	private static final int extentPages = 64;
+
+	/**
+	 * Number of pages read with one call by the scan.
+	 */
+	private static final int pagesPerRead = 32;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The schema of the tables.
+	 */
+	private static TableSchema schema;
+
+
+	/**
+	 * Creates the schema and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void benchmarkInfos() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+
+		System.out.println("");
+		System.out.println("Table pages: " + numPages + ", page size in B: " + pz.getNumberOfBytes() +
+				", extent: " + extentPages + " pages");
+		System.out.println("");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testPageByPage() throws Exception
+	{
+		runLoadAndScan(1);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testExtents() throws Exception
+	{
+		runLoadAndScan(extentPages);
+	}
+
+
+	/**
+	 * Checks that the file is extended by whole extents, that the preallocated pages do not
+	 * count as data, also after the table was reopened, and that truncating resets the space.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testHighWaterMarkIsKeptApartFromFileLength() throws Exception
+	{
+		File file = File.createTempFile("minidbs-extent", ".tbl");
+		int extent = 16, written = 20;
+
+		try {
+			TableResourceManager rm = TableResourceManager.createTable(file, schema, DurabilityMode.DEFERRED);
+			rm.enableExtentAllocation(extent);
+			int first = rm.getFirstDataPageNumber();
+
+			byte[] buffer = new byte[pz.getNumberOfBytes()];
+			for (int i = 0; i < written; i++) {
+				TablePage page = rm.reserveNewPage(buffer);
+				page.insertTuple(new DataTuple(new DataField[] { new IntField(i) }));
+				rm.writePageToResource(buffer, page);
+			}
+
+			assertEquals(first + written - 1, rm.getLastDataPageNumber());
+			assertEquals("The file must end at the first extent boundary after the last page.",
+					((first + written - 1) / extent + 1) * extent, file.length() / pz.getNumberOfBytes());
+			rm.closeResource();
+
+			// the allocated pages beyond the last written one are no data pages
+			rm = TableResourceManager.openTable(file);
+			rm.enableExtentAllocation(extent);
+			assertEquals(first + written - 1, rm.getLastDataPageNumber());
+
+			TablePage page = rm.reserveNewPage(buffer);
+			assertEquals(first + written, page.getPageNumber());
+			rm.writePageToResource(buffer, page);
+			assertEquals(first, rm.readPageFromResource(buffer, first).getPageNumber());
+
+			rm.truncate();
+			assertEquals(first - 1, rm.getLastDataPageNumber());
+			page = rm.reserveNewPage(buffer);
+			rm.writePageToResource(buffer, page);
+			assertEquals(extent, file.length() / pz.getNumberOfBytes());
+			rm.closeResource();
+		} finally {
+			file.delete();
+		}
+	}
+
+
+	/**
+	 * Loads the pages into a new table, one page per write, and scans them.
+	 */
+	private static void runLoadAndScan(int extent) throws Exception
+	{
+		File file = File.createTempFile("minidbs-extent", ".tbl");
+
+		try {
+			TableResourceManager rm = TableResourceManager.createTable(file, schema, DurabilityMode.DEFERRED);
+			rm.enableExtentAllocation(extent);
+
+			byte[] buffer = new byte[pz.getNumberOfBytes()];
+			DataTuple tuple = new DataTuple(new DataField[] { new IntField(42) });
+
+			long start = System.nanoTime();
+
+			for (int i = 0; i < numPages; i++) {
+				TablePage page = rm.reserveNewPage(buffer);
+				page.insertTuple(tuple);
+				rm.writePageToResource(buffer, page);
+			}
+			rm.sync();
+
+			long loadNanos = System.nanoTime() - start;
+			rm.closeResource();
+
+			rm = TableResourceManager.openTable(file);
+			byte[][] buffers = new byte[pagesPerRead][pz.getNumberOfBytes()];
+			int read = 0;
+
+			start = System.nanoTime();
+
+			for (int p = rm.getFirstDataPageNumber(); p <= rm.getLastDataPageNumber(); p += pagesPerRead) {
+				read += rm.readPagesFromResource(buffers, p).length;
+			}
+
+			long scanNanos = System.nanoTime() - start;
+			rm.closeResource();
+
+			assertEquals(numPages, read);
+
+			System.out.println((extent > 1 ? "extents" : "page by page") + ": load " + loadNanos / numPages / 1000 +
+					" us per page, scan " + BenchmarkUtils.perSecond(read, scanNanos) + " pages/s");
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,324 @@
+package de.tuberlin.dima.minidb.test.io.tables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.BigIntField;
+import de.tuberlin.dima.minidb.core.DataField;
+import de.tuberlin.dima.minidb.core.DataTuple;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.core.IntField;
+import de.tuberlin.dima.minidb.core.RID;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.index.BTreeIndex;
+import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.io.manager.DurabilityMode;
+import de.tuberlin.dima.minidb.io.tables.FreeSpaceMap;
+import de.tuberlin.dima.minidb.io.tables.TablePage;
+import de.tuberlin.dima.minidb.io.tables.TableResourceManager;
+import de.tuberlin.dima.minidb.io.tables.TupleRIDIterator;
+import de.tuberlin.dima.minidb.qexec.InsertOperator;
+import de.tuberlin.dima.minidb.qexec.LowLevelPredicate;
+import de.tuberlin.dima.minidb.qexec.PhysicalPlanOperator;
+import de.tuberlin.dima.minidb.qexec.TableScanOperator;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+import de.tuberlin.dima.minidb.test.qexec.MockPlanOperator;
+
+
+/**
+ * Benchmark for a table that is churned by deletes and inserts, once with inserts that append
+ * to the table and once with inserts that fill the slots of deleted records, found through the
+ * table's free-space map. Reports how far the table grew and the time to scan it afterwards.
+ */
+public class TestFreeSpaceMapPerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * Number of tuples in the table.
+	 */
+	private static final int numTuples = 100000;
+
+	/**
+	 * Number of rounds of deletes and inserts.
+	 */
+	private static final int churnRounds = 5;
+
+	/**
+	 * The share of the tuples deleted and inserted again per round, in percent.
+	 */
+	private static final int churnPercent = 30;
+
+	/**
+	 * The id of the table resource.
+	 */
+	private static final int resourceId = 0;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The schema of the tables.
+	 */
+	private static TableSchema schema;
+
+
+	/**
+	 * Creates the schema and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void benchmarkInfos() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		schema.addColumn(ColumnSchema.createColumnSchema("Value", DataType.bigIntType(), false));
+
+		System.out.println("");
+		System.out.println("Tuples: " + numTuples + ", rounds: " + churnRounds + ", " + churnPercent +
+				"% of the tuples deleted and inserted per round");
+		System.out.println("");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testAppendingInserts() throws Exception
+	{
+		double growth = runChurn(false);
+
+		assertTrue("Appending inserts must grow the table.", growth > 1.5);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testFreeSpaceMap() throws Exception
+	{
+		double growth = runChurn(true);
+
+		assertTrue("Inserts must fill the freed slots rather than grow the table.", growth < 1.05);
+	}
+
+
+	/**
+	 * Checks that an insert fills the slots a delete freed, that the map survives closing and
+	 * reopening the table, and that no tuple is lost or duplicated on the way.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testFreedSlotsAreReused() throws Exception
+	{
+		File file = File.createTempFile("minidbs-fsm", ".tbl");
+
+		try {
+			int lastPage = load(file, 3000);
+
+			BufferPoolManager bpm = createBufferPool();
+			TableResourceManager rm = TableResourceManager.openTable(file);
+			FreeSpaceMap map = rm.enableFreeSpaceMap(file);
+			bpm.registerResource(resourceId, rm);
+
+			int first = rm.getFirstDataPageNumber();
+			assertEquals(0, map.getFreeSlots(first));
+
+			// free ten slots on the first page, and fill them again
+			List<DataTuple> rids = new ArrayList<DataTuple>();
+			for (int i = 0; i < 10; i++) {
+				rids.add(new DataTuple(new DataField[] { new RID(first, 3 * i) }));
+			}
+			assertEquals(10, runOperator(AbstractExtensionFactory.getExtensionFactory().createDeleteOperator(bpm, rm, resourceId, new MockPlanOperator(rids))));
+			assertEquals(10, map.getFreeSlots(first));
+
+			assertEquals(10, insert(bpm, rm, 10, -1));
+			assertEquals(lastPage, rm.getLastDataPageNumber());
+			assertEquals(0, map.getFreeSlots(first));
+
+			// free slots on the last page, which the map keeps over a restart
+			rids.clear();
+			for (int i = 0; i < 5; i++) {
+				rids.add(new DataTuple(new DataField[] { new RID(lastPage, i) }));
+			}
+			runOperator(AbstractExtensionFactory.getExtensionFactory().createDeleteOperator(bpm, rm, resourceId, new MockPlanOperator(rids)));
+			int freeOnLastPage = map.getFreeSlots(lastPage);
+
+			bpm.closeBufferPool();
+			rm.closeResource();
+			assertTrue(FreeSpaceMap.getMapFile(file).exists());
+
+			bpm = createBufferPool();
+			rm = TableResourceManager.openTable(file);
+			map = rm.enableFreeSpaceMap(file);
+			bpm.registerResource(resourceId, rm);
+
+			assertEquals(freeOnLastPage, map.getFreeSlots(lastPage));
+			assertEquals(lastPage, map.findPageWithFreeSlots());
+
+			assertEquals(3000, scan(bpm, rm) + 5);
+			bpm.closeBufferPool();
+			rm.closeResource();
+		} finally {
+			file.delete();
+			FreeSpaceMap.getMapFile(file).delete();
+		}
+	}
+
+
+	/**
+	 * Loads the table, churns it, scans it, and returns how much the table grew.
+	 */
+	private static double runChurn(boolean useMap) throws Exception
+	{
+		File file = File.createTempFile("minidbs-fsm", ".tbl");
+
+		try {
+			int initialLastPage = load(file, numTuples);
+
+			BufferPoolManager bpm = createBufferPool();
+			TableResourceManager rm = TableResourceManager.openTable(file);
+			if (useMap) {
+				rm.enableFreeSpaceMap(file);
+			}
+			bpm.registerResource(resourceId, rm);
+
+			int first = rm.getFirstDataPageNumber();
+			int initialPages = initialLastPage - first + 1;
+			Random rnd = new Random(42);
+			int nextKey = numTuples;
+
+			long start = System.nanoTime();
+
+			for (int round = 0; round < churnRounds; round++) {
+				// pick the tuples to delete among the live ones
+				List<DataTuple> rids = new ArrayList<DataTuple>();
+				for (int p = first; p <= rm.getLastDataPageNumber(); p++) {
+					TablePage page = (TablePage) bpm.getPageAndPin(resourceId, p);
+					TupleRIDIterator iter = page.getIteratorWithRID();
+					while (iter.hasNext()) {
+						RID rid = iter.next().getSecond();
+						if (rnd.nextInt(100) < churnPercent) {
+							rids.add(new DataTuple(new DataField[] { rid }));
+						}
+					}
+					bpm.unpinPage(resourceId, p);
+				}
+
+				runOperator(AbstractExtensionFactory.getExtensionFactory().createDeleteOperator(bpm, rm, resourceId, new MockPlanOperator(rids)));
+				insert(bpm, rm, rids.size(), nextKey);
+				nextKey += rids.size();
+			}
+
+			long churnNanos = System.nanoTime() - start;
+			start = System.nanoTime();
+
+			int count = scan(bpm, rm);
+
+			long scanNanos = System.nanoTime() - start;
+			int pages = rm.getLastDataPageNumber() - first + 1;
+
+			bpm.closeBufferPool();
+			rm.closeResource();
+
+			assertEquals(numTuples, count);
+
+			System.out.println((useMap ? "free-space map" : "appending") + ": " + initialPages + " -> " + pages +
+					" pages, churn " + churnNanos / 1000000 + " ms, scan " + scanNanos / 1000000 + " ms");
+
+			return pages / (double) initialPages;
+		} finally {
+			file.delete();
+			FreeSpaceMap.getMapFile(file).delete();
+		}
+	}
+
+	/**
+	 * Writes a new table with the given number of tuples, filling every page, and returns the
+	 * number of its last page.
+	 */
+	private static int load(File file, int count) throws Exception
+	{
+		TableResourceManager rm = TableResourceManager.createTable(file, schema, DurabilityMode.DEFERRED);
+		BenchmarkUtils.fillTable(rm, count, i -> createTuple(i));
+
+		int last = rm.getLastDataPageNumber();
+		rm.closeResource();
+		return last;
+	}
+
+	/**
+	 * Inserts the given number of tuples with an insert operator and returns the count it reports.
+	 */
+	private static long insert(BufferPoolManager bpm, TableResourceManager rm, int count, int firstKey) throws Exception
+	{
+		List<DataTuple> tuples = new ArrayList<DataTuple>(count);
+		for (int i = 0; i < count; i++) {
+			tuples.add(createTuple(firstKey + i));
+		}
+
+		InsertOperator insert = AbstractExtensionFactory.getExtensionFactory().createInsertOperator(
+				bpm, rm, resourceId, new BTreeIndex[0], new int[0], new MockPlanOperator(tuples));
+		return runOperator(insert);
+	}
+
+	/**
+	 * Scans the table and returns the number of tuples in it.
+	 */
+	private static int scan(BufferPoolManager bpm, TableResourceManager rm) throws Exception
+	{
+		TableScanOperator scan = AbstractExtensionFactory.getExtensionFactory().createTableScanOperator(
+				bpm, rm, resourceId, new int[] { 0 }, new LowLevelPredicate[0], 16);
+
+		int count = 0;
+		scan.open(null);
+		while (scan.next() != null) {
+			count++;
+		}
+		scan.close();
+		return count;
+	}
+
+	/**
+	 * Runs an insert or delete operator and returns the number of tuples it reports.
+	 */
+	private static long runOperator(PhysicalPlanOperator operator) throws Exception
+	{
+		operator.open(null);
+		DataTuple result = operator.next();
+		operator.close();
+		return result == null ? 0 : ((BigIntField) result.getField(0)).getValue();
+	}
+
+	private static BufferPoolManager createBufferPool() throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		BufferPoolManager bpm = BenchmarkUtils.startBufferPool(config, "FreeSpaceMap");
+		return bpm;
+	}
+
+	private static DataTuple createTuple(int key)
+	{
+		return new DataTuple(new DataField[] { new IntField(key), new BigIntField(key * 31L) });
+	}
+}
@@ -0,0 +1,148 @@
+package de.tuberlin.dima.minidb.test.io.tables;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.io.cache.CacheableData;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.DurabilityMode;
+import de.tuberlin.dima.minidb.io.tables.TablePage;
+import de.tuberlin.dima.minidb.io.tables.TableResourceManager;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+
+/**
+ * Benchmark for scanning a table file, once through the file channel and once from a memory
+ * mapping of the file. Reports the throughput and the CPU time spent per page.
+ */
+public class TestMappedReadPerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * Number of pages in the table.
+	 */
+	private static final int numPages = 8192;
+
+	/**
+	 * Number of pages read with one call.
+	 */
+	private static final int pagesPerRead = 32;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The table file that is scanned.
+	 */
+	private static File tableFile;
+
+
+	/**
+	 * Creates the table file and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void createTable() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		TableSchema schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+
+		tableFile = File.createTempFile("minidbs-mapped", ".tbl");
+		TableResourceManager rm = TableResourceManager.createTable(tableFile, schema, DurabilityMode.DEFERRED);
+
+		byte[][] buffers = new byte[pagesPerRead][pz.getNumberOfBytes()];
+		CacheableData[] pages = new CacheableData[pagesPerRead];
+		for (int i = 0; i < numPages; i += pagesPerRead) {
+			for (int k = 0; k < pagesPerRead; k++) {
+				pages[k] = rm.reserveNewPage(buffers[k]);
+			}
+			rm.writePagesToResource(buffers, pages);
+		}
+		rm.closeResource();
+
+		System.out.println("");
+		System.out.println("Table pages: " + numPages + ", page size in B: " + pz.getNumberOfBytes());
+		System.out.println("Pages per read: " + pagesPerRead);
+		System.out.println("");
+	}
+
+	@AfterClass
+	public static void deleteTable()
+	{
+		tableFile.delete();
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 2)
+	@Test
+	public void testChannelReads() throws Exception
+	{
+		runScan(false);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 2)
+	@Test
+	public void testMappedReads() throws Exception
+	{
+		runScan(true);
+	}
+
+
+	/**
+	 * Reads all pages of the table in sequence.
+	 */
+	private void runScan(boolean mapped) throws Exception
+	{
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+		TableResourceManager rm = TableResourceManager.openTable(tableFile);
+		if (mapped) {
+			rm.enableMappedReads();
+		}
+
+		byte[][] buffers = new byte[pagesPerRead][pz.getNumberOfBytes()];
+		int first = rm.getFirstDataPageNumber();
+		int read = 0;
+
+		long cpuStart = threads.getCurrentThreadCpuTime();
+		long start = System.nanoTime();
+
+		for (int p = first; p + pagesPerRead - 1 <= rm.getLastDataPageNumber(); p += pagesPerRead) {
+			TablePage[] pages = rm.readPagesFromResource(buffers, p);
+			assertEquals(p, pages[0].getPageNumber());
+			read += pages.length;
+		}
+
+		long nanos = System.nanoTime() - start;
+		long cpu = threads.getCurrentThreadCpuTime() - cpuStart;
+		rm.closeResource();
+
+		assertEquals(numPages, read);
+
+		System.out.println((mapped ? "mapped" : "channel") + ": " + BenchmarkUtils.perSecond(read, nanos) + " pages/s, " +
+				(cpu / read) + " ns CPU per page");
+	}
+}
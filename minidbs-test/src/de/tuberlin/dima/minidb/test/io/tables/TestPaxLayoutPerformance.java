@@ -0,0 +1,301 @@
+package de.tuberlin.dima.minidb.test.io.tables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.BigIntField;
+import de.tuberlin.dima.minidb.core.DataField;
+import de.tuberlin.dima.minidb.core.DataTuple;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.core.IntField;
+import de.tuberlin.dima.minidb.core.RID;
+import de.tuberlin.dima.minidb.core.VarcharField;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.io.manager.DurabilityMode;
+import de.tuberlin.dima.minidb.io.tables.PageLayout;
+import de.tuberlin.dima.minidb.io.tables.TablePage;
+import de.tuberlin.dima.minidb.io.tables.TableResourceManager;
+import de.tuberlin.dima.minidb.io.tables.TupleIterator;
+import de.tuberlin.dima.minidb.io.tables.TupleRIDIterator;
+import de.tuberlin.dima.minidb.parser.Predicate.Operator;
+import de.tuberlin.dima.minidb.qexec.LowLevelPredicate;
+import de.tuberlin.dima.minidb.qexec.TableScanOperator;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+import de.tuberlin.dima.minidb.util.Pair;
+
+
+/**
+ * Benchmark for scans that project few columns of a wide table, once over row pages and once
+ * over pages in the PAX layout. The pages are held in memory, so the benchmark measures the
+ * cost of getting the values out of the pages, which for row pages means touching every
+ * record and for PAX pages only the mini-pages of the projected columns.
+ */
+public class TestPaxLayoutPerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_8192;
+
+	/**
+	 * Number of columns of the wide table, half of them int and half of them bigint.
+	 */
+	private static final int numColumns = 32;
+
+	/**
+	 * Number of tuples in the wide table.
+	 */
+	private static final int numTuples = 200000;
+
+	/**
+	 * The columns the scans project, two of the wide table.
+	 */
+	private static final long projection = (1L << 3) | (1L << 20);
+
+	/**
+	 * Number of scans per round.
+	 */
+	private static final int scansPerRound = 10;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The pages of the wide table in both layouts.
+	 */
+	private static List<TablePage> rowPages, paxPages;
+
+	/**
+	 * The sum of the projected columns over all tuples.
+	 */
+	private static long expectedSum;
+
+
+	/**
+	 * Builds the pages of the wide table in both layouts and writes a few infos about the
+	 * benchmark to the console.
+	 */
+	@BeforeClass
+	public static void createPages() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		rowPages = buildWidePages(PageLayout.ROW);
+		paxPages = buildWidePages(PageLayout.PAX);
+
+		for (int i = 0; i < numTuples; i++) {
+			expectedSum += getValue(i, 3) + getValue(i, 20);
+		}
+
+		System.out.println("");
+		System.out.println("Tuples: " + numTuples + ", columns: " + numColumns + ", projected: " +
+				Long.bitCount(projection) + ", page size in B: " + pz.getNumberOfBytes());
+		System.out.println("Pages: " + rowPages.size() + " in row layout, " + paxPages.size() + " in PAX layout");
+		System.out.println("");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 2)
+	@Test
+	public void testRowPages() throws Exception
+	{
+		runScans(rowPages, "row");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 2)
+	@Test
+	public void testPaxPages() throws Exception
+	{
+		runScans(paxPages, "PAX");
+	}
+
+
+	/**
+	 * Checks that a table created with the PAX layout keeps it after it was reopened, and
+	 * that its pages give the same tuples as row pages, also with variable-length and null
+	 * values, predicates, deleted records and reused slots.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testPaxPagesMatchRowPages() throws Exception
+	{
+		TableSchema schema = new TableSchema(PageSize.SIZE_4096);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		schema.addColumn(ColumnSchema.createColumnSchema("Name", DataType.varcharType(20), true));
+		schema.addColumn(ColumnSchema.createColumnSchema("Value", DataType.bigIntType(), false));
+		schema.setPageLayout(PageLayout.PAX);
+
+		File file = File.createTempFile("minidbs-pax", ".tbl");
+
+		try {
+			TableResourceManager rm = TableResourceManager.createTable(file, schema, DurabilityMode.DEFERRED);
+			byte[] buffer = new byte[schema.getPageSize().getNumberOfBytes()];
+			List<DataTuple> tuples = new ArrayList<DataTuple>();
+
+			TablePage page = rm.reserveNewPage(buffer);
+			for (int i = 0; i < 500; i++) {
+				DataTuple tuple = new DataTuple(new DataField[] { new IntField(i),
+						i % 7 == 0 ? DataType.varcharType(20).getNullValue() : new VarcharField("name-" + i), new BigIntField(i * 1000L) });
+				tuples.add(tuple);
+				if (!page.insertTuple(tuple)) {
+					rm.writePageToResource(buffer, page);
+					page = rm.reserveNewPage(buffer);
+					assertTrue(page.insertTuple(tuple));
+				}
+			}
+			rm.writePageToResource(buffer, page);
+			rm.closeResource();
+
+			// the layout is kept in the table header
+			rm = TableResourceManager.openTable(file);
+			assertEquals(PageLayout.PAX, rm.getSchema().getPageLayout());
+
+			Config config = Config.getDefaultConfig();
+			BufferPoolManager bpm = BenchmarkUtils.startBufferPool(config, "PAX", rm);
+
+			// all tuples, and two columns in another order for the upper half of the keys
+			assertEquals(tuples, scan(bpm, rm, new int[] { 0, 1, 2 }, new LowLevelPredicate[0]));
+
+			List<DataTuple> expected = new ArrayList<DataTuple>();
+			for (DataTuple tuple : tuples) {
+				if (((IntField) tuple.getField(0)).getValue() >= 250) {
+					expected.add(new DataTuple(new DataField[] { tuple.getField(2), tuple.getField(1) }));
+				}
+			}
+			LowLevelPredicate pred = new LowLevelPredicate(Operator.GREATER_OR_EQUAL, new IntField(250), 0);
+			assertEquals(expected, scan(bpm, rm, new int[] { 2, 1 }, new LowLevelPredicate[] { pred }));
+
+			// delete a record, and fill its slot again
+			int first = rm.getFirstDataPageNumber();
+			page = (TablePage) bpm.getPageAndPin(0, first);
+			int records = page.getNumRecordsOnPage();
+			int free = page.getNumFreeSlots();
+
+			page.deleteTuple(5);
+			assertNull(page.getDataTuple(5, 0x7, 3));
+			assertEquals(free + 1, page.getNumFreeSlots());
+
+			TupleRIDIterator rids = page.getIteratorWithRID();
+			int live = 0;
+			while (rids.hasNext()) {
+				Pair<DataTuple, RID> next = rids.next();
+				assertEquals(tuples.get(next.getSecond().getTupleIndex()), next.getFirst());
+				live++;
+			}
+			assertEquals(records - 1, live);
+
+			DataTuple replacement = new DataTuple(new DataField[] { new IntField(-5), new VarcharField("new"), new BigIntField(-5L) });
+			assertEquals(5, page.insertTupleReusingSlot(replacement));
+			assertEquals(replacement, page.getDataTuple(5, 0x7, 3));
+			assertEquals(records, page.getNumRecordsOnPage());
+			bpm.unpinPage(0, first);
+
+			bpm.closeBufferPool();
+			rm.closeResource();
+		} finally {
+			file.delete();
+		}
+	}
+
+
+	/**
+	 * Scans all pages a few times, projecting two columns, and checks the sum of their values.
+	 */
+	private static void runScans(List<TablePage> pages, String layout) throws Exception
+	{
+		LowLevelPredicate[] noPreds = new LowLevelPredicate[0];
+		long start = System.nanoTime();
+
+		for (int s = 0; s < scansPerRound; s++) {
+			long sum = 0;
+			for (TablePage page : pages) {
+				TupleIterator iter = page.getIterator(noPreds, 2, projection);
+				while (iter.hasNext()) {
+					DataTuple tuple = iter.next();
+					sum += ((IntField) tuple.getField(0)).getValue() + ((BigIntField) tuple.getField(1)).getValue();
+				}
+			}
+			assertEquals(expectedSum, sum);
+		}
+
+		long nanos = System.nanoTime() - start;
+		System.out.println(layout + ": " + BenchmarkUtils.perSecond(scansPerRound * (long) numTuples, nanos) + " tuples/s");
+	}
+
+	/**
+	 * Builds the pages of the wide table in the given layout.
+	 */
+	private static List<TablePage> buildWidePages(PageLayout layout) throws Exception
+	{
+		TableSchema schema = new TableSchema(pz);
+		for (int c = 0; c < numColumns; c++) {
+			DataType type = c < numColumns / 2 ? DataType.intType() : DataType.bigIntType();
+			schema.addColumn(ColumnSchema.createColumnSchema("C" + c, type, false));
+		}
+		schema.setPageLayout(layout);
+
+		AbstractExtensionFactory factory = AbstractExtensionFactory.getExtensionFactory();
+		List<TablePage> pages = new ArrayList<TablePage>();
+		TablePage page = factory.initTablePage(schema, new byte[pz.getNumberOfBytes()], 1);
+		pages.add(page);
+
+		for (int i = 0; i < numTuples; i++) {
+			DataField[] fields = new DataField[numColumns];
+			for (int c = 0; c < numColumns; c++) {
+				fields[c] = c < numColumns / 2 ? new IntField((int) getValue(i, c)) : new BigIntField(getValue(i, c));
+			}
+			DataTuple tuple = new DataTuple(fields);
+
+			if (!page.insertTuple(tuple)) {
+				page = factory.initTablePage(schema, new byte[pz.getNumberOfBytes()], pages.size() + 1);
+				pages.add(page);
+				page.insertTuple(tuple);
+			}
+		}
+		return pages;
+	}
+
+	private static long getValue(int tuple, int column)
+	{
+		return (tuple * 31L + column) % 100000;
+	}
+
+	/**
+	 * Scans the table with a table scan operator and returns the tuples.
+	 */
+	private static List<DataTuple> scan(BufferPoolManager bpm, TableResourceManager rm, int[] columns,
+			LowLevelPredicate[] preds) throws Exception
+	{
+		TableScanOperator scan = AbstractExtensionFactory.getExtensionFactory().createTableScanOperator(
+				bpm, rm, 0, columns, preds, 4);
+
+		List<DataTuple> result = new ArrayList<DataTuple>();
+		scan.open(null);
+		DataTuple tuple;
+		while ((tuple = scan.next()) != null) {
+			result.add(tuple);
+		}
+		scan.close();
+		return result;
+	}
+}
@@ -0,0 +1,274 @@
+package de.tuberlin.dima.minidb.test.io.tables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.BigIntField;
+import de.tuberlin.dima.minidb.core.DataField;
+import de.tuberlin.dima.minidb.core.DataTuple;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.core.IntField;
+import de.tuberlin.dima.minidb.core.VarcharField;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.manager.BufferPoolManager;
+import de.tuberlin.dima.minidb.io.manager.DurabilityMode;
+import de.tuberlin.dima.minidb.io.tables.PageLayout;
+import de.tuberlin.dima.minidb.io.tables.TablePage;
+import de.tuberlin.dima.minidb.io.tables.TableResourceManager;
+import de.tuberlin.dima.minidb.io.tables.TupleIterator;
+import de.tuberlin.dima.minidb.parser.OutputColumn.AggregationType;
+import de.tuberlin.dima.minidb.parser.Predicate.Operator;
+import de.tuberlin.dima.minidb.qexec.GroupByOperator;
+import de.tuberlin.dima.minidb.qexec.LowLevelPredicate;
+import de.tuberlin.dima.minidb.qexec.TableScanOperator;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+
+
+/**
+ * Benchmark for full scans over table pages that sum two columns, once with a new tuple and
+ * new fields for every row and once with one tuple that the iterators refill in place. Reports
+ * the bytes allocated per row and the throughput of the scans.
+ */
+public class TestTupleReusePerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_8192;
+
+	/**
+	 * Number of tuples in the table.
+	 */
+	private static final int numTuples = 500000;
+
+	/**
+	 * The columns the scans project, the int and the bigint column.
+	 */
+	private static final long projection = 0x5;
+
+	/**
+	 * Number of scans per round.
+	 */
+	private static final int scansPerRound = 10;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The pages of the table.
+	 */
+	private static List<TablePage> pages;
+
+	/**
+	 * The sum of the projected columns over all tuples.
+	 */
+	private static long expectedSum;
+
+
+	/**
+	 * Builds the pages of the table and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void createPages() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		TableSchema schema = createSchema(pz, PageLayout.ROW);
+		AbstractExtensionFactory factory = AbstractExtensionFactory.getExtensionFactory();
+		pages = new ArrayList<TablePage>();
+		TablePage page = factory.initTablePage(schema, new byte[pz.getNumberOfBytes()], 1);
+		pages.add(page);
+
+		for (int i = 0; i < numTuples; i++) {
+			DataTuple tuple = createTuple(i);
+			expectedSum += i + i * 3L;
+			if (!page.insertTuple(tuple)) {
+				page = factory.initTablePage(schema, new byte[pz.getNumberOfBytes()], pages.size() + 1);
+				pages.add(page);
+				page.insertTuple(tuple);
+			}
+		}
+
+		System.out.println("");
+		System.out.println("Tuples: " + numTuples + " on " + pages.size() + " pages, projected columns: " +
+				Long.bitCount(projection));
+		System.out.println("");
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 2)
+	@Test
+	public void testNewTuples() throws Exception
+	{
+		runScans(false);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 2)
+	@Test
+	public void testReusedTuples() throws Exception
+	{
+		// less than one object per few rows, new tuples take a tuple and a field per column
+		assertTrue("Scans that reuse the tuple must hardly allocate.", runScans(true) < 8);
+	}
+
+
+	/**
+	 * Checks that iterators in reuse mode return the same tuple and refill its fields, that
+	 * they give the same values as iterators with new tuples on both page layouts, also with
+	 * predicates, null values and deleted records, and that a group by over a reusing table
+	 * scan computes the right aggregates.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testReusedTuplesGiveTheSameValues() throws Exception
+	{
+		AbstractExtensionFactory factory = AbstractExtensionFactory.getExtensionFactory();
+		LowLevelPredicate[] noPreds = new LowLevelPredicate[0];
+		LowLevelPredicate[] preds = { new LowLevelPredicate(Operator.GREATER_OR_EQUAL, new BigIntField(150L), 2) };
+
+		for (PageLayout layout : PageLayout.values()) {
+			TableSchema schema = createSchema(PageSize.SIZE_4096, layout);
+			TablePage page = factory.initTablePage(schema, new byte[PageSize.SIZE_4096.getNumberOfBytes()], 1);
+			for (int i = 0; i < 60; i++) {
+				DataTuple tuple = createTuple(i);
+				if (i % 9 == 0) {
+					tuple.assignDataField(DataType.varcharType(20).getNullValue(), 1);
+				}
+				assertTrue(page.insertTuple(tuple));
+			}
+			page.deleteTuple(7);
+
+			for (LowLevelPredicate[] p : new LowLevelPredicate[][] { noPreds, preds }) {
+				TupleIterator expected = page.getIterator(p, 3, 0x7);
+				DataTuple reuse = new DataTuple(3);
+				TupleIterator reusing = page.getIterator(p, 3, 0x7, reuse);
+
+				DataField firstKey = null;
+				int count = 0;
+				while (expected.hasNext()) {
+					assertTrue(reusing.hasNext());
+					DataTuple tuple = reusing.next();
+					assertSame(reuse, tuple);
+					assertEquals(expected.next(), tuple);
+					if (firstKey == null) {
+						firstKey = tuple.getField(0);
+					}
+					assertSame("The int field must be refilled in place.", firstKey, tuple.getField(0));
+					count++;
+				}
+				assertNull(reusing.next());
+				assertEquals(p == noPreds ? 59 : 10, count);
+			}
+		}
+
+		// a group by without grouping columns over a scan that reuses its tuple
+		TableSchema schema = createSchema(PageSize.SIZE_4096, PageLayout.ROW);
+		File file = File.createTempFile("minidbs-reuse", ".tbl");
+
+		try {
+			TableResourceManager rm = TableResourceManager.createTable(file, schema, DurabilityMode.DEFERRED);
+			BenchmarkUtils.fillTable(rm, 5000, i -> createTuple((i * 7919) % 5000));
+
+			Config config = Config.getDefaultConfig();
+			BufferPoolManager bpm = BenchmarkUtils.startBufferPool(config, "Reuse", rm);
+
+			TableScanOperator scan = factory.createTableScanOperator(bpm, rm, 0, new int[] { 0, 2 }, noPreds, 4);
+			scan.setReuseTuples(true);
+
+			GroupByOperator groupBy = factory.createGroupByOperator(scan, new int[0], new int[] { 0, 0, 1, 0 },
+					new AggregationType[] { AggregationType.MIN, AggregationType.MAX, AggregationType.SUM, AggregationType.COUNT },
+					new DataType[] { DataType.intType(), DataType.intType(), DataType.bigIntType(), DataType.intType() },
+					new int[] { -1, -1, -1, -1 }, new int[] { 0, 1, 2, 3 });
+
+			groupBy.open(null);
+			DataTuple result = groupBy.next();
+			assertEquals(new DataTuple(new DataField[] { new IntField(0), new IntField(4999),
+					new BigIntField(3L * 4999 * 5000 / 2), new IntField(5000) }), result);
+			assertNull(groupBy.next());
+			groupBy.close();
+
+			bpm.closeBufferPool();
+			rm.closeResource();
+		} finally {
+			file.delete();
+		}
+	}
+
+
+	/**
+	 * Scans all pages a few times and checks the sum of the projected columns. Returns the
+	 * bytes the scans allocated per row.
+	 */
+	private static double runScans(boolean reuseTuples) throws Exception
+	{
+		LowLevelPredicate[] noPreds = new LowLevelPredicate[0];
+		DataTuple reuse = new DataTuple(2);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+
+		long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+
+		for (int s = 0; s < scansPerRound; s++) {
+			long sum = 0;
+			for (TablePage page : pages) {
+				TupleIterator iter = reuseTuples ? page.getIterator(noPreds, 2, projection, reuse) :
+						page.getIterator(noPreds, 2, projection);
+				while (iter.hasNext()) {
+					DataTuple tuple = iter.next();
+					sum += ((IntField) tuple.getField(0)).getValue() + ((BigIntField) tuple.getField(1)).getValue();
+				}
+			}
+			assertEquals(expectedSum, sum);
+		}
+
+		long nanos = System.nanoTime() - start;
+		long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+		double bytesPerRow = allocated / (double) (scansPerRound * (long) numTuples);
+
+		System.out.println((reuseTuples ? "reused tuples" : "new tuples") + ": " +
+				String.format("%.1f", bytesPerRow) + " B allocated per row, " +
+				BenchmarkUtils.perSecond(scansPerRound * (long) numTuples, nanos) + " tuples/s");
+		return bytesPerRow;
+	}
+
+	/**
+	 * Creates the schema of the table in the given layout.
+	 */
+	private static TableSchema createSchema(PageSize pageSize, PageLayout layout)
+	{
+		TableSchema schema = new TableSchema(pageSize);
+		schema.addColumn(ColumnSchema.createColumnSchema("Key", DataType.intType(), false));
+		schema.addColumn(ColumnSchema.createColumnSchema("Name", DataType.varcharType(20), true));
+		schema.addColumn(ColumnSchema.createColumnSchema("Amount", DataType.bigIntType(), false));
+		schema.setPageLayout(layout);
+		return schema;
+	}
+
+	private static DataTuple createTuple(int i)
+	{
+		return new DataTuple(new DataField[] { new IntField(i), new VarcharField("name-" + (i % 10)),
+				new BigIntField(i * 3L) });
+	}
+}
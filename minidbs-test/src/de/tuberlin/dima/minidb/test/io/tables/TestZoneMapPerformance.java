@@ -0,0 +1,365 @@
+package de.tuberlin.dima.minidb.test.io.tables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import de.tuberlin.dima.minidb.Config;
+import de.tuberlin.dima.minidb.api.AbstractExtensionFactory;
+import de.tuberlin.dima.minidb.catalogue.ColumnSchema;
+import de.tuberlin.dima.minidb.catalogue.TableSchema;
+import de.tuberlin.dima.minidb.core.BigIntField;
+import de.tuberlin.dima.minidb.core.DataField;
+import de.tuberlin.dima.minidb.core.DataTuple;
+import de.tuberlin.dima.minidb.core.DataType;
+import de.tuberlin.dima.minidb.core.IntField;
+import de.tuberlin.dima.minidb.core.VarcharField;
+import de.tuberlin.dima.minidb.io.cache.PageSize;
+import de.tuberlin.dima.minidb.io.index.BTreeIndex;
+import de.tuberlin.dima.minidb.io.manager.DurabilityMode;
+import de.tuberlin.dima.minidb.io.manager.G5BufferPoolManager;
+import de.tuberlin.dima.minidb.io.tables.TablePage;
+import de.tuberlin.dima.minidb.io.tables.TableResourceManager;
+import de.tuberlin.dima.minidb.io.tables.ZoneMap;
+import de.tuberlin.dima.minidb.parser.Predicate.Operator;
+import de.tuberlin.dima.minidb.qexec.InsertOperator;
+import de.tuberlin.dima.minidb.qexec.LowLevelPredicate;
+import de.tuberlin.dima.minidb.qexec.TableScanOperator;
+import de.tuberlin.dima.minidb.test.io.BenchmarkUtils;
+import de.tuberlin.dima.minidb.test.qexec.MockPlanOperator;
+
+
+/**
+ * Benchmark for a selective scan over time-ordered data, once reading every page and once
+ * skipping the pages whose zones rule out the predicate. Reports the time of the scan and
+ * the number of pages it read from the table file.
+ */
+public class TestZoneMapPerformance
+{
+	/**
+	 * The page size used in the benchmark.
+	 */
+	private static final PageSize pz = PageSize.SIZE_4096;
+
+	/**
+	 * Number of tuples in the table, ordered by their time.
+	 */
+	private static final int numTuples = 200000;
+
+	/**
+	 * The share of the tuples the scan selects, in percent.
+	 */
+	private static final int selectedPercent = 1;
+
+	/**
+	 * The id of the table resource.
+	 */
+	private static final int resourceId = 0;
+
+	/**
+	 * Mark test as benchmark.
+	 */
+	@Rule
+	public MethodRule benchmarkRun = new BenchmarkRule();
+
+	/**
+	 * The schema of the table.
+	 */
+	private static TableSchema schema;
+
+	/**
+	 * The table file that is scanned.
+	 */
+	private static File tableFile;
+
+
+	/**
+	 * Creates the table, with its zone map, and writes a few infos about the benchmark to the console.
+	 */
+	@BeforeClass
+	public static void createTable() throws Exception
+	{
+		AbstractExtensionFactory.initializeDefault();
+
+		schema = new TableSchema(pz);
+		schema.addColumn(ColumnSchema.createColumnSchema("Time", DataType.bigIntType(), false));
+		schema.addColumn(ColumnSchema.createColumnSchema("Sensor", DataType.intType(), false));
+		schema.addColumn(ColumnSchema.createColumnSchema("Reading", DataType.bigIntType(), true));
+
+		tableFile = File.createTempFile("minidbs-zones", ".tbl");
+		TableResourceManager rm = TableResourceManager.createTable(tableFile, schema, DurabilityMode.DEFERRED);
+		rm.enableZoneMap(tableFile);
+
+		int pages = BenchmarkUtils.fillTable(rm, numTuples, i -> createTuple(i));
+		rm.closeResource();
+
+		System.out.println("");
+		System.out.println("Tuples: " + numTuples + " on " + pages + " pages, selected: " + selectedPercent + "%");
+		System.out.println("");
+	}
+
+	@AfterClass
+	public static void deleteTable()
+	{
+		tableFile.delete();
+		ZoneMap.getMapFile(tableFile).delete();
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testFullScan() throws Exception
+	{
+		runScan(false);
+	}
+
+	@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+	@Test
+	public void testZoneMapScan() throws Exception
+	{
+		runScan(true);
+	}
+
+
+	/**
+	 * Checks the ranges predicates may match, that the zones stay correct when tuples are
+	 * inserted into cached pages and when pages are created anew, and that the map survives
+	 * closing and reopening the table.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testPagesWithMatchesAreNeverSkipped() throws Exception
+	{
+		LowLevelPredicate smaller = new LowLevelPredicate(Operator.SMALLER, new IntField(10), 1);
+		assertTrue(smaller.mayMatchRange(new IntField(9), new IntField(20)));
+		assertFalse(smaller.mayMatchRange(new IntField(10), new IntField(20)));
+		LowLevelPredicate equal = new LowLevelPredicate(Operator.EQUAL, new IntField(10), 1);
+		assertTrue(equal.mayMatchRange(new IntField(10), new IntField(10)));
+		assertFalse(equal.mayMatchRange(new IntField(11), new IntField(20)));
+		LowLevelPredicate notEqual = new LowLevelPredicate(Operator.NOT_EQUAL, new IntField(10), 1);
+		assertFalse(notEqual.mayMatchRange(new IntField(10), new IntField(10)));
+		assertTrue(notEqual.mayMatchRange(new IntField(10), new IntField(11)));
+		LowLevelPredicate greaterOrEqual = new LowLevelPredicate(Operator.GREATER_OR_EQUAL, new IntField(10), 1);
+		assertTrue(greaterOrEqual.mayMatchRange(new IntField(1), new IntField(10)));
+		assertFalse(greaterOrEqual.mayMatchRange(new IntField(1), new IntField(9)));
+
+		File file = File.createTempFile("minidbs-zones", ".tbl");
+
+		try {
+			TableResourceManager rm = TableResourceManager.createTable(file, schema, DurabilityMode.DEFERRED);
+			ZoneMap map = rm.enableZoneMap(file);
+			int first = rm.getFirstDataPageNumber();
+
+			// one page of readings that are all null, written with its zone
+			byte[] buffer = new byte[pz.getNumberOfBytes()];
+			TablePage page = rm.reserveNewPage(buffer);
+			for (int i = 0; i < 100; i++) {
+				page.insertTuple(new DataTuple(new DataField[] { new BigIntField(i), new IntField(i % 10),
+						DataType.bigIntType().getNullValue() }));
+			}
+			rm.writePageToResource(buffer, page);
+
+			LowLevelPredicate[] late = { new LowLevelPredicate(Operator.GREATER_OR_EQUAL, new BigIntField(1000), 0) };
+			LowLevelPredicate[] anyReading = { new LowLevelPredicate(Operator.GREATER_OR_EQUAL, new BigIntField(Long.MIN_VALUE + 1), 2) };
+			assertFalse(map.mayMatch(first, late));
+			assertFalse("A column of only nulls satisfies no predicate.", map.mayMatch(first, anyReading));
+			assertTrue(map.mayHaveNulls(first, 2));
+			assertFalse(map.mayHaveNulls(first, 1));
+
+			// a page that was created, but not written yet, is never skipped
+			page = rm.reserveNewPage(buffer);
+			assertTrue(map.mayMatch(page.getPageNumber(), late));
+			rm.closeResource();
+
+			// inserts into the cached first page widen its zone, and the scan finds them
+			Config config = Config.getDefaultConfig();
+			G5BufferPoolManager bpm = (G5BufferPoolManager) BenchmarkUtils.startBufferPool(config, "ZoneMap");
+			rm = TableResourceManager.openTable(file);
+			map = rm.enableZoneMap(file);
+			assertFalse("The zones must be kept over a restart.", map.mayMatch(first, late));
+			bpm.registerResource(resourceId, rm);
+
+			assertEquals(0, scan(bpm, rm, late).size());
+
+			List<DataTuple> tuples = new ArrayList<DataTuple>();
+			tuples.add(createTuple(5000));
+			InsertOperator insert = AbstractExtensionFactory.getExtensionFactory().createInsertOperator(
+					bpm, rm, resourceId, new BTreeIndex[0], new int[0], new MockPlanOperator(tuples));
+			insert.open(null);
+			insert.next();
+			insert.close();
+
+			assertTrue(map.mayMatch(first, late));
+			assertEquals(tuples, scan(bpm, rm, late));
+
+			bpm.closeBufferPool();
+			rm.closeResource();
+		} finally {
+			file.delete();
+			ZoneMap.getMapFile(file).delete();
+		}
+	}
+
+	/**
+	 * Checks that writing bytes copied from a page before a tuple was inserted keeps the zone
+	 * of that tuple, and that a map that changed since it was written leaves no file behind,
+	 * so that a table that is not closed cleanly starts without zones.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testStaleZonesAreNeverUsed() throws Exception
+	{
+		File file = File.createTempFile("minidbs-zones", ".tbl");
+		File mapFile = ZoneMap.getMapFile(file);
+
+		try {
+			TableResourceManager rm = TableResourceManager.createTable(file, schema, DurabilityMode.DEFERRED);
+			ZoneMap map = rm.enableZoneMap(file);
+			int first = rm.getFirstDataPageNumber();
+			LowLevelPredicate[] late = { new LowLevelPredicate(Operator.GREATER_OR_EQUAL, new BigIntField(1000), 0) };
+
+			byte[] buffer = new byte[pz.getNumberOfBytes()];
+			TablePage page = rm.reserveNewPage(buffer);
+			for (int i = 0; i < 100; i++) {
+				page.insertTuple(createTuple(i));
+			}
+			rm.writePageToResource(buffer, page);
+			rm.sync();
+			assertFalse(ZoneMap.read(mapFile, schema, first).mayMatch(first, late));
+
+			// the page is copied for a write, and a tuple is inserted before the copy is written
+			byte[] copy = buffer.clone();
+			DataTuple tuple = createTuple(5000);
+			page.insertTuple(tuple);
+			map.include(first, tuple);
+			assertFalse("A changed map must not leave its file behind.", mapFile.exists());
+			assertTrue(ZoneMap.read(mapFile, schema, first).mayMatch(first, late));
+
+			rm.writePageToResource(copy, page);
+			assertTrue("Writing older bytes must keep the zone of newer tuples.", map.mayMatch(first, late));
+
+			rm.closeResource();
+			assertTrue(ZoneMap.read(mapFile, schema, first).mayMatch(first, late));
+		} finally {
+			file.delete();
+			mapFile.delete();
+		}
+	}
+
+	/**
+	 * Checks that predicates decide on the sign of a comparison only. Strings compare to other
+	 * magnitudes than -1, 0 and 1, and must still pass range predicates and range tests, for
+	 * single fields as well as for arrays of them.
+	 */
+	@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+	@Test
+	public void testPredicatesUseTheSignOfComparisons() throws Exception
+	{
+		VarcharField literal = new VarcharField("m");
+		DataField[] fields = { new VarcharField("a"), literal, new VarcharField("z") };
+		Operator[] ops = { Operator.EQUAL, Operator.NOT_EQUAL, Operator.SMALLER,
+				Operator.SMALLER_OR_EQUAL, Operator.GREATER, Operator.GREATER_OR_EQUAL };
+		boolean[][] expected = {
+				{ false, true, false }, { true, false, true }, { true, false, false },
+				{ true, true, false }, { false, false, true }, { false, true, true } };
+
+		for (int o = 0; o < ops.length; o++) {
+			LowLevelPredicate pred = new LowLevelPredicate(ops[o], literal, 0);
+			boolean[] result = new boolean[fields.length];
+			boolean[] resultWithNull = new boolean[fields.length];
+			pred.evaluate(fields, result);
+			pred.evaluateWithNull(fields, resultWithNull);
+
+			for (int i = 0; i < fields.length; i++) {
+				String msg = fields[i] + " " + ops[o] + " " + literal;
+				assertEquals(msg, expected[o][i], pred.evaluate(fields[i]));
+				assertEquals(msg, expected[o][i], pred.evaluateWithNull(fields[i]));
+				assertEquals(msg, expected[o][i], result[i]);
+				assertEquals(msg, expected[o][i], resultWithNull[i]);
+			}
+
+			// ranges below, around and above the literal
+			String msg = ops[o] + " " + literal;
+			assertEquals(msg, expected[o][0], pred.mayMatchRange(fields[0], new VarcharField("b")));
+			assertEquals(msg, expected[o][2], pred.mayMatchRange(new VarcharField("y"), fields[2]));
+			assertTrue(msg, pred.mayMatchRange(fields[0], fields[2]));
+		}
+	}
+
+
+	/**
+	 * Scans the table with a predicate on the time through a fresh buffer pool and checks the
+	 * result.
+	 */
+	private static void runScan(boolean useZoneMap) throws Exception
+	{
+		Config config = Config.getDefaultConfig();
+		config.setBufferPoolMetricsEnabled(true);
+
+		G5BufferPoolManager bpm = (G5BufferPoolManager) BenchmarkUtils.startBufferPool(config, "ZoneMap");
+
+		TableResourceManager rm = TableResourceManager.openTable(tableFile);
+		if (useZoneMap) {
+			rm.enableZoneMap(tableFile);
+		}
+		bpm.registerResource(resourceId, rm);
+
+		long bound = numTuples / 100 * selectedPercent;
+		LowLevelPredicate[] preds = { new LowLevelPredicate(Operator.SMALLER, new BigIntField(bound), 0) };
+
+		long start = System.nanoTime();
+		int count = scan(bpm, rm, preds).size();
+		long nanos = System.nanoTime() - start;
+
+		long pagesRead = bpm.getMetrics().getCacheMetrics(pz).getPagesRead();
+		int pages = rm.getLastDataPageNumber() - rm.getFirstDataPageNumber() + 1;
+
+		bpm.closeBufferPool();
+		rm.closeResource();
+
+		assertEquals(bound, count);
+		if (useZoneMap) {
+			assertTrue("The scan must skip the pages without matches.", pagesRead < pages / 10);
+		}
+
+		System.out.println((useZoneMap ? "zone map" : "full scan") + ": " + pagesRead + " of " + pages +
+				" pages read, " + nanos / 1000000 + " ms");
+	}
+
+	/**
+	 * Scans the table with a table scan operator and returns the tuples.
+	 */
+	private static List<DataTuple> scan(G5BufferPoolManager bpm, TableResourceManager rm, LowLevelPredicate[] preds)
+			throws Exception
+	{
+		TableScanOperator scan = AbstractExtensionFactory.getExtensionFactory().createTableScanOperator(
+				bpm, rm, resourceId, new int[] { 0, 1, 2 }, preds, 16);
+
+		List<DataTuple> result = new ArrayList<DataTuple>();
+		scan.open(null);
+		DataTuple tuple;
+		while ((tuple = scan.next()) != null) {
+			result.add(tuple);
+		}
+		scan.close();
+		return result;
+	}
+
+	private static DataTuple createTuple(int time)
+	{
+		return new DataTuple(new DataField[] { new BigIntField(time), new IntField(time % 100),
+				new BigIntField(time * 7L) });
+	}
+}